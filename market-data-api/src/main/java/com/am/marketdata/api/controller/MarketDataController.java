@@ -267,6 +267,13 @@ public class MarketDataController {
         try {
             log.info("Controller received request to search symbols with page={}, size={}, symbol={}, type={}, exchange={}", 
                     page, size, symbol, type, exchange);
+
+            if (page < 0 || size < 1) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Invalid page");
+                errorResponse.put("message", "Page must be 0 or more and size at least 1");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
             
             // Delegate to the service for business logic
             Map<String, Object> response = investmentInstrumentService.searchInstruments(page, size, symbol, type, exchange);
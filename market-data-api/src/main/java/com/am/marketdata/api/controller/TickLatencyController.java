@@ -0,0 +1,56 @@
+package com.am.marketdata.api.controller;
+
+import com.marketdata.service.tick.StageLatency;
+import com.marketdata.service.tick.TickLatencyRecorder;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller exposing tick path latency percentiles per stage
+ */
+@RestController
+@RequestMapping("/api/v1/ticks/latency")
+@Tag(name = "Tick Latency", description = "APIs for inspecting where tick-to-client latency is spent")
+public class TickLatencyController {
+
+    private final TickLatencyRecorder latencyRecorder;
+
+    public TickLatencyController(TickLatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * Get latency percentiles from websocket receipt to each stage
+     * @param window "interval" for the last completed interval, "total" for everything since startup
+     * @return Percentiles per stage in microseconds
+     */
+    @GetMapping
+    @Operation(summary = "Get tick latency percentiles per stage")
+    public ResponseEntity<Object> getLatencies(
+            @Parameter(description = "interval or total")
+            @RequestParam(value = "window", required = false, defaultValue = "interval") String window) {
+        List<StageLatency> latencies;
+        if ("interval".equalsIgnoreCase(window)) {
+            latencies = latencyRecorder.getIntervalLatencies();
+        } else if ("total".equalsIgnoreCase(window)) {
+            latencies = latencyRecorder.getTotalLatencies();
+        } else {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", "Unknown window " + window + ", expected interval or total");
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(latencies);
+    }
+}
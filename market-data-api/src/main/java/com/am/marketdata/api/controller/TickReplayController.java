@@ -0,0 +1,107 @@
+package com.am.marketdata.api.controller;
+
+import com.marketdata.service.replay.ReplayStatus;
+import com.marketdata.service.replay.TickReplayService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for replaying journaled ticks through the live tick pipeline
+ */
+@RestController
+@RequestMapping("/api/v1/ticks/replay")
+@Tag(name = "Tick Replay", description = "APIs for replaying recorded ticks for load tests and backtests")
+public class TickReplayController {
+
+    private static final Logger log = LoggerFactory.getLogger(TickReplayController.class);
+    private final TickReplayService tickReplayService;
+
+    public TickReplayController(TickReplayService tickReplayService) {
+        this.tickReplayService = tickReplayService;
+    }
+
+    /**
+     * Start replaying a recorded trading day
+     * @param day Trading day (yyyy-MM-dd)
+     * @param from First IST time to replay (HH:mm[:ss]), optional
+     * @param to IST time to stop at (HH:mm[:ss]), optional
+     * @param speed Multiple of the recorded pace, or "max"
+     * @return Replay status
+     */
+    @PostMapping
+    @Operation(summary = "Start a tick replay", description = "Replay a recorded day at 1x, Nx or max speed")
+    public ResponseEntity<Object> start(
+            @Parameter(description = "Trading day", required = true)
+            @RequestParam("day") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day,
+            @Parameter(description = "First IST time to replay")
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime from,
+            @Parameter(description = "IST time to stop at")
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime to,
+            @Parameter(description = "Multiple of the recorded pace, or max")
+            @RequestParam(value = "speed", required = false, defaultValue = "1") String speed) {
+        try {
+            double multiple = "max".equalsIgnoreCase(speed) ? TickReplayService.MAX_SPEED : Double.parseDouble(speed);
+            return ResponseEntity.ok(tickReplayService.start(day, from, to, multiple));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn("Rejected tick replay of {}: {}", day, e.getMessage());
+            return ResponseEntity.badRequest().body(error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error starting tick replay of {}: {}", day, e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(error(e.getMessage()));
+        }
+    }
+
+    /**
+     * @return Status of the running or last replay
+     */
+    @GetMapping
+    @Operation(summary = "Get tick replay status")
+    public ResponseEntity<ReplayStatus> getStatus() {
+        return ResponseEntity.ok(tickReplayService.getStatus());
+    }
+
+    /**
+     * Stop the running replay
+     * @return Replay status
+     */
+    @DeleteMapping
+    @Operation(summary = "Stop the running tick replay")
+    public ResponseEntity<ReplayStatus> stop() {
+        tickReplayService.stop();
+        return ResponseEntity.ok(tickReplayService.getStatus());
+    }
+
+    /**
+     * @return Days with recorded ticks
+     */
+    @GetMapping("/days")
+    @Operation(summary = "List days available for replay")
+    public ResponseEntity<List<LocalDate>> getAvailableDays() {
+        try {
+            return ResponseEntity.ok(tickReplayService.getAvailableDays());
+        } catch (Exception e) {
+            log.error("Error listing recorded tick days: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", message);
+        return response;
+    }
+}
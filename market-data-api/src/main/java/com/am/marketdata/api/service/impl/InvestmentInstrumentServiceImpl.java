@@ -4,6 +4,7 @@ import com.am.common.investment.model.equity.EquityPrice;
 import com.am.common.investment.model.equity.Instrument;
 import com.am.common.investment.model.historical.HistoricalData;
 import com.am.marketdata.api.service.InvestmentInstrumentService;
+import com.am.marketdata.service.InstrumentPage;
 import com.am.marketdata.service.MarketDataService;
 
 import io.micrometer.core.instrument.MeterRegistry;
@@ -127,21 +128,10 @@ public class InvestmentInstrumentServiceImpl implements InvestmentInstrumentServ
             
             long startTime = System.currentTimeMillis();
             
-            // Get paginated symbols
-            List<Instrument> instruments = marketDataService.getSymbolPagination(page, size, symbol, type, exchange);
-        
-            // Get total count for pagination
-            List<Instrument> allInstruments = marketDataService.getAllSymbols();
-            long totalCount = allInstruments.stream()
-                .filter(instrument -> symbol == null || symbol.isEmpty() || 
-                    instrument.getTradingSymbol().toLowerCase().contains(symbol.toLowerCase()))
-                .filter(instrument -> type == null || type.isEmpty() || 
-                    (instrument.getInstrumentType() != null && 
-                     instrument.getInstrumentType().toString().equalsIgnoreCase(type)))
-                .filter(instrument -> exchange == null || exchange.isEmpty() || 
-                    (instrument.getSegment() != null && 
-                     instrument.getSegment().toString().equalsIgnoreCase(exchange)))
-                .count();
+            // Get the page and the total count for pagination in one search
+            InstrumentPage result = marketDataService.searchSymbols(page, size, symbol, type, exchange);
+            List<Instrument> instruments = result.getInstruments();
+            long totalCount = result.getTotalItems();
             
             long endTime = System.currentTimeMillis();
             
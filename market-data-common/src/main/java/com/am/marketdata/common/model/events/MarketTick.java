@@ -0,0 +1,95 @@
+package com.am.marketdata.common.model.events;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Live tick of one instrument as received from the ticker
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MarketTick {
+
+    /**
+     * Ticker mode the tick was sent in: ltp, quote or full
+     */
+    @JsonProperty("mode")
+    private String mode;
+
+    @JsonProperty("last_price")
+    private Double lastPrice;
+
+    @JsonProperty("last_quantity")
+    private Double lastQuantity;
+
+    @JsonProperty("average_price")
+    private Double averagePrice;
+
+    /**
+     * Volume traded today
+     */
+    @JsonProperty("volume")
+    private Long volume;
+
+    @JsonProperty("buy_quantity")
+    private Double buyQuantity;
+
+    @JsonProperty("sell_quantity")
+    private Double sellQuantity;
+
+    @JsonProperty("open")
+    private Double open;
+
+    @JsonProperty("high")
+    private Double high;
+
+    @JsonProperty("low")
+    private Double low;
+
+    @JsonProperty("close")
+    private Double close;
+
+    /**
+     * Percentage change from the previous close
+     */
+    @JsonProperty("change")
+    private Double change;
+
+    @JsonProperty("open_interest")
+    private Double openInterest;
+
+    /**
+     * Last trade time (IST)
+     */
+    @JsonProperty("last_trade_time")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    private LocalDateTime lastTradeTime;
+
+    /**
+     * Exchange timestamp of the tick (IST)
+     */
+    @JsonProperty("exchange_timestamp")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    private LocalDateTime exchangeTimestamp;
+}
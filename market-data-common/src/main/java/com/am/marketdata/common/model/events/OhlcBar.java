@@ -0,0 +1,80 @@
+package com.am.marketdata.common.model.events;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Completed OHLC candle built from live ticks
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OhlcBar {
+
+    /**
+     * Instrument token
+     */
+    @JsonProperty("instrument_token")
+    private Long instrumentToken;
+
+    /**
+     * Trading symbol
+     */
+    @JsonProperty("symbol")
+    private String symbol;
+
+    /**
+     * Candle interval, e.g. minute, 5min, day
+     */
+    @JsonProperty("interval")
+    private String interval;
+
+    /**
+     * Candle start time (IST)
+     */
+    @JsonProperty("start_time")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    private LocalDateTime startTime;
+
+    @JsonProperty("open")
+    private Double open;
+
+    @JsonProperty("high")
+    private Double high;
+
+    @JsonProperty("low")
+    private Double low;
+
+    @JsonProperty("close")
+    private Double close;
+
+    @JsonProperty("volume")
+    private Long volume;
+
+    @JsonProperty("open_interest")
+    private Double openInterest;
+
+    /**
+     * Number of ticks that contributed to the candle
+     */
+    @JsonProperty("tick_count")
+    private Integer tickCount;
+}
@@ -5,6 +5,8 @@ import com.am.marketdata.common.model.events.BalanceSheetFinancialsUpdateEvent;
 import com.am.marketdata.common.model.events.BoardOfDirectorsUpdateEvent;
 import com.am.marketdata.common.model.events.CashFlowFinancialsUpdateEvent;
 import com.am.marketdata.common.model.events.FactSheetFinancialsUpdateEvent;
+import com.am.marketdata.common.model.events.InstrumentTicksEvent;
+import com.am.marketdata.common.model.events.OhlcBarUpdateEvent;
 import com.am.marketdata.common.model.events.QuaterlyFinancialsUpdateEvent;
 import com.am.marketdata.common.model.events.StockProfitAndLossFinancialsUpdateEvent;
 import com.am.marketdata.common.model.events.StockResultsFinancialsUpdateEvent;
@@ -154,6 +156,16 @@ public class KafkaConfig {
         return new BaseKafkaProducer<>(kafkaTemplate());
     }
 
+    @Bean
+    public BaseKafkaProducer<OhlcBarUpdateEvent> ohlcBarProducer() {
+        return new BaseKafkaProducer<>(kafkaTemplate());
+    }
+
+    @Bean
+    public BaseKafkaProducer<InstrumentTicksEvent> ticksProducer() {
+        return new BaseKafkaProducer<>(kafkaTemplate());
+    }
+
     @Bean
     public BaseKafkaProducer<BoardOfDirectors> boardOfDirectors() {
         return new BaseKafkaProducer<>(kafkaTemplate());
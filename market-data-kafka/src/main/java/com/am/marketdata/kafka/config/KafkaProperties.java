@@ -28,6 +28,8 @@ public class KafkaProperties {
         private String stockProfitAndLossFinancials;
         private String stockResultsFinancials;
         private String stockFactSheetDividendFinancials;
+        private String ohlcBar;
+        private String ticks;
     }
     
     @Data
@@ -5,9 +5,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -88,4 +90,24 @@ public class BaseKafkaProducer<T> {
             throw new RuntimeException("Failed to send event to Kafka", e);
         }
     }
+
+    /**
+     * Send a high-volume event keyed for partitioning. Records with the same key land on the same
+     * partition in send order; failures are logged rather than thrown since callers do not wait.
+     *
+     * @param topic The topic to send to
+     * @param key The record key, e.g. an instrument token
+     * @param event The event to send
+     * @param timestampMillis The record timestamp in epoch millis
+     * @return Completes when the broker acknowledges the record
+     */
+    public CompletableFuture<SendResult<String, Object>> sendKeyed(String topic, String key, T event, long timestampMillis) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, null, timestampMillis, key, event);
+        return kafkaTemplate.send(record)
+            .whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("Failed to send message with key {} to topic: {}", key, topic, ex);
+                }
+            });
+    }
 }
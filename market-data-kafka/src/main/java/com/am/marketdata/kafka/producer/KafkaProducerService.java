@@ -3,12 +3,21 @@ package com.am.marketdata.kafka.producer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import com.am.common.investment.model.equity.EquityPrice;
 import com.am.common.investment.model.equity.MarketIndexIndices;
 import com.am.common.investment.model.events.StockInsidicesEventData;
+import com.am.marketdata.common.model.events.InstrumentTicksEvent;
+import com.am.marketdata.common.model.events.MarketTick;
+import com.am.marketdata.common.model.events.OhlcBar;
+import com.am.marketdata.common.model.events.OhlcBarUpdateEvent;
 import com.am.marketdata.kafka.config.KafkaProperties;
 import com.am.common.investment.model.events.EquityPriceUpdateEvent;
 import com.am.common.investment.model.events.MarketIndexIndicesPriceUpdateEvent;
@@ -22,6 +31,8 @@ public class KafkaProducerService {
     private final BaseKafkaProducer<EquityPriceUpdateEvent> equityProducer;
     private final BaseKafkaProducer<StockIndicesPriceUpdateEvent> stockIndicesProducer;
     private final BaseKafkaProducer<MarketIndexIndicesPriceUpdateEvent> indicesProducer;
+    private final BaseKafkaProducer<OhlcBarUpdateEvent> ohlcBarProducer;
+    private final BaseKafkaProducer<InstrumentTicksEvent> ticksProducer;
     private final KafkaProperties kafkaProperties;
 
     public void sendEquityPriceUpdates(List<EquityPrice> equityPrices) {
@@ -53,4 +64,44 @@ public class KafkaProducerService {
         
         indicesProducer.sendEvent(event, kafkaProperties.getTopics().getNseIndices(), event.getEventType(), event.getTimestamp());
     }
+
+    /**
+     * Send completed candles as one event per instrument keyed by its token, so each instrument's
+     * candles stay ordered on one partition while different instruments spread across partitions
+     */
+    public void sendOhlcBarUpdates(List<OhlcBar> bars) {
+        Map<Long, List<OhlcBar>> byInstrument = new LinkedHashMap<>();
+        for (OhlcBar bar : bars) {
+            byInstrument.computeIfAbsent(bar.getInstrumentToken(), token -> new ArrayList<>()).add(bar);
+        }
+        LocalDateTime timestamp = LocalDateTime.now();
+        long timestampMillis = System.currentTimeMillis();
+        byInstrument.forEach((instrumentToken, instrumentBars) -> {
+            var event = OhlcBarUpdateEvent.builder()
+                .eventType("OHLC_BAR_UPDATE")
+                .timestamp(timestamp)
+                .bars(instrumentBars)
+                .build();
+
+            ohlcBarProducer.sendKeyed(kafkaProperties.getTopics().getOhlcBar(), String.valueOf(instrumentToken), event,
+                timestampMillis);
+        });
+    }
+
+    /**
+     * Send the ticks of one instrument keyed by its token, so each instrument's ticks stay ordered
+     * on one partition while different instruments spread across partitions
+     * @return Completes when the broker acknowledges the record
+     */
+    public CompletableFuture<SendResult<String, Object>> sendInstrumentTicks(long instrumentToken, List<MarketTick> ticks) {
+        var event = InstrumentTicksEvent.builder()
+            .eventType("INSTRUMENT_TICKS")
+            .timestamp(LocalDateTime.now())
+            .instrumentToken(instrumentToken)
+            .ticks(ticks)
+            .build();
+
+        return ticksProducer.sendKeyed(kafkaProperties.getTopics().getTicks(), Long.toString(instrumentToken), event,
+            System.currentTimeMillis());
+    }
 }
@@ -3,12 +3,14 @@ package com.am.marketdata.mapper;
 import com.am.common.investment.model.equity.Instrument;
 import com.am.common.investment.model.equity.Instrument.InstrumentType;
 import com.am.common.investment.model.equity.Instrument.Segment;
+import com.marketdata.service.instrument.InstrumentMaster;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -72,6 +74,35 @@ public class InstrumentMapper {
         }
     }
     
+    /**
+     * Convert an instrument master row to AM common instrument model
+     *
+     * @param master Instrument master snapshot
+     * @param row Row in the snapshot
+     * @return AM common instrument model
+     */
+    public Instrument toCommonInstrument(InstrumentMaster master, int row) {
+        Instrument instrument = new Instrument();
+        instrument.setTradingSymbol(master.symbolAt(row));
+        instrument.setInstrumentToken(master.tokenAt(row));
+        instrument.setName(master.nameAt(row));
+        instrument.setExchangeToken(master.exchangeTokenAt(row));
+        if (!master.instrumentTypeAt(row).isEmpty()) {
+            instrument.setInstrumentType(mapInstrumentType(master.instrumentTypeAt(row)));
+        }
+        if (!master.segmentAt(row).isEmpty()) {
+            instrument.setSegment(mapSegment(master.segmentAt(row)));
+        }
+        if (master.tickSizeAt(row) > 0) {
+            instrument.setTickSize(BigDecimal.valueOf(master.tickSizeAt(row)));
+        }
+        instrument.setLotSize(master.lotSizeAt(row));
+        if (master.expiryAt(row) != 0) {
+            instrument.setExpiry(new Date(master.expiryAt(row)));
+        }
+        return instrument;
+    }
+
     /**
      * Convert a list of Zerodha instruments to a list of AM common instruments
      *
@@ -95,7 +126,7 @@ public class InstrumentMapper {
      * @param zerodhaType Zerodha instrument type
      * @return AM common instrument type
      */
-    private InstrumentType mapInstrumentType(String zerodhaType) {
+    public static InstrumentType mapInstrumentType(String zerodhaType) {
         if (zerodhaType == null) {
             return InstrumentType.UNKNOWN;
         }
@@ -126,7 +157,7 @@ public class InstrumentMapper {
      * @param zerodhaSegment Zerodha segment
      * @return AM common segment
      */
-    private Segment mapSegment(String zerodhaSegment) {
+    public static Segment mapSegment(String zerodhaSegment) {
         if (zerodhaSegment == null) {
             return Segment.UNKNOWN;
         }
@@ -4,6 +4,8 @@ import com.am.common.investment.model.equity.EquityPrice;
 import com.am.common.investment.service.EquityService;
 import com.am.marketdata.kafka.producer.KafkaProducerService;
 import com.am.marketdata.upstock.adapter.UpStockAdapter;
+import com.marketdata.common.PartialResultException;
+import com.marketdata.service.instrument.InstrumentIdResolver;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
@@ -24,9 +26,9 @@ public class EquityPriceProcessingService {
     private final EquityService equityService;
     private final KafkaProducerService kafkaProducerService;
     private final MeterRegistry meterRegistry;
+    private final InstrumentIdResolver instrumentIdResolver;
 
     private static final int BATCH_SIZE = 50;
-    private static final String NSE_PREFIX = "NSE_EQ|";
 
     @Transactional
     public boolean processEquityPrices(List<String> isins) {
@@ -38,7 +40,7 @@ public class EquityPriceProcessingService {
         Timer.Sample processingTimer = Timer.start(meterRegistry);
         
         try {
-            // Format ISINs with NSE prefix
+            // Resolve Upstox instrument keys for the ISINs
             Set<String> formattedIsins = formatIsins(isins);
             
             // Process in batches
@@ -97,7 +99,7 @@ public class EquityPriceProcessingService {
 
     private Set<String> formatIsins(List<String> isins) {
         return isins.stream()
-            .map(isin -> NSE_PREFIX + isin)
+            .map(instrumentIdResolver::upstoxKeyOfIsin)
             .collect(Collectors.toSet());
     }
 
@@ -126,37 +128,29 @@ public class EquityPriceProcessingService {
         log.info("Fetching latest prices for {} ISINs", isins.size());
         
         try {
-            // Format ISINs with NSE prefix
+            // Resolve Upstox instrument keys for the ISINs
             Set<String> formattedIsins = formatIsins(isins);
             
-            // Process in batches for better performance
-            List<List<String>> batches = partition(formattedIsins.stream().toList(), BATCH_SIZE);
-            log.debug("Processing {} ISINs in {} batches", isins.size(), batches.size());
-            
-            // Use a thread-safe collection to store results from all batches
-            List<EquityPrice> allPrices = new ArrayList<>();
-            
-            // Process each batch and collect results
-            for (List<String> batch : batches) {
-                try {
-                    var equityPrices = upStockAdapter.getStocksOHLC(batch);
-                    if (!equityPrices.isEmpty()) {
-                        allPrices.addAll(equityPrices);
-                        meterRegistry.counter("equity.price.fetch.success").increment();
-                    } else {
-                        log.warn("Received empty response for batch");
-                        meterRegistry.counter("equity.price.fetch.empty").increment();
-                    }
-                } catch (Exception e) {
-                    log.error("Error fetching prices for batch: {}", e.getMessage(), e);
-                    meterRegistry.counter("equity.price.fetch.error").increment();
-                }
+            // The adapter splits the keys into Upstox-sized chunks and fetches them in parallel
+            List<EquityPrice> allPrices = upStockAdapter.getStocksOHLC(formattedIsins.stream().toList());
+            if (!allPrices.isEmpty()) {
+                meterRegistry.counter("equity.price.fetch.success").increment();
+            } else {
+                log.warn("Received empty response for {} ISINs", isins.size());
+                meterRegistry.counter("equity.price.fetch.empty").increment();
             }
             
             log.info("Successfully fetched {} equity prices", allPrices.size());
             fetchTimer.stop(meterRegistry.timer("equity.price.fetch.time"));
             return allPrices;
             
+        } catch (PartialResultException e) {
+            List<EquityPrice> partialPrices = e.getPartialResult();
+            log.warn("Fetched {} equity prices, {} ISINs failed: {}", partialPrices.size(), e.getFailedSymbols().size(),
+                    e.getMessage());
+            meterRegistry.counter("equity.price.fetch.partial").increment();
+            fetchTimer.stop(meterRegistry.timer("equity.price.fetch.time"));
+            return partialPrices;
         } catch (Exception e) {
             log.error("Error fetching latest equity prices: {}", e.getMessage(), e);
             meterRegistry.counter("equity.price.fetch.error").increment();
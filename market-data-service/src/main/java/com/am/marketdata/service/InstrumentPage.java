@@ -0,0 +1,25 @@
+package com.am.marketdata.service;
+
+import com.am.common.investment.model.equity.Instrument;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of an instrument search and the number of matches across all pages
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstrumentPage {
+
+    /** Instruments of the requested page, in rank order */
+    private List<Instrument> instruments;
+
+    private long totalItems;
+}
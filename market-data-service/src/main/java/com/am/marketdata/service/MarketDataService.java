@@ -84,6 +84,19 @@ public interface MarketDataService {
      * @return Filtered and paginated list of symbols
      */
     List<Instrument> getSymbolPagination(int page, int size, String symbol, String type, String exchange);
+
+    /**
+     * Search symbols and count all matches
+     *
+     * @param page Page number (0-based)
+     * @param size Number of records per page
+     * @param symbol Match trading symbol or name (optional)
+     * @param type Filter by symbol type (optional)
+     * @param exchange Filter by exchange (optional)
+     * @return Page of instruments and the number of matches
+     * @throws IllegalArgumentException if the page is negative or the size not positive
+     */
+    InstrumentPage searchSymbols(int page, int size, String symbol, String type, String exchange);
     
     /**
      * Get symbols for a specific exchange
@@ -1,8 +1,17 @@
 package com.am.marketdata.service.impl;
 
+import com.am.marketdata.service.InstrumentPage;
 import com.am.marketdata.service.MarketDataService;
+import com.marketdata.common.HedgedRequestExecutor;
 import com.marketdata.common.MarketDataProvider;
 import com.marketdata.common.MarketDataProviderFactory;
+import com.marketdata.common.QuoteProvider;
+import com.marketdata.common.RateLimitTimeoutException;
+import com.marketdata.common.RequestClass;
+import com.marketdata.service.instrument.InstrumentMaster;
+import com.marketdata.service.instrument.InstrumentMasterService;
+import com.marketdata.service.instrument.InstrumentSearchIndex;
+import com.marketdata.service.tick.LastValueCache;
 import com.zerodhatech.models.OHLCQuote;
 import com.am.common.investment.model.equity.EquityPrice;
 import com.am.common.investment.model.equity.Instrument;
@@ -23,6 +32,8 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +51,9 @@ public class MarketDataServiceImpl implements MarketDataService {
     private final InstrumentMapper instrumentMapper;
     private final OHLCMapper ohlcMapper;
     private final EquityService equityService;
+    private final LastValueCache lastValueCache;
+    private final InstrumentMasterService instrumentMasterService;
+    private final HedgedRequestExecutor hedgedRequests;
     private ThreadPoolTaskExecutor marketDataExecutor;
 
     @Value("${market.data.thread.pool.size:5}")
@@ -57,7 +71,10 @@ public class MarketDataServiceImpl implements MarketDataService {
     @Value("${market.data.max.age.minutes:15}")
     private int maxAgeMinutes;
 
-    public MarketDataServiceImpl(MarketDataProviderFactory providerFactory, InstrumentService instrumentService, HistoricalDataService historicalDataService, MeterRegistry meterRegistry, InstrumentMapper instrumentMapper, OHLCMapper ohlcMapper, EquityService equityService) {
+    @Value("${market-data.stream.read.enabled:true}")
+    private boolean streamReadEnabled;
+
+    public MarketDataServiceImpl(MarketDataProviderFactory providerFactory, InstrumentService instrumentService, HistoricalDataService historicalDataService, MeterRegistry meterRegistry, InstrumentMapper instrumentMapper, OHLCMapper ohlcMapper, EquityService equityService, LastValueCache lastValueCache, InstrumentMasterService instrumentMasterService, HedgedRequestExecutor hedgedRequests) {
         this.providerFactory = providerFactory;
         this.instrumentService = instrumentService;
         this.historicalDataService = historicalDataService;
@@ -65,6 +82,9 @@ public class MarketDataServiceImpl implements MarketDataService {
         this.instrumentMapper = instrumentMapper;
         this.ohlcMapper = ohlcMapper;
         this.equityService = equityService;
+        this.lastValueCache = lastValueCache;
+        this.instrumentMasterService = instrumentMasterService;
+        this.hedgedRequests = hedgedRequests;
     }
 
     @PostConstruct
@@ -135,8 +155,12 @@ public class MarketDataServiceImpl implements MarketDataService {
         try {
             validateSymbols(symbols);
             
-            MarketDataProvider provider = providerFactory.getProvider();
-            return retryOnFailure(() -> provider.getQuotes(symbols), "getQuotes");
+            QuoteProvider provider = providerFactory.getQuoteProvider(RequestClass.QUOTE);
+            QuoteProvider hedgeProvider = providerFactory.getHedgeProvider(RequestClass.QUOTE, provider);
+            // Quote reads are latency-critical, so a stalled provider call is hedged to the secondary
+            return readStreamFirst("getQuotes", symbols,
+                    () -> lastValueCache.getQuotes(symbols),
+                    rest -> hedgedRequests.execute("quotes", provider, hedgeProvider, p -> p.getQuotes(rest)));
         } catch (Exception e) {
             log.error("Error getting quotes: {}", e.getMessage(), e);
             meterRegistry.counter("market.data.failure.count", "operation", "getQuotes").increment();
@@ -152,8 +176,9 @@ public class MarketDataServiceImpl implements MarketDataService {
         try {
             validateSymbols(symbols);
             
-            MarketDataProvider provider = providerFactory.getProvider();
-            return retryOnFailure(() -> provider.getOHLC(symbols), "getOHLC");
+            QuoteProvider provider = providerFactory.getQuoteProvider(RequestClass.OHLC);
+            return readStreamFirst("getOHLC", symbols,
+                    () -> lastValueCache.getOHLC(symbols), provider::getOHLC);
         } catch (Exception e) {
             log.error("Error getting OHLC data: {}", e.getMessage(), e);
             meterRegistry.counter("market.data.failure.count", "operation", "getOHLC").increment();
@@ -169,10 +194,9 @@ public class MarketDataServiceImpl implements MarketDataService {
         try {
             validateSymbols(symbols);
             
-            MarketDataProvider provider = providerFactory.getProvider();
-            Map<String, Object> ltpData = retryOnFailure(() -> provider.getLTP(symbols), "getLTP");
-            
-            return ltpData;
+            QuoteProvider provider = providerFactory.getQuoteProvider(RequestClass.LTP);
+            return readStreamFirst("getLTP", symbols,
+                    () -> lastValueCache.getLTP(symbols), provider::getLTP);
         } catch (Exception e) {
             log.error("Error getting LTP data: {}", e.getMessage(), e);
             meterRegistry.counter("market.data.failure.count", "operation", "getLTP").increment();
@@ -200,7 +224,7 @@ public class MarketDataServiceImpl implements MarketDataService {
                 throw new IllegalArgumentException("Interval cannot be null or empty");
             }
             
-            MarketDataProvider provider = providerFactory.getProvider();
+            MarketDataProvider provider = providerFactory.getProvider(RequestClass.HISTORICAL);
             com.zerodhatech.models.HistoricalData zerodhaHistoricalData = retryOnFailure(() -> provider.getHistoricalData(
                     symbol, fromDate, toDate, interval, continuous, additionalParams), "getHistoricalData");
 
@@ -244,44 +268,20 @@ public class MarketDataServiceImpl implements MarketDataService {
     public List<Instrument> getAllSymbols() {
         Timer.Sample timer = Timer.start(meterRegistry);
         try {
-            // First check if instruments are already present in the database
-            List<Instrument> existingInstruments = null;
-            
-            if (existingInstruments != null && !existingInstruments.isEmpty()) {
-                log.info("Found {} existing instruments in database", existingInstruments.size());
-                return existingInstruments;
-            }
-            
-            log.info("No instruments found in database, fetching from provider");
-            
-            // If not found in database, fetch from provider
-            MarketDataProvider provider = providerFactory.getProvider();
-            List<com.zerodhatech.models.Instrument> instruments = retryOnFailure(() -> provider.getAllInstruments(), "getAllInstruments");
-            
-            // Convert the generic List<Object> to List<com.zerodhatech.models.Instrument>
-            List<com.zerodhatech.models.Instrument> zerodhaInstruments = instruments.stream()
-                .filter(obj -> obj instanceof com.zerodhatech.models.Instrument)
-                .map(obj -> (com.zerodhatech.models.Instrument) obj)
-                .collect(Collectors.toList());
-            
-            if (zerodhaInstruments != null && !zerodhaInstruments.isEmpty()) {
-                log.info("Fetched {} symbols from provider, converting to common model", zerodhaInstruments.size());
-                
-                // Convert Zerodha instruments to common Instrument model
-                List<Instrument> commonInstruments = instrumentMapper.toCommonInstruments(zerodhaInstruments);
-                
-                log.info("Converted {} instruments, saving to database", commonInstruments.size());
-                
-                // Save the converted instruments to the database
-                instrumentService.saveAll(commonInstruments);
-                
-                log.info("Successfully saved {} instruments to database", commonInstruments.size());
-                
-                return commonInstruments;
-            } else {
-                log.warn("No instruments returned from provider");
+            // Served from the instrument master; the daily ingestion job is the only path that downloads
+            // the instrument list and writes it to the database
+            InstrumentMaster master = instrumentMasterService.getMaster();
+            if (master.isEmpty()) {
+                log.warn("Instrument master not loaded yet, no symbols available");
                 return new ArrayList<>();
             }
+
+            List<Instrument> instruments = new ArrayList<>(master.size());
+            for (int row = 0; row < master.size(); row++) {
+                instruments.add(instrumentMapper.toCommonInstrument(master, row));
+            }
+            log.info("Returning {} instruments from the instrument master", instruments.size());
+            return instruments;
         } catch (Exception e) {
             log.error("Error fetching all symbols: {}", e.getMessage(), e);
             meterRegistry.counter("market.data.failure.count", "operation", "getAllSymbols").increment();
@@ -293,36 +293,30 @@ public class MarketDataServiceImpl implements MarketDataService {
     
     @Override
     public List<Instrument> getSymbolPagination(int page, int size, String symbol, String type, String exchange) {
+        return searchSymbols(page, size, symbol, type, exchange).getInstruments();
+    }
+
+    @Override
+    public InstrumentPage searchSymbols(int page, int size, String symbol, String type, String exchange) {
         Timer.Sample timer = Timer.start(meterRegistry);
         try {
-            // Get all instruments first
-            List<Instrument> allInstruments = getAllSymbols();
-            
-            // Apply filters if provided
-            List<Instrument> filteredInstruments = allInstruments.stream()
-                .filter(instrument -> symbol == null || symbol.isEmpty() || 
-                    instrument.getTradingSymbol().toLowerCase().contains(symbol.toLowerCase()))
-                .filter(instrument -> type == null || type.isEmpty() || 
-                    (instrument.getInstrumentType() != null && 
-                     instrument.getInstrumentType().toString().equalsIgnoreCase(type)))
-                .filter(instrument -> exchange == null || exchange.isEmpty() || 
-                    (instrument.getSegment() != null && 
-                     instrument.getSegment().toString().equalsIgnoreCase(exchange)))
-                .collect(Collectors.toList());
-            
-            // Apply pagination
-            int fromIndex = page * size;
-            int toIndex = Math.min(fromIndex + size, filteredInstruments.size());
-            
-            // Check if fromIndex is valid
-            if (fromIndex >= filteredInstruments.size()) {
-                return new ArrayList<>();
+            // Served from the in-memory search index, which yields the page and the hit count together;
+            // before the first instrument master load the index is empty and so is the page
+            InstrumentSearchIndex.Result search = instrumentMasterService.search(symbol, type, exchange, page, size);
+            List<Instrument> instruments = new ArrayList<>(search.getRows().length);
+            for (int row : search.getRows()) {
+                instruments.add(instrumentMapper.toCommonInstrument(search.getMaster(), row));
             }
-            
-            log.info("Returning page {} of size {} (filtered from {} instruments)", 
-                page, size, filteredInstruments.size());
-                
-            return filteredInstruments.subList(fromIndex, toIndex);
+            long totalCount = search.getTotal();
+
+            log.info("Returning page {} of size {} (filtered to {} instruments)", page, size, totalCount);
+
+            return InstrumentPage.builder()
+                    .instruments(instruments)
+                    .totalItems(totalCount)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error fetching paginated symbols: {}", e.getMessage(), e);
             meterRegistry.counter("market.data.failure.count", "operation", "getSymbolPagination").increment();
@@ -373,7 +367,9 @@ public class MarketDataServiceImpl implements MarketDataService {
     }
 
     /**
-     * Generic method to retry operations on failure with exponential backoff
+     * Generic method to retry operations on failure with exponential backoff.
+     * A call that got no rate-limit permit in time is not retried: it already waited its full budget
+     * and retrying would only queue for the same permits again.
      * 
      * @param callable The operation to retry
      * @param operationName Name of the operation for metrics and logging
@@ -392,6 +388,9 @@ public class MarketDataServiceImpl implements MarketDataService {
                 }
                 meterRegistry.counter("market.data.success.count", "operation", operationName).increment();
                 return result;
+            } catch (RateLimitTimeoutException e) {
+                meterRegistry.counter("market.data.failure.count", "operation", operationName).increment();
+                throw e;
             } catch (Exception e) {
                 lastException = e;
                 log.warn("Attempt {} for operation {} failed: {}", attempt, operationName, e.getMessage());
@@ -415,6 +414,46 @@ public class MarketDataServiceImpl implements MarketDataService {
         throw new RuntimeException("Operation failed after " + maxRetries + " attempts", lastException);
     }
 
+    /**
+     * Answer from live tick state where possible and from the provider for the rest. While the active
+     * provider's ticker is connected, symbols whose subscription is live and has ticked come from the stream;
+     * only unsubscribed, disconnected or unknown symbols go to the routed REST provider, in one call.
+     * 
+     * @param operation Operation name for metrics and retries
+     * @param symbols Requested symbols
+     * @param streamRead Fresh values from the live stream
+     * @param providerRead Provider call for the remaining symbols
+     * @return Values keyed by symbol
+     */
+    private <V> Map<String, V> readStreamFirst(String operation, String[] symbols,
+                                              Supplier<Map<String, ? extends V>> streamRead,
+                                              Function<String[], Map<String, ? extends V>> providerRead) throws Exception {
+        Map<String, V> result = new HashMap<>(symbols.length * 2);
+        boolean streamed = streamReadEnabled && providerFactory.getProvider().isTickerConnected();
+        if (streamed) {
+            result.putAll(streamRead.get());
+        }
+        Set<String> remaining = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            if (!result.containsKey(symbol)) {
+                remaining.add(symbol);
+            }
+        }
+        if (streamed) {
+            meterRegistry.counter("market.data.cache.hit.count", "operation", operation).increment(result.size());
+            meterRegistry.counter("market.data.cache.miss.count", "operation", operation).increment(remaining.size());
+        }
+        if (remaining.isEmpty()) {
+            return result;
+        }
+        String[] rest = remaining.toArray(new String[0]);
+        Map<String, ? extends V> fetched = retryOnFailure(() -> providerRead.apply(rest), operation);
+        if (fetched != null) {
+            result.putAll(fetched);
+        }
+        return result;
+    }
+
     /**
      * Validate symbols array
      * 
@@ -443,53 +482,33 @@ public class MarketDataServiceImpl implements MarketDataService {
     }
     
     /**
-     * Fetch live prices directly from the provider using instrument IDs
+     * Fetch live prices directly from the provider with one OHLC call for all instruments
      * 
-     * @param instrumentIds List of instrument IDs
+     * @param instruments Instruments to price
      * @return List of equity prices
      */
-    private List<EquityPrice> fetchLivePricesFromProvider(List<Long> instrumentIds) {
-        log.info("[DATA_SOURCE] Fetching live prices directly from PROVIDER with {} instrument IDs", instrumentIds.size());
-        
-        if (instrumentIds == null || instrumentIds.isEmpty()) {
-            log.warn("No valid instrument IDs provided");
+    private List<EquityPrice> fetchLivePricesFromProvider(List<Instrument> instruments) {
+        if (instruments == null || instruments.isEmpty()) {
+            log.warn("No valid instruments provided");
             return Collections.emptyList();
         }
         
-        log.info("Fetching live prices for {} instruments", instrumentIds.size());
-        
-        // Convert instrument IDs to string array for provider API
-        String[] instrumentArray = instrumentIds.stream()
-            .map(id -> id.toString())
-            .toArray(String[]::new);
+        log.info("[DATA_SOURCE] Fetching live prices directly from PROVIDER for {} instruments", instruments.size());
         
-        // Create a map of trading symbols to instruments for the mapper
-        Map<String, Instrument> instrumentMap = new HashMap<>();
-        for (Long id : instrumentIds) {
-            try {
-                Optional<Instrument> instrumentOpt = instrumentService.getInstrumentByInstrumentToken(id);
-                if (instrumentOpt.isPresent()) {
-                    Instrument instrument = instrumentOpt.get();
-                    String instrumentToken = instrument.getInstrumentToken().toString();
-                    if (instrumentToken != null) {
-                        instrumentMap.put(instrumentToken, instrument);
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("Error retrieving instrument for ID {}: {}", id, e.getMessage());
+        // The provider keys quotes by trading symbol, and so does the mapper
+        Map<String, Instrument> instrumentMap = new HashMap<>(instruments.size() * 2);
+        for (Instrument instrument : instruments) {
+            if (instrument.getTradingSymbol() != null) {
+                instrumentMap.put(instrument.getTradingSymbol(), instrument);
             }
         }
-        
-        if (instrumentMap.isEmpty()) {
-            log.warn("Could not find any instruments matching the provided IDs");
-            return Collections.emptyList();
-        }
+        String[] symbolArray = instrumentMap.keySet().toArray(new String[0]);
         
         // Get OHLC data from provider with retry mechanism
-        log.debug("[DATA_SOURCE] Calling provider.getOHLC with instrument IDs: {}", Arrays.toString(instrumentArray));
+        log.debug("[DATA_SOURCE] Calling provider.getOHLC for {} symbols", symbolArray.length);
         Map<String, OHLCQuote> ohlcData;
         try {
-            ohlcData = retryOnFailure(() -> providerFactory.getProvider().getOHLC(instrumentArray), "getOHLC");
+            ohlcData = retryOnFailure(() -> providerFactory.getQuoteProvider(RequestClass.OHLC).getOHLC(symbolArray), "getOHLC");
         } catch (Exception e) {
             log.error("Error fetching OHLC data from provider: {}", e.getMessage(), e);
             return Collections.emptyList();
@@ -504,7 +523,7 @@ public class MarketDataServiceImpl implements MarketDataService {
         // Map OHLC data to equity prices using the mapper
         List<EquityPrice> prices = ohlcMapper.toEquityPrices(ohlcData, instrumentMap);
         log.info("[DATA_SOURCE] Successfully mapped {} OHLC quotes to {} equity prices from PROVIDER", 
-                ohlcData != null ? ohlcData.size() : 0, prices.size());
+                ohlcData.size(), prices.size());
         
         return prices;
     }
@@ -515,61 +534,55 @@ public class MarketDataServiceImpl implements MarketDataService {
         try {
             log.info("Fetching live prices for {} instruments", tradingSymbols != null ? tradingSymbols.size() : "all");
             
-            // Get symbols to process
+            // Resolve all instruments with one query
             List<Instrument> instruments = getSymbolsToProcess(tradingSymbols);
-            List<Long> instrumentIds = instruments.stream().map(Instrument::getInstrumentToken).collect(Collectors.toList());
             List<String> symbols = instruments.stream().map(Instrument::getTradingSymbol).collect(Collectors.toList());
             
             // Use the retry mechanism for resilience
-            return retryOnFailure(new Callable<List<EquityPrice>>() {
-                @Override
-                public List<EquityPrice> call() throws Exception {
-                    log.info("[DATA_SOURCE] Attempting to fetch prices from DATABASE first for {} symbols", symbols.size());
-                    // First try to get prices from the database
-                    List<EquityPrice> equityPrices = equityService.getPricesByTradingSymbols(symbols);
-                    
-                    // If database query returns empty results, fetch all from the provider
-                    if (equityPrices == null || equityPrices.isEmpty()) {
-                        log.info("[DATA_SOURCE] No prices found in DATABASE, switching to PROVIDER source");
-                        equityPrices = fetchLivePricesFromProvider(instrumentIds);
-                        log.info("[DATA_SOURCE] Successfully fetched {} prices from PROVIDER", equityPrices.size());
-                        return equityPrices;
+            return retryOnFailure(() -> {
+                log.info("[DATA_SOURCE] Attempting to fetch prices from DATABASE first for {} symbols", symbols.size());
+                // First try to get prices from the database
+                List<EquityPrice> equityPrices = equityService.getPricesByTradingSymbols(symbols);
+                
+                // If database query returns empty results, fetch all from the provider
+                if (equityPrices == null || equityPrices.isEmpty()) {
+                    log.info("[DATA_SOURCE] No prices found in DATABASE, switching to PROVIDER source");
+                    equityPrices = fetchLivePricesFromProvider(instruments);
+                    log.info("[DATA_SOURCE] Successfully fetched {} prices from PROVIDER", equityPrices.size());
+                    return equityPrices;
+                }
+                
+                log.info("[DATA_SOURCE] Successfully fetched {} prices from DATABASE", equityPrices.size());
+                
+                // Instruments without a database price, found with hash lookups
+                Set<String> foundSymbols = new HashSet<>(equityPrices.size() * 2);
+                for (EquityPrice price : equityPrices) {
+                    foundSymbols.add(price.getSymbol());
+                }
+                List<Instrument> missingInstruments = new ArrayList<>();
+                for (Instrument instrument : instruments) {
+                    if (!foundSymbols.contains(instrument.getTradingSymbol())) {
+                        missingInstruments.add(instrument);
                     }
+                }
+                
+                // If we have missing symbols, fetch them all from the provider at once
+                if (!missingInstruments.isEmpty()) {
+                    log.info("[DATA_SOURCE] Found {} symbols in DATABASE, fetching {} missing symbols from PROVIDER", 
+                            foundSymbols.size(), missingInstruments.size());
                     
-                    log.info("[DATA_SOURCE] Successfully fetched {} prices from DATABASE", equityPrices.size());
-                    
-                    // Check if we got all requested symbols from the database
-                    Set<String> foundSymbols = equityPrices.stream()
-                            .map(EquityPrice::getSymbol)
-                            .collect(Collectors.toSet());
-                    
-                    // Find missing symbols
-                    List<String> missingSymbols = symbols.stream()
-                            .filter(symbol -> !foundSymbols.contains(symbol))
-                            .collect(Collectors.toList());
-                    
-                    // If we have missing symbols, fetch them from the provider
-                    if (!missingSymbols.isEmpty()) {
-                        log.info("[DATA_SOURCE] Found {} symbols in DATABASE, fetching {} missing symbols from PROVIDER", 
-                                foundSymbols.size(), missingSymbols.size());
-                        
-                        // Get instrument IDs for missing symbols
-                        List<Long> missingInstrumentIds = instruments.stream()
-                                .filter(instrument -> missingSymbols.contains(instrument.getTradingSymbol()))
-                                .map(Instrument::getInstrumentToken)
-                                .collect(Collectors.toList());
-                        
-                        // Fetch missing symbols from provider
-                        List<EquityPrice> missingPrices = fetchLivePricesFromProvider(missingInstrumentIds);
-                        log.info("[DATA_SOURCE] Successfully fetched {} missing prices from PROVIDER", missingPrices.size());
-                        
-                        // Merge results
-                        equityPrices.addAll(missingPrices);
-                        log.info("[DATA_SOURCE] Combined {} total prices from DATABASE and PROVIDER", equityPrices.size());
-                    }
+                    List<EquityPrice> missingPrices = fetchLivePricesFromProvider(missingInstruments);
+                    log.info("[DATA_SOURCE] Successfully fetched {} missing prices from PROVIDER", missingPrices.size());
                     
-                    return equityPrices;
+                    // Merge results
+                    List<EquityPrice> merged = new ArrayList<>(equityPrices.size() + missingPrices.size());
+                    merged.addAll(equityPrices);
+                    merged.addAll(missingPrices);
+                    equityPrices = merged;
+                    log.info("[DATA_SOURCE] Combined {} total prices from DATABASE and PROVIDER", equityPrices.size());
                 }
+                
+                return equityPrices;
             }, "getLivePrices");
         } catch (Exception e) {
             log.error("Error fetching live prices: {}", e.getMessage(), e);
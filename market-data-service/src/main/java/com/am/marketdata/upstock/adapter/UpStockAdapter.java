@@ -5,6 +5,8 @@ import com.am.marketdata.upstock.client.UpStockClient;
 import com.am.marketdata.upstock.mapper.EquityStockMapper;
 import com.am.marketdata.upstock.model.MarketQuoteResponse;
 import com.am.marketdata.upstock.model.OHLCResponse;
+import com.marketdata.common.ProviderEndpoint;
+import com.marketdata.common.ProviderRequestPlanner;
 
 import lombok.RequiredArgsConstructor;
 
@@ -22,6 +24,7 @@ public class UpStockAdapter {
     private static final Logger log = LoggerFactory.getLogger(UpStockAdapter.class);
     private final UpStockClient upStockClient;
     private final EquityStockMapper equityStockMapper;
+    private final ProviderRequestPlanner requestPlanner;
 
     @Value("${upstox.interval}")
     private String interval;
@@ -29,7 +32,19 @@ public class UpStockAdapter {
 
     public List<EquityPrice> getStocks(List<String> symbols) {
         log.info("Fetching market quotes for {} symbols", symbols.size());
-        
+        return requestPlanner.executeForList(ProviderEndpoint.UPSTOX_QUOTE, symbols, this::fetchStocks);
+    }
+
+    /**
+     * OHLC prices of any number of instruments; lists longer than one Upstox call are split and paced
+     * by the {@link ProviderRequestPlanner}
+     */
+    public List<EquityPrice> getStocksOHLC(List<String> symbols) {
+        log.info("Fetching market quotes for {} symbols", symbols.size());
+        return requestPlanner.executeForList(ProviderEndpoint.UPSTOX_OHLC, symbols, this::fetchStocksOHLC);
+    }
+
+    private List<EquityPrice> fetchStocks(List<String> symbols) {
         MarketQuoteResponse response = upStockClient.getMarketQuotes(symbols);
         log.info("Successfully received market quotes. Processing response...");
         if (response == null || response.getData() == null) {
@@ -43,9 +58,7 @@ public class UpStockAdapter {
         return equityStockMapper.getEquityPrices(stockQuotes);
     }
 
-    public List<EquityPrice> getStocksOHLC(List<String> symbols) {
-        log.info("Fetching market quotes for {} symbols", symbols.size());
-        
+    private List<EquityPrice> fetchStocksOHLC(List<String> symbols) {
         OHLCResponse response = upStockClient.getOHLCData(symbols, interval);
         log.info("Successfully received market quotes. Processing response...");
         if (response == null || response.getData() == null) {
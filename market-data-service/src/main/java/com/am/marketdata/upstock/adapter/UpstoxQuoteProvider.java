@@ -0,0 +1,221 @@
+package com.am.marketdata.upstock.adapter;
+
+import com.am.common.investment.model.equity.Instrument;
+import com.am.common.investment.service.instrument.InstrumentService;
+import com.am.marketdata.upstock.client.UpStockClient;
+import com.am.marketdata.upstock.model.OHLCResponse;
+import com.marketdata.common.PartialResultException;
+import com.marketdata.common.ProviderEndpoint;
+import com.marketdata.common.ProviderRequestPlanner;
+import com.marketdata.common.QuoteProvider;
+import com.marketdata.service.instrument.InstrumentIdResolver;
+import com.marketdata.service.instrument.InstrumentMaster;
+import com.zerodhatech.models.LTPQuote;
+import com.zerodhatech.models.OHLC;
+import com.zerodhatech.models.OHLCQuote;
+import com.zerodhatech.models.Quote;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Upstox {@link QuoteProvider}: REST price reads of NSE equities that reads can be routed or hedged to.
+ * Symbols are translated to Upstox instrument keys through the {@link InstrumentIdResolver}, and results
+ * are returned as Kite models keyed by the requested symbol, so callers can use either provider.
+ *
+ * Quotes, OHLC and LTP all come from the Upstox OHLC endpoint, so quotes carry the last price and OHLC
+ * but no depth or volume, and OHLC is that of the current day.
+ */
+@Slf4j
+@Component("upstoxQuoteProvider")
+public class UpstoxQuoteProvider implements QuoteProvider {
+
+    private static final String NSE_PREFIX = "NSE:";
+
+    private final UpStockClient upStockClient;
+    private final ProviderRequestPlanner requestPlanner;
+    private final InstrumentIdResolver instrumentIdResolver;
+    private final InstrumentService instrumentService;
+
+    @Value("${upstox.quote.interval:1d}")
+    private String interval;
+
+    public UpstoxQuoteProvider(UpStockClient upStockClient, ProviderRequestPlanner requestPlanner,
+                               InstrumentIdResolver instrumentIdResolver, InstrumentService instrumentService) {
+        this.upStockClient = upStockClient;
+        this.requestPlanner = requestPlanner;
+        this.instrumentIdResolver = instrumentIdResolver;
+        this.instrumentService = instrumentService;
+    }
+
+    @Override
+    public Map<String, Object> getQuotes(String[] symbols) {
+        return fetchOHLC(symbols, (symbol, data) -> {
+            Quote quote = new Quote();
+            quote.instrumentToken = kiteToken(symbol);
+            quote.lastPrice = lastPrice(data);
+            quote.ohlc = ohlc(data);
+            return quote;
+        });
+    }
+
+    @Override
+    public Map<String, OHLCQuote> getOHLC(String[] symbols) {
+        return fetchOHLC(symbols, (symbol, data) -> {
+            OHLCQuote quote = new OHLCQuote();
+            quote.instrumentToken = kiteToken(symbol);
+            quote.lastPrice = lastPrice(data);
+            quote.ohlc = ohlc(data);
+            return quote;
+        });
+    }
+
+    @Override
+    public Map<String, Object> getLTP(String[] symbols) {
+        return fetchOHLC(symbols, (symbol, data) -> {
+            LTPQuote quote = new LTPQuote();
+            quote.instrumentToken = kiteToken(symbol);
+            quote.lastPrice = lastPrice(data);
+            return quote;
+        });
+    }
+
+    /**
+     * Quotes built from the OHLC data of the requested symbols, keyed by the requested symbol. Symbols that
+     * cannot be mapped to an Upstox key, or that Upstox did not return, are left out.
+     * @throws PartialResultException if some Upstox calls failed, carrying the quotes of the others and the
+     * requested symbols that are missing
+     */
+    private <Q> Map<String, Q> fetchOHLC(String[] symbols, BiFunction<String, OHLCResponse.OHLCData, Q> toQuote) {
+        Map<String, String> symbolsByKey = upstoxKeys(symbols);
+        if (symbolsByKey.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return bySymbol(requestPlanner.executeForMap(ProviderEndpoint.UPSTOX_OHLC, symbolsByKey.keySet(),
+                    this::fetchOHLCChunk), symbolsByKey, toQuote);
+        } catch (PartialResultException e) {
+            List<String> failedSymbols = new ArrayList<>(e.getFailedSymbols().size());
+            for (String key : e.getFailedSymbols()) {
+                failedSymbols.add(symbolsByKey.get(key));
+            }
+            throw new PartialResultException(e.getMessage(), bySymbol(e.getPartialResult(), symbolsByKey, toQuote),
+                    failedSymbols, e.getCause());
+        }
+    }
+
+    private static <Q> Map<String, Q> bySymbol(Map<String, OHLCResponse.OHLCData> byKey, Map<String, String> symbolsByKey,
+                                               BiFunction<String, OHLCResponse.OHLCData, Q> toQuote) {
+        Map<String, Q> bySymbol = new HashMap<>(byKey.size() * 2);
+        byKey.forEach((key, data) -> {
+            String symbol = symbolsByKey.get(key);
+            if (symbol != null) {
+                bySymbol.put(symbol, toQuote.apply(symbol, data));
+            }
+        });
+        return bySymbol;
+    }
+
+    /**
+     * One Upstox OHLC call, re-keyed from the response key ({@code NSE_EQ:SYMBOL}) to the instrument key
+     * that was requested
+     */
+    private Map<String, OHLCResponse.OHLCData> fetchOHLCChunk(List<String> keys) {
+        OHLCResponse response = upStockClient.getOHLCData(keys, interval);
+        if (response == null || response.getData() == null) {
+            log.warn("Received null response or null data from Upstox API");
+            return Map.of();
+        }
+        Map<String, OHLCResponse.OHLCData> byKey = new HashMap<>(response.getData().size() * 2);
+        for (OHLCResponse.OHLCData data : response.getData().values()) {
+            if (data.getInstrument_token() != null) {
+                byKey.put(data.getInstrument_token(), data);
+            }
+        }
+        return byKey;
+    }
+
+    /**
+     * Upstox instrument keys of NSE symbols. ISINs the resolver has not learned yet are looked up in the
+     * instrument store and taught to it.
+     * @return Requested symbol per Upstox key
+     */
+    private Map<String, String> upstoxKeys(String[] symbols) {
+        Map<String, String> symbolsByKey = new HashMap<>(symbols.length * 2);
+        Map<String, String> unknown = new HashMap<>();
+        for (String symbol : symbols) {
+            String tradingSymbol = nseTradingSymbol(symbol);
+            if (tradingSymbol == null) {
+                continue;
+            }
+            String key = instrumentIdResolver.upstoxKey(instrumentIdResolver.idOfNseSymbol(tradingSymbol));
+            if (key != null) {
+                symbolsByKey.put(key, symbol);
+            } else {
+                unknown.put(tradingSymbol, symbol);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return symbolsByKey;
+        }
+
+        try {
+            Map<String, String> learned = new HashMap<>();
+            for (Instrument instrument : instrumentService.getInstrumentByTradingsymbols(new ArrayList<>(unknown.keySet()))) {
+                String symbol = unknown.get(instrument.getTradingSymbol());
+                if (symbol != null && instrument.getIsin() != null) {
+                    learned.put(instrument.getIsin(), instrument.getTradingSymbol());
+                    symbolsByKey.put(instrumentIdResolver.upstoxKeyOfIsin(instrument.getIsin()), symbol);
+                }
+            }
+            if (!learned.isEmpty()) {
+                instrumentIdResolver.learn(learned);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to resolve Upstox keys for {}: {}", unknown.keySet(), e.getMessage());
+        }
+        return symbolsByKey;
+    }
+
+    /**
+     * @return Trading symbol of an {@code NSE:SYMBOL} or bare symbol, or null for other exchanges
+     */
+    private static String nseTradingSymbol(String symbol) {
+        if (symbol.startsWith(NSE_PREFIX)) {
+            return symbol.substring(NSE_PREFIX.length());
+        }
+        return symbol.indexOf(':') < 0 ? symbol : null;
+    }
+
+    private long kiteToken(String symbol) {
+        String tradingSymbol = nseTradingSymbol(symbol);
+        long token = instrumentIdResolver.kiteToken(instrumentIdResolver.idOfNseSymbol(tradingSymbol));
+        return token != InstrumentMaster.NO_TOKEN ? token : 0L;
+    }
+
+    private static double lastPrice(OHLCResponse.OHLCData data) {
+        return data.getLast_price() != null ? data.getLast_price() : 0d;
+    }
+
+    private static OHLC ohlc(OHLCResponse.OHLCData data) {
+        OHLC ohlc = new OHLC();
+        ohlc.open = data.getOpen() != null ? data.getOpen() : 0d;
+        ohlc.high = data.getHigh() != null ? data.getHigh() : 0d;
+        ohlc.low = data.getLow() != null ? data.getLow() : 0d;
+        ohlc.close = data.getClose() != null ? data.getClose() : 0d;
+        return ohlc;
+    }
+
+    @Override
+    public String getProviderName() {
+        return "upstox";
+    }
+}
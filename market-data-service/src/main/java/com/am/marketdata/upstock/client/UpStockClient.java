@@ -2,6 +2,8 @@ package com.am.marketdata.upstock.client;
 
 import com.am.marketdata.upstock.config.UpstoxConfig;
 import com.am.marketdata.upstock.model.*;
+import com.marketdata.common.ProviderRateLimiters;
+import com.marketdata.common.RateLimitClass;
 
 import kong.unirest.HttpResponse;
 import kong.unirest.Unirest;
@@ -17,6 +19,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UpStockClient {
     private final UpstoxConfig upstoxConfig;
+    private final ProviderRateLimiters rateLimiters;
     private static final String BASE_URL = "https://api-v2.upstox.com/v2";
 
     // Market Data APIs
@@ -45,6 +48,7 @@ public class UpStockClient {
         log.info("=== Executing GET request to Upstox API ===");
         logRequest("GET", url, queryParams);
 
+        rateLimiters.acquire(RateLimitClass.UPSTOX_STANDARD);
         try {
             var request = Unirest.get(url)
                 .header("Authorization", "Bearer " + upstoxConfig.getAccessToken())
@@ -2,6 +2,7 @@ package com.am.marketdata.upstock.mapper;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -11,10 +12,16 @@ import org.springframework.stereotype.Component;
 import com.am.common.investment.model.equity.EquityPrice;
 import com.am.marketdata.upstock.model.OHLCResponse.OHLCData;
 import com.am.marketdata.upstock.model.common.StockQuote;
+import com.marketdata.service.instrument.InstrumentIdResolver;
 
 @Component
 public class EquityStockMapper {
-    
+
+    private final InstrumentIdResolver instrumentIdResolver;
+
+    public EquityStockMapper(InstrumentIdResolver instrumentIdResolver) {
+        this.instrumentIdResolver = instrumentIdResolver;
+    }
 
     public List<EquityPrice> getEquityPrices(List<StockQuote> marketQuotes) {
         if (marketQuotes == null || marketQuotes.isEmpty()) {
@@ -41,8 +48,24 @@ public class EquityStockMapper {
         }
         
         var equityPrices = new ArrayList<EquityPrice>();
+        var learned = new HashMap<String, String>();
         for (var entry : ohlcResponses.entrySet()) {
-            equityPrices.add(getEquityPriceByOHLC(entry.getKey(), entry.getValue()));
+            var ohlcData = entry.getValue();
+            int id = instrumentIdResolver.idOfUpstoxKey(ohlcData.getInstrument_token());
+            if (id != InstrumentIdResolver.NO_ID) {
+                equityPrices.add(getEquityPriceByOHLC(InstrumentIdResolver.UPSTOX_NSE_EQUITY,
+                        instrumentIdResolver.isin(id), instrumentIdResolver.symbol(id), ohlcData));
+            } else {
+                // First sighting of this instrument, parse the response key and remember the ISIN
+                var equityPrice = getEquityPriceByOHLC(entry.getKey(), ohlcData);
+                if (equityPrice.getIsin() != null && equityPrice.getSymbol() != null) {
+                    learned.put(equityPrice.getIsin(), equityPrice.getSymbol());
+                }
+                equityPrices.add(equityPrice);
+            }
+        }
+        if (!learned.isEmpty()) {
+            instrumentIdResolver.learn(learned);
         }
         return equityPrices;
     }
@@ -50,10 +73,14 @@ public class EquityStockMapper {
     public EquityPrice getEquityPriceByOHLC(String symbol, OHLCData ohlcData) {
         var exchange = symbol.substring(0, 6);
         var extractedSymbol = getSymbol(symbol);
+        return getEquityPriceByOHLC(exchange, ohlcData.getISIN(), extractedSymbol, ohlcData);
+    }
+
+    private EquityPrice getEquityPriceByOHLC(String exchange, String isin, String symbol, OHLCData ohlcData) {
         return EquityPrice.builder()
         .exchange(exchange)
-        .isin(ohlcData.getISIN())
-            .symbol(extractedSymbol)
+        .isin(isin)
+            .symbol(symbol)
             .open(ohlcData.getOpen())
             .high(ohlcData.getHigh())
             .low(ohlcData.getLow())
@@ -1,177 +1,159 @@
-// package com.marketdata.api;
-
-// import com.marketdata.service.common.MarketDataProvider;
-// import com.marketdata.service.common.MarketDataProviderFactory;
-// import lombok.extern.slf4j.Slf4j;
-// import org.springframework.messaging.handler.annotation.MessageMapping;
-// import org.springframework.messaging.handler.annotation.SendTo;
-// import org.springframework.messaging.simp.SimpMessagingTemplate;
-// import org.springframework.stereotype.Controller;
-
-// import java.util.List;
-// import java.util.Map;
-// import java.util.concurrent.ConcurrentHashMap;
-
-// /**
-//  * WebSocket controller for real-time market data
-//  */
-// @Slf4j
-// @Controller
-// public class MarketDataWebSocketController {
-
-//     private final MarketDataProviderFactory providerFactory;
-//     private final SimpMessagingTemplate messagingTemplate;
-//     private final Map<String, Object> activeTickerSessions = new ConcurrentHashMap<>();
-
-//     public MarketDataWebSocketController(
-//             MarketDataProviderFactory providerFactory,
-//             SimpMessagingTemplate messagingTemplate) {
-//         this.providerFactory = providerFactory;
-//         this.messagingTemplate = messagingTemplate;
-//     }
-
-//     /**
-//      * Subscribe to market data for instruments
-//      * @param request Subscription request containing instruments
-//      * @return Subscription status
-//      */
-//     @MessageMapping("/market-data/subscribe")
-//     @SendTo("/topic/market-data/status")
-//     public Map<String, Object> subscribe(SubscriptionRequest request) {
-//         try {
-//             log.info("Received subscription request for {} instruments", request.getInstruments().size());
-            
-//             MarketDataProvider provider = providerFactory.getProvider();
-            
-//             // Create a tick listener that forwards data to WebSocket clients
-//             Object tickListener = createTickListener(request.getSessionId());
-            
-//             // Initialize ticker with the instruments
-//             Object ticker = provider.initializeTicker(request.getInstruments(), tickListener);
-            
-//             // Store the ticker session for later management
-//             activeTickerSessions.put(request.getSessionId(), ticker);
-            
-//             return Map.of(
-//                 "status", "subscribed",
-//                 "sessionId", request.getSessionId(),
-//                 "instrumentCount", request.getInstruments().size(),
-//                 "provider", provider.getProviderName()
-//             );
-//         } catch (Exception e) {
-//             log.error("Error subscribing to market data: {}", e.getMessage(), e);
-//             return Map.of(
-//                 "status", "error",
-//                 "message", e.getMessage(),
-//                 "sessionId", request.getSessionId()
-//             );
-//         }
-//     }
-
-//     /**
-//      * Unsubscribe from market data
-//      * @param request Unsubscription request
-//      * @return Unsubscription status
-//      */
-//     @MessageMapping("/market-data/unsubscribe")
-//     @SendTo("/topic/market-data/status")
-//     public Map<String, Object> unsubscribe(UnsubscriptionRequest request) {
-//         try {
-//             log.info("Received unsubscription request for session {}", request.getSessionId());
-            
-//             // Remove the ticker session
-//             Object ticker = activeTickerSessions.remove(request.getSessionId());
-            
-//             if (ticker != null) {
-//                 // Implement provider-specific cleanup if needed
-//                 return Map.of(
-//                     "status", "unsubscribed",
-//                     "sessionId", request.getSessionId()
-//                 );
-//             } else {
-//                 return Map.of(
-//                     "status", "not_found",
-//                     "sessionId", request.getSessionId()
-//                 );
-//             }
-//         } catch (Exception e) {
-//             log.error("Error unsubscribing from market data: {}", e.getMessage(), e);
-//             return Map.of(
-//                 "status", "error",
-//                 "message", e.getMessage(),
-//                 "sessionId", request.getSessionId()
-//             );
-//         }
-//     }
-
-//     /**
-//      * Create a tick listener based on the provider
-//      * @param sessionId Session ID for routing
-//      * @return Provider-specific tick listener
-//      */
-//     private Object createTickListener(String sessionId) {
-//         MarketDataProvider provider = providerFactory.getProvider();
-//         String providerName = provider.getProviderName();
-        
-//         // Create appropriate listener based on provider
-//         if ("zerodha".equals(providerName)) {
-//             return createZerodhaTickListener(sessionId);
-//         } else {
-//             throw new UnsupportedOperationException("Provider not supported for WebSocket: " + providerName);
-//         }
-//     }
-
-//     /**
-//      * Create a Zerodha-specific tick listener
-//      * @param sessionId Session ID for routing
-//      * @return Zerodha tick listener
-//      */
-//     private Object createZerodhaTickListener(String sessionId) {
-//         return (com.zerodhatech.ticker.OnTicks) ticks -> {
-//             // Forward ticks to WebSocket clients
-//             messagingTemplate.convertAndSend(
-//                 "/topic/market-data/ticks/" + sessionId,
-//                 Map.of("ticks", ticks)
-//             );
-//         };
-//     }
-
-//     /**
-//      * Subscription request model
-//      */
-//     public static class SubscriptionRequest {
-//         private String sessionId;
-//         private List<String> instruments;
-
-//         public String getSessionId() {
-//             return sessionId;
-//         }
-
-//         public void setSessionId(String sessionId) {
-//             this.sessionId = sessionId;
-//         }
-
-//         public List<String> getInstruments() {
-//             return instruments;
-//         }
-
-//         public void setInstruments(List<String> instruments) {
-//             this.instruments = instruments;
-//         }
-//     }
-
-//     /**
-//      * Unsubscription request model
-//      */
-//     public static class UnsubscriptionRequest {
-//         private String sessionId;
-
-//         public String getSessionId() {
-//             return sessionId;
-//         }
-
-//         public void setSessionId(String sessionId) {
-//             this.sessionId = sessionId;
-//         }
-//     }
-// }
+package com.marketdata.api;
+
+import com.marketdata.common.MarketDataProviderFactory;
+import com.marketdata.service.websocket.TickFormat;
+import com.marketdata.service.websocket.TickSubscriptionManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebSocket controller for real-time market data.
+ * All sessions share the provider's ticker connection through {@link TickSubscriptionManager};
+ * ticks for a session are published to {@code /topic/market-data/ticks/{sessionId}}.
+ * Session ids are generated by the server on the first subscription and returned only to the calling
+ * connection on {@code /user/queue/market-data/status}; later requests name the session to change it.
+ * Sessions may request {@code "format": "binary"} to receive compact binary frames instead of JSON;
+ * binary frames need the native {@code /market-data-ws-native} endpoint since SockJS is text-only.
+ */
+@Slf4j
+@Controller
+public class MarketDataWebSocketController {
+
+    private final MarketDataProviderFactory providerFactory;
+    private final TickSubscriptionManager subscriptionManager;
+
+    public MarketDataWebSocketController(
+            MarketDataProviderFactory providerFactory,
+            TickSubscriptionManager subscriptionManager) {
+        this.providerFactory = providerFactory;
+        this.subscriptionManager = subscriptionManager;
+    }
+
+    /**
+     * Subscribe to market data for instruments
+     * @param request Subscription request containing instruments
+     * @param headerAccessor STOMP headers of the calling connection
+     * @return Subscription status
+     */
+    @MessageMapping("/market-data/subscribe")
+    @SendToUser(destinations = "/queue/market-data/status", broadcast = false)
+    public Map<String, Object> subscribe(SubscriptionRequest request, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = request.getSessionId();
+        try {
+            if (request.getInstruments() == null || request.getInstruments().isEmpty()) {
+                throw new IllegalArgumentException("Instruments cannot be null or empty");
+            }
+            log.info("Received subscription request for {} instruments", request.getInstruments().size());
+
+            TickFormat format = TickFormat.from(request.getFormat());
+            String connectionId = headerAccessor.getSessionId();
+            if (sessionId == null || sessionId.isBlank()) {
+                sessionId = subscriptionManager.openSession(connectionId);
+            }
+            int instrumentCount = subscriptionManager.subscribe(connectionId, sessionId, request.getInstruments(), format);
+
+            return Map.of(
+                "status", "subscribed",
+                "sessionId", sessionId,
+                "instrumentCount", instrumentCount,
+                "format", format.name().toLowerCase(),
+                "provider", providerFactory.getProvider().getProviderName()
+            );
+        } catch (Exception e) {
+            log.error("Error subscribing to market data: {}", e.getMessage(), e);
+            return Map.of(
+                "status", "error",
+                "message", String.valueOf(e.getMessage()),
+                "sessionId", String.valueOf(sessionId)
+            );
+        }
+    }
+
+    /**
+     * Unsubscribe from market data
+     * @param request Unsubscription request
+     * @param headerAccessor STOMP headers of the calling connection
+     * @return Unsubscription status
+     */
+    @MessageMapping("/market-data/unsubscribe")
+    @SendToUser(destinations = "/queue/market-data/status", broadcast = false)
+    public Map<String, Object> unsubscribe(UnsubscriptionRequest request, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = String.valueOf(request.getSessionId());
+        try {
+            log.info("Received unsubscription request for session {}", sessionId);
+
+            if (subscriptionManager.unsubscribe(headerAccessor.getSessionId(), sessionId)) {
+                return Map.of(
+                    "status", "unsubscribed",
+                    "sessionId", sessionId
+                );
+            } else {
+                return Map.of(
+                    "status", "not_found",
+                    "sessionId", sessionId
+                );
+            }
+        } catch (Exception e) {
+            log.error("Error unsubscribing from market data: {}", e.getMessage(), e);
+            return Map.of(
+                "status", "error",
+                "message", String.valueOf(e.getMessage()),
+                "sessionId", sessionId
+            );
+        }
+    }
+
+    /**
+     * Subscription request model
+     */
+    public static class SubscriptionRequest {
+        private String sessionId;
+        private List<String> instruments;
+        private String format;
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public void setSessionId(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        public List<String> getInstruments() {
+            return instruments;
+        }
+
+        public void setInstruments(List<String> instruments) {
+            this.instruments = instruments;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public void setFormat(String format) {
+            this.format = format;
+        }
+    }
+
+    /**
+     * Unsubscription request model
+     */
+    public static class UnsubscriptionRequest {
+        private String sessionId;
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public void setSessionId(String sessionId) {
+            this.sessionId = sessionId;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.marketdata.common;
+
+import com.zerodhatech.models.HistoricalData;
+import com.zerodhatech.models.Instrument;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * {@link MarketDataProvider} decorator that merges identical concurrent calls into one upstream call, see
+ * {@link CoalescingQuoteProvider}. Historical calls are identical when they make the same query. All other
+ * operations pass straight through.
+ */
+public class CoalescingMarketDataProvider extends CoalescingQuoteProvider implements MarketDataProvider {
+
+    private final MarketDataProvider delegate;
+
+    public CoalescingMarketDataProvider(MarketDataProvider delegate, MeterRegistry meterRegistry) {
+        super(delegate, meterRegistry);
+        this.delegate = delegate;
+    }
+
+    /**
+     * @param batchScheduler Window timers of quote and LTP batches, or null to only coalesce identical calls
+     * @param batchExecutor Runs the upstream calls of batches
+     * @param batchWindowMillis How long a batch collects lookups
+     * @param batchTimeoutMillis Longest a caller waits for its batch
+     */
+    public CoalescingMarketDataProvider(MarketDataProvider delegate, MeterRegistry meterRegistry,
+                                        ScheduledExecutorService batchScheduler, Executor batchExecutor,
+                                        long batchWindowMillis, long batchTimeoutMillis) {
+        super(delegate, meterRegistry, batchScheduler, batchExecutor, batchWindowMillis, batchTimeoutMillis);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public HistoricalData getHistoricalData(String symbol, Date from, Date to, String interval,
+                                            boolean continuous, Map<String, Object> additionalParams) {
+        String key = "historical|" + symbol + '|' + (from != null ? from.getTime() : "") + '|'
+                + (to != null ? to.getTime() : "") + '|' + interval + '|' + continuous + '|'
+                + (additionalParams != null ? new TreeMap<>(additionalParams) : "");
+        return copy(coalesce("historical", key,
+                () -> delegate.getHistoricalData(symbol, from, to, interval, continuous, additionalParams)));
+    }
+
+    /**
+     * Copy of a shared historical result, down to the candles, since callers sort and adjust them in place
+     */
+    private static HistoricalData copy(HistoricalData shared) {
+        if (shared == null) {
+            return null;
+        }
+        HistoricalData copy = copyCandle(shared);
+        if (shared.dataArrayList != null) {
+            ArrayList<HistoricalData> candles = new ArrayList<>(shared.dataArrayList.size());
+            for (HistoricalData candle : shared.dataArrayList) {
+                candles.add(copy(candle));
+            }
+            copy.dataArrayList = candles;
+        }
+        return copy;
+    }
+
+    private static HistoricalData copyCandle(HistoricalData candle) {
+        HistoricalData copy = new HistoricalData();
+        copy.timeStamp = candle.timeStamp;
+        copy.open = candle.open;
+        copy.high = candle.high;
+        copy.low = candle.low;
+        copy.close = candle.close;
+        copy.volume = candle.volume;
+        copy.oi = candle.oi;
+        return copy;
+    }
+
+    @Override
+    public void initialize() {
+        delegate.initialize();
+    }
+
+    @Override
+    public void cleanup() {
+        delegate.cleanup();
+    }
+
+    @Override
+    public void setAccessToken(String accessToken) {
+        delegate.setAccessToken(accessToken);
+    }
+
+    @Override
+    public String getLoginUrl() {
+        return delegate.getLoginUrl();
+    }
+
+    @Override
+    public Object generateSession(String requestToken) {
+        return delegate.generateSession(requestToken);
+    }
+
+    @Override
+    public Object initializeTicker(List<String> symbolIds, Object tickListener) {
+        return delegate.initializeTicker(symbolIds, tickListener);
+    }
+
+    @Override
+    public void subscribeTicker(String source, List<String> instrumentIds, String mode) {
+        delegate.subscribeTicker(source, instrumentIds, mode);
+    }
+
+    @Override
+    public void unsubscribeTicker(String source, List<String> instrumentIds) {
+        delegate.unsubscribeTicker(source, instrumentIds);
+    }
+
+    @Override
+    public boolean isTickerConnected() {
+        return delegate.isTickerConnected();
+    }
+
+    @Override
+    public List<Instrument> getAllInstruments() {
+        return delegate.getAllInstruments();
+    }
+
+    @Override
+    public List<Object> getSymbolsForExchange(String exchange) {
+        return delegate.getSymbolsForExchange(exchange);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(ProviderOperation<T> operation) {
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public boolean logout() {
+        return delegate.logout();
+    }
+}
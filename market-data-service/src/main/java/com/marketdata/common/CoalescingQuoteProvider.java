@@ -0,0 +1,115 @@
+package com.marketdata.common;
+
+import com.marketdata.common.util.SingleFlight;
+import com.zerodhatech.models.OHLCQuote;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * {@link QuoteProvider} decorator that merges identical concurrent quote, OHLC and LTP calls into one
+ * upstream call. Calls are identical when they name the same operation and the same symbols in any order.
+ * Provider rate limits are per API key, so every duplicate call that is not made is one less chance of a
+ * 429 for everyone.
+ *
+ * Each caller gets its own copy of a shared result.
+ *
+ * With a batching window, quote and LTP lookups go through a {@link QuoteBatcher} instead: lookups for
+ * different symbols arriving within the window share one upstream call as well.
+ */
+public class CoalescingQuoteProvider implements QuoteProvider {
+
+    /** Kite instrument limits per quote and LTP call */
+    static final int MAX_QUOTE_SYMBOLS = 500;
+    static final int MAX_LTP_SYMBOLS = 1000;
+
+    private final QuoteProvider delegate;
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+    private final MeterRegistry meterRegistry;
+    private final QuoteBatcher<Object> quoteBatcher;
+    private final QuoteBatcher<Object> ltpBatcher;
+
+    public CoalescingQuoteProvider(QuoteProvider delegate, MeterRegistry meterRegistry) {
+        this(delegate, meterRegistry, null, null, 0, 0);
+    }
+
+    /**
+     * @param batchScheduler Window timers of quote and LTP batches, or null to only coalesce identical calls
+     * @param batchExecutor Runs the upstream calls of batches
+     * @param batchWindowMillis How long a batch collects lookups
+     * @param batchTimeoutMillis Longest a caller waits for its batch
+     */
+    public CoalescingQuoteProvider(QuoteProvider delegate, MeterRegistry meterRegistry,
+                                   ScheduledExecutorService batchScheduler, Executor batchExecutor,
+                                   long batchWindowMillis, long batchTimeoutMillis) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        if (batchScheduler != null) {
+            this.quoteBatcher = new QuoteBatcher<>("quotes", delegate::getQuotes, batchScheduler, batchExecutor,
+                    batchWindowMillis, batchTimeoutMillis, MAX_QUOTE_SYMBOLS, meterRegistry);
+            this.ltpBatcher = new QuoteBatcher<>("ltp", delegate::getLTP, batchScheduler, batchExecutor,
+                    batchWindowMillis, batchTimeoutMillis, MAX_LTP_SYMBOLS, meterRegistry);
+        } else {
+            this.quoteBatcher = null;
+            this.ltpBatcher = null;
+        }
+        Gauge.builder("market-data.provider.coalescing.inflight", singleFlight, SingleFlight::inFlight)
+                .tag("provider", delegate.getProviderName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Map<String, Object> getQuotes(String[] symbols) {
+        if (quoteBatcher != null) {
+            return quoteBatcher.get(symbols);
+        }
+        return copy(coalesce("quotes", symbolsKey("quotes", symbols), () -> delegate.getQuotes(symbols)));
+    }
+
+    @Override
+    public Map<String, OHLCQuote> getOHLC(String[] symbols) {
+        return copy(coalesce("ohlc", symbolsKey("ohlc", symbols), () -> delegate.getOHLC(symbols)));
+    }
+
+    @Override
+    public Map<String, Object> getLTP(String[] symbols) {
+        if (ltpBatcher != null) {
+            return ltpBatcher.get(symbols);
+        }
+        return copy(coalesce("ltp", symbolsKey("ltp", symbols), () -> delegate.getLTP(symbols)));
+    }
+
+    <V> V coalesce(String operation, String key, Supplier<V> call) {
+        Counter upstream = meterRegistry.counter("market-data.provider.coalescing.upstream", "operation", operation);
+        meterRegistry.counter("market-data.provider.coalescing.requests", "operation", operation).increment();
+        return singleFlight.execute(key, () -> {
+            upstream.increment();
+            return call.get();
+        });
+    }
+
+    private static <K, V> Map<K, V> copy(Map<K, V> shared) {
+        return shared != null ? new HashMap<>(shared) : null;
+    }
+
+    /**
+     * Key independent of symbol order and duplicates
+     */
+    private static String symbolsKey(String operation, String[] symbols) {
+        String[] sorted = Arrays.stream(symbols).distinct().sorted().toArray(String[]::new);
+        return operation + '|' + String.join(",", sorted);
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+}
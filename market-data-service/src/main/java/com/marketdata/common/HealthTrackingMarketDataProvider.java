@@ -0,0 +1,103 @@
+package com.marketdata.common;
+
+import com.zerodhatech.models.HistoricalData;
+import com.zerodhatech.models.Instrument;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link MarketDataProvider} decorator that also reports the latency and outcome of historical reads to the
+ * {@link ProviderHealthRegistry}, see {@link HealthTrackingQuoteProvider}. All other operations pass straight
+ * through.
+ */
+public class HealthTrackingMarketDataProvider extends HealthTrackingQuoteProvider implements MarketDataProvider {
+
+    private final MarketDataProvider delegate;
+
+    public HealthTrackingMarketDataProvider(MarketDataProvider delegate, ProviderHealthRegistry healthRegistry) {
+        super(delegate, healthRegistry);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public HistoricalData getHistoricalData(String symbol, Date from, Date to, String interval,
+                                            boolean continuous, Map<String, Object> additionalParams) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            HistoricalData data = delegate.getHistoricalData(symbol, from, to, interval, continuous, additionalParams);
+            failed = false;
+            return data;
+        } finally {
+            record(RequestClass.HISTORICAL, start, failed);
+        }
+    }
+
+    @Override
+    public void initialize() {
+        delegate.initialize();
+    }
+
+    @Override
+    public void cleanup() {
+        delegate.cleanup();
+    }
+
+    @Override
+    public void setAccessToken(String accessToken) {
+        delegate.setAccessToken(accessToken);
+    }
+
+    @Override
+    public String getLoginUrl() {
+        return delegate.getLoginUrl();
+    }
+
+    @Override
+    public Object generateSession(String requestToken) {
+        return delegate.generateSession(requestToken);
+    }
+
+    @Override
+    public Object initializeTicker(List<String> symbolIds, Object tickListener) {
+        return delegate.initializeTicker(symbolIds, tickListener);
+    }
+
+    @Override
+    public void subscribeTicker(String source, List<String> instrumentIds, String mode) {
+        delegate.subscribeTicker(source, instrumentIds, mode);
+    }
+
+    @Override
+    public void unsubscribeTicker(String source, List<String> instrumentIds) {
+        delegate.unsubscribeTicker(source, instrumentIds);
+    }
+
+    @Override
+    public boolean isTickerConnected() {
+        return delegate.isTickerConnected();
+    }
+
+    @Override
+    public List<Instrument> getAllInstruments() {
+        return delegate.getAllInstruments();
+    }
+
+    @Override
+    public List<Object> getSymbolsForExchange(String exchange) {
+        return delegate.getSymbolsForExchange(exchange);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(ProviderOperation<T> operation) {
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public boolean logout() {
+        return delegate.logout();
+    }
+}
@@ -0,0 +1,63 @@
+package com.marketdata.common;
+
+import com.zerodhatech.models.OHLCQuote;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link QuoteProvider} decorator that reports the latency and outcome of every routed read to the
+ * {@link ProviderHealthRegistry}. Only calls that throw count as failures, which includes timeouts and
+ * rate-limit waits that ran out; an empty answer is a valid one, e.g. for symbols the provider does not know.
+ */
+public class HealthTrackingQuoteProvider implements QuoteProvider {
+
+    private final QuoteProvider delegate;
+    private final ProviderHealthRegistry healthRegistry;
+
+    public HealthTrackingQuoteProvider(QuoteProvider delegate, ProviderHealthRegistry healthRegistry) {
+        this.delegate = delegate;
+        this.healthRegistry = healthRegistry;
+    }
+
+    @Override
+    public Map<String, Object> getQuotes(String[] symbols) {
+        return trackMap(RequestClass.QUOTE, () -> delegate.getQuotes(symbols));
+    }
+
+    @Override
+    public Map<String, OHLCQuote> getOHLC(String[] symbols) {
+        return trackMap(RequestClass.OHLC, () -> delegate.getOHLC(symbols));
+    }
+
+    @Override
+    public Map<String, Object> getLTP(String[] symbols) {
+        return trackMap(RequestClass.LTP, () -> delegate.getLTP(symbols));
+    }
+
+    private <V> Map<String, V> trackMap(RequestClass requestClass, Supplier<Map<String, V>> call) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Map<String, V> result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            record(requestClass, start, failed);
+        }
+    }
+
+    void record(RequestClass requestClass, long start, boolean failed) {
+        long nanos = System.nanoTime() - start;
+        if (failed) {
+            healthRegistry.recordFailure(delegate.getProviderName(), requestClass, nanos);
+        } else {
+            healthRegistry.recordSuccess(delegate.getProviderName(), requestClass, nanos);
+        }
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+}
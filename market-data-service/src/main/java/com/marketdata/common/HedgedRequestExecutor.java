@@ -0,0 +1,268 @@
+package com.marketdata.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Hedges latency-critical provider reads. The request goes to the primary provider; if it has not answered
+ * within the hedge delay, the same request goes to the secondary provider and the first non-empty answer
+ * wins. The losing call is not interrupted, since it may be leading a coalesced call that other callers
+ * share; it runs to completion and its answer is dropped.
+ *
+ * The hedge delay is the p95 of recent primary latencies per operation and primary provider, within
+ * configured bounds, so only about one request in twenty is sent twice while the primary is healthy.
+ * A primary that fails or answers empty before the delay is hedged at once.
+ */
+@Slf4j
+@Component
+public class HedgedRequestExecutor {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final double HEDGE_PERCENTILE = 95;
+
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Hedge> hedges = new ConcurrentHashMap<>();
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final long initialDelayMillis;
+    private final long minSamples;
+    private final long refreshMillis;
+
+    public HedgedRequestExecutor(MeterRegistry meterRegistry,
+                                 @Value("${market-data.hedging.threads:16}") int threads,
+                                 @Value("${market-data.hedging.delay.min.ms:50}") long minDelayMillis,
+                                 @Value("${market-data.hedging.delay.max.ms:2000}") long maxDelayMillis,
+                                 @Value("${market-data.hedging.delay.initial.ms:500}") long initialDelayMillis,
+                                 @Value("${market-data.hedging.delay.min.samples:100}") long minSamples,
+                                 @Value("${market-data.hedging.delay.refresh.ms:1000}") long refreshMillis) {
+        this.meterRegistry = meterRegistry;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.initialDelayMillis = initialDelayMillis;
+        this.minSamples = minSamples;
+        this.refreshMillis = refreshMillis;
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        // No queue: when every thread is busy the request runs unhedged on the caller instead of waiting
+        this.executor = new ThreadPoolExecutor(0, threads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "provider-hedge-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Run a read against the primary provider, hedged with the secondary
+     * @param operation Operation name; hedge delays are tracked per operation and primary provider
+     * @param primary Provider asked first
+     * @param secondary Provider asked after the hedge delay, or null to only call the primary
+     * @param call Read against one provider
+     * @return First non-empty answer, or the primary's answer if neither was non-empty
+     */
+    public <V> Map<String, V> execute(String operation, QuoteProvider primary, QuoteProvider secondary,
+                                      Function<QuoteProvider, Map<String, V>> call) {
+        Hedge hedge = hedges.computeIfAbsent(operation + '|' + primary.getProviderName(),
+                key -> new Hedge(operation, primary.getProviderName()));
+        hedge.requests.increment();
+        if (secondary == null) {
+            long start = System.nanoTime();
+            try {
+                return call.apply(primary);
+            } finally {
+                hedge.record(System.nanoTime() - start);
+            }
+        }
+
+        CompletableFuture<Map<String, V>> primaryLeg;
+        try {
+            primaryLeg = launch(primary, call, hedge);
+        } catch (RejectedExecutionException e) {
+            log.debug("No hedge thread free, calling {} unhedged for {}", primary.getProviderName(), operation);
+            return call.apply(primary);
+        }
+        try {
+            Map<String, V> result = primaryLeg.get(hedge.delayMillis(), TimeUnit.MILLISECONDS);
+            if (answered(result)) {
+                return result;
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            // Slow or failed, hedge
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + operation, e);
+        }
+
+        CompletableFuture<Map<String, V>> secondaryLeg;
+        try {
+            secondaryLeg = launch(secondary, call, null);
+        } catch (RejectedExecutionException e) {
+            log.debug("No hedge thread free, waiting for {} on {}", operation, primary.getProviderName());
+            return await(operation, primaryLeg);
+        }
+        hedge.sent.increment();
+        log.debug("Hedged {} to {} after {}ms", operation, secondary.getProviderName(), hedge.delayMillis());
+
+        CompletableFuture<Map<String, V>> winner = await(operation, firstAnswered(List.of(primaryLeg, secondaryLeg)));
+        if (winner == secondaryLeg) {
+            hedge.won.increment();
+            return secondaryLeg.join();
+        }
+        if (winner == primaryLeg) {
+            return primaryLeg.join();
+        }
+        // Neither answered; report the primary's outcome
+        if (!primaryLeg.isCompletedExceptionally()) {
+            return primaryLeg.join();
+        }
+        if (!secondaryLeg.isCompletedExceptionally()) {
+            return secondaryLeg.join();
+        }
+        return await(operation, primaryLeg);
+    }
+
+    /**
+     * Start a call on the hedge pool
+     * @param hedge Receives the call's latency, or null if it is not a primary call
+     */
+    private <V> CompletableFuture<Map<String, V>> launch(QuoteProvider provider,
+                                                         Function<QuoteProvider, Map<String, V>> call, Hedge hedge) {
+        CompletableFuture<Map<String, V>> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                result.complete(call.apply(provider));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                if (hedge != null) {
+                    hedge.record(System.nanoTime() - start);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return Future of the first leg with a non-empty answer, completed with null once all legs are done without one
+     */
+    private static <V> CompletableFuture<CompletableFuture<Map<String, V>>> firstAnswered(
+            List<CompletableFuture<Map<String, V>>> legs) {
+        CompletableFuture<CompletableFuture<Map<String, V>>> first = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(legs.size());
+        for (CompletableFuture<Map<String, V>> leg : legs) {
+            leg.whenComplete((result, error) -> {
+                if (error == null && answered(result)) {
+                    first.complete(leg);
+                } else if (outstanding.decrementAndGet() == 0) {
+                    first.complete(null);
+                }
+            });
+        }
+        return first;
+    }
+
+    private static boolean answered(Map<?, ?> result) {
+        return result != null && !result.isEmpty();
+    }
+
+    private static <T> T await(String operation, CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + operation, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Primary latencies and hedge counters of one operation on one primary provider. The delay is the p95
+     * of the latest window holding at least the minimum number of samples, and stays at its previous value
+     * until one is full.
+     */
+    private final class Hedge {
+        final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        final Counter requests;
+        final Counter sent;
+        final Counter won;
+        Histogram window = new Histogram(SIGNIFICANT_DIGITS);
+        Histogram recycled;
+        long refreshedAt = System.nanoTime();
+        volatile long delayMillis = initialDelayMillis;
+
+        Hedge(String operation, String provider) {
+            this.requests = meterRegistry.counter("market-data.provider.hedging.requests",
+                    "operation", operation, "provider", provider);
+            this.sent = meterRegistry.counter("market-data.provider.hedging.sent", "operation", operation, "provider", provider);
+            this.won = meterRegistry.counter("market-data.provider.hedging.won", "operation", operation, "provider", provider);
+            Gauge.builder("market-data.provider.hedging.delay", this, h -> h.delayMillis / 1e3)
+                    .tag("operation", operation)
+                    .tag("provider", provider)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+
+        void record(long nanos) {
+            recorder.recordValue(Math.max(0, nanos));
+        }
+
+        long delayMillis() {
+            if (System.nanoTime() - refreshedAt >= TimeUnit.MILLISECONDS.toNanos(refreshMillis)) {
+                refresh();
+            }
+            return delayMillis;
+        }
+
+        private synchronized void refresh() {
+            long now = System.nanoTime();
+            if (now - refreshedAt < TimeUnit.MILLISECONDS.toNanos(refreshMillis)) {
+                return;
+            }
+            refreshedAt = now;
+            recycled = recorder.getIntervalHistogram(recycled);
+            window.add(recycled);
+            if (window.getTotalCount() < minSamples) {
+                return;
+            }
+            long p95Millis = TimeUnit.NANOSECONDS.toMillis(window.getValueAtPercentile(HEDGE_PERCENTILE));
+            delayMillis = Math.max(minDelayMillis, Math.min(maxDelayMillis, p95Millis));
+            window.reset();
+        }
+    }
+}
@@ -7,13 +7,12 @@ import java.util.concurrent.CompletableFuture;
 
 import com.zerodhatech.models.HistoricalData;
 import com.zerodhatech.models.Instrument;
-import com.zerodhatech.models.OHLCQuote;
 
 /**
  * Common interface for market data providers (Zerodha, Upstox, etc.)
  * This abstraction allows switching between different providers through configuration
  */
-public interface MarketDataProvider {
+public interface MarketDataProvider extends QuoteProvider {
     
     /**
      * Initialize the provider
@@ -44,27 +43,6 @@ public interface MarketDataProvider {
      */
     Object generateSession(String requestToken);
     
-    /**
-     * Get quotes for symbols
-     * @param symbols Array of symbols
-     * @return Map of symbol to quote data
-     */
-    Map<String, Object> getQuotes(String[] symbols);
-    
-    /**
-     * Get OHLC data for symbols
-     * @param symbols Array of symbols
-     * @return Map of symbol to OHLC data
-     */
-    Map<String, OHLCQuote> getOHLC(String[] symbols);
-    
-    /**
-     * Get last traded price for symbols
-     * @param symbols Array of symbols
-     * @return Map of symbol to LTP data
-     */
-    Map<String, Object> getLTP(String[] symbols);
-    
     /**
      * Get historical data for a symbol
      * @param symbol Symbol identifier
@@ -86,6 +64,23 @@ public interface MarketDataProvider {
      */
     Object initializeTicker(List<String> symbolIds, Object tickListener);
     
+    /**
+     * Add instruments to the shared ticker connection on behalf of a source, connecting it if needed.
+     * An instrument held by several sources is streamed in the richest mode any of them asked for.
+     * @param source Name of the subscribing component
+     * @param instrumentIds Instrument identifiers to subscribe
+     * @param mode Provider-specific streaming mode the source needs, e.g. ltp, quote or full; null for the provider default
+     */
+    void subscribeTicker(String source, List<String> instrumentIds, String mode);
+    
+    /**
+     * Release instruments held by a source. They stay on the shared ticker connection while another
+     * source, including the tokens passed to {@link #initializeTicker}, still holds them.
+     * @param source Name of the subscribing component
+     * @param instrumentIds Instrument identifiers to unsubscribe
+     */
+    void unsubscribeTicker(String source, List<String> instrumentIds);
+    
     /**
      * Check if ticker is connected
      * @return true if connected
@@ -119,12 +114,6 @@ public interface MarketDataProvider {
      */
     boolean logout();
     
-    /**
-     * Get provider name
-     * @return Provider name (e.g., "zerodha", "upstox")
-     */
-    String getProviderName();
-    
     /**
      * Functional interface for provider operations
      * @param <T> Return type
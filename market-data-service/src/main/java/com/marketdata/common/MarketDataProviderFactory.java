@@ -1,42 +1,306 @@
 package com.marketdata.common;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
- * Factory for creating market data provider instances based on configuration
+ * Factory for creating market data provider instances based on configuration.
+ * Providers are wrapped in a {@link CoalescingMarketDataProvider}, or a {@link CoalescingQuoteProvider} for
+ * quote-only providers, unless coalescing is disabled, which also micro-batches quote and LTP lookups unless
+ * batching is disabled. With hedging enabled it also supplies the provider that slow reads are hedged to.
+ *
+ * Reads are routed per {@link RequestClass} across the configured routing providers by their live health
+ * in the {@link ProviderHealthRegistry}. The active provider is preferred: another provider takes a request
+ * class over only while the active one is ejected or costs more than the preference factor times as much.
+ * Rate-limit headroom is deliberately not a routing input: time spent queueing for permits already shows in
+ * a provider's latency, and Upstox shares one rate limit class across all its reads, so its free permits say
+ * nothing about a single request class.
+ * Routing providers may be full {@link MarketDataProvider}s or bare {@link QuoteProvider}s, which only take
+ * quote, OHLC and LTP reads. Sessions, tickers and instrument dumps always use the active provider, which
+ * must be a full one. Provider instances are created once per provider and cached.
  */
 @Slf4j
 @Component
 public class MarketDataProviderFactory {
 
     private final ApplicationContext applicationContext;
-    
+    private final MeterRegistry meterRegistry;
+    private final ProviderHealthRegistry healthRegistry;
+    private final Map<String, MarketDataProvider> providers = new ConcurrentHashMap<>();
+    private final Map<String, QuoteProvider> quoteProviders = new ConcurrentHashMap<>();
+
     @Value("${market-data.provider:zerodha}")
     private String activeProvider;
-    
-    public MarketDataProviderFactory(ApplicationContext applicationContext) {
+
+    @Value("${market-data.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    @Value("${market-data.batching.enabled:true}")
+    private boolean batchingEnabled;
+
+    @Value("${market-data.batching.window.ms:5}")
+    private long batchWindowMillis;
+
+    @Value("${market-data.batching.threads:2}")
+    private int batchThreads;
+
+    @Value("${market-data.batching.upstream.threads:4}")
+    private int batchUpstreamThreads;
+
+    @Value("${market-data.batching.upstream.queue.capacity:64}")
+    private int batchUpstreamQueueCapacity;
+
+    @Value("${market-data.batching.timeout.ms:15000}")
+    private long batchTimeoutMillis;
+
+    @Value("${market-data.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    @Value("${market-data.routing.providers:}")
+    private String routingProviders;
+
+    @Value("${market-data.routing.preference.factor:2.0}")
+    private double preferenceFactor;
+
+    private volatile ScheduledExecutorService batchScheduler;
+    private volatile ThreadPoolExecutor batchExecutor;
+    private volatile List<String> candidates;
+
+    public MarketDataProviderFactory(ApplicationContext applicationContext, MeterRegistry meterRegistry,
+                                     ProviderHealthRegistry healthRegistry) {
         this.applicationContext = applicationContext;
+        this.meterRegistry = meterRegistry;
+        this.healthRegistry = healthRegistry;
     }
-    
+
     /**
      * Get the configured market data provider
      * @return MarketDataProvider implementation
      */
     public MarketDataProvider getProvider() {
-        log.info("Creating market data provider: {}", activeProvider);
-        
-        switch (activeProvider.toLowerCase()) {
+        return provider(candidates().get(0));
+    }
+
+    /**
+     * Get the healthiest full provider for a class of reads
+     * @param requestClass Class of the reads about to be made
+     * @return MarketDataProvider implementation
+     */
+    public MarketDataProvider getProvider(RequestClass requestClass) {
+        return provider(select(requestClass, true));
+    }
+
+    /**
+     * Get the healthiest provider for a class of quote, OHLC or LTP reads, including quote-only providers
+     * @param requestClass Class of the reads about to be made
+     * @return QuoteProvider implementation
+     */
+    public QuoteProvider getQuoteProvider(RequestClass requestClass) {
+        return quoteProvider(select(requestClass, false));
+    }
+
+    /**
+     * Get the provider that latency-critical reads are hedged to
+     * @param requestClass Class of the hedged reads
+     * @param primary Provider the reads go to first
+     * @return Healthiest other QuoteProvider for the class, or null if hedging is disabled or there is none
+     */
+    public QuoteProvider getHedgeProvider(RequestClass requestClass, QuoteProvider primary) {
+        if (!hedgingEnabled) {
+            return null;
+        }
+        String name = route(requestClass, primary.getProviderName(), false);
+        return name != null ? quoteProvider(name) : null;
+    }
+
+    private String select(RequestClass requestClass, boolean fullOnly) {
+        String name = route(requestClass, null, fullOnly);
+        meterRegistry.counter("market-data.provider.routing.selected", "provider", name, "class", requestClass.name())
+                .increment();
+        return name;
+    }
+
+    /**
+     * Cheapest healthy candidate serving the request class. Candidates after the first must be cheaper by
+     * the preference factor, and the first is chosen whenever it has no recent stats, so traffic returns to it
+     * after a readmission or once a slow spell is old enough to be forgotten. If all are ejected, the first that serves the class is used regardless, unless
+     * a provider is excluded.
+     * @param excluded Provider to leave out, or null
+     * @param fullOnly Whether to leave out quote-only providers
+     * @return Provider name, or null if no provider but the excluded one is healthy
+     */
+    private String route(RequestClass requestClass, String excluded, boolean fullOnly) {
+        List<String> names = candidates();
+        String best = null;
+        double bestCost = Double.MAX_VALUE;
+        String fallback = null;
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            if (name.equals(excluded) || !requestClass.isServedBy(name) || (fullOnly && !isFullProvider(name))) {
+                continue;
+            }
+            if (fallback == null) {
+                fallback = name;
+            }
+            if (healthRegistry.isEjected(name, requestClass)) {
+                continue;
+            }
+            double cost;
+            if (i == 0) {
+                // The preferred provider is tried again as soon as its stats are reset or have gone stale
+                cost = healthRegistry.isMeasured(name, requestClass) ? healthRegistry.cost(name, requestClass) : 0;
+            } else {
+                cost = healthRegistry.cost(name, requestClass) * preferenceFactor;
+            }
+            if (cost < bestCost) {
+                best = name;
+                bestCost = cost;
+            }
+        }
+        if (best != null || excluded != null) {
+            return best;
+        }
+        // Everything is ejected, keep using the preferred provider; if nothing declares the class, the active one
+        return fallback != null ? fallback : names.get(0);
+    }
+
+    /**
+     * @return Routing candidates in preference order, the active provider first
+     */
+    private List<String> candidates() {
+        List<String> names = candidates;
+        if (names == null) {
+            names = new ArrayList<>();
+            String active = providerName(activeProvider);
+            if (!isFullProvider(active)) {
+                log.warn("Provider '{}' only serves quote reads and cannot be the active provider, using Zerodha", active);
+                active = "zerodha";
+            }
+            names.add(active);
+            for (String name : routingProviders.split(",")) {
+                if (!name.isBlank() && !names.contains(providerName(name.trim()))) {
+                    names.add(providerName(name.trim()));
+                }
+            }
+            log.info("Routing market data reads across providers {}", names);
+            candidates = names;
+        }
+        return names;
+    }
+
+    private MarketDataProvider provider(String name) {
+        return providers.computeIfAbsent(name, this::createProvider);
+    }
+
+    /**
+     * @return The full provider of that name if there is one, so both share one set of decorators
+     */
+    private QuoteProvider quoteProvider(String name) {
+        return quoteProviders.computeIfAbsent(name,
+                key -> isFullProvider(key) ? provider(key) : createQuoteProvider(key));
+    }
+
+    private MarketDataProvider createProvider(String name) {
+        log.info("Creating market data provider: {}", name);
+        MarketDataProvider provider = new HealthTrackingMarketDataProvider(getBean(name), healthRegistry);
+        if (!coalescingEnabled) {
+            return provider;
+        }
+        return batchingEnabled
+                ? new CoalescingMarketDataProvider(provider, meterRegistry, getBatchScheduler(), getBatchExecutor(),
+                        batchWindowMillis, batchTimeoutMillis)
+                : new CoalescingMarketDataProvider(provider, meterRegistry);
+    }
+
+    private QuoteProvider createQuoteProvider(String name) {
+        log.info("Creating quote provider: {}", name);
+        QuoteProvider provider = new HealthTrackingQuoteProvider(
+                applicationContext.getBean(name + "QuoteProvider", QuoteProvider.class), healthRegistry);
+        if (!coalescingEnabled) {
+            return provider;
+        }
+        return batchingEnabled
+                ? new CoalescingQuoteProvider(provider, meterRegistry, getBatchScheduler(), getBatchExecutor(),
+                        batchWindowMillis, batchTimeoutMillis)
+                : new CoalescingQuoteProvider(provider, meterRegistry);
+    }
+
+    private synchronized ScheduledExecutorService getBatchScheduler() {
+        if (batchScheduler == null) {
+            AtomicInteger threads = new AtomicInteger();
+            batchScheduler = Executors.newScheduledThreadPool(batchThreads, runnable -> {
+                Thread thread = new Thread(runnable, "quote-batcher-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return batchScheduler;
+    }
+
+    /**
+     * Bounded pool for the upstream calls of quote and LTP batches, kept apart from the window timers
+     */
+    private synchronized ThreadPoolExecutor getBatchExecutor() {
+        if (batchExecutor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            batchExecutor = new ThreadPoolExecutor(batchUpstreamThreads, batchUpstreamThreads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(batchUpstreamQueueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "quote-batch-upstream-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return batchExecutor;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (batchScheduler != null) {
+            batchScheduler.shutdownNow();
+        }
+        if (batchExecutor != null) {
+            batchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Known provider name for a configured name
+     */
+    private static String providerName(String configured) {
+        switch (configured.toLowerCase()) {
             case "zerodha":
-                return applicationContext.getBean("zerodhaMarketDataProvider", MarketDataProvider.class);
+                return "zerodha";
             case "upstox":
-                return applicationContext.getBean("upstoxMarketDataProvider", MarketDataProvider.class);
+                return "upstox";
             default:
-                log.warn("Unknown provider '{}', falling back to Zerodha", activeProvider);
-                return applicationContext.getBean("zerodhaMarketDataProvider", MarketDataProvider.class);
+                log.warn("Unknown provider '{}', falling back to Zerodha", configured);
+                return "zerodha";
         }
     }
+
+    private boolean isFullProvider(String name) {
+        return applicationContext.containsBean(name + "MarketDataProvider");
+    }
+
+    private MarketDataProvider getBean(String name) {
+        return applicationContext.getBean(name + "MarketDataProvider", MarketDataProvider.class);
+    }
 }
@@ -0,0 +1,37 @@
+package com.marketdata.common;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Thrown when some, but not all, chunks of a {@link ProviderRequestPlanner} request failed. Carries what the
+ * chunks that succeeded returned and the symbols of those that failed, so a caller that can use a partial
+ * answer still gets one and can tell which symbols are missing. The cause is the first chunk failure.
+ */
+public class PartialResultException extends RuntimeException {
+
+    private final transient Object partialResult;
+    private final Set<String> failedSymbols;
+
+    public PartialResultException(String message, Object partialResult, Collection<String> failedSymbols,
+                                  Throwable cause) {
+        super(message, cause);
+        this.partialResult = partialResult;
+        this.failedSymbols = Set.copyOf(failedSymbols);
+    }
+
+    /**
+     * @return Merged results of the chunks that succeeded, of the type the planner call returns
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getPartialResult() {
+        return (T) partialResult;
+    }
+
+    /**
+     * @return Symbols of the chunks that failed
+     */
+    public Set<String> getFailedSymbols() {
+        return failedSymbols;
+    }
+}
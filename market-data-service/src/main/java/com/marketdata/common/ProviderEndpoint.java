@@ -0,0 +1,29 @@
+package com.marketdata.common;
+
+/**
+ * Multi-instrument provider endpoints with the most instruments one call may carry
+ */
+public enum ProviderEndpoint {
+
+    ZERODHA_QUOTE(RateLimitClass.ZERODHA_QUOTE, 500),
+    ZERODHA_OHLC(RateLimitClass.ZERODHA_QUOTE, 1000),
+    ZERODHA_LTP(RateLimitClass.ZERODHA_QUOTE, 1000),
+    UPSTOX_QUOTE(RateLimitClass.UPSTOX_STANDARD, 500),
+    UPSTOX_OHLC(RateLimitClass.UPSTOX_STANDARD, 500);
+
+    private final RateLimitClass rateLimitClass;
+    private final int maxSymbolsPerCall;
+
+    ProviderEndpoint(RateLimitClass rateLimitClass, int maxSymbolsPerCall) {
+        this.rateLimitClass = rateLimitClass;
+        this.maxSymbolsPerCall = maxSymbolsPerCall;
+    }
+
+    public RateLimitClass getRateLimitClass() {
+        return rateLimitClass;
+    }
+
+    public int getMaxSymbolsPerCall() {
+        return maxSymbolsPerCall;
+    }
+}
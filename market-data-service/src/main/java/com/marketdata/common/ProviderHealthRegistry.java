@@ -0,0 +1,197 @@
+package com.marketdata.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live health of every provider per {@link RequestClass}: smoothed latency and error rate of its calls.
+ * Routing prefers the provider with the lowest {@link #cost cost}; a provider without recent calls is
+ * assumed to take the initial latency. Calls measure from before the rate-limit permit is taken, so time
+ * spent queueing for permits already shows in the latency.
+ *
+ * A provider whose calls keep failing is ejected for that request class for a fixed time and then
+ * readmitted with fresh stats. Stats that have not been updated for a while are forgotten too, so a
+ * provider that lost its traffic while slow is tried again later.
+ */
+@Slf4j
+@Component
+public class ProviderHealthRegistry {
+
+    /** Weight of the newest sample in the smoothed latency and error rate */
+    private static final double LATENCY_ALPHA = 0.2;
+    private static final double ERROR_ALPHA = 0.1;
+    /** Calls needed before the error rate can eject a provider */
+    private static final int MIN_SAMPLES = 10;
+    /** Extra cost of a provider that always fails, relative to its latency */
+    private static final double ERROR_PENALTY = 4;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Health> health = new ConcurrentHashMap<>();
+    private final double ejectionErrorRate;
+    private final int ejectionConsecutiveFailures;
+    private final long ejectionNanos;
+    private final double initialLatencyMillis;
+    private final long statsTtlNanos;
+
+    public ProviderHealthRegistry(MeterRegistry meterRegistry,
+                                  @Value("${market-data.routing.ejection.error.rate:0.5}") double ejectionErrorRate,
+                                  @Value("${market-data.routing.ejection.consecutive.failures:5}") int ejectionConsecutiveFailures,
+                                  @Value("${market-data.routing.ejection.ms:30000}") long ejectionMillis,
+                                  @Value("${market-data.routing.latency.initial.ms:500}") long initialLatencyMillis,
+                                  @Value("${market-data.routing.stats.ttl.ms:60000}") long statsTtlMillis) {
+        this.meterRegistry = meterRegistry;
+        this.ejectionErrorRate = ejectionErrorRate;
+        this.ejectionConsecutiveFailures = ejectionConsecutiveFailures;
+        this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionMillis);
+        this.initialLatencyMillis = initialLatencyMillis;
+        this.statsTtlNanos = TimeUnit.MILLISECONDS.toNanos(statsTtlMillis);
+    }
+
+    /**
+     * Record a call that returned, with or without data
+     * @param provider Provider name
+     * @param requestClass Class of the call
+     * @param nanos Duration of the call
+     */
+    public void recordSuccess(String provider, RequestClass requestClass, long nanos) {
+        health(provider, requestClass).record(nanos, false);
+    }
+
+    /**
+     * Record a call that threw or timed out
+     * @param provider Provider name
+     * @param requestClass Class of the call
+     * @param nanos Duration of the call
+     */
+    public void recordFailure(String provider, RequestClass requestClass, long nanos) {
+        health(provider, requestClass).record(nanos, true);
+    }
+
+    /**
+     * @return Whether the provider is ejected for the request class; an expired ejection is lifted here
+     */
+    public boolean isEjected(String provider, RequestClass requestClass) {
+        return health(provider, requestClass).isEjected();
+    }
+
+    /**
+     * @return Whether the provider has served the request class recently enough for its stats to count
+     */
+    public boolean isMeasured(String provider, RequestClass requestClass) {
+        return health(provider, requestClass).isMeasured();
+    }
+
+    /**
+     * Expected cost of sending a request of the class to the provider now, in milliseconds: its smoothed
+     * latency, inflated by its error rate
+     */
+    public double cost(String provider, RequestClass requestClass) {
+        Health stats = health(provider, requestClass);
+        return stats.latencyMillis() * (1 + ERROR_PENALTY * stats.errorRate());
+    }
+
+    private Health health(String provider, RequestClass requestClass) {
+        return health.computeIfAbsent(provider + '|' + requestClass.name(), key -> new Health(provider, requestClass));
+    }
+
+    private final class Health {
+        final String provider;
+        final RequestClass requestClass;
+        final Counter ejections;
+        // Guarded by this
+        double latencyMillis;
+        double errorRate;
+        long samples;
+        int consecutiveFailures;
+        long sampledAt;
+        long ejectedUntil;
+        boolean ejected;
+
+        Health(String provider, RequestClass requestClass) {
+            this.provider = provider;
+            this.requestClass = requestClass;
+            this.ejections = meterRegistry.counter("market-data.provider.routing.ejections",
+                    "provider", provider, "class", requestClass.name());
+            Gauge.builder("market-data.provider.routing.latency", this, h -> h.latencyMillis() / 1e3)
+                    .tag("provider", provider)
+                    .tag("class", requestClass.name())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("market-data.provider.routing.error.rate", this, Health::errorRate)
+                    .tag("provider", provider)
+                    .tag("class", requestClass.name())
+                    .register(meterRegistry);
+            Gauge.builder("market-data.provider.routing.ejected", this, h -> h.isEjected() ? 1 : 0)
+                    .tag("provider", provider)
+                    .tag("class", requestClass.name())
+                    .register(meterRegistry);
+        }
+
+        synchronized void record(long nanos, boolean failed) {
+            long now = System.nanoTime();
+            forgetIfStale(now);
+            double millis = nanos / 1e6;
+            latencyMillis = samples == 0 ? millis : latencyMillis + LATENCY_ALPHA * (millis - latencyMillis);
+            errorRate += ERROR_ALPHA * ((failed ? 1 : 0) - errorRate);
+            samples++;
+            sampledAt = now;
+            consecutiveFailures = failed ? consecutiveFailures + 1 : 0;
+            if (failed && !ejected && (consecutiveFailures >= ejectionConsecutiveFailures
+                    || (samples >= MIN_SAMPLES && errorRate >= ejectionErrorRate))) {
+                ejected = true;
+                ejectedUntil = now + ejectionNanos;
+                ejections.increment();
+                log.warn("Ejected provider {} for {} requests for {}ms: error rate {}, {} consecutive failures",
+                        provider, requestClass, TimeUnit.NANOSECONDS.toMillis(ejectionNanos),
+                        String.format("%.2f", errorRate), consecutiveFailures);
+            }
+        }
+
+        synchronized boolean isEjected() {
+            if (ejected && System.nanoTime() - ejectedUntil >= 0) {
+                ejected = false;
+                reset();
+                log.info("Readmitted provider {} for {} requests", provider, requestClass);
+            }
+            return ejected;
+        }
+
+        synchronized boolean isMeasured() {
+            forgetIfStale(System.nanoTime());
+            return samples > 0;
+        }
+
+        synchronized double latencyMillis() {
+            forgetIfStale(System.nanoTime());
+            return samples > 0 ? latencyMillis : initialLatencyMillis;
+        }
+
+        synchronized double errorRate() {
+            forgetIfStale(System.nanoTime());
+            return errorRate;
+        }
+
+        private void forgetIfStale(long now) {
+            if (samples > 0 && !ejected && now - sampledAt >= statsTtlNanos) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            latencyMillis = 0;
+            errorRate = 0;
+            samples = 0;
+            consecutiveFailures = 0;
+        }
+    }
+}
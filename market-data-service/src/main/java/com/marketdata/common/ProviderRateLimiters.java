@@ -0,0 +1,98 @@
+package com.marketdata.common;
+
+import com.marketdata.common.util.TokenBucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared registry of provider request rate limiters, one token bucket per {@link RateLimitClass}.
+ * Every upstream call takes a permit first, queueing for it up to a deadline, so the documented
+ * per-second limits are respected locally instead of being discovered as 429s and retried.
+ *
+ * Per class it exports the number of queued callers, the free permits, the permit wait time and the callers
+ * that gave up.
+ */
+@Slf4j
+@Component
+public class ProviderRateLimiters {
+
+    private final Map<RateLimitClass, Limiter> limiters = new EnumMap<>(RateLimitClass.class);
+    private final Duration defaultMaxWait;
+
+    public ProviderRateLimiters(MeterRegistry meterRegistry,
+                                @Value("${market-data.ratelimit.max.wait.ms:5000}") long defaultMaxWaitMs) {
+        this.defaultMaxWait = Duration.ofMillis(defaultMaxWaitMs);
+        for (RateLimitClass rateLimitClass : RateLimitClass.values()) {
+            limiters.put(rateLimitClass, new Limiter(rateLimitClass, meterRegistry));
+        }
+    }
+
+    /**
+     * Take a permit, queueing for at most the configured default wait
+     * @param rateLimitClass Endpoint class of the call about to be made
+     * @throws RateLimitTimeoutException If no permit became free in time
+     */
+    public void acquire(RateLimitClass rateLimitClass) {
+        acquire(rateLimitClass, defaultMaxWait);
+    }
+
+    /**
+     * Take a permit, queueing for at most the given wait
+     * @param rateLimitClass Endpoint class of the call about to be made
+     * @param maxWait Longest acceptable wait
+     * @throws RateLimitTimeoutException If no permit became free in time
+     */
+    public void acquire(RateLimitClass rateLimitClass, Duration maxWait) {
+        Limiter limiter = limiters.get(rateLimitClass);
+        long start = System.nanoTime();
+        limiter.queued.incrementAndGet();
+        try {
+            if (!limiter.bucket.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                limiter.rejected.increment();
+                log.warn("No {} permit within {}ms, {} callers queued", rateLimitClass, maxWait.toMillis(),
+                        limiter.queued.get());
+                throw new RateLimitTimeoutException(rateLimitClass, maxWait.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + rateLimitClass + " permit", e);
+        } finally {
+            limiter.queued.decrementAndGet();
+            limiter.wait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static final class Limiter {
+        final TokenBucket bucket;
+        final AtomicInteger queued = new AtomicInteger();
+        final Timer wait;
+        final Counter rejected;
+
+        Limiter(RateLimitClass rateLimitClass, MeterRegistry meterRegistry) {
+            this.bucket = new TokenBucket(rateLimitClass.getPermitsPerSecond(), rateLimitClass.getBurst());
+            String name = rateLimitClass.name();
+            this.wait = meterRegistry.timer("market-data.provider.ratelimit.wait", "class", name);
+            this.rejected = meterRegistry.counter("market-data.provider.ratelimit.rejected", "class", name);
+            Gauge.builder("market-data.provider.ratelimit.queued", queued, AtomicInteger::get)
+                    .tag("class", name)
+                    .register(meterRegistry);
+            Gauge.builder("market-data.provider.ratelimit.headroom", bucket, TokenBucket::availablePermits)
+                    .tag("class", name)
+                    .register(meterRegistry);
+        }
+    }
+}
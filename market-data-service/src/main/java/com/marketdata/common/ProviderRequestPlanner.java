@@ -0,0 +1,147 @@
+package com.marketdata.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Plans multi-instrument provider requests. A logical request for any number of symbols is deduplicated,
+ * split into chunks no larger than the endpoint accepts, and the chunks run concurrently on a bounded pool.
+ * The provider clients take a {@link ProviderRateLimiters} permit for every chunk they send, so large
+ * requests are paced to the provider's rate limit instead of failing on it.
+ *
+ * If some chunks fail, the request throws a {@link PartialResultException} carrying the results of the others
+ * and the symbols that are missing; if every chunk fails, it throws the first failure.
+ */
+@Slf4j
+@Component
+public class ProviderRequestPlanner {
+
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+
+    public ProviderRequestPlanner(MeterRegistry meterRegistry,
+                                  @Value("${market-data.planner.threads:4}") int threads,
+                                  @Value("${market-data.planner.queue.capacity:64}") int queueCapacity) {
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "provider-planner-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Run a keyed request, merging the chunk results
+     * @param endpoint Endpoint the call goes to
+     * @param symbols Symbols of the logical request
+     * @param call Provider call for one chunk
+     * @return Merged results of all chunks
+     * @throws PartialResultException if some chunks failed, carrying the merged results of the others
+     */
+    public <V> Map<String, V> executeForMap(ProviderEndpoint endpoint, Collection<String> symbols,
+                                            Function<List<String>, Map<String, V>> call) {
+        return execute(endpoint, symbols, call, new HashMap<>(), Map::putAll);
+    }
+
+    /**
+     * Run a request whose results are lists, concatenating the chunk results
+     * @param endpoint Endpoint the call goes to
+     * @param symbols Symbols of the logical request
+     * @param call Provider call for one chunk
+     * @return Results of all chunks
+     * @throws PartialResultException if some chunks failed, carrying the results of the others
+     */
+    public <V> List<V> executeForList(ProviderEndpoint endpoint, Collection<String> symbols,
+                                      Function<List<String>, List<V>> call) {
+        return execute(endpoint, symbols, call, new ArrayList<>(), List::addAll);
+    }
+
+    private <R, M> M execute(ProviderEndpoint endpoint, Collection<String> symbols, Function<List<String>, R> call,
+                             M merged, BiConsumer<M, R> merge) {
+        List<List<String>> chunks = chunk(symbols, endpoint.getMaxSymbolsPerCall());
+        if (chunks.isEmpty()) {
+            return merged;
+        }
+        meterRegistry.counter("market-data.provider.planner.chunks", "endpoint", endpoint.name()).increment(chunks.size());
+        if (chunks.size() == 1) {
+            // Nothing to fan out
+            R result = call.apply(chunks.get(0));
+            if (result != null) {
+                merge.accept(merged, result);
+            }
+            return merged;
+        }
+
+        List<CompletableFuture<R>> futures = new ArrayList<>(chunks.size());
+        for (List<String> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(chunk), executor));
+        }
+        List<String> failedSymbols = new ArrayList<>();
+        int failedChunks = 0;
+        RuntimeException firstFailure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                R result = futures.get(i).join();
+                if (result != null) {
+                    merge.accept(merged, result);
+                }
+            } catch (CompletionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : e;
+                if (firstFailure == null) {
+                    firstFailure = cause;
+                }
+                failedChunks++;
+                failedSymbols.addAll(chunks.get(i));
+                meterRegistry.counter("market-data.provider.planner.chunk.error", "endpoint", endpoint.name()).increment();
+                log.warn("Chunk {} of {} for {} failed ({} symbols): {}", i + 1, chunks.size(), endpoint,
+                        chunks.get(i).size(), cause.getMessage());
+            }
+        }
+        if (firstFailure == null) {
+            return merged;
+        }
+        if (failedChunks == chunks.size()) {
+            throw firstFailure;
+        }
+        throw new PartialResultException(failedChunks + " of " + chunks.size() + " " + endpoint + " calls failed",
+                merged, failedSymbols, firstFailure);
+    }
+
+    private static List<List<String>> chunk(Collection<String> symbols, int size) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(symbols));
+        List<List<String>> chunks = new ArrayList<>((distinct.size() + size - 1) / size);
+        for (int from = 0; from < distinct.size(); from += size) {
+            chunks.add(distinct.subList(from, Math.min(from + size, distinct.size())));
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,257 @@
+package com.marketdata.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Collects symbol lookups from concurrent callers for a short window and serves them with one
+ * deduplicated upstream call, split only where it exceeds the provider's per-call instrument limit.
+ * Each caller's future completes with just the symbols it asked for.
+ *
+ * A batch is flushed when its window ends or as soon as it holds a full upstream call's worth of symbols.
+ * Upstream calls run on their own bounded executor, so a slow provider never holds up the window timers.
+ * A failed upstream call only fails the callers that asked for a symbol in it, and a call that failed in part,
+ * with a {@link PartialResultException}, only those that asked for one of its failed symbols.
+ * @param <V> Quote type
+ */
+@Slf4j
+public class QuoteBatcher<V> {
+
+    private final String operation;
+    private final Function<String[], Map<String, V>> upstream;
+    private final ScheduledExecutorService scheduler;
+    private final Executor upstreamExecutor;
+    private final long windowMillis;
+    private final long timeoutMillis;
+    private final int maxSymbolsPerCall;
+    private final MeterRegistry meterRegistry;
+    private final Counter requests;
+    private final Counter upstreamCalls;
+    private final DistributionSummary batchSymbols;
+
+    private final Object lock = new Object();
+    private Batch<V> pending;
+
+    /**
+     * @param operation Operation name for metrics
+     * @param upstream Provider call for a set of symbols
+     * @param scheduler Runs window timers
+     * @param upstreamExecutor Runs upstream calls; a batch it rejects fails its callers
+     * @param windowMillis How long a batch collects lookups after its first one
+     * @param timeoutMillis Longest {@link #get} waits for a batch
+     * @param maxSymbolsPerCall Provider limit of instruments per call
+     */
+    public QuoteBatcher(String operation, Function<String[], Map<String, V>> upstream, ScheduledExecutorService scheduler,
+                        Executor upstreamExecutor, long windowMillis, long timeoutMillis, int maxSymbolsPerCall,
+                        MeterRegistry meterRegistry) {
+        this.operation = operation;
+        this.upstream = upstream;
+        this.scheduler = scheduler;
+        this.upstreamExecutor = upstreamExecutor;
+        this.windowMillis = windowMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.maxSymbolsPerCall = maxSymbolsPerCall;
+        this.meterRegistry = meterRegistry;
+        this.requests = meterRegistry.counter("market-data.provider.batching.requests", "operation", operation);
+        this.upstreamCalls = meterRegistry.counter("market-data.provider.batching.upstream", "operation", operation);
+        this.batchSymbols = DistributionSummary.builder("market-data.provider.batching.symbols")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add a lookup to the current batch
+     * @param symbols Symbols to look up
+     * @return Future completed with the quotes of these symbols
+     */
+    public CompletableFuture<Map<String, V>> submit(String[] symbols) {
+        requests.increment();
+        CompletableFuture<Map<String, V>> future = new CompletableFuture<>();
+        Batch<V> full = null;
+        synchronized (lock) {
+            if (pending == null) {
+                Batch<V> batch = new Batch<>();
+                pending = batch;
+                scheduler.schedule(() -> flush(batch), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            pending.add(symbols, future);
+            if (pending.symbols.size() >= maxSymbolsPerCall) {
+                full = pending;
+                pending = null;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * Add a lookup to the current batch and wait for its quotes
+     * @param symbols Symbols to look up
+     * @return Quotes of these symbols
+     * @throws IllegalStateException if the batch has not been served within the timeout
+     */
+    public Map<String, V> get(String[] symbols) {
+        CompletableFuture<Map<String, V>> future = submit(symbols);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            meterRegistry.counter("market-data.provider.batching.timeouts", "operation", operation).increment();
+            throw new IllegalStateException("Timed out after " + timeoutMillis + "ms waiting for a batched " + operation + " call", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batched " + operation + " call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void flush(Batch<V> batch) {
+        synchronized (lock) {
+            if (pending != batch) {
+                // Already flushed because it filled up
+                return;
+            }
+            pending = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch<V> batch) {
+        try {
+            upstreamExecutor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("market-data.provider.batching.rejected", "operation", operation).increment();
+            log.warn("No capacity for a batched {} call for {} symbols", operation, batch.symbols.size());
+            for (Waiter<V> waiter : batch.waiters) {
+                waiter.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void run(Batch<V> batch) {
+        String[] symbols = batch.symbols.toArray(new String[0]);
+        batchSymbols.record(symbols.length);
+        Map<String, V> quotes = new HashMap<>();
+        // Symbols of upstream calls that failed, with the failure
+        Map<String, Exception> failed = new HashMap<>();
+        for (int from = 0; from < symbols.length; from += maxSymbolsPerCall) {
+            String[] chunk = Arrays.copyOfRange(symbols, from, Math.min(from + maxSymbolsPerCall, symbols.length));
+            upstreamCalls.increment();
+            try {
+                Map<String, V> result = upstream.apply(chunk);
+                if (result != null) {
+                    quotes.putAll(result);
+                }
+            } catch (PartialResultException e) {
+                log.error("Batched {} call for {} symbols failed for {} of them: {}", operation, chunk.length,
+                        e.getFailedSymbols().size(), e.getMessage());
+                Map<String, V> partial = e.getPartialResult();
+                if (partial != null) {
+                    quotes.putAll(partial);
+                }
+                for (String symbol : e.getFailedSymbols()) {
+                    failed.put(symbol, e);
+                }
+            } catch (Exception e) {
+                log.error("Batched {} call for {} symbols failed: {}", operation, chunk.length, e.getMessage());
+                for (String symbol : chunk) {
+                    failed.put(symbol, e);
+                }
+            }
+        }
+        for (Waiter<V> waiter : batch.waiters) {
+            Exception failure = failureOf(failed, waiter.symbols);
+            if (failure != null) {
+                waiter.future.completeExceptionally(failure);
+            } else {
+                waiter.future.complete(subset(quotes, waiter.symbols));
+            }
+        }
+    }
+
+    private static Exception failureOf(Map<String, Exception> failed, String[] symbols) {
+        if (failed.isEmpty()) {
+            return null;
+        }
+        for (String symbol : symbols) {
+            Exception failure = failed.get(symbol);
+            if (failure != null) {
+                return failure;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quotes of the requested symbols, under the key the provider returned them with; providers may
+     * drop the exchange prefix of {@code EXCHANGE:SYMBOL}
+     */
+    private static <V> Map<String, V> subset(Map<String, V> quotes, String[] symbols) {
+        Map<String, V> subset = new HashMap<>(symbols.length * 2);
+        for (String symbol : symbols) {
+            V quote = quotes.get(symbol);
+            if (quote != null) {
+                subset.put(symbol, quote);
+                continue;
+            }
+            int separator = symbol.indexOf(':');
+            if (separator > 0) {
+                String plain = symbol.substring(separator + 1);
+                quote = quotes.get(plain);
+                if (quote != null) {
+                    subset.put(plain, quote);
+                }
+            }
+        }
+        return subset;
+    }
+
+    private static final class Batch<V> {
+        final Set<String> symbols = new LinkedHashSet<>();
+        final List<Waiter<V>> waiters = new ArrayList<>();
+
+        void add(String[] requested, CompletableFuture<Map<String, V>> future) {
+            symbols.addAll(Arrays.asList(requested));
+            waiters.add(new Waiter<>(requested, future));
+        }
+    }
+
+    private static final class Waiter<V> {
+        final String[] symbols;
+        final CompletableFuture<Map<String, V>> future;
+
+        Waiter(String[] symbols, CompletableFuture<Map<String, V>> future) {
+            this.symbols = symbols;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.marketdata.common;
+
+import java.util.Map;
+
+import com.zerodhatech.models.OHLCQuote;
+
+/**
+ * Read-only price lookups of a market data provider. This is all a provider needs to offer to be routed
+ * to, or hedged to, for quote, OHLC and LTP reads; sessions, tickers, instrument dumps and historical data
+ * need a full {@link MarketDataProvider}.
+ */
+public interface QuoteProvider {
+
+    /**
+     * Get quotes for symbols
+     * @param symbols Array of symbols
+     * @return Map of symbol to quote data
+     */
+    Map<String, Object> getQuotes(String[] symbols);
+
+    /**
+     * Get OHLC data for symbols
+     * @param symbols Array of symbols
+     * @return Map of symbol to OHLC data
+     */
+    Map<String, OHLCQuote> getOHLC(String[] symbols);
+
+    /**
+     * Get last traded price for symbols
+     * @param symbols Array of symbols
+     * @return Map of symbol to LTP data
+     */
+    Map<String, Object> getLTP(String[] symbols);
+
+    /**
+     * Get provider name
+     * @return Provider name (e.g., "zerodha", "upstox")
+     */
+    String getProviderName();
+}
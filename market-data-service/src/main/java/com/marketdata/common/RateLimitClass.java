@@ -0,0 +1,33 @@
+package com.marketdata.common;
+
+/**
+ * Provider endpoints that share one documented request rate limit. Limits apply per API key,
+ * so every caller of an endpoint class draws from the same budget.
+ */
+public enum RateLimitClass {
+
+    /** Kite quote, OHLC and LTP endpoints: 1 request per second */
+    ZERODHA_QUOTE(1.0, 1),
+    /** Kite historical candles: 3 requests per second */
+    ZERODHA_HISTORICAL(3.0, 3),
+    /** All other Kite endpoints, including the order book, trades, portfolio and margins: 10 requests per second */
+    ZERODHA_OTHER(10.0, 10),
+    /** Upstox standard APIs: 50 per second and 500 per minute, so the minute limit governs */
+    UPSTOX_STANDARD(8.0, 25);
+
+    private final double permitsPerSecond;
+    private final int burst;
+
+    RateLimitClass(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+}
@@ -0,0 +1,19 @@
+package com.marketdata.common;
+
+/**
+ * Thrown when no provider request permit becomes free before the caller's deadline. The request was
+ * never sent, so retrying it straight away only adds to the queue.
+ */
+public class RateLimitTimeoutException extends RuntimeException {
+
+    private final RateLimitClass rateLimitClass;
+
+    public RateLimitTimeoutException(RateLimitClass rateLimitClass, long maxWaitMillis) {
+        super("No " + rateLimitClass + " request permit within " + maxWaitMillis + "ms");
+        this.rateLimitClass = rateLimitClass;
+    }
+
+    public RateLimitClass getRateLimitClass() {
+        return rateLimitClass;
+    }
+}
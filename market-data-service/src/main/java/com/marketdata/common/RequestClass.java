@@ -0,0 +1,28 @@
+package com.marketdata.common;
+
+import java.util.Set;
+
+/**
+ * Classes of provider reads that are routed independently, with the providers that serve each.
+ */
+public enum RequestClass {
+
+    QUOTE("zerodha", "upstox"),
+    OHLC("zerodha", "upstox"),
+    LTP("zerodha", "upstox"),
+    HISTORICAL("zerodha");
+
+    private final Set<String> servedBy;
+
+    RequestClass(String... servedBy) {
+        this.servedBy = Set.of(servedBy);
+    }
+
+    /**
+     * @param provider Provider name, as returned by {@link QuoteProvider#getProviderName()}
+     * @return Whether the provider serves this request class
+     */
+    public boolean isServedBy(String provider) {
+        return servedBy.contains(provider);
+    }
+}
@@ -0,0 +1,78 @@
+package com.marketdata.common.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter. Permits refill continuously at a fixed rate up to a burst capacity.
+ * A caller that finds the bucket empty reserves the next free permit and sleeps until it is due,
+ * so waiting callers are served in arrival order and never exceed the rate together. A caller with a
+ * deadline only reserves a permit that will be due before the deadline.
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double permits;
+    private long refilledAt;
+
+    /**
+     * Create a full bucket
+     * @param permitsPerSecond Sustained rate
+     * @param burst Permits that can be taken at once after the bucket has been idle
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = burst;
+        this.permits = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Take a permit if one is available within the timeout, waiting for it
+     * @param timeout Longest acceptable wait
+     * @param unit Unit of the timeout
+     * @return False, without waiting, if the next free permit is due after the timeout
+     * @throws InterruptedException If interrupted while waiting; the reserved permit is not returned
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long waitNanos = reserve(unit.toNanos(timeout));
+        if (waitNanos < 0) {
+            return false;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * @return Permits that can be taken now without waiting; negative while callers wait for reserved permits
+     */
+    public synchronized double availablePermits() {
+        refill();
+        return permits;
+    }
+
+    /**
+     * Reserve the next permit if it is due within the given time
+     * @return Nanoseconds until the reserved permit may be used, or -1 if none was reserved
+     */
+    private synchronized long reserve(long maxWaitNanos) {
+        refill();
+        long waitNanos = permits >= 1 ? 0 : (long) Math.ceil((1 - permits) / permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        permits -= 1;
+        return waitNanos;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        permits = Math.min(capacity, permits + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+    }
+}
@@ -1,32 +1,39 @@
-// package com.marketdata.config;
+package com.marketdata.config;
 
-// import org.springframework.context.annotation.Configuration;
-// import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-// import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
-// import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
-// import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
-// /**
-//  * WebSocket configuration for real-time market data
-//  */
-// @Configuration
-// @EnableWebSocketMessageBroker
-// public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+/**
+ * WebSocket configuration for real-time market data
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-//     @Override
-//     public void configureMessageBroker(MessageBrokerRegistry config) {
-//         // Enable a simple in-memory message broker for sending messages to clients
-//         config.enableSimpleBroker("/topic");
-        
-//         // Set prefix for client-to-server messages
-//         config.setApplicationDestinationPrefixes("/app");
-//     }
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry config) {
+        // Enable a simple in-memory message broker for sending messages to clients
+        config.enableSimpleBroker("/topic", "/queue");
 
-//     @Override
-//     public void registerStompEndpoints(StompEndpointRegistry registry) {
-//         // Register STOMP endpoints with SockJS fallback
-//         registry.addEndpoint("/market-data-ws")
-//                 .setAllowedOrigins("*")
-//                 .withSockJS();
-//     }
-// }
+        // Set prefix for client-to-server messages
+        config.setApplicationDestinationPrefixes("/app");
+
+        // Binary sessions rely on the dictionary frame reaching the client before the ticks that use it
+        config.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Register STOMP endpoints with SockJS fallback
+        registry.addEndpoint("/market-data-ws")
+                .setAllowedOriginPatterns("*")
+                .withSockJS();
+
+        // Plain WebSocket endpoint for clients using binary tick frames, which SockJS cannot carry
+        registry.addEndpoint("/market-data-ws-native")
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -12,8 +12,13 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.marketdata.common.MarketDataProviderFactory;
+import com.marketdata.common.ProviderHealthRegistry;
+import com.marketdata.common.ProviderRateLimiters;
+import com.marketdata.common.ProviderRequestPlanner;
 import com.marketdata.service.zerodha.ZerodhaApiService;
 import com.marketdata.service.zerodha.ZerodhaMarketDataProvider;
+import com.marketdata.service.instrument.InstrumentMasterService;
+import com.marketdata.service.tick.TickPipeline;
 
 import java.time.Duration;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -109,12 +114,16 @@ public class ZerodhaApiConfig {
      * Creates the Zerodha API service
      * @param meterRegistry Metrics registry
      * @param threadPoolExecutor Thread pool for async operations
+     * @param tickPipeline Ingestion pipeline fed by the ticker
+     * @param instrumentMasterService In-memory instrument lookups
+     * @param requestPlanner Chunks multi-instrument calls
+     * @param rateLimiters Shared per-endpoint request rate limits
      * @return ZerodhaApiService instance
      */
     @Bean
-    public ZerodhaApiService zerodhaApiService(MeterRegistry meterRegistry, ThreadPoolExecutor threadPoolExecutor, com.am.common.investment.service.instrument.InstrumentService instrumentService) {
+    public ZerodhaApiService zerodhaApiService(MeterRegistry meterRegistry, ThreadPoolExecutor threadPoolExecutor, com.am.common.investment.service.instrument.InstrumentService instrumentService, TickPipeline tickPipeline, InstrumentMasterService instrumentMasterService, ProviderRequestPlanner requestPlanner, ProviderRateLimiters rateLimiters) {
         log.info("Creating Zerodha API service");
-        return new ZerodhaApiService(instrumentService, meterRegistry, threadPoolExecutor);
+        return new ZerodhaApiService(instrumentService, instrumentMasterService, meterRegistry, threadPoolExecutor, tickPipeline, requestPlanner, rateLimiters);
     }
     
     /**
@@ -131,12 +140,15 @@ public class ZerodhaApiConfig {
     /**
      * Creates the market data provider factory
      * @param applicationContext Spring application context
+     * @param meterRegistry Metrics registry
+     * @param healthRegistry Provider health used for routing
      * @return MarketDataProviderFactory instance
      */
     @Bean
     @Primary
-    public MarketDataProviderFactory marketDataProviderFactory(ApplicationContext applicationContext) {
+    public MarketDataProviderFactory marketDataProviderFactory(ApplicationContext applicationContext, MeterRegistry meterRegistry,
+                                                               ProviderHealthRegistry healthRegistry) {
         log.info("Creating market data provider factory");
-        return new MarketDataProviderFactory(applicationContext);
+        return new MarketDataProviderFactory(applicationContext, meterRegistry, healthRegistry);
     }
 }
@@ -0,0 +1,30 @@
+package com.marketdata.service.bar;
+
+import com.am.marketdata.common.model.TimeFrame;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Completed candle emitted by {@link BarAggregator}
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class Bar {
+
+    private final long instrumentToken;
+    private final TimeFrame timeFrame;
+
+    /** Candle start, epoch millis */
+    private final long startMillis;
+
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final long volume;
+    private final double openInterest;
+    private final int tickCount;
+}
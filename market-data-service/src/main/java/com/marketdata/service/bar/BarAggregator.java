@@ -0,0 +1,152 @@
+package com.marketdata.service.bar;
+
+import com.am.marketdata.common.model.TimeFrame;
+import com.marketdata.service.tick.TickConsumer;
+import com.marketdata.service.tick.TickPipeline;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds candles for every {@link TimeFrame} from live ticks.
+ * Runs as a tick pipeline consumer (not conflated, every trade affects high/low). A candle is completed
+ * either by the first tick of a later bucket or, for quiet instruments, once the event-time watermark
+ * passes the end of the bucket plus a grace period. Completed candles go to every {@link BarListener}.
+ */
+@Slf4j
+@Service
+public class BarAggregator implements TickConsumer {
+
+    private static final String CONSUMER_NAME = "bar-aggregator";
+    private static final String MODE_LTP = "ltp";
+
+    private final TickPipeline tickPipeline;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<BarListener> listenerProvider;
+    private List<BarListener> listeners;
+    private BarBook book;
+
+    /** Candles completed since the last hand-off to listeners */
+    private List<Bar> completed = new ArrayList<>();
+
+    /** Latest exchange time seen and the wall clock when it was seen, used to advance event time while idle */
+    private long maxEventMillis = Long.MIN_VALUE;
+    private long maxEventSeenAtMillis;
+    private long nextSweepMillis;
+
+    private volatile long barsEmitted;
+
+    @Value("${market-data.zerodha.ticker.bars.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.ticker.bars.initial.instruments:4096}")
+    private int initialInstruments;
+
+    @Value("${market-data.zerodha.ticker.bars.close.grace.ms:2000}")
+    private long closeGraceMillis;
+
+    @Value("${market-data.zerodha.ticker.bars.sweep.interval.ms:250}")
+    private long sweepIntervalMillis;
+
+    public BarAggregator(TickPipeline tickPipeline, MeterRegistry meterRegistry, ObjectProvider<BarListener> listenerProvider) {
+        this.tickPipeline = tickPipeline;
+        this.meterRegistry = meterRegistry;
+        this.listenerProvider = listenerProvider;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            log.info("Bar aggregation disabled");
+            return;
+        }
+        book = new BarBook(TimeFrame.values(), initialInstruments);
+        listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+
+        Gauge.builder("market-data.bars.instruments", this, a -> a.book.size())
+                .register(meterRegistry);
+        FunctionCounter.builder("market-data.bars.late.ticks", this, a -> a.book.getLateTicks())
+                .description("Ticks that arrived after their candle was closed")
+                .register(meterRegistry);
+        FunctionCounter.builder("market-data.bars.emitted", this, a -> a.barsEmitted)
+                .register(meterRegistry);
+
+        tickPipeline.register(CONSUMER_NAME, this);
+        log.info("Initialized bar aggregator for {} time frames with {} listeners", TimeFrame.values().length, listeners.size());
+    }
+
+    @Override
+    public void onTick(Tick tick, long receivedNanos) {
+        double price = tick.getLastTradedPrice();
+        if (price <= 0) {
+            return;
+        }
+        long eventMillis = eventTime(tick);
+        if (eventMillis > maxEventMillis) {
+            maxEventMillis = eventMillis;
+            maxEventSeenAtMillis = System.currentTimeMillis();
+        }
+        boolean hasVolume = !MODE_LTP.equals(tick.getMode());
+        book.update(tick.getInstrumentToken(), eventMillis, price, (long) tick.getVolumeTradedToday(), hasVolume,
+                tick.getOi(), completed);
+    }
+
+    @Override
+    public void onBatchEnd() {
+        sweep();
+    }
+
+    @Override
+    public void onIdle() {
+        sweep();
+    }
+
+    /**
+     * Close expired candles at most once per sweep interval and hand completed candles to listeners
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        if (now >= nextSweepMillis && maxEventMillis != Long.MIN_VALUE) {
+            nextSweepMillis = now + sweepIntervalMillis;
+            long watermark = maxEventMillis + (now - maxEventSeenAtMillis) - closeGraceMillis;
+            book.closeExpired(watermark, completed);
+        }
+        if (completed.isEmpty()) {
+            return;
+        }
+        List<Bar> bars = completed;
+        completed = new ArrayList<>();
+        barsEmitted += bars.size();
+        for (BarListener listener : listeners) {
+            try {
+                listener.onBars(bars);
+            } catch (Exception e) {
+                log.error("Bar listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+                meterRegistry.counter("market-data.bars.listener.error", "listener", listener.getClass().getSimpleName()).increment();
+            }
+        }
+    }
+
+    private static long eventTime(Tick tick) {
+        if (tick.getTickTimestamp() != null) {
+            return tick.getTickTimestamp().getTime();
+        }
+        if (tick.getLastTradedTime() != null) {
+            return tick.getLastTradedTime().getTime();
+        }
+        return System.currentTimeMillis();
+    }
+}
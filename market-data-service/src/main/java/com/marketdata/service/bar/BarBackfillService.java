@@ -0,0 +1,341 @@
+package com.marketdata.service.bar;
+
+import com.am.marketdata.common.model.TimeFrame;
+import com.marketdata.common.util.LongIntHashMap;
+import com.marketdata.service.tick.TickConsumer;
+import com.marketdata.service.tick.TickPipeline;
+import com.marketdata.service.zerodha.ZerodhaApiService;
+import com.zerodhatech.models.HistoricalData;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Refills minute candles for the ticks lost while a ticker connection was down.
+ * The ticker pool reports the tokens of a dropped connection; the first tick of each such token received
+ * afterwards, whether through a failover peer or the reconnected connection, closes that instrument's gap.
+ * The gap runs from the disconnect, or the instrument's last tick if that came later, to that first tick;
+ * gaps shorter than the configured minimum are ignored.
+ *
+ * For every gap one minute {@code getHistoricalData} request covers exactly the minutes it touched,
+ * issued once the last of them has closed; {@link ZerodhaApiService} paces it to the shared Kite historical
+ * rate limit, so backfill and every other historical read draw on the same permits. The candles replace
+ * the partial ones built live and go to every {@link BarListener}, the same path live candles take into
+ * the bar store. Longer time frames keep their live candles.
+ */
+@Slf4j
+@Service
+public class BarBackfillService implements TickConsumer {
+
+    private static final String CONSUMER_NAME = "bar-backfill";
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final DateTimeFormatter CANDLE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
+
+    private final TickPipeline tickPipeline;
+    private final ZerodhaApiService zerodhaApiService;
+    private final ObjectProvider<BarListener> listenerProvider;
+    private final MeterRegistry meterRegistry;
+    private List<BarListener> listeners;
+    private ScheduledExecutorService scheduler;
+
+    @Value("${market-data.zerodha.ticker.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.ticker.backfill.min.gap.ms:1000}")
+    private long minGapMillis;
+
+    @Value("${market-data.zerodha.ticker.backfill.max.gap.minutes:120}")
+    private int maxGapMinutes;
+
+    @Value("${market-data.zerodha.ticker.backfill.settle.ms:5000}")
+    private long settleMillis;
+
+    @Value("${market-data.zerodha.ticker.backfill.max.attempts:3}")
+    private int maxAttempts;
+
+    @Value("${market-data.zerodha.ticker.backfill.retry.delay.ms:30000}")
+    private long retryDelayMillis;
+
+    /** Tokens whose connection dropped and the time it did, until their next tick */
+    private final Map<Long, Outage> outages = new ConcurrentHashMap<>();
+
+    // Owned by the consumer thread: exchange time of the latest tick per token
+    private LongIntHashMap rows;
+    private long[] lastEventMillis = new long[0];
+
+    // Guarded by this
+    private final Map<Long, Window> pending = new HashMap<>();
+
+    private volatile long gapsDetected;
+    private volatile long barsBackfilled;
+
+    public BarBackfillService(TickPipeline tickPipeline, ZerodhaApiService zerodhaApiService,
+                              ObjectProvider<BarListener> listenerProvider, MeterRegistry meterRegistry) {
+        this.tickPipeline = tickPipeline;
+        this.zerodhaApiService = zerodhaApiService;
+        this.listenerProvider = listenerProvider;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            log.info("Bar backfill disabled");
+            return;
+        }
+        rows = new LongIntHashMap(1024, -1);
+        listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bar-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("market-data.bars.backfill.pending", this, BarBackfillService::getPendingCount)
+                .description("Gaps waiting for their backfill request")
+                .register(meterRegistry);
+        FunctionCounter.builder("market-data.bars.backfill.gaps", this, s -> s.gapsDetected)
+                .register(meterRegistry);
+        FunctionCounter.builder("market-data.bars.backfill.bars", this, s -> s.barsBackfilled)
+                .register(meterRegistry);
+
+        zerodhaApiService.addTickerConnectionListener(this::onTokensDisconnected);
+        tickPipeline.register(CONSUMER_NAME, this);
+        log.info("Initialized bar backfill");
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Mark tokens as cut off. Runs on the websocket thread; a repeated disconnect keeps the earliest mark.
+     */
+    private void onTokensDisconnected(List<Long> tokens) {
+        Outage outage = new Outage(System.nanoTime(), currentTimeMillis());
+        for (Long token : tokens) {
+            outages.putIfAbsent(token, outage);
+        }
+    }
+
+    @Override
+    public void onTick(Tick tick, long receivedNanos) {
+        long token = tick.getInstrumentToken();
+        long eventMillis = eventTime(tick);
+        int row = rows.get(token);
+        if (!outages.isEmpty()) {
+            Outage outage = outages.get(token);
+            // Ticks received before the disconnect may still be queued behind it
+            if (outage != null && receivedNanos > outage.nanos && outages.remove(token, outage)) {
+                long gapStart = row >= 0 ? Math.max(lastEventMillis[row], outage.millis) : outage.millis;
+                onGap(token, gapStart, eventMillis);
+            }
+        }
+        if (row < 0) {
+            row = rows.size();
+            rows.put(token, row);
+            if (row == lastEventMillis.length) {
+                lastEventMillis = Arrays.copyOf(lastEventMillis, Math.max(1024, row * 2));
+            }
+        }
+        if (eventMillis > lastEventMillis[row]) {
+            lastEventMillis[row] = eventMillis;
+        }
+    }
+
+    /**
+     * @return Gaps waiting to be fetched
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void onGap(long token, long fromMillis, long toMillis) {
+        if (toMillis - fromMillis < minGapMillis) {
+            return;
+        }
+        long firstMinute = Math.floorDiv(fromMillis, MINUTE_MILLIS) * MINUTE_MILLIS;
+        long lastMinute = Math.floorDiv(toMillis, MINUTE_MILLIS) * MINUTE_MILLIS;
+        boolean sameDay = Instant.ofEpochMilli(firstMinute).atZone(IST).toLocalDate()
+                .equals(Instant.ofEpochMilli(lastMinute).atZone(IST).toLocalDate());
+        if (!sameDay || (lastMinute - firstMinute) / MINUTE_MILLIS >= maxGapMinutes) {
+            log.warn("Not backfilling {} minute gap of {}", (lastMinute - firstMinute) / MINUTE_MILLIS + 1, token);
+            meterRegistry.counter("market-data.bars.backfill.skipped").increment();
+            return;
+        }
+        gapsDetected++;
+        log.info("Detected gap of {} from {} to {}", token, Instant.ofEpochMilli(fromMillis), Instant.ofEpochMilli(toMillis));
+
+        boolean schedule;
+        synchronized (this) {
+            Window window = pending.get(token);
+            schedule = window == null;
+            if (schedule) {
+                pending.put(token, new Window(firstMinute, lastMinute));
+            } else {
+                // Another outage before the first was fetched, one request covers both
+                window.firstMinute = Math.min(window.firstMinute, firstMinute);
+                window.lastMinute = Math.max(window.lastMinute, lastMinute);
+            }
+        }
+        if (schedule) {
+            // Kite only serves a minute candle once the minute is over
+            long delay = lastMinute + MINUTE_MILLIS + settleMillis - currentTimeMillis();
+            scheduler.schedule(() -> backfill(token), Math.max(0, delay), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void backfill(long token) {
+        Window window;
+        long firstMinute;
+        long lastMinute;
+        synchronized (this) {
+            window = pending.get(token);
+            if (window == null) {
+                return;
+            }
+            firstMinute = window.firstMinute;
+            lastMinute = window.lastMinute;
+        }
+        long now = currentTimeMillis();
+        if (lastMinute + MINUTE_MILLIS + settleMillis > now) {
+            // The window grew past the scheduled time
+            scheduler.schedule(() -> backfill(token), lastMinute + MINUTE_MILLIS + settleMillis - now, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        List<Bar> bars;
+        try {
+            HistoricalData data = zerodhaApiService.getHistoricalData(token, new Date(firstMinute), new Date(lastMinute),
+                    TimeFrame.MINUTE, true);
+            meterRegistry.counter("market-data.bars.backfill.requests").increment();
+            bars = toBars(token, data, firstMinute, lastMinute);
+        } catch (Exception e) {
+            meterRegistry.counter("market-data.bars.backfill.error").increment();
+            boolean retry;
+            synchronized (this) {
+                retry = ++window.attempts < maxAttempts;
+                if (!retry) {
+                    pending.remove(token);
+                }
+            }
+            if (retry) {
+                log.warn("Backfill of {} failed, retrying: {}", token, e.getMessage());
+                scheduler.schedule(() -> backfill(token), retryDelayMillis, TimeUnit.MILLISECONDS);
+            } else {
+                log.error("Giving up backfill of {} from {} to {}: {}", token, Instant.ofEpochMilli(firstMinute),
+                        Instant.ofEpochMilli(lastMinute), e.getMessage());
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (window.firstMinute != firstMinute || window.lastMinute != lastMinute) {
+                // Widened while the request was in flight, fetch again for the whole window
+                scheduler.execute(() -> backfill(token));
+            } else {
+                pending.remove(token);
+            }
+        }
+        if (bars.isEmpty()) {
+            return;
+        }
+        barsBackfilled += bars.size();
+        log.info("Backfilled {} minute candles of {}", bars.size(), token);
+        for (BarListener listener : listeners) {
+            try {
+                listener.onBars(bars);
+            } catch (Exception e) {
+                log.error("Bar listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+                meterRegistry.counter("market-data.bars.listener.error", "listener", listener.getClass().getSimpleName()).increment();
+            }
+        }
+    }
+
+    /**
+     * Wall clock the disconnect time and the wait for closed minutes are read from
+     */
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private static List<Bar> toBars(long token, HistoricalData data, long firstMinute, long lastMinute) {
+        List<Bar> bars = new ArrayList<>();
+        if (data == null || data.dataArrayList == null) {
+            return bars;
+        }
+        for (HistoricalData candle : data.dataArrayList) {
+            long startMillis = OffsetDateTime.parse(candle.timeStamp, CANDLE_TIME).toInstant().toEpochMilli();
+            if (startMillis < firstMinute || startMillis > lastMinute) {
+                continue;
+            }
+            bars.add(new Bar(token, TimeFrame.MINUTE, startMillis, candle.open, candle.high, candle.low, candle.close,
+                    candle.volume, candle.oi, 0));
+        }
+        return bars;
+    }
+
+    private static long eventTime(Tick tick) {
+        if (tick.getTickTimestamp() != null) {
+            return tick.getTickTimestamp().getTime();
+        }
+        if (tick.getLastTradedTime() != null) {
+            return tick.getLastTradedTime().getTime();
+        }
+        return System.currentTimeMillis();
+    }
+
+    private static final class Outage {
+        final long nanos;
+        final long millis;
+
+        Outage(long nanos, long millis) {
+            this.nanos = nanos;
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * Minutes to fetch for one token, start times inclusive. Guarded by the service monitor.
+     */
+    private static final class Window {
+        long firstMinute;
+        long lastMinute;
+        int attempts;
+
+        Window(long firstMinute, long lastMinute) {
+            this.firstMinute = firstMinute;
+            this.lastMinute = lastMinute;
+        }
+    }
+}
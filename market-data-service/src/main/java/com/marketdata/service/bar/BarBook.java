@@ -0,0 +1,250 @@
+package com.marketdata.service.bar;
+
+import com.am.marketdata.common.model.TimeFrame;
+import com.marketdata.common.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open candles for every instrument and time frame, stored in primitive arrays.
+ * Row {@code slot * timeFrames.length + frame} holds one candle; updates write in place and
+ * only completed candles allocate a {@link Bar}. Not thread-safe: owned by the aggregator thread.
+ *
+ * Intraday buckets are aligned to the 09:15 IST session open, matching Kite historical candles;
+ * day buckets start at midnight IST. IST has no daylight saving, so alignment is plain arithmetic.
+ */
+public final class BarBook {
+
+    static final long IST_OFFSET_MILLIS = 19_800_000L;
+    static final long DAY_MILLIS = 86_400_000L;
+    static final long SESSION_OPEN_MILLIS = (9 * 60 + 15) * 60_000L;
+
+    private static final long NO_BAR = Long.MIN_VALUE;
+    private static final int NO_SLOT = -1;
+
+    private final TimeFrame[] timeFrames;
+    private final long[] intervals;
+    private final int frameCount;
+    private final LongIntHashMap slots;
+
+    // Per instrument
+    private long[] tokens;
+    private long[] lastCumulativeVolume;
+    private int slotCount;
+
+    // Per instrument and time frame
+    private long[] start;
+    private long[] lastClosedStart;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private long[] volumeBase;
+    private long[] volumeLast;
+    private double[] openInterest;
+    private int[] tickCount;
+
+    private long lateTicks;
+
+    /**
+     * @param timeFrames Time frames to build
+     * @param initialInstruments Expected number of instruments
+     */
+    public BarBook(TimeFrame[] timeFrames, int initialInstruments) {
+        this.timeFrames = timeFrames.clone();
+        this.frameCount = timeFrames.length;
+        this.intervals = new long[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            intervals[i] = intervalMillis(timeFrames[i]);
+        }
+        int capacity = Math.max(16, initialInstruments);
+        this.slots = new LongIntHashMap(capacity, NO_SLOT);
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        tokens = new long[capacity];
+        lastCumulativeVolume = new long[capacity];
+        int rows = capacity * frameCount;
+        start = new long[rows];
+        Arrays.fill(start, NO_BAR);
+        lastClosedStart = new long[rows];
+        Arrays.fill(lastClosedStart, NO_BAR);
+        open = new double[rows];
+        high = new double[rows];
+        low = new double[rows];
+        close = new double[rows];
+        volumeBase = new long[rows];
+        volumeLast = new long[rows];
+        openInterest = new double[rows];
+        tickCount = new int[rows];
+    }
+
+    private void grow() {
+        int capacity = tokens.length << 1;
+        int rows = capacity * frameCount;
+        int oldRows = tokens.length * frameCount;
+        tokens = Arrays.copyOf(tokens, capacity);
+        lastCumulativeVolume = Arrays.copyOf(lastCumulativeVolume, capacity);
+        start = Arrays.copyOf(start, rows);
+        Arrays.fill(start, oldRows, rows, NO_BAR);
+        lastClosedStart = Arrays.copyOf(lastClosedStart, rows);
+        Arrays.fill(lastClosedStart, oldRows, rows, NO_BAR);
+        open = Arrays.copyOf(open, rows);
+        high = Arrays.copyOf(high, rows);
+        low = Arrays.copyOf(low, rows);
+        close = Arrays.copyOf(close, rows);
+        volumeBase = Arrays.copyOf(volumeBase, rows);
+        volumeLast = Arrays.copyOf(volumeLast, rows);
+        openInterest = Arrays.copyOf(openInterest, rows);
+        tickCount = Arrays.copyOf(tickCount, rows);
+    }
+
+    /**
+     * Apply a trade to every time frame of an instrument
+     * @param token Instrument token
+     * @param eventMillis Exchange time of the tick
+     * @param price Last traded price
+     * @param cumulativeVolume Volume traded today as reported by the tick
+     * @param hasVolume Whether the tick carries volume (ltp-mode ticks do not)
+     * @param oi Open interest
+     * @param completed Receives candles closed by this tick
+     */
+    public void update(long token, long eventMillis, double price, long cumulativeVolume, boolean hasVolume,
+                       double oi, List<Bar> completed) {
+        int slot = slots.get(token);
+        if (slot == NO_SLOT) {
+            if (slotCount == tokens.length) {
+                grow();
+            }
+            slot = slotCount++;
+            tokens[slot] = token;
+            // Volume traded before we started watching is not attributed to the first candle
+            lastCumulativeVolume[slot] = hasVolume ? cumulativeVolume : 0;
+            slots.put(token, slot);
+        }
+
+        long previousVolume = lastCumulativeVolume[slot];
+        long volume = hasVolume ? cumulativeVolume : previousVolume;
+        if (volume < previousVolume) {
+            // Cumulative volume restarted, i.e. a new trading day
+            previousVolume = 0;
+        }
+
+        int base = slot * frameCount;
+        for (int f = 0; f < frameCount; f++) {
+            int row = base + f;
+            long bucket = bucketStart(eventMillis, timeFrames[f], intervals[f]);
+            if (start[row] != bucket) {
+                if (bucket < start[row] || (start[row] == NO_BAR && bucket <= lastClosedStart[row])) {
+                    lateTicks++;
+                    continue;
+                }
+                if (start[row] != NO_BAR) {
+                    completed.add(emit(slot, f, row));
+                }
+                start[row] = bucket;
+                open[row] = price;
+                high[row] = price;
+                low[row] = price;
+                volumeBase[row] = previousVolume;
+                tickCount[row] = 0;
+            }
+            if (price > high[row]) {
+                high[row] = price;
+            }
+            if (price < low[row]) {
+                low[row] = price;
+            }
+            close[row] = price;
+            volumeLast[row] = volume;
+            openInterest[row] = oi;
+            tickCount[row]++;
+        }
+        lastCumulativeVolume[slot] = volume;
+    }
+
+    /**
+     * Close every candle whose interval ended before the watermark
+     * @param watermarkMillis Event time up to which all ticks are assumed to have arrived
+     * @param completed Receives the closed candles
+     */
+    public void closeExpired(long watermarkMillis, List<Bar> completed) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            int base = slot * frameCount;
+            for (int f = 0; f < frameCount; f++) {
+                int row = base + f;
+                if (start[row] != NO_BAR && start[row] + intervals[f] <= watermarkMillis) {
+                    completed.add(emit(slot, f, row));
+                    lastClosedStart[row] = start[row];
+                    start[row] = NO_BAR;
+                }
+            }
+        }
+    }
+
+    private Bar emit(int slot, int frame, int row) {
+        return new Bar(tokens[slot], timeFrames[frame], start[row], open[row], high[row], low[row], close[row],
+                Math.max(0, volumeLast[row] - volumeBase[row]), openInterest[row], tickCount[row]);
+    }
+
+    /**
+     * @return Number of instruments with candle state
+     */
+    public int size() {
+        return slotCount;
+    }
+
+    /**
+     * @return Ticks ignored because their candle had already been closed
+     */
+    public long getLateTicks() {
+        return lateTicks;
+    }
+
+    /**
+     * Start of the candle containing a timestamp
+     * @param eventMillis Epoch millis
+     * @param timeFrame Candle time frame
+     * @return Candle start, epoch millis
+     */
+    public static long bucketStart(long eventMillis, TimeFrame timeFrame) {
+        return bucketStart(eventMillis, timeFrame, intervalMillis(timeFrame));
+    }
+
+    private static long bucketStart(long eventMillis, TimeFrame timeFrame, long interval) {
+        long dayStart = Math.floorDiv(eventMillis + IST_OFFSET_MILLIS, DAY_MILLIS) * DAY_MILLIS - IST_OFFSET_MILLIS;
+        if (timeFrame == TimeFrame.DAY) {
+            return dayStart;
+        }
+        long sessionOpen = dayStart + SESSION_OPEN_MILLIS;
+        return sessionOpen + Math.floorDiv(eventMillis - sessionOpen, interval) * interval;
+    }
+
+    /**
+     * @param timeFrame Candle time frame
+     * @return Candle length in millis
+     */
+    public static long intervalMillis(TimeFrame timeFrame) {
+        switch (timeFrame) {
+            case MINUTE:
+                return 60_000L;
+            case THREE_MINUTE:
+                return 3 * 60_000L;
+            case FIVE_MINUTE:
+                return 5 * 60_000L;
+            case TEN_MINUTE:
+                return 10 * 60_000L;
+            case FIFTEEN_MINUTE:
+                return 15 * 60_000L;
+            case THIRTY_MINUTE:
+                return 30 * 60_000L;
+            case HOUR:
+                return 60 * 60_000L;
+            case DAY:
+            default:
+                return DAY_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.marketdata.service.bar;
+
+import com.am.marketdata.common.model.events.OhlcBar;
+import com.am.marketdata.kafka.producer.KafkaProducerService;
+import com.marketdata.service.instrument.TokenSymbolResolver;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes completed candles to the OHLC bar Kafka topic
+ */
+@Slf4j
+@Component
+public class BarKafkaPublisher implements BarListener {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    private final KafkaProducerService kafkaProducerService;
+    private final TokenSymbolResolver symbolResolver;
+    private final MeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @Value("${market-data.zerodha.ticker.bars.kafka.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.ticker.bars.kafka.queue.capacity:1000}")
+    private int queueCapacity;
+
+    public BarKafkaPublisher(KafkaProducerService kafkaProducerService, TokenSymbolResolver symbolResolver,
+                             MeterRegistry meterRegistry) {
+        this.kafkaProducerService = kafkaProducerService;
+        this.symbolResolver = symbolResolver;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "bar-kafka");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void onBars(List<Bar> bars) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            executor.execute(() -> publish(bars));
+        } catch (RejectedExecutionException e) {
+            log.warn("Bar Kafka queue full, dropping {} bars", bars.size());
+            meterRegistry.counter("market-data.bars.kafka.dropped").increment(bars.size());
+        }
+    }
+
+    private void publish(List<Bar> bars) {
+        Map<Long, String> symbols = symbolResolver.resolve(
+                bars.stream().map(Bar::getInstrumentToken).distinct().collect(Collectors.toList()));
+
+        List<OhlcBar> events = new ArrayList<>(bars.size());
+        for (Bar bar : bars) {
+            events.add(OhlcBar.builder()
+                    .instrumentToken(bar.getInstrumentToken())
+                    .symbol(symbols.get(bar.getInstrumentToken()))
+                    .interval(bar.getTimeFrame().getApiValue())
+                    .startTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(bar.getStartMillis()), IST))
+                    .open(bar.getOpen())
+                    .high(bar.getHigh())
+                    .low(bar.getLow())
+                    .close(bar.getClose())
+                    .volume(bar.getVolume())
+                    .openInterest(bar.getOpenInterest())
+                    .tickCount(bar.getTickCount())
+                    .build());
+        }
+
+        try {
+            kafkaProducerService.sendOhlcBarUpdates(events);
+            meterRegistry.counter("market-data.bars.kafka.sent").increment(events.size());
+        } catch (Exception e) {
+            log.error("Failed to publish {} bars to Kafka: {}", events.size(), e.getMessage(), e);
+            meterRegistry.counter("market-data.bars.kafka.error").increment();
+        }
+    }
+}
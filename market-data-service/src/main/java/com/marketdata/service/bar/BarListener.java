@@ -0,0 +1,16 @@
+package com.marketdata.service.bar;
+
+import java.util.List;
+
+/**
+ * Receives candles completed by {@link BarAggregator}, and minute candles refetched by {@link BarBackfillService}
+ * to replace partial ones after a ticker outage.
+ * Called on the aggregator or backfill thread, so implementations must hand off any blocking work.
+ */
+public interface BarListener {
+
+    /**
+     * @param bars Candles completed since the previous call, in completion order
+     */
+    void onBars(List<Bar> bars);
+}
@@ -0,0 +1,131 @@
+package com.marketdata.service.bar;
+
+import com.am.common.investment.model.historical.HistoricalData;
+import com.am.common.investment.model.historical.OHLCVTPoint;
+import com.am.common.investment.service.historical.HistoricalDataService;
+import com.marketdata.service.instrument.TokenSymbolResolver;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Saves completed candles through {@link HistoricalDataService}, one document per symbol and interval.
+ * Writes run on a dedicated thread so the aggregator never waits on the database.
+ */
+@Slf4j
+@Component
+public class BarPersistenceListener implements BarListener {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    private final HistoricalDataService historicalDataService;
+    private final TokenSymbolResolver symbolResolver;
+    private final MeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @Value("${market-data.zerodha.ticker.bars.persistence.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.ticker.bars.persistence.queue.capacity:1000}")
+    private int queueCapacity;
+
+    public BarPersistenceListener(HistoricalDataService historicalDataService, TokenSymbolResolver symbolResolver,
+                                  MeterRegistry meterRegistry) {
+        this.historicalDataService = historicalDataService;
+        this.symbolResolver = symbolResolver;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "bar-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void onBars(List<Bar> bars) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            executor.execute(() -> save(bars));
+        } catch (RejectedExecutionException e) {
+            log.warn("Bar persistence queue full, dropping {} bars", bars.size());
+            meterRegistry.counter("market-data.bars.persistence.dropped").increment(bars.size());
+        }
+    }
+
+    private void save(List<Bar> bars) {
+        Map<Long, String> symbols = symbolResolver.resolve(
+                bars.stream().map(Bar::getInstrumentToken).distinct().collect(Collectors.toList()));
+
+        Map<String, HistoricalData> documents = new LinkedHashMap<>();
+        for (Bar bar : bars) {
+            String symbol = symbols.get(bar.getInstrumentToken());
+            if (symbol == null) {
+                meterRegistry.counter("market-data.bars.persistence.unresolved").increment();
+                continue;
+            }
+            String interval = bar.getTimeFrame().getApiValue();
+            HistoricalData document = documents.computeIfAbsent(symbol + "|" + interval, k -> {
+                HistoricalData data = new HistoricalData();
+                data.setTradingSymbol(symbol);
+                data.setInterval(interval);
+                data.setDataPoints(new ArrayList<>());
+                return data;
+            });
+            document.getDataPoints().add(toPoint(bar));
+        }
+
+        for (HistoricalData document : documents.values()) {
+            try {
+                historicalDataService.saveHistoricalData(document);
+                meterRegistry.counter("market-data.bars.persistence.saved").increment(document.getDataPoints().size());
+            } catch (Exception e) {
+                log.error("Failed to save bars for {} {}: {}", document.getTradingSymbol(), document.getInterval(), e.getMessage(), e);
+                meterRegistry.counter("market-data.bars.persistence.error").increment();
+            }
+        }
+    }
+
+    private static OHLCVTPoint toPoint(Bar bar) {
+        OHLCVTPoint point = new OHLCVTPoint();
+        point.setTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(bar.getStartMillis()), IST));
+        point.setOpen(bar.getOpen());
+        point.setHigh(bar.getHigh());
+        point.setLow(bar.getLow());
+        point.setClose(bar.getClose());
+        point.setVolume(bar.getVolume());
+        return point;
+    }
+}
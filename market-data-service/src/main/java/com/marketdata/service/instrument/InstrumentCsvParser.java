@@ -0,0 +1,163 @@
+package com.marketdata.service.instrument;
+
+import com.zerodhatech.models.Instrument;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Parses the Kite instrument dump one line at a time, so the dump never has to be held in memory
+ * as a string or a list. Columns are located by the header row; fields may be quoted.
+ * Rows with missing columns or unparsable numbers are skipped and counted, see {@link #getSkipped()}.
+ * Instances hold a date format and are not thread-safe.
+ */
+public class InstrumentCsvParser {
+
+    private final SimpleDateFormat expiryFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+    private int skipped;
+
+    /**
+     * Parse a dump and hand each instrument to the consumer
+     * @param reader Dump, starting with the header row
+     * @param consumer Receives every parsed instrument
+     * @return Number of instruments parsed, not counting skipped rows
+     * @throws IOException If the dump cannot be read or has no header
+     */
+    public int parse(Reader reader, Consumer<Instrument> consumer) throws IOException {
+        skipped = 0;
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String header = lines.readLine();
+        if (header == null) {
+            throw new IOException("Instrument dump is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = split(header, new ArrayList<>());
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        int token = column(columns, "instrument_token");
+        int exchangeToken = column(columns, "exchange_token");
+        int symbol = column(columns, "tradingsymbol");
+        int name = column(columns, "name");
+        int lastPrice = column(columns, "last_price");
+        int expiry = column(columns, "expiry");
+        int strike = column(columns, "strike");
+        int tickSize = column(columns, "tick_size");
+        int lotSize = column(columns, "lot_size");
+        int instrumentType = column(columns, "instrument_type");
+        int segment = column(columns, "segment");
+        int exchange = column(columns, "exchange");
+
+        int count = 0;
+        List<String> fields = new ArrayList<>(names.size());
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            split(line, fields);
+            if (fields.size() < names.size()) {
+                skipped++;
+                continue;
+            }
+            Instrument instrument = new Instrument();
+            try {
+                instrument.instrument_token = parseLong(fields.get(token));
+                instrument.exchange_token = parseLong(fields.get(exchangeToken));
+                instrument.last_price = parseDouble(fields.get(lastPrice));
+                instrument.tick_size = parseDouble(fields.get(tickSize));
+                instrument.lot_size = (int) parseLong(fields.get(lotSize));
+            } catch (NumberFormatException e) {
+                skipped++;
+                continue;
+            }
+            instrument.tradingsymbol = fields.get(symbol);
+            instrument.name = fields.get(name);
+            instrument.expiry = parseExpiry(fields.get(expiry));
+            instrument.strike = fields.get(strike);
+            instrument.instrument_type = fields.get(instrumentType);
+            instrument.segment = fields.get(segment);
+            instrument.exchange = fields.get(exchange);
+            consumer.accept(instrument);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of rows the last {@link #parse} skipped
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    private static int column(Map<String, Integer> columns, String name) throws IOException {
+        Integer index = columns.get(name);
+        if (index == null) {
+            throw new IOException("Instrument dump has no " + name + " column");
+        }
+        return index;
+    }
+
+    /**
+     * Split a CSV line into the given list, honouring double-quoted fields and escaped quotes
+     */
+    private static List<String> split(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static long parseLong(String value) {
+        return value.isEmpty() ? 0L : Long.parseLong(value);
+    }
+
+    private static double parseDouble(String value) {
+        return value.isEmpty() ? 0d : Double.parseDouble(value);
+    }
+
+    private Date parseExpiry(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return expiryFormat.parse(value);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.marketdata.service.instrument;
+
+import com.am.common.investment.model.equity.Instrument;
+import com.am.common.investment.service.instrument.InstrumentService;
+import com.am.marketdata.mapper.InstrumentMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Persists the difference between a new {@link InstrumentMaster} snapshot and the stored instruments.
+ * The baseline is the last snapshot this writer persisted; after a restart it is read back from the
+ * instrument database in token batches instead. Only new and changed instruments are saved, in bulk
+ * batches, so an unchanged day costs reads but no writes.
+ *
+ * Instruments missing from the new snapshot have expired. They are counted and drop out of the
+ * in-memory master, and are left in the database, which keeps them for historical lookups.
+ */
+@Component
+public class InstrumentDeltaWriter {
+
+    private final InstrumentService instrumentService;
+    private final InstrumentMapper instrumentMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${market-data.zerodha.instruments.ingest.batch.size:1000}")
+    private int batchSize;
+
+    /** Last snapshot whose delta was fully written, null until the first write */
+    private InstrumentMaster persisted;
+
+    public InstrumentDeltaWriter(InstrumentService instrumentService, InstrumentMapper instrumentMapper,
+                                 MeterRegistry meterRegistry) {
+        this.instrumentService = instrumentService;
+        this.instrumentMapper = instrumentMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Save the instruments of a snapshot that are new or changed since the baseline
+     * @param master New snapshot
+     * @return Counts of added, changed and expired instruments
+     */
+    public synchronized Delta write(InstrumentMaster master) {
+        InstrumentMaster baseline = persisted;
+        int added = 0;
+        int changed = 0;
+        List<Instrument> pending = new ArrayList<>(batchSize);
+        for (int from = 0; from < master.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, master.size());
+            Map<Long, Instrument> stored = baseline != null ? fromSnapshot(baseline, master, from, to) : fromDatabase(master, from, to);
+            for (int row = from; row < to; row++) {
+                Instrument instrument = instrumentMapper.toCommonInstrument(master, row);
+                Instrument previous = stored.get(master.tokenAt(row));
+                if (previous == null) {
+                    added++;
+                    pending.add(instrument);
+                } else if (!sameListing(previous, instrument)) {
+                    changed++;
+                    pending.add(instrument);
+                }
+            }
+            if (pending.size() >= batchSize) {
+                instrumentService.saveAll(pending);
+                pending = new ArrayList<>(batchSize);
+            }
+        }
+        if (!pending.isEmpty()) {
+            instrumentService.saveAll(pending);
+        }
+
+        int expired = 0;
+        if (baseline != null) {
+            for (int row = 0; row < baseline.size(); row++) {
+                if (master.rowOfToken(baseline.tokenAt(row)) == InstrumentMaster.NO_ROW) {
+                    expired++;
+                }
+            }
+        }
+        persisted = master;
+
+        meterRegistry.counter("market-data.instruments.ingest.added").increment(added);
+        meterRegistry.counter("market-data.instruments.ingest.changed").increment(changed);
+        meterRegistry.counter("market-data.instruments.ingest.expired").increment(expired);
+        return new Delta(added, changed, expired);
+    }
+
+    private Map<Long, Instrument> fromSnapshot(InstrumentMaster baseline, InstrumentMaster master, int from, int to) {
+        Map<Long, Instrument> stored = new HashMap<>();
+        for (int row = from; row < to; row++) {
+            int previous = baseline.rowOfToken(master.tokenAt(row));
+            if (previous != InstrumentMaster.NO_ROW) {
+                stored.put(master.tokenAt(row), instrumentMapper.toCommonInstrument(baseline, previous));
+            }
+        }
+        return stored;
+    }
+
+    private Map<Long, Instrument> fromDatabase(InstrumentMaster master, int from, int to) {
+        List<Long> tokens = new ArrayList<>(to - from);
+        for (int row = from; row < to; row++) {
+            tokens.add(master.tokenAt(row));
+        }
+        Map<Long, Instrument> stored = new HashMap<>();
+        for (Instrument instrument : instrumentService.getInstrumentByInstrumentTokens(tokens)) {
+            stored.put(instrument.getInstrumentToken(), instrument);
+        }
+        return stored;
+    }
+
+    private static boolean sameListing(Instrument a, Instrument b) {
+        return Objects.equals(a.getTradingSymbol(), b.getTradingSymbol())
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getExchangeToken(), b.getExchangeToken())
+                && a.getInstrumentType() == b.getInstrumentType()
+                && a.getSegment() == b.getSegment()
+                && (a.getTickSize() == null ? b.getTickSize() == null
+                    : b.getTickSize() != null && a.getTickSize().compareTo(b.getTickSize()) == 0)
+                && Objects.equals(a.getLotSize(), b.getLotSize())
+                && (a.getExpiry() == null ? b.getExpiry() == null
+                    : b.getExpiry() != null && a.getExpiry().getTime() == b.getExpiry().getTime());
+    }
+
+    /**
+     * Outcome of one delta write
+     */
+    public static final class Delta {
+        private final int added;
+        private final int changed;
+        private final int expired;
+
+        Delta(int added, int changed, int expired) {
+            this.added = added;
+            this.changed = changed;
+            this.expired = expired;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getChanged() {
+            return changed;
+        }
+
+        public int getExpired() {
+            return expired;
+        }
+    }
+}
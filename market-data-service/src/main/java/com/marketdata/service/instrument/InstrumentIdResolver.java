@@ -0,0 +1,180 @@
+package com.marketdata.service.instrument;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Translates between the identifier spaces the providers use for an instrument: Kite instrument tokens,
+ * NSE trading symbols, ISINs and Upstox instrument keys ({@code NSE_EQ|<ISIN>}). Every instrument has a
+ * dense int id, so each translation is a table read and callers can key their caches on the id instead
+ * of on provider strings.
+ *
+ * Ids {@code 0..n-1} are the rows of the current {@link InstrumentMaster}. The Kite dump carries no ISINs,
+ * so ISINs are learned from provider responses that carry both an ISIN and an NSE symbol; an ISIN whose
+ * symbol has no NSE listing in the master gets an id after the master rows. Ids are reassigned when the
+ * instrument master is refreshed, and learned ISINs carry over to the new ids.
+ */
+@Slf4j
+@Service
+public class InstrumentIdResolver {
+
+    public static final int NO_ID = -1;
+    public static final String UPSTOX_NSE_EQUITY = "NSE_EQ";
+
+    private static final String NSE = "NSE";
+
+    /** Learned NSE symbol per ISIN, the source the id tables are rebuilt from */
+    private final Map<String, String> symbolByIsin = new ConcurrentHashMap<>();
+    private volatile Ids ids;
+
+    public InstrumentIdResolver(InstrumentMasterService masterService) {
+        this.ids = new Ids(masterService.getMaster(), symbolByIsin);
+        masterService.addUpdateListener(this::rebuild);
+    }
+
+    public int idOfKiteToken(long token) {
+        return ids.master.rowOfToken(token);
+    }
+
+    /**
+     * @param symbol NSE trading symbol
+     */
+    public int idOfNseSymbol(String symbol) {
+        Ids current = ids;
+        int row = current.master.rowOfSymbol(symbol, NSE);
+        if (row != InstrumentMaster.NO_ROW) {
+            return row;
+        }
+        Integer id = current.byUnlistedSymbol.get(symbol);
+        return id != null ? id : NO_ID;
+    }
+
+    public int idOfIsin(String isin) {
+        Integer id = ids.byIsin.get(isin);
+        return id != null ? id : NO_ID;
+    }
+
+    /**
+     * @param key Upstox instrument key, {@code NSE_EQ|<ISIN>}
+     */
+    public int idOfUpstoxKey(String key) {
+        Integer id = ids.byUpstoxKey.get(key);
+        return id != null ? id : NO_ID;
+    }
+
+    /**
+     * @return Kite instrument token, or {@link InstrumentMaster#NO_TOKEN} for ISIN-only ids
+     */
+    public long kiteToken(int id) {
+        Ids current = ids;
+        return id >= 0 && id < current.master.size() ? current.master.tokenAt(id) : InstrumentMaster.NO_TOKEN;
+    }
+
+    /**
+     * @return Trading symbol of the instrument, or null for an unknown id
+     */
+    public String symbol(int id) {
+        Ids current = ids;
+        if (id >= 0 && id < current.master.size()) {
+            return current.master.symbolAt(id);
+        }
+        return id >= 0 && id < current.isins.length ? symbolByIsin.get(current.isins[id]) : null;
+    }
+
+    /**
+     * @return ISIN, or null if none has been learned for the instrument
+     */
+    public String isin(int id) {
+        Ids current = ids;
+        return id >= 0 && id < current.isins.length ? current.isins[id] : null;
+    }
+
+    /**
+     * @return Upstox instrument key, or null if no ISIN has been learned for the instrument
+     */
+    public String upstoxKey(int id) {
+        Ids current = ids;
+        return id >= 0 && id < current.upstoxKeys.length ? current.upstoxKeys[id] : null;
+    }
+
+    /**
+     * Upstox NSE equity key of an ISIN, built only for ISINs that are not known yet
+     */
+    public String upstoxKeyOfIsin(String isin) {
+        String key = upstoxKey(idOfIsin(isin));
+        return key != null ? key : UPSTOX_NSE_EQUITY + "|" + isin;
+    }
+
+    /**
+     * Learn ISINs from a provider response. The id tables are rebuilt once per call, and only if it
+     * brought an ISIN or symbol that was not known before.
+     * @param symbolsByIsin NSE trading symbol per ISIN
+     */
+    public void learn(Map<String, String> symbolsByIsin) {
+        boolean changed = false;
+        for (Map.Entry<String, String> entry : symbolsByIsin.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null
+                    && !entry.getValue().equals(symbolByIsin.put(entry.getKey(), entry.getValue()))) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            relearn();
+        }
+    }
+
+    private synchronized void relearn() {
+        rebuild(ids.master);
+    }
+
+    private synchronized void rebuild(InstrumentMaster master) {
+        Ids next = new Ids(master, symbolByIsin);
+        ids = next;
+        log.debug("Instrument ids rebuilt for {} instruments and {} ISINs", master.size(), next.byIsin.size());
+    }
+
+    /**
+     * Immutable id tables for one instrument master snapshot
+     */
+    private static final class Ids {
+        final InstrumentMaster master;
+        final String[] isins;
+        final String[] upstoxKeys;
+        final Map<String, Integer> byIsin;
+        final Map<String, Integer> byUpstoxKey;
+        /** Ids past the master rows, for ISINs whose symbol has no NSE listing */
+        final Map<String, Integer> byUnlistedSymbol;
+
+        Ids(InstrumentMaster master, Map<String, String> symbolByIsin) {
+            this.master = master;
+            Map<String, Integer> rows = new HashMap<>(symbolByIsin.size() * 2);
+            int size = master.size();
+            for (Map.Entry<String, String> entry : symbolByIsin.entrySet()) {
+                int row = master.rowOfSymbol(entry.getValue(), NSE);
+                rows.put(entry.getKey(), row != InstrumentMaster.NO_ROW ? row : size++);
+            }
+            isins = new String[size];
+            upstoxKeys = new String[size];
+            byIsin = new HashMap<>(rows.size() * 2);
+            byUpstoxKey = new HashMap<>(rows.size() * 2);
+            byUnlistedSymbol = new HashMap<>();
+            for (Map.Entry<String, Integer> entry : rows.entrySet()) {
+                String isin = entry.getKey();
+                int id = entry.getValue();
+                String key = UPSTOX_NSE_EQUITY + "|" + isin;
+                isins[id] = isin;
+                upstoxKeys[id] = key;
+                byIsin.put(isin, id);
+                byUpstoxKey.put(key, id);
+                if (id >= master.size()) {
+                    byUnlistedSymbol.put(symbolByIsin.get(isin), id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.marketdata.service.instrument;
+
+import com.marketdata.common.util.LongIntHashMap;
+import com.zerodhatech.models.Instrument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the provider's instrument list with constant-time lookups in both directions.
+ * Instruments are stored as rows of primitive and dictionary-encoded columns; a {@link LongIntHashMap}
+ * maps tokens to rows and an open-addressing table of row numbers maps trading symbols to rows.
+ *
+ * The same trading symbol can be listed on several exchanges. A plain symbol resolves to its NSE listing,
+ * then BSE, then whichever came first; {@code EXCHANGE:SYMBOL} resolves to that exchange's listing.
+ * Instances are never modified after {@link Builder#build()} and can be shared across threads.
+ */
+public final class InstrumentMaster {
+
+    public static final long NO_TOKEN = -1L;
+    public static final int NO_ROW = -1;
+    public static final InstrumentMaster EMPTY = new Builder(0).build();
+
+    private static final String[] PREFERRED_EXCHANGES = {"NSE", "BSE"};
+
+    private final int size;
+    private final long[] tokens;
+    private final long[] exchangeTokens;
+    private final String[] symbols;
+    private final String[] names;
+    private final byte[] exchanges;
+    private final byte[] segments;
+    private final byte[] instrumentTypes;
+    private final long[] expiries;
+    private final double[] strikes;
+    private final double[] tickSizes;
+    private final int[] lotSizes;
+    private final String[] exchangeDictionary;
+    private final String[] segmentDictionary;
+    private final String[] instrumentTypeDictionary;
+    private final long builtAtMillis;
+
+    private final LongIntHashMap tokenIndex;
+    /** Row + 1 per slot, 0 for empty, probed linearly from the symbol hash */
+    private final int[] symbolTable;
+    private final int symbolMask;
+
+    private InstrumentMaster(Builder builder) {
+        this.size = builder.size;
+        this.tokens = Arrays.copyOf(builder.tokens, size);
+        this.exchangeTokens = Arrays.copyOf(builder.exchangeTokens, size);
+        this.symbols = Arrays.copyOf(builder.symbols, size);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.exchanges = Arrays.copyOf(builder.exchanges, size);
+        this.segments = Arrays.copyOf(builder.segments, size);
+        this.instrumentTypes = Arrays.copyOf(builder.instrumentTypes, size);
+        this.expiries = Arrays.copyOf(builder.expiries, size);
+        this.strikes = Arrays.copyOf(builder.strikes, size);
+        this.tickSizes = Arrays.copyOf(builder.tickSizes, size);
+        this.lotSizes = Arrays.copyOf(builder.lotSizes, size);
+        this.exchangeDictionary = builder.exchangeDictionary.toArray(new String[0]);
+        this.segmentDictionary = builder.segmentDictionary.toArray(new String[0]);
+        this.instrumentTypeDictionary = builder.instrumentTypeDictionary.toArray(new String[0]);
+        this.builtAtMillis = builder.builtAtMillis != 0 ? builder.builtAtMillis : System.currentTimeMillis();
+
+        this.tokenIndex = new LongIntHashMap(size, NO_ROW);
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, size * 2 - 1)) << 1);
+        this.symbolTable = new int[capacity];
+        this.symbolMask = capacity - 1;
+        for (int row = 0; row < size; row++) {
+            tokenIndex.put(tokens[row], row);
+            int slot = hash(symbols[row]) & symbolMask;
+            while (symbolTable[slot] != 0) {
+                slot = (slot + 1) & symbolMask;
+            }
+            symbolTable[slot] = row + 1;
+        }
+    }
+
+    /**
+     * Build a snapshot from the Kite instrument list
+     * @param instruments Kite instruments
+     * @return Snapshot of the instruments
+     */
+    public static InstrumentMaster of(List<Instrument> instruments) {
+        Builder builder = new Builder(instruments.size());
+        for (Instrument instrument : instruments) {
+            builder.add(instrument);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param symbol Trading symbol, optionally qualified as {@code EXCHANGE:SYMBOL}
+     * @return Row of the instrument or {@link #NO_ROW}
+     */
+    public int rowOfSymbol(String symbol) {
+        if (symbol == null || size == 0) {
+            return NO_ROW;
+        }
+        int separator = symbol.indexOf(':');
+        if (separator > 0 && rowOf(symbol, null) == NO_ROW) {
+            return rowOf(symbol.substring(separator + 1), symbol.substring(0, separator));
+        }
+        return rowOf(symbol, null);
+    }
+
+    /**
+     * @param symbol Trading symbol
+     * @param exchange Exchange of the listing
+     * @return Row of the listing on that exchange or {@link #NO_ROW}
+     */
+    public int rowOfSymbol(String symbol, String exchange) {
+        if (symbol == null || size == 0) {
+            return NO_ROW;
+        }
+        return rowOf(symbol, exchange);
+    }
+
+    /**
+     * @param token Instrument token
+     * @return Row of the instrument or {@link #NO_ROW}
+     */
+    public int rowOfToken(long token) {
+        return tokenIndex.get(token);
+    }
+
+    /**
+     * @param symbol Trading symbol, optionally qualified as {@code EXCHANGE:SYMBOL}
+     * @return Instrument token or {@link #NO_TOKEN}
+     */
+    public long getToken(String symbol) {
+        int row = rowOfSymbol(symbol);
+        return row == NO_ROW ? NO_TOKEN : tokens[row];
+    }
+
+    /**
+     * @param token Instrument token
+     * @return Trading symbol or null
+     */
+    public String getSymbol(long token) {
+        int row = tokenIndex.get(token);
+        return row == NO_ROW ? null : symbols[row];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return Wall clock time the snapshot was built, epoch millis
+     */
+    public long getBuiltAtMillis() {
+        return builtAtMillis;
+    }
+
+    public long tokenAt(int row) {
+        return tokens[row];
+    }
+
+    public long exchangeTokenAt(int row) {
+        return exchangeTokens[row];
+    }
+
+    public String symbolAt(int row) {
+        return symbols[row];
+    }
+
+    public String nameAt(int row) {
+        return names[row];
+    }
+
+    public String exchangeAt(int row) {
+        return exchangeDictionary[exchanges[row]];
+    }
+
+    public String segmentAt(int row) {
+        return segmentDictionary[segments[row]];
+    }
+
+    public String instrumentTypeAt(int row) {
+        return instrumentTypeDictionary[instrumentTypes[row]];
+    }
+
+    /**
+     * @return Expiry as epoch millis, 0 if the instrument does not expire
+     */
+    public long expiryAt(int row) {
+        return expiries[row];
+    }
+
+    public double strikeAt(int row) {
+        return strikes[row];
+    }
+
+    public double tickSizeAt(int row) {
+        return tickSizes[row];
+    }
+
+    public int lotSizeAt(int row) {
+        return lotSizes[row];
+    }
+
+    /**
+     * Walk the whole probe sequence of a symbol, since listings on several exchanges share it
+     * @param exchange Exchange to match exactly, or null for the preferred listing
+     */
+    private int rowOf(String symbol, String exchange) {
+        int slot = hash(symbol) & symbolMask;
+        int best = NO_ROW;
+        int bestRank = Integer.MAX_VALUE;
+        int entry;
+        while ((entry = symbolTable[slot]) != 0) {
+            int row = entry - 1;
+            if (symbols[row].equals(symbol)) {
+                String rowExchange = exchangeDictionary[exchanges[row]];
+                if (exchange != null) {
+                    if (exchange.equals(rowExchange)) {
+                        return row;
+                    }
+                } else {
+                    int rank = rank(rowExchange);
+                    if (rank == 0) {
+                        return row;
+                    }
+                    if (rank < bestRank) {
+                        best = row;
+                        bestRank = rank;
+                    }
+                }
+            }
+            slot = (slot + 1) & symbolMask;
+        }
+        return best;
+    }
+
+    private static int rank(String exchange) {
+        for (int i = 0; i < PREFERRED_EXCHANGES.length; i++) {
+            if (PREFERRED_EXCHANGES[i].equals(exchange)) {
+                return i;
+            }
+        }
+        return PREFERRED_EXCHANGES.length;
+    }
+
+    private static int hash(String symbol) {
+        int h = symbol.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Accumulates instrument rows for a new snapshot. Rows with a token already added replace the earlier row.
+     */
+    public static final class Builder {
+        private int size;
+        private long[] tokens;
+        private long[] exchangeTokens;
+        private String[] symbols;
+        private String[] names;
+        private byte[] exchanges;
+        private byte[] segments;
+        private byte[] instrumentTypes;
+        private long[] expiries;
+        private double[] strikes;
+        private double[] tickSizes;
+        private int[] lotSizes;
+        private long builtAtMillis;
+        private final List<String> exchangeDictionary = new ArrayList<>();
+        private final List<String> segmentDictionary = new ArrayList<>();
+        private final List<String> instrumentTypeDictionary = new ArrayList<>();
+        private final Map<String, Byte> exchangeCodes = new HashMap<>();
+        private final Map<String, Byte> segmentCodes = new HashMap<>();
+        private final Map<String, Byte> instrumentTypeCodes = new HashMap<>();
+        private final LongIntHashMap rows;
+
+        /**
+         * @param expectedSize Expected number of instruments
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            tokens = new long[capacity];
+            exchangeTokens = new long[capacity];
+            symbols = new String[capacity];
+            names = new String[capacity];
+            exchanges = new byte[capacity];
+            segments = new byte[capacity];
+            instrumentTypes = new byte[capacity];
+            expiries = new long[capacity];
+            strikes = new double[capacity];
+            tickSizes = new double[capacity];
+            lotSizes = new int[capacity];
+            rows = new LongIntHashMap(capacity, NO_ROW);
+        }
+
+        /**
+         * Add a Kite instrument
+         * @param instrument Kite instrument
+         * @return This builder
+         */
+        public Builder add(Instrument instrument) {
+            return add(instrument.instrument_token, instrument.exchange_token, instrument.tradingsymbol, instrument.name,
+                    instrument.exchange, instrument.segment, instrument.instrument_type,
+                    instrument.expiry != null ? instrument.expiry.getTime() : 0L,
+                    parseStrike(instrument.strike), instrument.tick_size, instrument.lot_size);
+        }
+
+        /**
+         * Add an instrument row
+         * @return This builder
+         */
+        public Builder add(long token, long exchangeToken, String symbol, String name, String exchange, String segment,
+                           String instrumentType, long expiryMillis, double strike, double tickSize, int lotSize) {
+            if (symbol == null) {
+                return this;
+            }
+            int row = rows.get(token);
+            if (row == NO_ROW) {
+                row = size++;
+                rows.put(token, row);
+                ensureCapacity(size);
+            }
+            tokens[row] = token;
+            exchangeTokens[row] = exchangeToken;
+            symbols[row] = symbol;
+            names[row] = name;
+            exchanges[row] = encode(exchange, exchangeCodes, exchangeDictionary);
+            segments[row] = encode(segment, segmentCodes, segmentDictionary);
+            instrumentTypes[row] = encode(instrumentType, instrumentTypeCodes, instrumentTypeDictionary);
+            expiries[row] = expiryMillis;
+            strikes[row] = strike;
+            tickSizes[row] = tickSize;
+            lotSizes[row] = lotSize;
+            return this;
+        }
+
+        /**
+         * Set the time the instrument list was downloaded, when rebuilding an earlier snapshot
+         * @param builtAtMillis Epoch millis, defaults to the time of {@link #build()}
+         * @return This builder
+         */
+        public Builder builtAt(long builtAtMillis) {
+            this.builtAtMillis = builtAtMillis;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public InstrumentMaster build() {
+            return new InstrumentMaster(this);
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= tokens.length) {
+                return;
+            }
+            int capacity = tokens.length << 1;
+            tokens = Arrays.copyOf(tokens, capacity);
+            exchangeTokens = Arrays.copyOf(exchangeTokens, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+            names = Arrays.copyOf(names, capacity);
+            exchanges = Arrays.copyOf(exchanges, capacity);
+            segments = Arrays.copyOf(segments, capacity);
+            instrumentTypes = Arrays.copyOf(instrumentTypes, capacity);
+            expiries = Arrays.copyOf(expiries, capacity);
+            strikes = Arrays.copyOf(strikes, capacity);
+            tickSizes = Arrays.copyOf(tickSizes, capacity);
+            lotSizes = Arrays.copyOf(lotSizes, capacity);
+        }
+
+        private static byte encode(String value, Map<String, Byte> codes, List<String> dictionary) {
+            String key = value != null ? value : "";
+            Byte code = codes.get(key);
+            if (code == null) {
+                if (dictionary.size() > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct values for a dictionary column: " + key);
+                }
+                code = (byte) dictionary.size();
+                dictionary.add(key);
+                codes.put(key, code);
+            }
+            return code;
+        }
+
+        private static double parseStrike(String strike) {
+            if (strike == null || strike.isEmpty()) {
+                return 0;
+            }
+            try {
+                return Double.parseDouble(strike);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.marketdata.service.instrument;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * On-disk columnar snapshot of an {@link InstrumentMaster}. At startup it is read back in one sequential pass
+ * over a memory mapping into a heap {@link InstrumentMaster}, with no text parsing; the mapping is only used
+ * for that pass, lookups are served from the heap columns.
+ * All values are little-endian.
+ * <pre>
+ * header        u32 magic 'IMSN', u16 version, u16 reserved, i32 row count, i32 reserved,
+ *               i64 built millis, 40 reserved bytes
+ * dictionaries  exchanges, segments, instrument types: u8 count, then per entry u16 length + UTF-8 bytes
+ * columns       u32 token[n], u32 exchange token[n], u8 exchange[n], u8 segment[n], u8 instrument type[n],
+ *               i64 expiry millis[n], f64 strike[n], f64 tick size[n], i32 lot size[n]
+ * strings       symbols, then names: i32 end offset[n] into the following UTF-8 bytes
+ * </pre>
+ * Kite tokens fit in 32 bits, so tokens are packed as unsigned ints. A missing name reads back as empty.
+ * Files are written to a temporary sibling and moved into place, so readers never see a partial file.
+ */
+final class InstrumentMasterFile {
+
+    static final int MAGIC = 0x4E534D49;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    private static final long MAX_TOKEN = 0xFFFFFFFFL;
+
+    private InstrumentMasterFile() {
+    }
+
+    /**
+     * Write a snapshot, replacing any existing file
+     * @param master Snapshot to write
+     * @param path Target file
+     * @throws IOException If the file cannot be written
+     */
+    static void write(InstrumentMaster master, Path path) throws IOException {
+        int size = master.size();
+        List<String> exchanges = new ArrayList<>();
+        List<String> segments = new ArrayList<>();
+        List<String> instrumentTypes = new ArrayList<>();
+        byte[] exchangeCodes = encode(size, master::exchangeAt, exchanges);
+        byte[] segmentCodes = encode(size, master::segmentAt, segments);
+        byte[] instrumentTypeCodes = encode(size, master::instrumentTypeAt, instrumentTypes);
+        byte[][] symbols = new byte[size][];
+        byte[][] names = new byte[size][];
+        int symbolBytes = 0;
+        int nameBytes = 0;
+        for (int row = 0; row < size; row++) {
+            if (master.tokenAt(row) < 0 || master.tokenAt(row) > MAX_TOKEN
+                    || master.exchangeTokenAt(row) < 0 || master.exchangeTokenAt(row) > MAX_TOKEN) {
+                throw new IOException("Token of " + master.symbolAt(row) + " does not fit the snapshot format");
+            }
+            symbols[row] = master.symbolAt(row).getBytes(StandardCharsets.UTF_8);
+            names[row] = master.nameAt(row) != null ? master.nameAt(row).getBytes(StandardCharsets.UTF_8) : new byte[0];
+            symbolBytes += symbols[row].length;
+            nameBytes += names[row].length;
+        }
+
+        int length = HEADER_SIZE + dictionaryLength(exchanges) + dictionaryLength(segments)
+                + dictionaryLength(instrumentTypes) + size * (4 + 4 + 1 + 1 + 1 + 8 + 8 + 8 + 4)
+                + size * 4 + symbolBytes + size * 4 + nameBytes;
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(size).putInt(0)
+                .putLong(master.getBuiltAtMillis());
+        buffer.position(HEADER_SIZE);
+        putDictionary(buffer, exchanges);
+        putDictionary(buffer, segments);
+        putDictionary(buffer, instrumentTypes);
+        for (int row = 0; row < size; row++) {
+            buffer.putInt((int) master.tokenAt(row));
+        }
+        for (int row = 0; row < size; row++) {
+            buffer.putInt((int) master.exchangeTokenAt(row));
+        }
+        buffer.put(exchangeCodes).put(segmentCodes).put(instrumentTypeCodes);
+        for (int row = 0; row < size; row++) {
+            buffer.putLong(master.expiryAt(row));
+        }
+        for (int row = 0; row < size; row++) {
+            buffer.putDouble(master.strikeAt(row));
+        }
+        for (int row = 0; row < size; row++) {
+            buffer.putDouble(master.tickSizeAt(row));
+        }
+        for (int row = 0; row < size; row++) {
+            buffer.putInt(master.lotSizeAt(row));
+        }
+        putStrings(buffer, symbols);
+        putStrings(buffer, names);
+        buffer.flip();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a snapshot
+     * @param path Snapshot file
+     * @return Snapshot with the download time it was written with
+     * @throws IOException If the file cannot be read, or was written by another format version
+     */
+    static InstrumentMaster read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an instrument master snapshot: " + path);
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unsupported instrument master snapshot version " + buffer.getShort(4) + ": " + path);
+        }
+        int size = buffer.getInt(8);
+        long builtAtMillis = buffer.getLong(16);
+        buffer.position(HEADER_SIZE);
+        String[] exchanges = getDictionary(buffer);
+        String[] segments = getDictionary(buffer);
+        String[] instrumentTypes = getDictionary(buffer);
+
+        int tokens = buffer.position();
+        int exchangeTokens = tokens + size * 4;
+        int exchangeCodes = exchangeTokens + size * 4;
+        int segmentCodes = exchangeCodes + size;
+        int instrumentTypeCodes = segmentCodes + size;
+        int expiries = instrumentTypeCodes + size;
+        int strikes = expiries + size * 8;
+        int tickSizes = strikes + size * 8;
+        int lotSizes = tickSizes + size * 8;
+        int symbolEnds = lotSizes + size * 4;
+        int symbolBytes = symbolEnds + size * 4;
+        int nameEnds = symbolBytes + (size > 0 ? buffer.getInt(symbolEnds + (size - 1) * 4) : 0);
+        int nameBytes = nameEnds + size * 4;
+
+        InstrumentMaster.Builder builder = new InstrumentMaster.Builder(size).builtAt(builtAtMillis);
+        for (int row = 0; row < size; row++) {
+            builder.add(Integer.toUnsignedLong(buffer.getInt(tokens + row * 4)),
+                    Integer.toUnsignedLong(buffer.getInt(exchangeTokens + row * 4)),
+                    getString(buffer, symbolEnds, symbolBytes, row),
+                    getString(buffer, nameEnds, nameBytes, row),
+                    exchanges[buffer.get(exchangeCodes + row)],
+                    segments[buffer.get(segmentCodes + row)],
+                    instrumentTypes[buffer.get(instrumentTypeCodes + row)],
+                    buffer.getLong(expiries + row * 8),
+                    buffer.getDouble(strikes + row * 8),
+                    buffer.getDouble(tickSizes + row * 8),
+                    buffer.getInt(lotSizes + row * 4));
+        }
+        return builder.build();
+    }
+
+    private static byte[] encode(int size, IntFunction<String> column, List<String> dictionary) throws IOException {
+        Map<String, Byte> codes = new HashMap<>();
+        byte[] encoded = new byte[size];
+        for (int row = 0; row < size; row++) {
+            String value = column.apply(row);
+            Byte code = codes.get(value);
+            if (code == null) {
+                if (dictionary.size() > Byte.MAX_VALUE) {
+                    throw new IOException("Too many distinct values for a dictionary column: " + value);
+                }
+                code = (byte) dictionary.size();
+                codes.put(value, code);
+                dictionary.add(value);
+            }
+            encoded[row] = code;
+        }
+        return encoded;
+    }
+
+    private static int dictionaryLength(List<String> dictionary) {
+        int length = 1;
+        for (String value : dictionary) {
+            length += 2 + value.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return length;
+    }
+
+    private static void putDictionary(ByteBuffer buffer, List<String> dictionary) {
+        buffer.put((byte) dictionary.size());
+        for (String value : dictionary) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static String[] getDictionary(ByteBuffer buffer) {
+        String[] dictionary = new String[buffer.get() & 0xFF];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[buffer.getShort()];
+            buffer.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    private static void putStrings(ByteBuffer buffer, byte[][] values) {
+        int end = 0;
+        for (byte[] value : values) {
+            end += value.length;
+            buffer.putInt(end);
+        }
+        for (byte[] value : values) {
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer, int ends, int bytes, int row) {
+        int start = row == 0 ? 0 : buffer.getInt(ends + (row - 1) * 4);
+        int end = buffer.getInt(ends + row * 4);
+        byte[] value = new byte[end - start];
+        buffer.get(bytes + start, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
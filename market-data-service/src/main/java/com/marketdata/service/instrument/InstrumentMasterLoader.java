@@ -0,0 +1,202 @@
+package com.marketdata.service.instrument;
+
+import com.marketdata.service.zerodha.ZerodhaApiService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Loads the Kite instrument list into the {@link InstrumentMasterService}.
+ * The first load runs in the background at startup and is retried until it succeeds, after which the
+ * snapshot is rebuilt once a day before the market opens, when Kite publishes the day's instruments.
+ * The dump is parsed as it streams in, and only the instruments that changed since the last load are
+ * written to the instrument database. This is the only path that downloads the instrument list.
+ * A download that is far smaller than the current snapshot is taken as truncated and rejected.
+ *
+ * Each loaded snapshot is also written to a local {@link InstrumentMasterFile} at an absolute path, if one
+ * is configured. At startup that file is loaded and served right away; the download then runs in the
+ * background, and is skipped when no scheduled refresh has come due since the file was built.
+ */
+@Slf4j
+@Component
+public class InstrumentMasterLoader {
+
+    /** Kite lists roughly this many instruments across all exchanges */
+    private static final int EXPECTED_INSTRUMENTS = 100_000;
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    private final ZerodhaApiService zerodhaApiService;
+    private final InstrumentMasterService masterService;
+    private final InstrumentDeltaWriter deltaWriter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${market-data.zerodha.instruments.master.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.instruments.ingest.enabled:true}")
+    private boolean ingestEnabled;
+
+    /** Smallest share of the current snapshot's instruments a new download must hold to replace it */
+    @Value("${market-data.zerodha.instruments.master.min.retained.ratio:0.5}")
+    private double minRetainedRatio;
+
+    @Value("${market-data.zerodha.instruments.master.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${market-data.zerodha.instruments.master.snapshot.path:}")
+    private String snapshotPath;
+
+    @Value("${market-data.zerodha.instruments.master.refresh.cron:0 30 8 * * *}")
+    private String refreshCron;
+
+    public InstrumentMasterLoader(ZerodhaApiService zerodhaApiService, InstrumentMasterService masterService,
+                                  InstrumentDeltaWriter deltaWriter, MeterRegistry meterRegistry) {
+        this.zerodhaApiService = zerodhaApiService;
+        this.masterService = masterService;
+        this.deltaWriter = deltaWriter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            log.info("Instrument master disabled");
+            return;
+        }
+        if (snapshotEnabled && (snapshotPath == null || snapshotPath.isBlank())) {
+            log.info("Instrument master snapshot disabled: no market-data.zerodha.instruments.master.snapshot.path set");
+            snapshotEnabled = false;
+        } else if (snapshotEnabled && !Paths.get(snapshotPath).isAbsolute()) {
+            log.warn("Instrument master snapshot disabled: market-data.zerodha.instruments.master.snapshot.path must be an absolute path");
+            snapshotEnabled = false;
+        }
+        if (snapshotEnabled && loadSnapshot()) {
+            return;
+        }
+        Thread thread = new Thread(this::refresh, "instrument-master");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Daily rebuild after Kite publishes the day's instrument list
+     */
+    @Scheduled(cron = "${market-data.zerodha.instruments.master.refresh.cron:0 30 8 * * *}", zone = "Asia/Kolkata")
+    public void scheduledRefresh() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * Retry the load while no snapshot is available, e.g. before the first login of the day
+     */
+    @Scheduled(fixedDelayString = "${market-data.zerodha.instruments.master.retry.interval.ms:300000}",
+            initialDelayString = "${market-data.zerodha.instruments.master.retry.interval.ms:300000}")
+    public void retryIfEmpty() {
+        if (enabled && masterService.getMaster().isEmpty()) {
+            refresh();
+        }
+    }
+
+    /**
+     * Download the instrument list, replace the snapshot and persist what changed
+     * @return true if the snapshot was replaced
+     */
+    public synchronized boolean refresh() {
+        long start = System.currentTimeMillis();
+        try {
+            InstrumentMaster.Builder builder = new InstrumentMaster.Builder(
+                    Math.max(masterService.getMaster().size(), EXPECTED_INSTRUMENTS));
+            zerodhaApiService.streamInstruments(builder::add);
+            InstrumentMaster master = builder.build();
+            if (master.isEmpty()) {
+                log.warn("Provider returned no instruments, keeping the current instrument master");
+                return false;
+            }
+            int current = masterService.getMaster().size();
+            if (master.size() < current * minRetainedRatio) {
+                meterRegistry.counter("market-data.instruments.master.refresh.rejected").increment();
+                log.warn("Provider returned {} instruments against {} in the current instrument master, keeping it",
+                        master.size(), current);
+                return false;
+            }
+            masterService.update(master);
+            meterRegistry.counter("market-data.instruments.master.refresh.success").increment();
+            log.info("Loaded {} instruments into the instrument master in {} ms", master.size(),
+                    System.currentTimeMillis() - start);
+            if (snapshotEnabled) {
+                writeSnapshot(master);
+            }
+        } catch (Exception e) {
+            meterRegistry.counter("market-data.instruments.master.refresh.error").increment();
+            log.error("Failed to load the instrument master: {}", e.getMessage(), e);
+            return false;
+        }
+
+        if (ingestEnabled) {
+            try {
+                long writeStart = System.currentTimeMillis();
+                InstrumentDeltaWriter.Delta delta = deltaWriter.write(masterService.getMaster());
+                log.info("Saved instrument delta in {} ms: {} added, {} changed, {} expired",
+                        System.currentTimeMillis() - writeStart, delta.getAdded(), delta.getChanged(), delta.getExpired());
+            } catch (Exception e) {
+                // The snapshot is already live; the next load diffs against the last written baseline again
+                meterRegistry.counter("market-data.instruments.ingest.error").increment();
+                log.error("Failed to save the instrument delta: {}", e.getMessage(), e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serve the snapshot file, if there is one
+     * @return true if no scheduled refresh has come due since the file was built, so no download is needed
+     */
+    private boolean loadSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            log.info("No instrument master snapshot at {}", path);
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            InstrumentMaster master = InstrumentMasterFile.read(path);
+            masterService.update(master);
+            meterRegistry.counter("market-data.instruments.master.snapshot.load.success").increment();
+            ZonedDateTime builtAt = Instant.ofEpochMilli(master.getBuiltAtMillis()).atZone(IST);
+            ZonedDateTime refreshDue = CronExpression.parse(refreshCron).next(builtAt);
+            boolean fresh = refreshDue != null && refreshDue.isAfter(ZonedDateTime.now(IST));
+            log.info("Loaded {} instruments from snapshot {} built at {} in {} ms{}", master.size(), path, builtAt,
+                    System.currentTimeMillis() - start, fresh ? "" : ", refreshing from the provider");
+            return fresh;
+        } catch (Exception e) {
+            meterRegistry.counter("market-data.instruments.master.snapshot.load.error").increment();
+            log.warn("Failed to load instrument master snapshot {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeSnapshot(InstrumentMaster master) {
+        try {
+            InstrumentMasterFile.write(master, Paths.get(snapshotPath));
+        } catch (Exception e) {
+            meterRegistry.counter("market-data.instruments.master.snapshot.write.error").increment();
+            log.warn("Failed to write instrument master snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+}
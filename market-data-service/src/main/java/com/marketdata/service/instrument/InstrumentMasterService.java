@@ -0,0 +1,122 @@
+package com.marketdata.service.instrument;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current {@link InstrumentMaster} snapshot. Readers always see a complete snapshot,
+ * replaced wholesale when the instrument list is refreshed; until the first load the snapshot is empty
+ * and callers fall back to the instrument database. A search index is built alongside each snapshot.
+ */
+@Slf4j
+@Service
+public class InstrumentMasterService {
+
+    private volatile InstrumentMaster master = InstrumentMaster.EMPTY;
+    private volatile InstrumentSearchIndex searchIndex = InstrumentSearchIndex.EMPTY;
+    private final List<Consumer<InstrumentMaster>> updateListeners = new CopyOnWriteArrayList<>();
+
+    public InstrumentMasterService(MeterRegistry meterRegistry) {
+        Gauge.builder("market-data.instruments.master.size", this, s -> s.master.size())
+                .register(meterRegistry);
+        Gauge.builder("market-data.instruments.master.age", this,
+                        s -> s.master.isEmpty() ? 0 : (System.currentTimeMillis() - s.master.getBuiltAtMillis()) / 1000d)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Current snapshot, empty until the first load
+     */
+    public InstrumentMaster getMaster() {
+        return master;
+    }
+
+    /**
+     * Replace the current snapshot
+     * @param master New snapshot
+     */
+    public void update(InstrumentMaster master) {
+        long start = System.currentTimeMillis();
+        InstrumentSearchIndex index = new InstrumentSearchIndex(master);
+        InstrumentMaster previous = this.master;
+        this.master = master;
+        this.searchIndex = index;
+        log.info("Instrument master updated from {} to {} instruments, search index built in {} ms",
+                previous.size(), master.size(), System.currentTimeMillis() - start);
+        for (Consumer<InstrumentMaster> listener : updateListeners) {
+            try {
+                listener.accept(master);
+            } catch (Exception e) {
+                log.error("Instrument master update listener failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Register a listener called with each new snapshot after it replaces the current one
+     * @param listener Listener to add
+     */
+    public void addUpdateListener(Consumer<InstrumentMaster> listener) {
+        updateListeners.add(listener);
+    }
+
+    /**
+     * Search the current snapshot by symbol or name
+     * @param query Text to search for, null or empty for all instruments
+     * @param type Common instrument type name to filter on, optional
+     * @param exchange Common segment name or provider exchange to filter on, optional
+     * @param page Page number (0-based)
+     * @param size Page size
+     * @return Requested page of matching rows and the number of matches
+     * @throws IllegalArgumentException if the page is negative or the size not positive
+     */
+    public InstrumentSearchIndex.Result search(String query, String type, String exchange, int page, int size) {
+        return searchIndex.search(query, type, exchange, page, size);
+    }
+
+    /**
+     * Resolve tokens for symbols
+     * @param symbols Trading symbols, optionally qualified as {@code EXCHANGE:SYMBOL}
+     * @return Tokens keyed by symbol; symbols not in the snapshot are absent
+     */
+    public Map<String, Long> resolveTokens(Collection<String> symbols) {
+        InstrumentMaster snapshot = master;
+        Map<String, Long> tokens = new HashMap<>();
+        for (String symbol : symbols) {
+            long token = snapshot.getToken(symbol);
+            if (token != InstrumentMaster.NO_TOKEN) {
+                tokens.put(symbol, token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Resolve symbols for tokens
+     * @param tokens Instrument tokens
+     * @return Symbols keyed by token; tokens not in the snapshot are absent
+     */
+    public Map<Long, String> resolveSymbols(Collection<Long> tokens) {
+        InstrumentMaster snapshot = master;
+        Map<Long, String> symbols = new HashMap<>();
+        for (Long token : tokens) {
+            String symbol = snapshot.getSymbol(token);
+            if (symbol != null) {
+                symbols.put(token, symbol);
+            }
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,342 @@
+package com.marketdata.service.instrument;
+
+import com.am.common.investment.model.equity.Instrument.InstrumentType;
+import com.am.common.investment.model.equity.Instrument.Segment;
+import com.am.marketdata.mapper.InstrumentMapper;
+import com.marketdata.common.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Search over the trading symbols and names of an {@link InstrumentMaster} snapshot.
+ * Queries of one or two characters match symbols or names starting with the query, found as ranges
+ * of rows sorted by lowercase symbol and by lowercase name. Longer queries match symbols or names
+ * containing the query: the query's rarest trigram selects the candidate rows from the trigram postings,
+ * and each candidate is verified against the query, so a search touches only plausible rows.
+ *
+ * Matches are ranked exact symbol, symbol prefix, name prefix, symbol substring, name substring,
+ * then by symbol. A search collects every match once, so the page and the exact hit count come from
+ * the same pass. Immutable after construction.
+ */
+public final class InstrumentSearchIndex {
+
+    public static final InstrumentSearchIndex EMPTY = new InstrumentSearchIndex(InstrumentMaster.EMPTY);
+
+    private static final int[] NO_ROWS = new int[0];
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_SYMBOL_PREFIX = 1;
+    private static final int RANK_NAME_PREFIX = 2;
+    private static final int RANK_SYMBOL_CONTAINS = 3;
+    private static final int RANK_NAME_CONTAINS = 4;
+
+    private final InstrumentMaster master;
+    private final String[] symbols;
+    private final String[] names;
+    /** Ordinal of the mapped common instrument type and segment per row */
+    private final byte[] instrumentTypes;
+    private final byte[] segments;
+
+    /** Rows sorted by lowercase symbol and name, and each row's position in symbol order */
+    private final int[] bySymbol;
+    private final int[] byName;
+    private final int[] symbolOrder;
+
+    /** Trigram to postings index, postings hold rows in ascending order */
+    private final LongIntHashMap trigrams;
+    private final int[][] postings;
+
+    /**
+     * @param master Snapshot to index
+     */
+    public InstrumentSearchIndex(InstrumentMaster master) {
+        this.master = master;
+        int size = master.size();
+        symbols = new String[size];
+        names = new String[size];
+        instrumentTypes = new byte[size];
+        segments = new byte[size];
+        for (int row = 0; row < size; row++) {
+            symbols[row] = master.symbolAt(row).toLowerCase(Locale.ROOT);
+            names[row] = master.nameAt(row) != null ? master.nameAt(row).toLowerCase(Locale.ROOT) : "";
+            instrumentTypes[row] = (byte) InstrumentMapper.mapInstrumentType(master.instrumentTypeAt(row)).ordinal();
+            segments[row] = (byte) InstrumentMapper.mapSegment(master.segmentAt(row)).ordinal();
+        }
+
+        bySymbol = sortedRows(symbols);
+        byName = sortedRows(names);
+        symbolOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            symbolOrder[bySymbol[i]] = i;
+        }
+
+        // First pass sizes the postings, second pass fills them; a row is posted once per trigram
+        trigrams = new LongIntHashMap(size * 8, -1);
+        int[] counts = new int[1024];
+        int[] lastRow = new int[1024];
+        int distinct = 0;
+        for (int row = 0; row < size; row++) {
+            for (String text : new String[]{symbols[row], names[row]}) {
+                for (int i = 0; i + 3 <= text.length(); i++) {
+                    long key = trigram(text, i);
+                    int posting = trigrams.get(key);
+                    if (posting < 0) {
+                        posting = distinct++;
+                        trigrams.put(key, posting);
+                        if (posting == counts.length) {
+                            counts = Arrays.copyOf(counts, posting * 2);
+                            lastRow = Arrays.copyOf(lastRow, posting * 2);
+                        }
+                        lastRow[posting] = -1;
+                    }
+                    if (lastRow[posting] != row) {
+                        lastRow[posting] = row;
+                        counts[posting]++;
+                    }
+                }
+            }
+        }
+        postings = new int[distinct][];
+        for (int posting = 0; posting < distinct; posting++) {
+            postings[posting] = new int[counts[posting]];
+            counts[posting] = 0;
+            lastRow[posting] = -1;
+        }
+        for (int row = 0; row < size; row++) {
+            for (String text : new String[]{symbols[row], names[row]}) {
+                for (int i = 0; i + 3 <= text.length(); i++) {
+                    int posting = trigrams.get(trigram(text, i));
+                    if (lastRow[posting] != row) {
+                        lastRow[posting] = row;
+                        postings[posting][counts[posting]++] = row;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Snapshot the index was built from
+     */
+    public InstrumentMaster getMaster() {
+        return master;
+    }
+
+    /**
+     * Find instruments by symbol or name
+     * @param query Text to search for, null or empty for all instruments
+     * @param type Common instrument type name to filter on, optional
+     * @param exchange Common segment name or provider exchange to filter on, optional
+     * @param page Page number (0-based)
+     * @param size Page size
+     * @return Requested page of matching rows and the number of matches
+     * @throws IllegalArgumentException if the page is negative or the size not positive
+     */
+    public Result search(String query, String type, String exchange, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page must be 0 or more and size at least 1, got page " + page + " of size " + size);
+        }
+        int typeFilter = -1;
+        if (type != null && !type.isEmpty()) {
+            try {
+                typeFilter = InstrumentType.valueOf(type.toUpperCase(Locale.ROOT)).ordinal();
+            } catch (IllegalArgumentException e) {
+                return new Result(master, NO_ROWS, 0);
+            }
+        }
+        Filter filter = new Filter(typeFilter, exchange != null && !exchange.isEmpty() ? exchange : null);
+
+        long[] matches;
+        int count;
+        String q = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
+        if (q.isEmpty()) {
+            matches = new long[master.size()];
+            count = 0;
+            for (int row : bySymbol) {
+                if (filter.accepts(row)) {
+                    matches[count++] = symbolOrder[row];
+                }
+            }
+        } else if (q.length() < 3) {
+            int[] symbolRange = prefixRange(bySymbol, symbols, q);
+            int[] nameRange = prefixRange(byName, names, q);
+            matches = new long[(symbolRange[1] - symbolRange[0]) + (nameRange[1] - nameRange[0])];
+            count = 0;
+            for (int i = symbolRange[0]; i < symbolRange[1]; i++) {
+                int row = bySymbol[i];
+                if (filter.accepts(row)) {
+                    matches[count++] = key(symbols[row].equals(q) ? RANK_EXACT : RANK_SYMBOL_PREFIX, row);
+                }
+            }
+            for (int i = nameRange[0]; i < nameRange[1]; i++) {
+                int row = byName[i];
+                if (!symbols[row].startsWith(q) && filter.accepts(row)) {
+                    matches[count++] = key(RANK_NAME_PREFIX, row);
+                }
+            }
+        } else {
+            int[] candidates = rarestPosting(q);
+            matches = new long[candidates.length];
+            count = 0;
+            for (int row : candidates) {
+                int rank = rank(row, q);
+                if (rank >= 0 && filter.accepts(row)) {
+                    matches[count++] = key(rank, row);
+                }
+            }
+        }
+
+        Arrays.sort(matches, 0, count);
+        int from = (int) Math.min((long) page * size, count);
+        int to = (int) Math.min((long) from + size, count);
+        int[] rows = new int[Math.max(0, to - from)];
+        for (int i = from; i < to; i++) {
+            rows[i - from] = bySymbol[(int) matches[i]];
+        }
+        return new Result(master, rows, count);
+    }
+
+    private int rank(int row, String q) {
+        String symbol = symbols[row];
+        if (symbol.equals(q)) {
+            return RANK_EXACT;
+        }
+        if (symbol.startsWith(q)) {
+            return RANK_SYMBOL_PREFIX;
+        }
+        if (names[row].startsWith(q)) {
+            return RANK_NAME_PREFIX;
+        }
+        if (symbol.contains(q)) {
+            return RANK_SYMBOL_CONTAINS;
+        }
+        if (names[row].contains(q)) {
+            return RANK_NAME_CONTAINS;
+        }
+        return -1;
+    }
+
+    /**
+     * @return Postings of the query trigram with the fewest rows, empty if any trigram is unknown
+     */
+    private int[] rarestPosting(String q) {
+        int[] rarest = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            int posting = trigrams.get(trigram(q, i));
+            if (posting < 0) {
+                return NO_ROWS;
+            }
+            if (rarest == null || postings[posting].length < rarest.length) {
+                rarest = postings[posting];
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * Sort key ordering matches by rank, then symbol; the low half is the row's position in symbol order
+     */
+    private long key(int rank, int row) {
+        return ((long) rank << 32) | symbolOrder[row];
+    }
+
+    private static int[] prefixRange(int[] sorted, String[] texts, String prefix) {
+        int from = lowerBound(sorted, texts, prefix);
+        // Every string with the prefix sorts before the prefix followed by the highest character
+        int to = lowerBound(sorted, texts, prefix + Character.MAX_VALUE);
+        return new int[]{from, to};
+    }
+
+    private static int lowerBound(int[] sorted, String[] texts, String value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (texts[sorted[mid]].compareTo(value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] sortedRows(String[] texts) {
+        return IntStream.range(0, texts.length).boxed()
+                .sorted(Comparator.comparing(row -> texts[row]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static long trigram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    /**
+     * Type and exchange filter of one search
+     */
+    private final class Filter {
+        final int type;
+        final String exchange;
+        final int segment;
+
+        Filter(int type, String exchange) {
+            this.type = type;
+            this.exchange = exchange;
+            int segmentOrdinal = -1;
+            if (exchange != null) {
+                for (Segment value : Segment.values()) {
+                    if (value.name().equalsIgnoreCase(exchange)) {
+                        segmentOrdinal = value.ordinal();
+                    }
+                }
+            }
+            this.segment = segmentOrdinal;
+        }
+
+        boolean accepts(int row) {
+            if (type >= 0 && instrumentTypes[row] != type) {
+                return false;
+            }
+            return exchange == null || segments[row] == segment || exchange.equalsIgnoreCase(master.exchangeAt(row));
+        }
+    }
+
+    /**
+     * One page of search results
+     */
+    public static final class Result {
+        private final InstrumentMaster master;
+        private final int[] rows;
+        private final int total;
+
+        Result(InstrumentMaster master, int[] rows, int total) {
+            this.master = master;
+            this.rows = rows;
+            this.total = total;
+        }
+
+        /**
+         * @return Snapshot the rows refer to
+         */
+        public InstrumentMaster getMaster() {
+            return master;
+        }
+
+        /**
+         * @return Rows of the requested page, in rank order
+         */
+        public int[] getRows() {
+            return rows;
+        }
+
+        /**
+         * @return Number of matches across all pages
+         */
+        public int getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.marketdata.service.instrument;
+
+import com.am.common.investment.model.equity.Instrument;
+import com.am.common.investment.service.instrument.InstrumentService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoized instrument token to trading symbol lookup.
+ * Tokens are resolved from the {@link InstrumentMaster} first; the rest in a single batched instrument query.
+ */
+@Slf4j
+@Service
+public class TokenSymbolResolver {
+
+    private final InstrumentService instrumentService;
+    private final InstrumentMasterService instrumentMasterService;
+    private final Map<Long, String> symbols = new ConcurrentHashMap<>();
+
+    public TokenSymbolResolver(InstrumentService instrumentService, InstrumentMasterService instrumentMasterService) {
+        this.instrumentService = instrumentService;
+        this.instrumentMasterService = instrumentMasterService;
+    }
+
+    /**
+     * Resolve trading symbols for tokens
+     * @param tokens Instrument tokens
+     * @return Symbols keyed by token; tokens that cannot be resolved are absent
+     */
+    public Map<Long, String> resolve(Collection<Long> tokens) {
+        InstrumentMaster master = instrumentMasterService.getMaster();
+        Map<Long, String> result = new HashMap<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long token : tokens) {
+            String symbol = master.getSymbol(token);
+            if (symbol == null) {
+                symbol = symbols.get(token);
+            }
+            if (symbol != null) {
+                result.put(token, symbol);
+            } else {
+                unknown.add(token);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            try {
+                for (Instrument instrument : instrumentService.getInstrumentByInstrumentTokens(unknown)) {
+                    if (instrument.getInstrumentToken() != null && instrument.getTradingSymbol() != null) {
+                        symbols.put(instrument.getInstrumentToken(), instrument.getTradingSymbol());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Failed to resolve symbols for {} tokens: {}", unknown.size(), e.getMessage());
+            }
+        }
+
+        for (Long token : unknown) {
+            String symbol = symbols.get(token);
+            if (symbol != null) {
+                result.put(token, symbol);
+            }
+        }
+        return result;
+    }
+}
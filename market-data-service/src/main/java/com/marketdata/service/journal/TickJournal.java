@@ -0,0 +1,345 @@
+package com.marketdata.service.journal;
+
+import com.marketdata.service.tick.TickConsumer;
+import com.marketdata.service.tick.TickPipeline;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Records every received tick into memory-mapped, append-only segment files, one series per IST trading day.
+ * Runs inline on the ingestion thread so no tick can be lapped away: an append is a handful of stores
+ * into the current mapping. A background roller preallocates the next segment of the day and flushes
+ * and closes full ones, so a roll by size only swaps mappings; the ingestion thread only creates a
+ * segment itself for the first one of a day, or waits when the roller has fallen behind.
+ * Segments are indexed by received time, see {@link TickJournalFormat} and {@link TickJournalReader}.
+ *
+ * Disabled by default; enabling it requires an absolute journal directory. A process running tick replay has
+ * no live ticker, so it never journals: replayed ticks are not recorded again.
+ */
+@Slf4j
+@Service
+public class TickJournal implements TickConsumer {
+
+    private static final String CONSUMER_NAME = "tick-journal";
+    private static final long RETRY_AFTER_FAILURE_MILLIS = 10_000L;
+    private static final long MIN_SEGMENT_BYTES = 1L << 20;
+
+    private final TickPipeline tickPipeline;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${market-data.zerodha.ticker.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.ticker.replay.enabled:false}")
+    private boolean replayEnabled;
+
+    @Value("${market-data.zerodha.ticker.journal.dir:}")
+    private String directoryName;
+
+    @Value("${market-data.zerodha.ticker.journal.segment.size.mb:256}")
+    private int segmentSizeMb;
+
+    @Value("${market-data.zerodha.ticker.journal.index.interval.ms:1000}")
+    private long indexIntervalMillis;
+
+    private Path directory;
+    private long segmentBytes;
+    private ExecutorService roller;
+
+    // Owned by the publishing thread
+    private TickJournalSegment segment;
+    private Future<TickJournalSegment> prepared;
+    private long segmentDayEndMillis;
+    private long lastReceivedNanos;
+    private long lastReceivedMillis;
+    private long retryAfterMillis;
+
+    private volatile long recordsWritten;
+    private volatile long segmentsCreated;
+    private volatile long ticksSkipped;
+
+    public TickJournal(TickPipeline tickPipeline, MeterRegistry meterRegistry) {
+        this.tickPipeline = tickPipeline;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void initialize() throws IOException {
+        if (!enabled) {
+            log.info("Tick journal disabled");
+            return;
+        }
+        if (replayEnabled) {
+            log.info("Tick journal idle: tick replay is enabled, so there is no live ticker to record");
+            return;
+        }
+        if (directoryName == null || directoryName.isBlank() || !Paths.get(directoryName).isAbsolute()) {
+            throw new IllegalStateException("market-data.zerodha.ticker.journal.dir must be an absolute path when the tick journal is enabled");
+        }
+        segmentBytes = (long) segmentSizeMb << 20;
+        if (segmentBytes < MIN_SEGMENT_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("market-data.zerodha.ticker.journal.segment.size.mb must be between 1 and 2047, was " + segmentSizeMb);
+        }
+        directory = Paths.get(directoryName);
+        Files.createDirectories(directory);
+        recoverPending();
+        roller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tick-journal-roller");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        FunctionCounter.builder("market-data.journal.records", this, j -> j.recordsWritten)
+                .register(meterRegistry);
+        FunctionCounter.builder("market-data.journal.segments", this, j -> j.segmentsCreated)
+                .register(meterRegistry);
+        FunctionCounter.builder("market-data.journal.skipped", this, j -> j.ticksSkipped)
+                .description("Ticks not journaled because no segment could be opened")
+                .register(meterRegistry);
+
+        tickPipeline.registerInline(CONSUMER_NAME, this);
+        log.info("Journaling ticks to {} in segments of {} MB", directory, segmentSizeMb);
+    }
+
+    @Override
+    public void onTick(Tick tick, long receivedNanos) {
+        if (receivedNanos != lastReceivedNanos) {
+            // All ticks of a websocket batch share the receive time
+            lastReceivedNanos = receivedNanos;
+            lastReceivedMillis = System.currentTimeMillis();
+        }
+        long receivedMillis = lastReceivedMillis;
+        if (segment == null || receivedMillis >= segmentDayEndMillis || !segment.hasRoom()) {
+            if (!roll(receivedMillis)) {
+                ticksSkipped++;
+                return;
+            }
+        }
+        segment.append(tick, receivedMillis);
+        recordsWritten++;
+    }
+
+    @Override
+    public void onClose() {
+        TickJournalSegment last = segment;
+        segment = null;
+        discardPrepared();
+        if (roller != null) {
+            roller.execute(() -> close(last));
+            roller.shutdown();
+        }
+    }
+
+    /**
+     * @return Directory holding the segment files, or null when the journal is not recording
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Switch to the next segment for the day of the tick. The full segment is flushed and closed
+     * by the roller, which then preallocates the one after.
+     * @return true if a segment is open for appends
+     */
+    private boolean roll(long receivedMillis) {
+        if (receivedMillis < retryAfterMillis) {
+            return false;
+        }
+        long epochDay = TickJournalFormat.tradingDay(receivedMillis);
+        TickJournalSegment previous = segment;
+        segment = null;
+        TickJournalSegment next = null;
+        if (previous != null && previous.getEpochDay() == epochDay) {
+            next = takePrepared();
+        } else {
+            discardPrepared();
+        }
+        TickJournalSegment full = previous;
+        boolean openedInline = next == null;
+        try {
+            if (next == null) {
+                int sequence = previous != null && previous.getEpochDay() == epochDay
+                        ? previous.getSequence() + 1
+                        : nextSequence(LocalDate.ofEpochDay(epochDay));
+                next = TickJournalSegment.create(directory, epochDay, sequence, segmentBytes, indexIntervalMillis);
+                next.publish();
+            }
+        } catch (IOException e) {
+            log.error("Failed to open tick journal segment for day {}: {}", LocalDate.ofEpochDay(epochDay), e.getMessage(), e);
+            meterRegistry.counter("market-data.journal.error", "operation", "open").increment();
+            retryAfterMillis = receivedMillis + RETRY_AFTER_FAILURE_MILLIS;
+            roller.execute(() -> close(full));
+            return false;
+        }
+
+        segment = next;
+        segmentDayEndMillis = TickJournalFormat.nextDayStart(epochDay);
+        segmentsCreated++;
+        TickJournalSegment current = next;
+        roller.execute(() -> {
+            if (!openedInline) {
+                publish(current);
+            }
+            close(full);
+        });
+        prepared = roller.submit(() -> TickJournalSegment.create(directory, current.getEpochDay(), current.getSequence() + 1,
+                segmentBytes, indexIntervalMillis));
+        return true;
+    }
+
+    /**
+     * @return The preallocated next segment, or null if preallocating it failed
+     */
+    private TickJournalSegment takePrepared() {
+        Future<TickJournalSegment> next = prepared;
+        prepared = null;
+        if (next == null) {
+            return null;
+        }
+        if (!next.isDone()) {
+            meterRegistry.counter("market-data.journal.roll.waits").increment();
+        }
+        try {
+            return next.get();
+        } catch (ExecutionException e) {
+            log.error("Failed to preallocate tick journal segment: {}", e.getCause().getMessage(), e.getCause());
+            meterRegistry.counter("market-data.journal.error", "operation", "preallocate").increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            next.cancel(false);
+            return null;
+        }
+    }
+
+    /**
+     * Delete the preallocated segment once the roller has finished creating it
+     */
+    private void discardPrepared() {
+        Future<TickJournalSegment> unused = prepared;
+        prepared = null;
+        if (unused == null || roller == null) {
+            return;
+        }
+        roller.execute(() -> {
+            try {
+                unused.get().discard();
+            } catch (ExecutionException e) {
+                // Nothing was created
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                log.warn("Failed to delete preallocated tick journal segment: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void publish(TickJournalSegment published) {
+        try {
+            published.publish();
+            log.info("Opened tick journal segment {}", published.getPath().getFileName());
+        } catch (IOException e) {
+            log.error("Failed to publish tick journal segment {}: {}", published.getPath(), e.getMessage(), e);
+            meterRegistry.counter("market-data.journal.error", "operation", "publish").increment();
+        }
+    }
+
+    private void close(TickJournalSegment closed) {
+        if (closed == null) {
+            return;
+        }
+        try {
+            closed.close();
+            log.info("Closed tick journal segment {} with {} records", closed.getPath().getFileName(), closed.getRecordCount());
+        } catch (UncheckedIOException e) {
+            log.error("Failed to close tick journal segment {}: {}", closed.getPath(), e.getMessage(), e);
+            meterRegistry.counter("market-data.journal.error", "operation", "close").increment();
+        }
+    }
+
+    /**
+     * After a restart, publish pending segments that were written to before their rename and delete
+     * preallocated ones that never were. An index is renamed before its segment, so a pending index
+     * next to a published segment is published too. Segments are handled before indexes, so a pending
+     * index still waiting for its pending segment is moved along with it rather than deleted.
+     */
+    private void recoverPending() throws IOException {
+        List<Path> pending;
+        try (Stream<Path> files = Files.list(directory)) {
+            pending = files.filter(path -> TickJournalFormat.publishedPath(path) != null)
+                    .sorted(Comparator.comparing((Path path) -> !TickJournalFormat.isSegmentPath(TickJournalFormat.publishedPath(path)))
+                            .thenComparing(Comparator.naturalOrder()))
+                    .collect(Collectors.toList());
+        }
+        for (Path path : pending) {
+            Path published = TickJournalFormat.publishedPath(path);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            if (TickJournalFormat.isSegmentPath(published)) {
+                Path index = TickJournalFormat.pendingPath(TickJournalFormat.indexPath(published));
+                if (!hasRecords(path)) {
+                    Files.delete(path);
+                    Files.deleteIfExists(index);
+                    continue;
+                }
+                if (Files.exists(index)) {
+                    Files.move(index, TickJournalFormat.indexPath(published), StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.move(path, published, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Recovered pending tick journal segment {}", published.getFileName());
+            } else if (!Files.exists(published) && Files.exists(TickJournalFormat.segmentPathOf(published))) {
+                Files.move(path, published, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static boolean hasRecords(Path pendingSegment) throws IOException {
+        try (FileChannel channel = FileChannel.open(pendingSegment, StandardOpenOption.READ)) {
+            ByteBuffer flags = ByteBuffer.allocate(1);
+            return channel.read(flags, TickJournalFormat.HEADER_SIZE) == 1
+                    && (flags.get(0) & TickJournalFormat.FLAG_WRITTEN) != 0;
+        }
+    }
+
+    /**
+     * After a restart the day continues in a new segment rather than appending to an old one
+     */
+    private int nextSequence(LocalDate day) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToInt(path -> TickJournalFormat.sequenceOf(path.getFileName().toString(), day))
+                    .max()
+                    .orElse(-1) + 1;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.marketdata.service.journal;
+
+import com.zerodhatech.models.Tick;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * On-disk layout of the tick journal. All values are little-endian.
+ *
+ * Segment file {@code ticks-yyyyMMdd-NNNN.seg}: a 64-byte header followed by fixed 128-byte records.
+ * <pre>
+ * header  u32 magic 'TJSG', u16 version, u16 record size, i32 trading day (epoch day, IST),
+ *         i32 sequence, i64 created millis, 40 reserved bytes
+ * record  0 u8 flags (bit0 written, bit1 tradable), 1 u8 mode, 2 u16 reserved, 4 i32 last traded quantity,
+ *         8 i64 token, 16 i64 received millis, 24 i64 tick timestamp, 32 i64 last traded time,
+ *         40 f64 ltp, 48 f64 open, 56 f64 high, 64 f64 low, 72 f64 close, 80 f64 average price,
+ *         88 i64 volume, 96 f64 buy quantity, 104 f64 sell quantity, 112 f64 oi, 120 f64 change
+ * </pre>
+ * The flags byte is written last, so a record torn by a crash reads as the end of the segment.
+ * Absent timestamps are stored as 0. Market depth is not journaled.
+ *
+ * Index file {@code ticks-yyyyMMdd-NNNN.idx}: a 16-byte header (u32 magic 'TJIX', u16 version,
+ * u16 reserved, i32 entry count, i32 interval millis) followed by 16-byte entries of
+ * i64 received millis and i64 segment offset, one for the first record of each index interval.
+ *
+ * The next segment of a day is preallocated ahead of time with a {@code .pending} suffix on both file
+ * names, and renamed once the writer switches to it.
+ */
+final class TickJournalFormat {
+
+    static final int SEGMENT_MAGIC = 0x47534A54;
+    static final int INDEX_MAGIC = 0x58494A54;
+    static final short VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 128;
+    static final int INDEX_HEADER_SIZE = 16;
+    static final int INDEX_ENTRY_SIZE = 16;
+    static final int INDEX_COUNT_OFFSET = 8;
+    static final int INDEX_INTERVAL_OFFSET = 12;
+
+    static final byte FLAG_WRITTEN = 1;
+    static final byte FLAG_TRADABLE = 2;
+
+    static final long IST_OFFSET_MILLIS = 19_800_000L;
+    static final long DAY_MILLIS = 86_400_000L;
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String PENDING_SUFFIX = ".pending";
+
+    private TickJournalFormat() {
+    }
+
+    /**
+     * @param epochMillis Epoch millis
+     * @return IST calendar day as epoch day
+     */
+    static long tradingDay(long epochMillis) {
+        return Math.floorDiv(epochMillis + IST_OFFSET_MILLIS, DAY_MILLIS);
+    }
+
+    /**
+     * @param epochDay IST calendar day
+     * @return Epoch millis at which the next IST day starts
+     */
+    static long nextDayStart(long epochDay) {
+        return (epochDay + 1) * DAY_MILLIS - IST_OFFSET_MILLIS;
+    }
+
+    static String filePrefix(LocalDate day) {
+        return "ticks-" + DAY_FORMAT.format(day) + "-";
+    }
+
+    static Path segmentPath(Path directory, LocalDate day, int sequence) {
+        return directory.resolve(filePrefix(day) + String.format("%04d", sequence) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return Name a segment or index file has while it is preallocated and not yet published;
+     *         readers do not list it
+     */
+    static Path pendingPath(Path file) {
+        return file.resolveSibling(file.getFileName().toString() + PENDING_SUFFIX);
+    }
+
+    /**
+     * @return Final name of a pending file, or null if the file is not pending
+     */
+    static Path publishedPath(Path pending) {
+        String name = pending.getFileName().toString();
+        if (!name.endsWith(PENDING_SUFFIX)) {
+            return null;
+        }
+        return pending.resolveSibling(name.substring(0, name.length() - PENDING_SUFFIX.length()));
+    }
+
+    static boolean isSegmentPath(Path path) {
+        return path.getFileName().toString().endsWith(SEGMENT_SUFFIX);
+    }
+
+    static Path segmentPathOf(Path index) {
+        String name = index.getFileName().toString();
+        return index.resolveSibling(name.substring(0, name.length() - INDEX_SUFFIX.length()) + SEGMENT_SUFFIX);
+    }
+
+    static Path indexPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * @param fileName Segment file name
+     * @param day Day the segment must belong to
+     * @return Sequence number, or -1 if the file is not a segment of that day
+     */
+    static int sequenceOf(String fileName, LocalDate day) {
+        String prefix = filePrefix(day);
+        if (!fileName.startsWith(prefix) || !fileName.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(prefix.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param fileName Journal file name
+     * @return Day of the segment, or null if the file is not a segment
+     */
+    static LocalDate dayOf(String fileName) {
+        if (!fileName.startsWith("ticks-") || !fileName.endsWith(SEGMENT_SUFFIX) || fileName.length() < 15) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(fileName.substring(6, 14), DAY_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    static void writeHeader(ByteBuffer buffer, long epochDay, int sequence, long createdMillis) {
+        buffer.putInt(0, SEGMENT_MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) RECORD_SIZE);
+        buffer.putInt(8, (int) epochDay);
+        buffer.putInt(12, sequence);
+        buffer.putLong(16, createdMillis);
+    }
+
+    static boolean isSegment(ByteBuffer buffer) {
+        return buffer.limit() >= HEADER_SIZE
+                && buffer.getInt(0) == SEGMENT_MAGIC
+                && buffer.getShort(4) == VERSION
+                && buffer.getShort(6) == RECORD_SIZE;
+    }
+
+    /**
+     * Write a record at an absolute offset, flags last
+     */
+    static void writeRecord(ByteBuffer buffer, int offset, Tick tick, long receivedMillis) {
+        buffer.put(offset + 1, modeCode(tick.getMode()));
+        buffer.putInt(offset + 4, (int) tick.getLastTradedQuantity());
+        buffer.putLong(offset + 8, tick.getInstrumentToken());
+        buffer.putLong(offset + 16, receivedMillis);
+        buffer.putLong(offset + 24, millis(tick.getTickTimestamp()));
+        buffer.putLong(offset + 32, millis(tick.getLastTradedTime()));
+        buffer.putDouble(offset + 40, tick.getLastTradedPrice());
+        buffer.putDouble(offset + 48, tick.getOpenPrice());
+        buffer.putDouble(offset + 56, tick.getHighPrice());
+        buffer.putDouble(offset + 64, tick.getLowPrice());
+        buffer.putDouble(offset + 72, tick.getClosePrice());
+        buffer.putDouble(offset + 80, tick.getAverageTradePrice());
+        buffer.putLong(offset + 88, (long) tick.getVolumeTradedToday());
+        buffer.putDouble(offset + 96, tick.getTotalBuyQuantity());
+        buffer.putDouble(offset + 104, tick.getTotalSellQuantity());
+        buffer.putDouble(offset + 112, tick.getOi());
+        buffer.putDouble(offset + 120, tick.getChange());
+        buffer.put(offset, (byte) (FLAG_WRITTEN | (tick.isTradable() ? FLAG_TRADABLE : 0)));
+    }
+
+    static boolean isWritten(ByteBuffer buffer, int offset) {
+        return offset + RECORD_SIZE <= buffer.limit() && (buffer.get(offset) & FLAG_WRITTEN) != 0;
+    }
+
+    static long receivedMillis(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 16);
+    }
+
+    static Tick readRecord(ByteBuffer buffer, int offset) {
+        Tick tick = new Tick();
+        tick.setTradable((buffer.get(offset) & FLAG_TRADABLE) != 0);
+        tick.setMode(mode(buffer.get(offset + 1)));
+        tick.setLastTradedQuantity(buffer.getInt(offset + 4));
+        tick.setInstrumentToken(buffer.getLong(offset + 8));
+        tick.setTickTimestamp(date(buffer.getLong(offset + 24)));
+        tick.setLastTradedTime(date(buffer.getLong(offset + 32)));
+        tick.setLastTradedPrice(buffer.getDouble(offset + 40));
+        tick.setOpenPrice(buffer.getDouble(offset + 48));
+        tick.setHighPrice(buffer.getDouble(offset + 56));
+        tick.setLowPrice(buffer.getDouble(offset + 64));
+        tick.setClosePrice(buffer.getDouble(offset + 72));
+        tick.setAverageTradePrice(buffer.getDouble(offset + 80));
+        tick.setVolumeTradedToday(buffer.getLong(offset + 88));
+        tick.setTotalBuyQuantity(buffer.getDouble(offset + 96));
+        tick.setTotalSellQuantity(buffer.getDouble(offset + 104));
+        tick.setOi(buffer.getDouble(offset + 112));
+        tick.setNetPriceChangeFromClosingPrice(buffer.getDouble(offset + 120));
+        return tick;
+    }
+
+    private static byte modeCode(String mode) {
+        if (mode == null) {
+            return 0;
+        }
+        switch (mode) {
+            case "ltp":
+                return 1;
+            case "quote":
+                return 2;
+            case "full":
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    private static String mode(byte code) {
+        switch (code) {
+            case 1:
+                return "ltp";
+            case 2:
+                return "quote";
+            case 3:
+                return "full";
+            default:
+                return null;
+        }
+    }
+
+    private static long millis(Date date) {
+        return date != null ? date.getTime() : 0L;
+    }
+
+    private static Date date(long millis) {
+        return millis != 0L ? new Date(millis) : null;
+    }
+}
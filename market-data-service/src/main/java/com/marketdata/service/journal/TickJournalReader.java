@@ -0,0 +1,200 @@
+package com.marketdata.service.journal;
+
+import com.zerodhatech.models.Tick;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sequential reader over the journal segments of one trading day, in the order the ticks were received.
+ * {@link #seek(long)} uses the segment indexes to skip straight to a received time.
+ * The day's last segment may still be written to; {@link #next()} returns null at its current end
+ * and picks up records appended later when called again. Not thread-safe.
+ */
+@Slf4j
+public final class TickJournalReader {
+
+    private final List<Path> segments;
+
+    private int segmentIndex = -1;
+    private MappedByteBuffer current;
+    private int offset;
+    private long fromMillis = Long.MIN_VALUE;
+    private long receivedMillis;
+
+    /**
+     * @param directory Journal directory
+     * @param day IST trading day to read
+     */
+    public TickJournalReader(Path directory, LocalDate day) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            this.segments = files
+                    .filter(path -> TickJournalFormat.sequenceOf(path.getFileName().toString(), day) >= 0)
+                    .sorted(Comparator.comparingInt(path -> TickJournalFormat.sequenceOf(path.getFileName().toString(), day)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param directory Journal directory
+     * @return Days that have at least one segment, oldest first
+     */
+    public static List<LocalDate> availableDays(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> TickJournalFormat.dayOf(path.getFileName().toString()))
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return Segment files of the day in sequence order
+     */
+    public List<Path> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Restart reading at the first tick received at or after a time
+     * @param fromMillis Received time, epoch millis
+     */
+    public void seek(long fromMillis) {
+        this.fromMillis = fromMillis;
+        this.segmentIndex = -1;
+        this.current = null;
+    }
+
+    /**
+     * @return Next tick, or null if no further tick has been written yet
+     */
+    public Tick next() throws IOException {
+        while (true) {
+            if (current == null && !openNextSegment()) {
+                return null;
+            }
+            if (!TickJournalFormat.isWritten(current, offset)) {
+                if (segmentIndex < segments.size() - 1) {
+                    current = null;
+                    continue;
+                }
+                return null;
+            }
+            long received = TickJournalFormat.receivedMillis(current, offset);
+            if (received < fromMillis) {
+                offset += TickJournalFormat.RECORD_SIZE;
+                continue;
+            }
+            Tick tick = TickJournalFormat.readRecord(current, offset);
+            offset += TickJournalFormat.RECORD_SIZE;
+            receivedMillis = received;
+            return tick;
+        }
+    }
+
+    /**
+     * @return Received time of the tick last returned by {@link #next()}, epoch millis
+     */
+    public long getReceivedMillis() {
+        return receivedMillis;
+    }
+
+    private boolean openNextSegment() throws IOException {
+        while (segmentIndex < segments.size() - 1) {
+            Path path = segments.get(++segmentIndex);
+            MappedByteBuffer buffer = map(path);
+            if (buffer == null || !TickJournalFormat.isSegment(buffer)) {
+                log.warn("Skipping invalid tick journal segment {}", path);
+                continue;
+            }
+            int start = startOffset(path);
+            if (start < 0) {
+                continue;
+            }
+            current = buffer;
+            offset = start;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Offset of the indexed record closest before {@link #fromMillis}
+     * @return Offset to scan from, or -1 if the whole segment was received before it
+     */
+    private int startOffset(Path segment) throws IOException {
+        if (fromMillis == Long.MIN_VALUE) {
+            return TickJournalFormat.HEADER_SIZE;
+        }
+        MappedByteBuffer index = map(TickJournalFormat.indexPath(segment));
+        if (index == null || index.limit() < TickJournalFormat.INDEX_HEADER_SIZE
+                || index.getInt(0) != TickJournalFormat.INDEX_MAGIC) {
+            return TickJournalFormat.HEADER_SIZE;
+        }
+        int capacity = (index.limit() - TickJournalFormat.INDEX_HEADER_SIZE) / TickJournalFormat.INDEX_ENTRY_SIZE;
+        int count = Math.min(index.getInt(TickJournalFormat.INDEX_COUNT_OFFSET), capacity);
+        if (count == 0) {
+            return TickJournalFormat.HEADER_SIZE;
+        }
+
+        // Last entry received at or before the requested time
+        int low = 0;
+        int high = count - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (entryMillis(index, mid) <= fromMillis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return TickJournalFormat.HEADER_SIZE;
+        }
+        int interval = index.getInt(TickJournalFormat.INDEX_INTERVAL_OFFSET);
+        if (found == count - 1 && count < capacity && interval > 0) {
+            // Records after the last entry share its interval, so a finished segment ends before that interval
+            // does; the day's last segment may still receive later records
+            long intervalEnd = (Math.floorDiv(entryMillis(index, found), interval) + 1) * interval;
+            if (intervalEnd <= fromMillis && segmentIndex < segments.size() - 1) {
+                return -1;
+            }
+        }
+        return (int) index.getLong(entryOffset(found) + 8);
+    }
+
+    private static long entryMillis(MappedByteBuffer index, int entry) {
+        return index.getLong(entryOffset(entry));
+    }
+
+    private static int entryOffset(int entry) {
+        return TickJournalFormat.INDEX_HEADER_SIZE + entry * TickJournalFormat.INDEX_ENTRY_SIZE;
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.marketdata.service.journal;
+
+import com.zerodhatech.models.Tick;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+/**
+ * One memory-mapped segment file and its index, open for appending.
+ * Both files are mapped at their full size up front, so appends are plain memory writes;
+ * the page cache writes them back and a crash of the JVM loses nothing already appended.
+ * Segments are created under their pending names and become visible to readers on {@link #publish()}.
+ * Not thread-safe: appends are owned by the journal's writing thread, creation, publishing and closing
+ * may happen on another thread before or after that.
+ */
+final class TickJournalSegment {
+
+    private final Path path;
+    private final long epochDay;
+    private final int sequence;
+    private final MappedByteBuffer data;
+    private final MappedByteBuffer index;
+    private final int indexCapacity;
+    private final long indexIntervalMillis;
+
+    private int position = TickJournalFormat.HEADER_SIZE;
+    private int indexCount;
+    private long lastIndexedInterval = Long.MIN_VALUE;
+
+    private TickJournalSegment(Path path, long epochDay, int sequence, MappedByteBuffer data, MappedByteBuffer index,
+                               long indexIntervalMillis) {
+        this.path = path;
+        this.epochDay = epochDay;
+        this.sequence = sequence;
+        this.data = data;
+        this.index = index;
+        this.indexCapacity = (index.capacity() - TickJournalFormat.INDEX_HEADER_SIZE) / TickJournalFormat.INDEX_ENTRY_SIZE;
+        this.indexIntervalMillis = indexIntervalMillis;
+    }
+
+    /**
+     * Create and map a new segment under its pending names
+     * @param directory Journal directory
+     * @param epochDay IST trading day
+     * @param sequence Sequence of the segment within the day
+     * @param segmentBytes Size of the segment file, at most {@link Integer#MAX_VALUE}
+     * @param indexIntervalMillis Received-time interval between index entries
+     * @return Segment ready for appends
+     */
+    static TickJournalSegment create(Path directory, long epochDay, int sequence, long segmentBytes,
+                                     long indexIntervalMillis) throws IOException {
+        if (segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tick journal segments cannot exceed " + Integer.MAX_VALUE + " bytes");
+        }
+        Path path = TickJournalFormat.segmentPath(directory, LocalDate.ofEpochDay(epochDay), sequence);
+        int records = (int) ((segmentBytes - TickJournalFormat.HEADER_SIZE) / TickJournalFormat.RECORD_SIZE);
+        // One entry per interval of a whole day is the most a segment can need
+        long intervals = TickJournalFormat.DAY_MILLIS / Math.max(1, indexIntervalMillis) + 1;
+        int indexBytes = TickJournalFormat.INDEX_HEADER_SIZE + (int) Math.min(records, intervals) * TickJournalFormat.INDEX_ENTRY_SIZE;
+
+        MappedByteBuffer data = map(TickJournalFormat.pendingPath(path), TickJournalFormat.HEADER_SIZE + records * TickJournalFormat.RECORD_SIZE);
+        MappedByteBuffer index = map(TickJournalFormat.pendingPath(TickJournalFormat.indexPath(path)), indexBytes);
+        TickJournalFormat.writeHeader(data, epochDay, sequence, System.currentTimeMillis());
+        index.putInt(0, TickJournalFormat.INDEX_MAGIC);
+        index.putShort(4, TickJournalFormat.VERSION);
+        index.putInt(TickJournalFormat.INDEX_INTERVAL_OFFSET, (int) indexIntervalMillis);
+        return new TickJournalSegment(path, epochDay, sequence, data, index, indexIntervalMillis);
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(size);
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    /**
+     * Rename both files to their final names so readers pick the segment up. The mappings stay valid.
+     * The index goes first, so a reader never sees the segment without it.
+     */
+    void publish() throws IOException {
+        Path indexPath = TickJournalFormat.indexPath(path);
+        Files.move(TickJournalFormat.pendingPath(indexPath), indexPath, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(TickJournalFormat.pendingPath(path), path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Delete a segment that was never published or written to
+     */
+    void discard() throws IOException {
+        Files.deleteIfExists(TickJournalFormat.pendingPath(path));
+        Files.deleteIfExists(TickJournalFormat.pendingPath(TickJournalFormat.indexPath(path)));
+    }
+
+    /**
+     * @return true if another record fits
+     */
+    boolean hasRoom() {
+        return position + TickJournalFormat.RECORD_SIZE <= data.capacity();
+    }
+
+    /**
+     * Append a record; the caller checks {@link #hasRoom()} first
+     */
+    void append(Tick tick, long receivedMillis) {
+        long interval = Math.floorDiv(receivedMillis, indexIntervalMillis);
+        if (interval != lastIndexedInterval && indexCount < indexCapacity) {
+            int entry = TickJournalFormat.INDEX_HEADER_SIZE + indexCount * TickJournalFormat.INDEX_ENTRY_SIZE;
+            index.putLong(entry, receivedMillis);
+            index.putLong(entry + 8, position);
+            index.putInt(TickJournalFormat.INDEX_COUNT_OFFSET, ++indexCount);
+            lastIndexedInterval = interval;
+        }
+        TickJournalFormat.writeRecord(data, position, tick, receivedMillis);
+        position += TickJournalFormat.RECORD_SIZE;
+    }
+
+    /**
+     * Flush both mappings. The segment must not be used afterwards.
+     * Files keep their preallocated size: trimming would fault readers that mapped the full length,
+     * and the unwritten tail of a sparse file takes no disk space.
+     */
+    void close() {
+        data.force();
+        index.force();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getEpochDay() {
+        return epochDay;
+    }
+
+    int getSequence() {
+        return sequence;
+    }
+
+    int getRecordCount() {
+        return (position - TickJournalFormat.HEADER_SIZE) / TickJournalFormat.RECORD_SIZE;
+    }
+}
@@ -0,0 +1,51 @@
+package com.marketdata.service.replay;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Progress of a tick replay
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayStatus {
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        STOPPED,
+        FAILED
+    }
+
+    private State state;
+
+    /** Trading day being replayed */
+    private LocalDate day;
+
+    /** Replay speed relative to the recording, 0 for as fast as possible */
+    private double speed;
+
+    private long ticksReplayed;
+
+    private long batchesReplayed;
+
+    /** Original receive time of the last replayed batch */
+    private Instant position;
+
+    /** How far emission is behind the schedule implied by the speed, in millis */
+    private long behindMillis;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,253 @@
+package com.marketdata.service.replay;
+
+import com.marketdata.service.journal.TickJournalReader;
+import com.marketdata.service.tick.TickPipeline;
+import com.zerodhatech.models.Tick;
+import com.zerodhatech.ticker.OnTicks;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Re-emits journaled ticks into the {@link TickPipeline} through the same {@link OnTicks} contract as the
+ * live ticker, so caches, bars, Kafka and WebSocket fan-out can be exercised offline and reproducibly.
+ * Ticks received together are replayed as one batch, spaced by their original inter-arrival time
+ * divided by the speed; speed {@link #MAX_SPEED} emits as fast as the journal can be read.
+ * Only one replay runs at a time. Enabling replay takes the live ticker out of the process and stops
+ * journaling, so replayed and live ticks never mix; run it in a separate instance whose Kafka topics and
+ * bar store are not production's.
+ */
+@Slf4j
+@Service
+public class TickReplayService {
+
+    public static final double MAX_SPEED = 0;
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    private final TickPipeline tickPipeline;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${market-data.zerodha.ticker.replay.enabled:false}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.ticker.journal.dir:}")
+    private String directoryName;
+
+    @Value("${market-data.zerodha.ticker.replay.max.batch.size:512}")
+    private int maxBatchSize;
+
+    private volatile Run current;
+
+    public TickReplayService(TickPipeline tickPipeline, MeterRegistry meterRegistry) {
+        this.tickPipeline = tickPipeline;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        stop();
+    }
+
+    /**
+     * Start replaying a recorded trading day
+     * @param day IST trading day
+     * @param from First receive time to replay (IST), or null for the start of the day
+     * @param to Receive time to stop at (IST, exclusive), or null for the end of the recording
+     * @param speed Multiple of the recorded pace, or {@link #MAX_SPEED}
+     * @return Status of the started replay
+     */
+    public synchronized ReplayStatus start(LocalDate day, LocalTime from, LocalTime to, double speed) throws IOException {
+        if (!enabled) {
+            throw new IllegalStateException("Tick replay is disabled");
+        }
+        if (speed < 0 || Double.isNaN(speed) || Double.isInfinite(speed)) {
+            throw new IllegalArgumentException("Replay speed must be a positive multiple or 0 for maximum speed");
+        }
+        if (current != null && current.running) {
+            throw new IllegalStateException("A replay of " + current.day + " is already running");
+        }
+        TickJournalReader reader = new TickJournalReader(getDirectory(), day);
+        if (reader.getSegments().isEmpty()) {
+            throw new IllegalArgumentException("No recorded ticks for " + day);
+        }
+        Long fromMillis = from != null ? day.atTime(from).atZone(IST).toInstant().toEpochMilli() : null;
+        Long toMillis = to != null ? day.atTime(to).atZone(IST).toInstant().toEpochMilli() : null;
+        if (fromMillis != null) {
+            reader.seek(fromMillis);
+        }
+
+        Run run = new Run(day, speed, reader, toMillis);
+        current = run;
+        run.thread.start();
+        log.info("Started replay of {} from {} to {} at {}", day, from, to, speed == MAX_SPEED ? "max speed" : speed + "x");
+        return run.status();
+    }
+
+    /**
+     * Stop the running replay
+     * @return true if a replay was running
+     */
+    public synchronized boolean stop() {
+        Run run = current;
+        if (run == null || !run.running) {
+            return false;
+        }
+        run.stopRequested = true;
+        run.running = false;
+        LockSupport.unpark(run.thread);
+        log.info("Stopping replay of {}", run.day);
+        return true;
+    }
+
+    /**
+     * @return Status of the running or last finished replay
+     */
+    public ReplayStatus getStatus() {
+        Run run = current;
+        return run != null ? run.status() : ReplayStatus.builder().state(ReplayStatus.State.IDLE).build();
+    }
+
+    /**
+     * @return Recorded days available for replay
+     */
+    public List<LocalDate> getAvailableDays() throws IOException {
+        return TickJournalReader.availableDays(getDirectory());
+    }
+
+    private Path getDirectory() {
+        if (directoryName == null || directoryName.isBlank() || !Paths.get(directoryName).isAbsolute()) {
+            throw new IllegalStateException("market-data.zerodha.ticker.journal.dir must be an absolute path to replay from");
+        }
+        return Paths.get(directoryName);
+    }
+
+    /**
+     * One replay and its progress
+     */
+    private final class Run {
+        final LocalDate day;
+        final double speed;
+        final TickJournalReader reader;
+        final Long toMillis;
+        final Thread thread;
+        final Instant startedAt = Instant.now();
+
+        volatile boolean running = true;
+        volatile boolean stopRequested;
+        volatile long ticks;
+        volatile long batches;
+        volatile long positionMillis;
+        volatile long behindMillis;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Run(LocalDate day, double speed, TickJournalReader reader, Long toMillis) {
+            this.day = day;
+            this.speed = speed;
+            this.reader = reader;
+            this.toMillis = toMillis;
+            this.thread = new Thread(this::run, "tick-replay");
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            long startNanos = System.nanoTime();
+            long firstReceived = Long.MIN_VALUE;
+            try {
+                ArrayList<Tick> batch = new ArrayList<>();
+                long batchReceived = 0;
+                Tick tick;
+                while (running && (tick = reader.next()) != null) {
+                    long received = reader.getReceivedMillis();
+                    if (toMillis != null && received >= toMillis) {
+                        break;
+                    }
+                    // Ticks that arrived together went out as one websocket batch
+                    if (!batch.isEmpty() && (received != batchReceived || batch.size() >= maxBatchSize)) {
+                        if (firstReceived == Long.MIN_VALUE) {
+                            firstReceived = batchReceived;
+                        }
+                        emit(batch, batchReceived, firstReceived, startNanos);
+                        batch = new ArrayList<>();
+                    }
+                    if (batch.isEmpty()) {
+                        batchReceived = received;
+                    }
+                    batch.add(tick);
+                }
+                if (running && !batch.isEmpty()) {
+                    emit(batch, batchReceived, firstReceived == Long.MIN_VALUE ? batchReceived : firstReceived, startNanos);
+                }
+            } catch (Exception e) {
+                error = e.getMessage();
+                log.error("Replay of {} failed: {}", day, e.getMessage(), e);
+                meterRegistry.counter("market-data.replay.error").increment();
+            } finally {
+                running = false;
+                finishedAt = Instant.now();
+                log.info("Replay of {} finished after {} ticks in {} batches", day, ticks, batches);
+            }
+        }
+
+        private void emit(ArrayList<Tick> batch, long batchReceived, long firstReceived, long startNanos) {
+            if (speed != MAX_SPEED) {
+                long dueNanos = startNanos + (long) ((batchReceived - firstReceived) * 1_000_000d / speed);
+                long remaining;
+                while (running && (remaining = dueNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(remaining);
+                }
+                behindMillis = Math.max(0, (System.nanoTime() - dueNanos) / 1_000_000);
+            }
+            if (!running) {
+                return;
+            }
+            // The pipeline keeps references to the ticks, so every batch gets a fresh list
+            tickPipeline.onTicks(batch);
+            ticks += batch.size();
+            batches++;
+            positionMillis = batchReceived;
+            meterRegistry.counter("market-data.replay.ticks").increment(batch.size());
+        }
+
+        ReplayStatus status() {
+            ReplayStatus.State state;
+            if (running) {
+                state = ReplayStatus.State.RUNNING;
+            } else if (error != null) {
+                state = ReplayStatus.State.FAILED;
+            } else if (stopRequested) {
+                state = ReplayStatus.State.STOPPED;
+            } else {
+                state = ReplayStatus.State.COMPLETED;
+            }
+            return ReplayStatus.builder()
+                    .state(state)
+                    .day(day)
+                    .speed(speed)
+                    .ticksReplayed(ticks)
+                    .batchesReplayed(batches)
+                    .position(positionMillis > 0 ? Instant.ofEpochMilli(positionMillis) : null)
+                    .behindMillis(behindMillis)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.marketdata.service.tick;
+
+import com.marketdata.common.util.LongIntHashMap;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps only the latest tick per instrument token for a slow consumer.
+ * The pipeline thread records each tick into a per-token slot and marks it dirty; a separate
+ * delivery thread drains the dirty slots into the delegate. When the delegate keeps up every tick
+ * is delivered, and when it lags intermediate ticks for the same token are merged instead of queued,
+ * so memory stays bounded by the number of distinct tokens.
+ */
+@Slf4j
+final class ConflatingTickConsumer implements TickConsumer {
+
+    private static final int NO_SLOT = -1;
+    /** Longest {@link #onClose()} waits for a delivery in progress before closing the delegate */
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final String name;
+    private final TickConsumer delegate;
+    private final MeterRegistry meterRegistry;
+    private final long idleParkNanos;
+    private final Thread deliveryThread;
+    private final List<Meter> meters = new ArrayList<>();
+    private final Object lock = new Object();
+    private volatile boolean running = true;
+
+    // Guarded by lock
+    private final LongIntHashMap index = new LongIntHashMap(1024, NO_SLOT);
+    private Tick[] latest = new Tick[1024];
+    private long[] latestNanos = new long[1024];
+    private boolean[] dirty = new boolean[1024];
+    private int[] pending = new int[1024];
+    private int pendingCount;
+    private int slotCount;
+
+    // Owned by the delivery thread
+    private Tick[] drainTicks = new Tick[1024];
+    private long[] drainNanos = new long[1024];
+
+    private volatile long received;
+    private volatile long merged;
+    private volatile long delivered;
+
+    ConflatingTickConsumer(String name, TickConsumer delegate, MeterRegistry meterRegistry, long idleParkMicros) {
+        this.name = name;
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.idleParkNanos = TimeUnit.MICROSECONDS.toNanos(idleParkMicros);
+        this.deliveryThread = new Thread(this::deliver, "tick-conflation-" + name);
+        this.deliveryThread.setDaemon(true);
+
+        meters.add(Gauge.builder("market-data.ticker.pipeline.conflation.ratio", this, ConflatingTickConsumer::getConflationRatio)
+                .tag("consumer", name)
+                .description("Fraction of received ticks merged into a newer tick for the same token")
+                .register(meterRegistry));
+        meters.add(Gauge.builder("market-data.ticker.pipeline.conflation.pending", this, ConflatingTickConsumer::getPendingCount)
+                .tag("consumer", name)
+                .description("Tokens with an undelivered tick")
+                .register(meterRegistry));
+        meters.add(FunctionCounter.builder("market-data.ticker.pipeline.conflation.merged", this, c -> c.merged)
+                .tag("consumer", name)
+                .register(meterRegistry));
+        meters.add(FunctionCounter.builder("market-data.ticker.pipeline.conflation.delivered", this, c -> c.delivered)
+                .tag("consumer", name)
+                .register(meterRegistry));
+    }
+
+    void start() {
+        deliveryThread.start();
+    }
+
+    @Override
+    public void onTick(Tick tick, long receivedNanos) {
+        boolean wasEmpty;
+        synchronized (lock) {
+            long token = tick.getInstrumentToken();
+            int slot = index.get(token);
+            if (slot == NO_SLOT) {
+                slot = addSlot(token);
+            }
+            latest[slot] = tick;
+            latestNanos[slot] = receivedNanos;
+            wasEmpty = pendingCount == 0;
+            if (dirty[slot]) {
+                merged++;
+            } else {
+                dirty[slot] = true;
+                pending[pendingCount++] = slot;
+            }
+            received++;
+        }
+        if (wasEmpty) {
+            LockSupport.unpark(deliveryThread);
+        }
+    }
+
+    private int addSlot(long token) {
+        int slot = slotCount++;
+        if (slot == latest.length) {
+            int capacity = latest.length << 1;
+            latest = Arrays.copyOf(latest, capacity);
+            latestNanos = Arrays.copyOf(latestNanos, capacity);
+            dirty = Arrays.copyOf(dirty, capacity);
+            pending = Arrays.copyOf(pending, capacity);
+        }
+        index.put(token, slot);
+        return slot;
+    }
+
+    private void deliver() {
+        while (running) {
+            try {
+                int count = drain();
+                if (count == 0) {
+                    delegate.onIdle();
+                    LockSupport.parkNanos(idleParkNanos);
+                    continue;
+                }
+                for (int i = 0; i < count; i++) {
+                    delegate.onTick(drainTicks[i], drainNanos[i]);
+                    drainTicks[i] = null;
+                }
+                delegate.onBatchEnd();
+                delivered += count;
+            } catch (Exception e) {
+                log.error("Conflated tick consumer {} failed: {}", name, e.getMessage(), e);
+                meterRegistry.counter("market-data.ticker.pipeline.consumer.error", "consumer", name).increment();
+            }
+        }
+    }
+
+    /**
+     * Move all dirty slots into the drain buffer
+     * @return Number of ticks drained
+     */
+    private int drain() {
+        synchronized (lock) {
+            int count = pendingCount;
+            if (count == 0) {
+                return 0;
+            }
+            if (drainTicks.length < count) {
+                drainTicks = new Tick[latest.length];
+                drainNanos = new long[latest.length];
+            }
+            for (int i = 0; i < count; i++) {
+                int slot = pending[i];
+                drainTicks[i] = latest[slot];
+                drainNanos[i] = latestNanos[slot];
+                latest[slot] = null;
+                dirty[slot] = false;
+            }
+            pendingCount = 0;
+            return count;
+        }
+    }
+
+    @Override
+    public void onClose() {
+        running = false;
+        LockSupport.unpark(deliveryThread);
+        meters.forEach(meterRegistry::remove);
+        // Delegates are not thread-safe, so let a delivery in progress finish before closing
+        if (deliveryThread.isAlive() && Thread.currentThread() != deliveryThread) {
+            try {
+                deliveryThread.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (deliveryThread.isAlive()) {
+                log.warn("Conflated tick consumer {} still delivering after {}ms, closing it anyway", name, CLOSE_TIMEOUT_MILLIS);
+            }
+        }
+        delegate.onClose();
+    }
+
+    double getConflationRatio() {
+        long total = received;
+        return total == 0 ? 0.0 : (double) merged / total;
+    }
+
+    int getPendingCount() {
+        synchronized (lock) {
+            return pendingCount;
+        }
+    }
+}
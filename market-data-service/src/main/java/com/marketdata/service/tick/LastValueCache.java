@@ -0,0 +1,414 @@
+package com.marketdata.service.tick;
+
+import com.marketdata.common.util.LongIntHashMap;
+import com.marketdata.service.instrument.InstrumentMasterService;
+import com.zerodhatech.models.Depth;
+import com.zerodhatech.models.LTPQuote;
+import com.zerodhatech.models.MarketDepth;
+import com.zerodhatech.models.OHLC;
+import com.zerodhatech.models.OHLCQuote;
+import com.zerodhatech.models.Quote;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Latest tick values per instrument token, fed from the tick pipeline.
+ * Prices live in primitive columns indexed by a slot per token, so updates allocate nothing.
+ * A single pipeline thread writes; request threads read each slot under a sequence lock
+ * and build {@link LTPQuote}/{@link OHLCQuote}/{@link Quote} objects only when a response is assembled.
+ *
+ * Reads return only instruments whose ticker subscription is live and that ticked since it became live,
+ * see {@link TokenLiveness}. Kite only sends a tick when something changes, so the last tick of a live
+ * subscription is current however old it is; an instrument that is no longer subscribed, or whose
+ * connection dropped, is stale until its next tick after resubscribing. Without a live ticker, e.g. while
+ * ticks are replayed, nothing is fresh.
+ */
+@Slf4j
+@Service
+public class LastValueCache implements TickConsumer {
+
+    private static final int NO_SLOT = -1;
+    private static final String MODE_LTP = "ltp";
+    private static final String MODE_FULL = "full";
+
+    private final TickPipeline tickPipeline;
+    private final InstrumentMasterService instrumentMasterService;
+    private final TokenLiveness tokenLiveness;
+    private final MeterRegistry meterRegistry;
+    private final TickLatencyRecorder latencyRecorder;
+
+    /** Replaced by a larger copy when every slot is used; tokens are otherwise added in place */
+    private volatile Columns columns;
+
+    @Value("${market-data.zerodha.ticker.cache.initial.capacity:4096}")
+    private int initialCapacity;
+
+    public LastValueCache(TickPipeline tickPipeline, InstrumentMasterService instrumentMasterService,
+                          TokenLiveness tokenLiveness, MeterRegistry meterRegistry, TickLatencyRecorder latencyRecorder) {
+        this.tickPipeline = tickPipeline;
+        this.instrumentMasterService = instrumentMasterService;
+        this.tokenLiveness = tokenLiveness;
+        this.meterRegistry = meterRegistry;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        columns = new Columns(Math.max(16, initialCapacity));
+        Gauge.builder("market-data.ticker.cache.size", this, LastValueCache::size)
+                .register(meterRegistry);
+        tickPipeline.register("last-value-cache", this);
+        log.info("Initialized last value cache with initial capacity {}", initialCapacity);
+    }
+
+    @Override
+    public void onTick(Tick tick, long receivedNanos) {
+        long token = tick.getInstrumentToken();
+        Columns c = columns;
+        int slot = c.index.get(token);
+        boolean added = false;
+        if (slot == NO_SLOT) {
+            c = reserveSlot();
+            slot = c.used;
+            added = true;
+        }
+
+        long version = c.versions[slot];
+        c.versions[slot] = version + 1;
+        VarHandle.storeStoreFence();
+
+        c.ltp[slot] = tick.getLastTradedPrice();
+        if (!MODE_LTP.equals(tick.getMode())) {
+            c.open[slot] = tick.getOpenPrice();
+            c.high[slot] = tick.getHighPrice();
+            c.low[slot] = tick.getLowPrice();
+            c.close[slot] = tick.getClosePrice();
+            c.change[slot] = tick.getChange();
+            c.averagePrice[slot] = tick.getAverageTradePrice();
+            c.volume[slot] = (long) tick.getVolumeTradedToday();
+            c.hasOhlc[slot] = true;
+        }
+        // Depth, open interest and buy/sell quantities are only carried by full mode ticks
+        c.fullTicks[slot] = MODE_FULL.equals(tick.getMode()) ? tick : null;
+        c.receivedNanos[slot] = receivedNanos;
+
+        VarHandle.releaseFence();
+        c.versions[slot] = version + 2;
+        if (added) {
+            // Readers only find the slot once it holds its first tick
+            c.index.put(token, slot);
+            c.used = slot + 1;
+        }
+        latencyRecorder.record(TickLatencyRecorder.Stage.CACHE, receivedNanos);
+    }
+
+    /**
+     * Make room for a new token, doubling the columns when they are full. Only called from the pipeline thread.
+     * @return Columns whose next unused slot is free for the token
+     */
+    private Columns reserveSlot() {
+        Columns current = columns;
+        if (current.used < current.capacity) {
+            return current;
+        }
+        Columns grown = current.grow(current.capacity << 1);
+        columns = grown;
+        return grown;
+    }
+
+    /**
+     * Last traded prices for the given symbols
+     * @param symbols Trading symbols
+     * @return Quotes keyed by symbol for the symbols with a fresh tick
+     */
+    public Map<String, LTPQuote> getLTP(String[] symbols) {
+        Columns c = columns;
+        Map<String, LTPQuote> result = new HashMap<>(symbols.length * 2);
+        for (Map.Entry<String, Long> entry : resolveTokens(symbols).entrySet()) {
+            int slot = c.index.get(entry.getValue());
+            long liveSince = tokenLiveness.liveSinceNanos(entry.getValue());
+            if (slot == NO_SLOT || liveSince == TokenLiveness.NOT_LIVE) {
+                continue;
+            }
+            LTPQuote quote = new LTPQuote();
+            quote.instrumentToken = entry.getValue();
+            long version;
+            long receivedNanos;
+            do {
+                version = c.versions[slot];
+                VarHandle.acquireFence();
+                quote.lastPrice = c.ltp[slot];
+                receivedNanos = c.receivedNanos[slot];
+                VarHandle.loadLoadFence();
+            } while ((version & 1) != 0 || version != c.versions[slot]);
+            if (receivedNanos - liveSince >= 0) {
+                result.put(entry.getKey(), quote);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * OHLC values for the given symbols
+     * @param symbols Trading symbols
+     * @return Quotes keyed by symbol for the symbols with a fresh OHLC tick
+     */
+    public Map<String, OHLCQuote> getOHLC(String[] symbols) {
+        Columns c = columns;
+        Map<String, OHLCQuote> result = new HashMap<>(symbols.length * 2);
+        for (Map.Entry<String, Long> entry : resolveTokens(symbols).entrySet()) {
+            int slot = c.index.get(entry.getValue());
+            long liveSince = tokenLiveness.liveSinceNanos(entry.getValue());
+            if (slot == NO_SLOT || liveSince == TokenLiveness.NOT_LIVE) {
+                continue;
+            }
+            OHLCQuote quote = new OHLCQuote();
+            quote.instrumentToken = entry.getValue();
+            quote.ohlc = new OHLC();
+            boolean fresh = readOhlc(c, slot, quote.ohlc, liveSince, () -> {
+                quote.lastPrice = c.ltp[slot];
+                return true;
+            });
+            if (fresh) {
+                result.put(entry.getKey(), quote);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Full quotes for the given symbols, built from full mode ticks
+     * @param symbols Trading symbols
+     * @return Quotes keyed by symbol for the symbols whose latest tick is a fresh full mode tick
+     */
+    public Map<String, Quote> getQuotes(String[] symbols) {
+        Columns c = columns;
+        Map<String, Quote> result = new HashMap<>(symbols.length * 2);
+        for (Map.Entry<String, Long> entry : resolveTokens(symbols).entrySet()) {
+            int slot = c.index.get(entry.getValue());
+            long liveSince = tokenLiveness.liveSinceNanos(entry.getValue());
+            if (slot == NO_SLOT || liveSince == TokenLiveness.NOT_LIVE) {
+                continue;
+            }
+            Quote quote = new Quote();
+            quote.instrumentToken = entry.getValue();
+            quote.ohlc = new OHLC();
+            Tick[] full = new Tick[1];
+            boolean fresh = readOhlc(c, slot, quote.ohlc, liveSince, () -> {
+                full[0] = c.fullTicks[slot];
+                quote.lastPrice = c.ltp[slot];
+                quote.change = c.change[slot];
+                quote.averagePrice = c.averagePrice[slot];
+                quote.volumeTradedToday = c.volume[slot];
+                return full[0] != null;
+            });
+            if (fresh) {
+                Tick tick = full[0];
+                quote.timestamp = tick.getTickTimestamp();
+                quote.lastTradedTime = tick.getLastTradedTime();
+                quote.lastTradedQuantity = tick.getLastTradedQuantity();
+                quote.buyQuantity = tick.getTotalBuyQuantity();
+                quote.sellQuantity = tick.getTotalSellQuantity();
+                quote.oi = tick.getOi();
+                quote.oiDayHigh = tick.getOpenInterestDayHigh();
+                quote.oiDayLow = tick.getOpenInterestDayLow();
+                Map<String, ArrayList<Depth>> depth = tick.getMarketDepth();
+                if (depth != null) {
+                    quote.depth = new MarketDepth();
+                    quote.depth.buy = depth.get("buy");
+                    quote.depth.sell = depth.get("sell");
+                }
+                result.put(entry.getKey(), quote);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read the OHLC columns of a slot plus whatever else the caller reads, under the sequence lock
+     * @param extra Reads further columns; its result is part of the consistent read
+     * @param liveSince Time the token's subscription became live; older ticks are not usable
+     * @return Whether the slot has OHLC values that ticked since then and {@code extra} held
+     */
+    private static boolean readOhlc(Columns c, int slot, OHLC ohlc, long liveSince, BooleanSupplier extra) {
+        long version;
+        boolean usable;
+        do {
+            version = c.versions[slot];
+            VarHandle.acquireFence();
+            usable = c.hasOhlc[slot] && c.receivedNanos[slot] - liveSince >= 0;
+            ohlc.open = c.open[slot];
+            ohlc.high = c.high[slot];
+            ohlc.low = c.low[slot];
+            ohlc.close = c.close[slot];
+            usable &= extra.getAsBoolean();
+            VarHandle.loadLoadFence();
+        } while ((version & 1) != 0 || version != c.versions[slot]);
+        return usable;
+    }
+
+    /**
+     * @param token Instrument token
+     * @return Whether the token has ticked since startup
+     */
+    public boolean contains(long token) {
+        return columns.index.containsKey(token);
+    }
+
+    public int size() {
+        return columns.used;
+    }
+
+    /**
+     * Map symbols to tokens from the in-memory instrument master; a symbol listed on several exchanges
+     * resolves to its NSE listing unless qualified as {@code EXCHANGE:SYMBOL}
+     * @return Tokens keyed by symbol, without the symbols that could not be resolved
+     */
+    private Map<String, Long> resolveTokens(String[] symbols) {
+        return instrumentMasterService.resolveTokens(Arrays.asList(symbols));
+    }
+
+    /**
+     * Column storage for all cached instruments, sized for a fixed number of slots. Slots and index entries
+     * are added in place; once every slot is used the columns are copied into a new instance of twice
+     * the capacity, so adding a token costs amortized constant time.
+     */
+    private static final class Columns {
+        final int capacity;
+        final SlotIndex index;
+        /** Written by the pipeline thread only, after the slot's index entry is published */
+        volatile int used;
+        final long[] versions;
+        final double[] ltp;
+        final double[] open;
+        final double[] high;
+        final double[] low;
+        final double[] close;
+        final double[] change;
+        final double[] averagePrice;
+        final long[] volume;
+        final long[] receivedNanos;
+        final boolean[] hasOhlc;
+        /** Latest tick per slot if it was a full mode tick, null otherwise */
+        final Tick[] fullTicks;
+
+        Columns(int capacity) {
+            this.capacity = capacity;
+            this.index = new SlotIndex(capacity);
+            this.versions = new long[capacity];
+            this.ltp = new double[capacity];
+            this.open = new double[capacity];
+            this.high = new double[capacity];
+            this.low = new double[capacity];
+            this.close = new double[capacity];
+            this.change = new double[capacity];
+            this.averagePrice = new double[capacity];
+            this.volume = new long[capacity];
+            this.receivedNanos = new long[capacity];
+            this.hasOhlc = new boolean[capacity];
+            this.fullTicks = new Tick[capacity];
+        }
+
+        Columns grow(int newCapacity) {
+            Columns grown = new Columns(newCapacity);
+            int count = used;
+            System.arraycopy(versions, 0, grown.versions, 0, count);
+            System.arraycopy(ltp, 0, grown.ltp, 0, count);
+            System.arraycopy(open, 0, grown.open, 0, count);
+            System.arraycopy(high, 0, grown.high, 0, count);
+            System.arraycopy(low, 0, grown.low, 0, count);
+            System.arraycopy(close, 0, grown.close, 0, count);
+            System.arraycopy(change, 0, grown.change, 0, count);
+            System.arraycopy(averagePrice, 0, grown.averagePrice, 0, count);
+            System.arraycopy(volume, 0, grown.volume, 0, count);
+            System.arraycopy(receivedNanos, 0, grown.receivedNanos, 0, count);
+            System.arraycopy(hasOhlc, 0, grown.hasOhlc, 0, count);
+            System.arraycopy(fullTicks, 0, grown.fullTicks, 0, count);
+            index.forEach(grown.index::put);
+            grown.used = count;
+            return grown;
+        }
+    }
+
+    /**
+     * Token to slot map that one writer fills in place while readers look up concurrently.
+     * Open addressing sized for the slots of its {@link Columns}, so it never rehashes. The writer stores
+     * the slot before releasing the key, and readers acquire the key before reading the slot, so a reader
+     * that finds a key always sees its slot.
+     */
+    private static final class SlotIndex {
+        private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private final long[] keys;
+        private final int[] slots;
+        private final int mask;
+
+        SlotIndex(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity * 2) - 1) << 1;
+            keys = new long[size];
+            Arrays.fill(keys, EMPTY);
+            slots = new int[size];
+            mask = size - 1;
+        }
+
+        int get(long token) {
+            int index = hash(token) & mask;
+            while (true) {
+                long key = (long) KEYS.getAcquire(keys, index);
+                if (key == token) {
+                    return slots[index];
+                }
+                if (key == EMPTY) {
+                    return NO_SLOT;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        boolean containsKey(long token) {
+            return get(token) != NO_SLOT;
+        }
+
+        /**
+         * Add a token that is not in the index yet. Only called from the pipeline thread.
+         */
+        void put(long token, int slot) {
+            int index = hash(token) & mask;
+            while (keys[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = slot;
+            KEYS.setRelease(keys, index, token);
+        }
+
+        void forEach(LongIntHashMap.EntryVisitor visitor) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    visitor.visit(keys[i], slots[i]);
+                }
+            }
+        }
+
+        private static int hash(long token) {
+            long h = token * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.marketdata.service.tick;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latency percentiles of one tick path stage, measured from websocket receipt, in microseconds
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StageLatency {
+
+    private String stage;
+
+    /** Ticks recorded in the window */
+    private long count;
+
+    private double meanMicros;
+
+    private double p50Micros;
+
+    private double p90Micros;
+
+    private double p99Micros;
+
+    private double p999Micros;
+
+    private double maxMicros;
+}
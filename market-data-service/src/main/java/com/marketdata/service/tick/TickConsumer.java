@@ -0,0 +1,36 @@
+package com.marketdata.service.tick;
+
+import com.zerodhatech.models.Tick;
+
+/**
+ * Downstream stage of the tick pipeline.
+ * Each registered consumer runs on its own thread and reads the ring buffer at its own pace;
+ * inline consumers run on the publishing thread instead.
+ */
+public interface TickConsumer {
+
+    /**
+     * Handle a single tick
+     * @param tick Tick received from the ticker
+     * @param receivedNanos {@link System#nanoTime()} at which the websocket thread received the tick
+     */
+    void onTick(Tick tick, long receivedNanos);
+
+    /**
+     * Called after a batch of ticks has been handed to {@link #onTick(Tick, long)}
+     */
+    default void onBatchEnd() {
+    }
+
+    /**
+     * Called when no ticks are available, before the consumer thread parks
+     */
+    default void onIdle() {
+    }
+
+    /**
+     * Called once when the consumer is unregistered from the pipeline, after its polling thread has stopped
+     */
+    default void onClose() {
+    }
+}
@@ -0,0 +1,190 @@
+package com.marketdata.service.tick;
+
+import com.am.marketdata.common.model.events.MarketTick;
+import com.am.marketdata.kafka.producer.KafkaProducerService;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes live ticks to the ticks Kafka topic, keyed by instrument token so consumers can read
+ * instruments in parallel across partitions while each instrument stays ordered.
+ * Ticks are accumulated per instrument for a short linger window and sent as one record per instrument,
+ * which keeps the record rate bounded by the number of active instruments rather than the tick rate.
+ */
+@Slf4j
+@Service
+public class TickKafkaBridge implements TickConsumer {
+
+    private static final String CONSUMER_NAME = "kafka-bridge";
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    private final TickPipeline tickPipeline;
+    private final KafkaProducerService kafkaProducerService;
+    private final MeterRegistry meterRegistry;
+    private final TickLatencyRecorder latencyRecorder;
+
+    @Value("${market-data.zerodha.ticker.kafka.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.ticker.kafka.linger.ms:5}")
+    private long lingerMillis;
+
+    @Value("${market-data.zerodha.ticker.kafka.max.ticks.per.record:100}")
+    private int maxTicksPerRecord;
+
+    // Owned by the consumer thread
+    private Map<Long, PendingRecord> pending = new HashMap<>();
+    private long windowStartNanos;
+    private long lingerNanos;
+
+    private volatile long recordsSent;
+    private volatile long ticksSent;
+
+    public TickKafkaBridge(TickPipeline tickPipeline, KafkaProducerService kafkaProducerService, MeterRegistry meterRegistry,
+                           TickLatencyRecorder latencyRecorder) {
+        this.tickPipeline = tickPipeline;
+        this.kafkaProducerService = kafkaProducerService;
+        this.meterRegistry = meterRegistry;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            log.info("Tick Kafka bridge disabled");
+            return;
+        }
+        lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        FunctionCounter.builder("market-data.ticker.kafka.records", this, b -> b.recordsSent)
+                .register(meterRegistry);
+        FunctionCounter.builder("market-data.ticker.kafka.ticks", this, b -> b.ticksSent)
+                .register(meterRegistry);
+        tickPipeline.register(CONSUMER_NAME, this);
+        log.info("Initialized tick Kafka bridge with {} ms linger", lingerMillis);
+    }
+
+    @Override
+    public void onTick(Tick tick, long receivedNanos) {
+        if (pending.isEmpty()) {
+            windowStartNanos = System.nanoTime();
+        }
+        long token = tick.getInstrumentToken();
+        PendingRecord record = pending.computeIfAbsent(token, k -> new PendingRecord());
+        record.add(toMarketTick(tick), receivedNanos);
+        if (record.ticks.size() >= maxTicksPerRecord) {
+            pending.remove(token);
+            send(token, record);
+        }
+    }
+
+    @Override
+    public void onBatchEnd() {
+        flushIfDue();
+    }
+
+    @Override
+    public void onIdle() {
+        flushIfDue();
+    }
+
+    @Override
+    public void onClose() {
+        flush();
+    }
+
+    private void flushIfDue() {
+        if (!pending.isEmpty() && System.nanoTime() - windowStartNanos >= lingerNanos) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // The producer serializes asynchronously, so hand over the lists instead of reusing them
+        Map<Long, PendingRecord> batch = pending;
+        pending = new HashMap<>();
+        batch.forEach(this::send);
+    }
+
+    private void send(long token, PendingRecord record) {
+        try {
+            kafkaProducerService.sendInstrumentTicks(token, record.ticks)
+                    .thenRun(() -> record.acknowledged(latencyRecorder));
+            recordsSent++;
+            ticksSent += record.ticks.size();
+        } catch (Exception e) {
+            log.warn("Failed to publish {} ticks of {} to Kafka: {}", record.ticks.size(), token, e.getMessage());
+            meterRegistry.counter("market-data.ticker.kafka.error").increment();
+        }
+    }
+
+    private static MarketTick toMarketTick(Tick tick) {
+        return MarketTick.builder()
+                .mode(tick.getMode())
+                .lastPrice(tick.getLastTradedPrice())
+                .lastQuantity(tick.getLastTradedQuantity())
+                .averagePrice(tick.getAverageTradePrice())
+                .volume((long) tick.getVolumeTradedToday())
+                .buyQuantity(tick.getTotalBuyQuantity())
+                .sellQuantity(tick.getTotalSellQuantity())
+                .open(tick.getOpenPrice())
+                .high(tick.getHighPrice())
+                .low(tick.getLowPrice())
+                .close(tick.getClosePrice())
+                .change(tick.getChange())
+                .openInterest(tick.getOi())
+                .lastTradeTime(toLocalDateTime(tick.getLastTradedTime()))
+                .exchangeTimestamp(toLocalDateTime(tick.getTickTimestamp()))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), IST) : null;
+    }
+
+    /**
+     * Ticks of one instrument waiting to be sent, with the time each was received
+     */
+    private static final class PendingRecord {
+        final List<MarketTick> ticks = new ArrayList<>();
+        long[] receivedNanos = new long[8];
+
+        void add(MarketTick tick, long received) {
+            if (ticks.size() == receivedNanos.length) {
+                receivedNanos = Arrays.copyOf(receivedNanos, receivedNanos.length * 2);
+            }
+            receivedNanos[ticks.size()] = received;
+            ticks.add(tick);
+        }
+
+        /**
+         * Runs on the producer's callback thread once the broker has the record
+         */
+        void acknowledged(TickLatencyRecorder latencyRecorder) {
+            long now = System.nanoTime();
+            for (int i = 0; i < ticks.size(); i++) {
+                latencyRecorder.record(TickLatencyRecorder.Stage.KAFKA_ACK, receivedNanos[i], now, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.marketdata.service.tick;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long ticks take from websocket receipt to each stage of the tick path.
+ * Every stage measures against the receive time the pipeline stamps on the websocket thread, so the
+ * stages add up to the tick-to-client latency. Values go into HdrHistogram recorders, which are cheap
+ * and safe to write from the stage threads; every interval the recorders are swapped out and the
+ * interval's percentiles are published as gauges and added to a histogram covering the whole run.
+ */
+@Slf4j
+@Service
+public class TickLatencyRecorder {
+
+    public enum Stage {
+        /** Published into the ring buffer */
+        ENQUEUE("enqueue"),
+        /** Written to the last value cache */
+        CACHE("cache"),
+        /** Acknowledged by the Kafka broker */
+        KAFKA_ACK("kafka_ack"),
+        /** Handed to the WebSocket broker for a session */
+        WEBSOCKET("websocket");
+
+        private final String value;
+
+        Stage(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+    private final StageHistogram[] stages = new StageHistogram[Stage.values().length];
+    private ScheduledExecutorService scheduler;
+
+    @Value("${market-data.zerodha.ticker.latency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.zerodha.ticker.latency.interval.ms:10000}")
+    private long intervalMillis;
+
+    public TickLatencyRecorder(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = new StageHistogram(stage);
+        }
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            log.info("Tick latency recording disabled");
+            return;
+        }
+        for (StageHistogram histogram : stages) {
+            String stage = histogram.stage.getValue();
+            for (double quantile : QUANTILES) {
+                Gauge.builder("market-data.ticker.latency", histogram, h -> h.interval.getValueAtPercentile(quantile * 100) / 1e9)
+                        .tag("stage", stage)
+                        .tag("quantile", Double.toString(quantile))
+                        .baseUnit("seconds")
+                        .register(meterRegistry);
+            }
+            Gauge.builder("market-data.ticker.latency.max", histogram, h -> h.interval.getMaxValue() / 1e9)
+                    .tag("stage", stage)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            FunctionCounter.builder("market-data.ticker.latency.count", histogram, h -> h.totalCount)
+                    .tag("stage", stage)
+                    .register(meterRegistry);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tick-latency");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::rollInterval, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Initialized tick latency recording with {} ms intervals", intervalMillis);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Record one tick reaching a stage now
+     * @param stage Stage reached
+     * @param receivedNanos {@link System#nanoTime()} at websocket receipt
+     */
+    public void record(Stage stage, long receivedNanos) {
+        record(stage, receivedNanos, System.nanoTime(), 1);
+    }
+
+    /**
+     * Record ticks received together reaching a stage at the same time
+     * @param stage Stage reached
+     * @param receivedNanos {@link System#nanoTime()} at websocket receipt
+     * @param nowNanos {@link System#nanoTime()} when the stage was reached
+     * @param count Number of ticks
+     */
+    public void record(Stage stage, long receivedNanos, long nowNanos, int count) {
+        if (!enabled || count <= 0) {
+            return;
+        }
+        stages[stage.ordinal()].recorder.recordValueWithCount(Math.max(0, nowNanos - receivedNanos), count);
+    }
+
+    /**
+     * @return Percentiles of the last completed interval per stage
+     */
+    public List<StageLatency> getIntervalLatencies() {
+        List<StageLatency> latencies = new ArrayList<>(stages.length);
+        for (StageHistogram histogram : stages) {
+            latencies.add(summarize(histogram.stage, histogram.interval));
+        }
+        return latencies;
+    }
+
+    /**
+     * @return Percentiles since startup per stage, up to the last completed interval
+     */
+    public List<StageLatency> getTotalLatencies() {
+        List<StageLatency> latencies = new ArrayList<>(stages.length);
+        for (StageHistogram histogram : stages) {
+            Histogram total;
+            synchronized (histogram) {
+                total = histogram.total.copy();
+            }
+            latencies.add(summarize(histogram.stage, total));
+        }
+        return latencies;
+    }
+
+    /**
+     * Swap out the recorders and publish the finished interval. Runs on the scheduler thread only.
+     */
+    private void rollInterval() {
+        try {
+            for (StageHistogram histogram : stages) {
+                Histogram interval = histogram.recorder.getIntervalHistogram(histogram.recycled);
+                synchronized (histogram) {
+                    histogram.total.add(interval);
+                }
+                histogram.totalCount += interval.getTotalCount();
+                // Readers keep the previous interval until the new one is complete
+                histogram.recycled = histogram.interval;
+                histogram.interval = interval;
+            }
+        } catch (Exception e) {
+            log.error("Failed to roll tick latency interval: {}", e.getMessage(), e);
+        }
+    }
+
+    private static StageLatency summarize(Stage stage, Histogram histogram) {
+        return StageLatency.builder()
+                .stage(stage.getValue())
+                .count(histogram.getTotalCount())
+                .meanMicros(histogram.getMean() / 1000)
+                .p50Micros(histogram.getValueAtPercentile(50) / 1000d)
+                .p90Micros(histogram.getValueAtPercentile(90) / 1000d)
+                .p99Micros(histogram.getValueAtPercentile(99) / 1000d)
+                .p999Micros(histogram.getValueAtPercentile(99.9) / 1000d)
+                .maxMicros(histogram.getMaxValue() / 1000d)
+                .build();
+    }
+
+    /**
+     * Recorder of one stage with its last interval and running total
+     */
+    private static final class StageHistogram {
+        final Stage stage;
+        final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        /** Guarded by this */
+        final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+        volatile Histogram interval;
+        volatile long totalCount;
+        /** Histogram handed back to the recorder on the next roll, it only recycles its own */
+        Histogram recycled;
+
+        StageHistogram(Stage stage) {
+            this.stage = stage;
+            this.interval = recorder.getIntervalHistogram();
+        }
+    }
+}
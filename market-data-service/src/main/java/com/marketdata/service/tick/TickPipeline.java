@@ -0,0 +1,320 @@
+package com.marketdata.service.tick;
+
+import com.zerodhatech.models.Tick;
+import com.zerodhatech.ticker.OnTicks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ingestion stage between the ticker websocket and everything that consumes ticks.
+ * The websocket thread only copies tick references into a preallocated ring buffer and returns;
+ * persistence, caching, Kafka and WebSocket consumers each read the buffer on their own thread.
+ */
+@Slf4j
+@Service
+public class TickPipeline implements OnTicks {
+
+    /** Longest {@link Registration#close()} waits for a batch in progress before closing the consumer */
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final MeterRegistry meterRegistry;
+    private final TickLatencyRecorder latencyRecorder;
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+    private final Object inlineLock = new Object();
+    // Guarded by inlineLock
+    private final Map<String, TickConsumer> inlineConsumers = new LinkedHashMap<>();
+    private volatile InlineStage[] inlineStages = new InlineStage[0];
+    private TickRingBuffer ringBuffer;
+    private Counter publishedCounter;
+
+    @Value("${market-data.zerodha.ticker.pipeline.buffer.size:65536}")
+    private int bufferSize;
+
+    @Value("${market-data.zerodha.ticker.pipeline.batch.size:256}")
+    private int batchSize;
+
+    @Value("${market-data.zerodha.ticker.pipeline.idle.park.micros:100}")
+    private long idleParkMicros;
+
+    public TickPipeline(MeterRegistry meterRegistry, TickLatencyRecorder latencyRecorder) {
+        this.meterRegistry = meterRegistry;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        ringBuffer = new TickRingBuffer(bufferSize);
+        publishedCounter = meterRegistry.counter("market-data.ticker.pipeline.published");
+        log.info("Initialized tick pipeline with ring buffer capacity {}", ringBuffer.getCapacity());
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        registrations.values().forEach(Registration::close);
+        registrations.clear();
+        synchronized (inlineLock) {
+            inlineStages = new InlineStage[0];
+            inlineConsumers.values().forEach(TickConsumer::onClose);
+            inlineConsumers.clear();
+        }
+        log.info("Stopped all tick pipeline consumers");
+    }
+
+    /**
+     * Ticker arrival callback. Runs on the websocket thread and never blocks on consumers.
+     * Every pooled ticker connection calls in concurrently; each claims its own range of the ring buffer.
+     * @param ticks Ticks received from the ticker
+     */
+    @Override
+    public void onTicks(ArrayList<Tick> ticks) {
+        if (ticks == null || ticks.isEmpty()) {
+            return;
+        }
+        long receivedNanos = System.nanoTime();
+        ringBuffer.publish(ticks, receivedNanos);
+        publishedCounter.increment(ticks.size());
+        latencyRecorder.record(TickLatencyRecorder.Stage.ENQUEUE, receivedNanos, System.nanoTime(), ticks.size());
+
+        InlineStage[] stages = inlineStages;
+        if (stages.length == 0) {
+            return;
+        }
+        // Inline consumers are not thread-safe, so they see one batch at a time
+        synchronized (inlineLock) {
+            for (InlineStage stage : stages) {
+                try {
+                    for (int i = 0; i < ticks.size(); i++) {
+                        stage.consumer.onTick(ticks.get(i), receivedNanos);
+                    }
+                    stage.consumer.onBatchEnd();
+                } catch (Exception e) {
+                    log.error("Inline tick consumer {} failed: {}", stage.name, e.getMessage(), e);
+                    meterRegistry.counter("market-data.ticker.pipeline.consumer.error", "consumer", stage.name).increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Register a consumer that runs on the publishing thread, after the batch is in the ring buffer.
+     * Only for cheap stages that must see every tick, since ring buffer consumers can be lapped and
+     * lose ticks while an inline stage cannot. Inline stages run one batch at a time, so a slow one holds
+     * up every ticker connection. {@link TickConsumer#onIdle()} is never called.
+     * @param name Unique consumer name, used for metric tags
+     * @param consumer Consumer to run inline
+     */
+    public void registerInline(String name, TickConsumer consumer) {
+        synchronized (inlineLock) {
+            TickConsumer previous = inlineConsumers.put(name, consumer);
+            if (previous != null) {
+                log.info("Replacing existing inline tick consumer {}", name);
+            }
+            inlineStages = inlineConsumers.entrySet().stream()
+                    .map(e -> new InlineStage(e.getKey(), e.getValue()))
+                    .toArray(InlineStage[]::new);
+            if (previous != null) {
+                previous.onClose();
+            }
+        }
+        log.info("Registered inline tick consumer {}", name);
+    }
+
+    /**
+     * Register a consumer that reads the ring buffer on a dedicated thread
+     * @param name Unique consumer name, used for the thread name and metric tags
+     * @param consumer Consumer to run
+     * @return Registration that stops the consumer when closed
+     */
+    public Registration register(String name, TickConsumer consumer) {
+        closeExisting(name);
+        Registration registration = new Registration(name, consumer, ringBuffer.newSubscriber());
+        registrations.put(name, registration);
+        registration.start();
+        log.info("Registered tick consumer {}", name);
+        return registration;
+    }
+
+    private void closeExisting(String name) {
+        Registration previous = registrations.get(name);
+        if (previous != null) {
+            log.info("Replacing existing tick consumer {}", name);
+            previous.close();
+        }
+    }
+
+    /**
+     * Register a consumer that only needs the latest state per instrument. When the consumer lags,
+     * intermediate ticks for the same token are merged instead of queued.
+     * @param name Unique consumer name
+     * @param consumer Consumer to run on its own delivery thread
+     * @return Registration that stops the consumer when closed
+     */
+    public Registration registerConflated(String name, TickConsumer consumer) {
+        // Close first so the replacement's meters are not deduplicated against the old ones
+        closeExisting(name);
+        ConflatingTickConsumer conflating = new ConflatingTickConsumer(name, consumer, meterRegistry, idleParkMicros);
+        Registration registration = register(name, conflating);
+        conflating.start();
+        return registration;
+    }
+
+    /**
+     * Register a legacy {@link OnTicks} listener. Ticks are delivered in batches on the consumer thread.
+     * @param name Unique consumer name
+     * @param listener Listener to invoke
+     * @return Registration that stops the listener when closed
+     */
+    public Registration registerListener(String name, OnTicks listener) {
+        return registerListener(name, listener, false);
+    }
+
+    /**
+     * Register a legacy {@link OnTicks} listener
+     * @param name Unique consumer name
+     * @param listener Listener to invoke
+     * @param conflate Whether to deliver only the latest tick per token when the listener lags
+     * @return Registration that stops the listener when closed
+     */
+    public Registration registerListener(String name, OnTicks listener, boolean conflate) {
+        OnTicksAdapter adapter = new OnTicksAdapter(listener, batchSize);
+        return conflate ? registerConflated(name, adapter) : register(name, adapter);
+    }
+
+    /**
+     * Handle for a running consumer
+     */
+    public final class Registration implements AutoCloseable {
+
+        private final String name;
+        private final TickConsumer consumer;
+        private final TickRingBuffer.Subscriber subscriber;
+        private final Thread thread;
+        private final FunctionCounter droppedCounter;
+        private final Gauge lagGauge;
+        private volatile boolean running = true;
+
+        private Registration(String name, TickConsumer consumer, TickRingBuffer.Subscriber subscriber) {
+            this.name = name;
+            this.consumer = consumer;
+            this.subscriber = subscriber;
+            this.thread = new Thread(this::run, "tick-consumer-" + name);
+            this.thread.setDaemon(true);
+            this.droppedCounter = FunctionCounter.builder("market-data.ticker.pipeline.dropped", subscriber, TickRingBuffer.Subscriber::getDropped)
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            this.lagGauge = Gauge.builder("market-data.ticker.pipeline.lag", subscriber, TickRingBuffer.Subscriber::getLag)
+                    .tag("consumer", name)
+                    .description("Published ticks not yet read by the consumer")
+                    .register(meterRegistry);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private void run() {
+            long idleParkNanos = TimeUnit.MICROSECONDS.toNanos(idleParkMicros);
+            while (running) {
+                try {
+                    int delivered = subscriber.poll(consumer, batchSize);
+                    if (delivered > 0) {
+                        consumer.onBatchEnd();
+                    } else {
+                        consumer.onIdle();
+                        LockSupport.parkNanos(idleParkNanos);
+                    }
+                } catch (Exception e) {
+                    log.error("Tick consumer {} failed: {}", name, e.getMessage(), e);
+                    meterRegistry.counter("market-data.ticker.pipeline.consumer.error", "consumer", name).increment();
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public TickRingBuffer.Subscriber getSubscriber() {
+            return subscriber;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            registrations.remove(name, this);
+            meterRegistry.remove(droppedCounter);
+            meterRegistry.remove(lagGauge);
+            LockSupport.unpark(thread);
+            if (thread.isAlive() && Thread.currentThread() != thread) {
+                try {
+                    thread.join(CLOSE_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (thread.isAlive()) {
+                    log.warn("Tick consumer {} still polling after {}ms, closing it anyway", name, CLOSE_TIMEOUT_MILLIS);
+                }
+            }
+            consumer.onClose();
+        }
+    }
+
+    private static final class InlineStage {
+        final String name;
+        final TickConsumer consumer;
+
+        InlineStage(String name, TickConsumer consumer) {
+            this.name = name;
+            this.consumer = consumer;
+        }
+    }
+
+    /**
+     * Adapts a batch-oriented {@link OnTicks} listener to the per-tick consumer contract
+     */
+    private static final class OnTicksAdapter implements TickConsumer {
+
+        private final OnTicks listener;
+        private final int batchSize;
+        private ArrayList<Tick> batch;
+
+        private OnTicksAdapter(OnTicks listener, int batchSize) {
+            this.listener = listener;
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void onTick(Tick tick, long receivedNanos) {
+            batch.add(tick);
+        }
+
+        @Override
+        public void onBatchEnd() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            // Listeners may keep the list, so hand over ownership instead of clearing it
+            ArrayList<Tick> delivered = batch;
+            batch = new ArrayList<>(batchSize);
+            listener.onTicks(delivered);
+        }
+    }
+}
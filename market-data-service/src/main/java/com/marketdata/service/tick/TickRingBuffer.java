@@ -0,0 +1,184 @@
+package com.marketdata.service.tick;
+
+import com.zerodhatech.models.Tick;
+
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated multi-producer / multi-consumer ring buffer for ticks.
+ * Every consumer sees every tick (broadcast). Producers claim a range of slots with one atomic add,
+ * fill it without locking and then publish it in claim order, so a producer only ever waits for an
+ * earlier producer to finish copying its batch. Producers never wait for consumers:
+ * a consumer that falls more than one lap behind skips to the oldest retained slot
+ * and the skipped ticks are counted as dropped for that consumer.
+ */
+public final class TickRingBuffer {
+
+    /** Busy spins while waiting for an earlier producer before yielding the CPU */
+    private static final int COMMIT_SPINS = 100;
+
+    private final int capacity;
+    private final int mask;
+    private final Tick[] ticks;
+    private final long[] receivedNanos;
+
+    /** Sequence of the last published slot, -1 when nothing has been published yet */
+    private final AtomicLong cursor = new AtomicLong(-1);
+    /** Sequence of the last claimed slot; slots between the cursor and this one are being written */
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    /**
+     * Create a ring buffer
+     * @param requestedCapacity Minimum number of slots, rounded up to a power of two
+     */
+    public TickRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Ring buffer capacity must be at least 2");
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.ticks = new Tick[capacity];
+        this.receivedNanos = new long[capacity];
+    }
+
+    /**
+     * Publish a tick. Safe to call from any number of producer threads.
+     * @param tick Tick to publish
+     * @param receivedAtNanos Receive timestamp
+     */
+    public void publish(Tick tick, long receivedAtNanos) {
+        long sequence = claimed.incrementAndGet();
+        int index = (int) (sequence & mask);
+        ticks[index] = tick;
+        receivedNanos[index] = receivedAtNanos;
+        commit(sequence, sequence);
+    }
+
+    /**
+     * Publish a batch of ticks as one contiguous range. Safe to call from any number of producer threads.
+     * @param batch Ticks to publish
+     * @param receivedAtNanos Receive timestamp shared by the batch
+     */
+    public void publish(List<Tick> batch, long receivedAtNanos) {
+        // A range longer than the buffer would overwrite itself before it is published
+        for (int from = 0; from < batch.size(); from += capacity) {
+            int count = Math.min(capacity, batch.size() - from);
+            long end = claimed.addAndGet(count);
+            long start = end - count + 1;
+            for (int i = 0; i < count; i++) {
+                int index = (int) ((start + i) & mask);
+                ticks[index] = batch.get(from + i);
+                receivedNanos[index] = receivedAtNanos;
+            }
+            commit(start, end);
+        }
+    }
+
+    /**
+     * Make a filled range visible once every earlier range is, so consumers never see a gap.
+     * Earlier producers only copy references, so spin briefly and then yield in case one was descheduled.
+     */
+    private void commit(long start, long end) {
+        int spins = 0;
+        while (cursor.get() != start - 1) {
+            if (++spins < COMMIT_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        cursor.set(end);
+    }
+
+    /**
+     * Create a new subscriber positioned after the last published tick
+     * @return Subscriber
+     */
+    public Subscriber newSubscriber() {
+        return new Subscriber(cursor.get() + 1);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Sequence of the last published tick
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Independent read position on the ring buffer. Must only be polled from one thread.
+     */
+    public final class Subscriber {
+
+        private final AtomicLong nextSequence;
+        private final AtomicLong dropped = new AtomicLong();
+
+        private Subscriber(long start) {
+            this.nextSequence = new AtomicLong(start);
+        }
+
+        /**
+         * Hand up to {@code limit} available ticks to the consumer
+         * @param consumer Target consumer
+         * @param limit Maximum number of ticks to read
+         * @return Number of ticks delivered
+         */
+        public int poll(TickConsumer consumer, int limit) {
+            long available = cursor.get();
+            long next = nextSequence.get();
+            if (next > available) {
+                return 0;
+            }
+
+            // Slots up to the claim may already be overwritten, and one more slot is kept as slack
+            long oldestRetained = Math.min(claimed.get() - capacity + 2, available + 1);
+            if (next < oldestRetained) {
+                dropped.addAndGet(oldestRetained - next);
+                next = oldestRetained;
+            }
+
+            long end = Math.min(available, next + limit - 1);
+            int delivered = 0;
+            for (long sequence = next; sequence <= end; sequence++) {
+                int index = (int) (sequence & mask);
+                Tick tick = ticks[index];
+                long nanos = receivedNanos[index];
+
+                // A producer may have claimed the slot for the next lap while we were reading it
+                VarHandle.acquireFence();
+                long current = claimed.get();
+                if (current - capacity + 1 >= sequence) {
+                    long resume = Math.min(current - capacity + 2, available + 1);
+                    dropped.addAndGet(resume - sequence);
+                    nextSequence.lazySet(resume);
+                    return delivered;
+                }
+
+                consumer.onTick(tick, nanos);
+                delivered++;
+            }
+            nextSequence.lazySet(end + 1);
+            return delivered;
+        }
+
+        /**
+         * @return Number of published ticks this subscriber has not read yet
+         */
+        public long getLag() {
+            return Math.max(0, cursor.get() - nextSequence.get() + 1);
+        }
+
+        /**
+         * @return Number of ticks skipped because this subscriber was lapped
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.marketdata.service.tick;
+
+/**
+ * Live ticker subscription state per instrument token
+ */
+public interface TokenLiveness {
+
+    long NOT_LIVE = Long.MIN_VALUE;
+
+    /**
+     * @param token Instrument token
+     * @return {@link System#nanoTime()} since which the token has been subscribed on a connected ticker
+     *         connection without interruption, or {@link #NOT_LIVE}
+     */
+    long liveSinceNanos(long token);
+}
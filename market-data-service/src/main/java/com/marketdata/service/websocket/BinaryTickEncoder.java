@@ -0,0 +1,151 @@
+package com.marketdata.service.websocket;
+
+import com.marketdata.common.util.LongIntHashMap;
+import com.zerodhatech.models.Tick;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-layout little-endian frames for the binary tick stream.
+ *
+ * <pre>
+ * Header (8 bytes)
+ *   u16 magic      0x444D ("MD")
+ *   u8  version    2
+ *   u8  type       1 = dictionary, 2 = ticks
+ *   u32 count      number of records
+ *
+ * Dictionary record (variable)
+ *   u32 id         session-local instrument id used by tick records
+ *   i64 token      instrument token
+ *   u8  decimals   price scale: tick record prices are the price times 10^decimals
+ *   u8  length     symbol length in bytes
+ *   ..  symbol     UTF-8 trading symbol
+ *
+ * Tick record (60 bytes)
+ *   u32 id
+ *   i32 lastPrice, open, high, low, close   scaled by the instrument's decimals
+ *   i32 lastTradedQuantity
+ *   i64 volumeTradedToday
+ *   i64 openInterest
+ *   i64 lastTradedTime                      epoch millis, 0 if unknown
+ *   i64 tickTimestamp                       epoch millis, 0 if unknown
+ * </pre>
+ */
+public final class BinaryTickEncoder {
+
+    public static final short MAGIC = 0x444D;
+    public static final byte VERSION = 2;
+    public static final byte TYPE_DICTIONARY = 1;
+    public static final byte TYPE_TICKS = 2;
+
+    static final int HEADER_SIZE = 8;
+    static final int TICK_RECORD_SIZE = 60;
+    private static final int MAX_SYMBOL_BYTES = 255;
+    /** Scale of instruments without a known tick size, and the least any instrument is sent with */
+    public static final int DEFAULT_PRICE_DECIMALS = 2;
+    static final int MAX_PRICE_DECIMALS = 6;
+    private static final double[] SCALES = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private BinaryTickEncoder() {
+    }
+
+    /**
+     * Price scale for an instrument: the decimals of its tick size, e.g. 4 for currency derivatives
+     * quoted in steps of 0.0025, but never less than {@link #DEFAULT_PRICE_DECIMALS}
+     * @param tickSize Tick size, 0 or NaN if unknown
+     * @return Decimals to encode the instrument's prices with
+     */
+    public static int priceDecimals(double tickSize) {
+        if (!(tickSize > 0) || Double.isInfinite(tickSize)) {
+            return DEFAULT_PRICE_DECIMALS;
+        }
+        int decimals = BigDecimal.valueOf(tickSize).stripTrailingZeros().scale();
+        return Math.min(MAX_PRICE_DECIMALS, Math.max(DEFAULT_PRICE_DECIMALS, decimals));
+    }
+
+    /**
+     * Encode a dictionary frame
+     * @param ids Session-local ids
+     * @param tokens Instrument tokens, parallel to ids
+     * @param priceDecimals Price scales from {@link #priceDecimals(double)}, parallel to ids
+     * @param symbols Trading symbols, parallel to ids; null entries are sent as empty
+     * @return Frame bytes
+     */
+    public static byte[] encodeDictionary(int[] ids, long[] tokens, int[] priceDecimals, String[] symbols) {
+        byte[][] encodedSymbols = new byte[ids.length][];
+        int size = HEADER_SIZE;
+        for (int i = 0; i < ids.length; i++) {
+            byte[] bytes = symbols[i] != null ? symbols[i].getBytes(StandardCharsets.UTF_8) : new byte[0];
+            if (bytes.length > MAX_SYMBOL_BYTES) {
+                bytes = Arrays.copyOf(bytes, MAX_SYMBOL_BYTES);
+            }
+            encodedSymbols[i] = bytes;
+            size += 4 + 8 + 1 + 1 + bytes.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader(buffer, TYPE_DICTIONARY, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            buffer.putInt(ids[i]);
+            buffer.putLong(tokens[i]);
+            buffer.put((byte) priceDecimals[i]);
+            buffer.put((byte) encodedSymbols[i].length);
+            buffer.put(encodedSymbols[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Encode a tick frame. Ticks whose token is not in the dictionary are skipped.
+     * @param ticks Ticks to encode
+     * @param dictionary Token to session-local id
+     * @param priceDecimals Token to the price scale sent in the dictionary frame
+     * @return Frame bytes
+     */
+    public static byte[] encodeTicks(List<Tick> ticks, LongIntHashMap dictionary, LongIntHashMap priceDecimals) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + ticks.size() * TICK_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_SIZE);
+        int count = 0;
+        for (int i = 0; i < ticks.size(); i++) {
+            Tick tick = ticks.get(i);
+            int id = dictionary.get(tick.getInstrumentToken());
+            if (id < 0) {
+                continue;
+            }
+            double scale = SCALES[priceDecimals.get(tick.getInstrumentToken())];
+            buffer.putInt(id);
+            buffer.putInt(scaled(tick.getLastTradedPrice(), scale));
+            buffer.putInt(scaled(tick.getOpenPrice(), scale));
+            buffer.putInt(scaled(tick.getHighPrice(), scale));
+            buffer.putInt(scaled(tick.getLowPrice(), scale));
+            buffer.putInt(scaled(tick.getClosePrice(), scale));
+            buffer.putInt((int) tick.getLastTradedQuantity());
+            buffer.putLong((long) tick.getVolumeTradedToday());
+            buffer.putLong((long) tick.getOi());
+            buffer.putLong(tick.getLastTradedTime() != null ? tick.getLastTradedTime().getTime() : 0L);
+            buffer.putLong(tick.getTickTimestamp() != null ? tick.getTickTimestamp().getTime() : 0L);
+            count++;
+        }
+        int end = buffer.position();
+        buffer.position(0);
+        writeHeader(buffer, TYPE_TICKS, count);
+        return end == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), end);
+    }
+
+    private static void writeHeader(ByteBuffer buffer, byte type, int count) {
+        buffer.putShort(MAGIC);
+        buffer.put(VERSION);
+        buffer.put(type);
+        buffer.putInt(count);
+    }
+
+    private static int scaled(double price, double scale) {
+        return (int) Math.round(price * scale);
+    }
+}
@@ -0,0 +1,28 @@
+package com.marketdata.service.websocket;
+
+/**
+ * Wire format of the tick stream, negotiated per WebSocket session
+ */
+public enum TickFormat {
+
+    /** Jackson-serialized {@code Tick} objects, the default */
+    JSON,
+
+    /** {@link BinaryTickEncoder} frames with a per-session instrument dictionary */
+    BINARY;
+
+    /**
+     * @param value Requested format, case-insensitive
+     * @return Matching format, {@link #JSON} when absent
+     */
+    public static TickFormat from(String value) {
+        if (value == null || value.isBlank()) {
+            return JSON;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported tick format: " + value);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.marketdata.service.websocket;
+
+import com.marketdata.common.MarketDataProviderFactory;
+import com.marketdata.common.util.LongIntHashMap;
+import com.marketdata.service.instrument.InstrumentMaster;
+import com.marketdata.service.instrument.InstrumentMasterService;
+import com.marketdata.service.instrument.TokenSymbolResolver;
+import com.marketdata.service.tick.TickConsumer;
+import com.marketdata.service.tick.TickLatencyRecorder;
+import com.marketdata.service.tick.TickPipeline;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Shares one upstream ticker across all WebSocket sessions.
+ * Instrument subscriptions are reference-counted: the provider is only asked to subscribe a token
+ * when the first session requests it and to release it when the last session does; the provider keeps
+ * it on the ticker while other sources still hold it.
+ * Ticks are read from the {@link TickPipeline} (conflated, since browsers are the slowest consumers)
+ * and routed only to sessions subscribed to that token.
+ * Each session receives either JSON or {@link BinaryTickEncoder} frames; binary sessions are sent a
+ * dictionary frame mapping session-local ids to tokens, symbols and price scales (from the instrument's tick
+ * size in the {@link InstrumentMaster}) before any tick for a new instrument.
+ */
+@Slf4j
+@Service
+public class TickSubscriptionManager implements TickConsumer {
+
+    public static final String TICK_TOPIC_PREFIX = "/topic/market-data/ticks/";
+    private static final String CONSUMER_NAME = "websocket-fanout";
+    /** Source name under which WebSocket sessions hold ticker subscriptions */
+    private static final String UPSTREAM_SOURCE = "websocket";
+
+    private final MarketDataProviderFactory providerFactory;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TickPipeline tickPipeline;
+    private final MeterRegistry meterRegistry;
+    private final TokenSymbolResolver tokenSymbolResolver;
+    private final InstrumentMasterService instrumentMasterService;
+    private final TickLatencyRecorder latencyRecorder;
+
+    // Guarded by this
+    private final Map<String, SessionState> sessionStates = new HashMap<>();
+    private final Map<Long, Integer> tokenRefCounts = new HashMap<>();
+    private final Map<String, Set<String>> connectionSessions = new HashMap<>();
+
+    /** Streaming mode WebSocket sessions need upstream, null for the provider default */
+    @Value("${market-data.zerodha.ticker.mode.websocket:#{null}}")
+    private String tickerMode;
+
+    /** Immutable routing snapshot read by the fan-out thread, rebuilt on every subscription change */
+    private volatile Routes routes = Routes.EMPTY;
+
+    // Owned by the fan-out thread
+    private Map<String, SessionBatch> pendingBatches = new HashMap<>();
+
+    public TickSubscriptionManager(MarketDataProviderFactory providerFactory, SimpMessagingTemplate messagingTemplate,
+                                   TickPipeline tickPipeline, MeterRegistry meterRegistry, TokenSymbolResolver tokenSymbolResolver,
+                                   InstrumentMasterService instrumentMasterService, TickLatencyRecorder latencyRecorder) {
+        this.providerFactory = providerFactory;
+        this.messagingTemplate = messagingTemplate;
+        this.tickPipeline = tickPipeline;
+        this.meterRegistry = meterRegistry;
+        this.tokenSymbolResolver = tokenSymbolResolver;
+        this.instrumentMasterService = instrumentMasterService;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        Gauge.builder("market-data.websocket.sessions", this, m -> m.routes.sessionCount)
+                .register(meterRegistry);
+        Gauge.builder("market-data.websocket.upstream.tokens", this, m -> m.routes.index.size())
+                .register(meterRegistry);
+        tickPipeline.registerConflated(CONSUMER_NAME, this);
+        log.info("Initialized WebSocket tick subscription manager");
+    }
+
+    /**
+     * Open a session for a STOMP connection. Session ids are generated here, never taken from clients,
+     * so one connection cannot address another connection's sessions.
+     * @param connectionId STOMP connection the session belongs to, used for ownership checks and cleanup on disconnect
+     * @return New session id, also the suffix of the session's tick topic
+     */
+    public synchronized String openSession(String connectionId) {
+        String sessionId = UUID.randomUUID().toString();
+        sessionStates.put(sessionId, new SessionState(connectionId));
+        connectionSessions.computeIfAbsent(connectionId, k -> new HashSet<>()).add(sessionId);
+        return sessionId;
+    }
+
+    /**
+     * Subscribe a session to instruments. Every instrument id is validated before anything changes,
+     * so a bad id leaves the session as it was.
+     * @param connectionId STOMP connection making the request, must own the session
+     * @param sessionId Session opened with {@link #openSession(String)}
+     * @param instrumentIds Instrument tokens
+     * @param format Wire format for the session's ticks
+     * @return Number of instruments the session is now subscribed to
+     * @throws IllegalArgumentException if an instrument id is not a token or the session is not the connection's
+     */
+    public int subscribe(String connectionId, String sessionId, Collection<String> instrumentIds, TickFormat format) {
+        List<Long> requested = parseTokens(instrumentIds);
+
+        // Symbols may need a database lookup, so resolve them before taking the monitor
+        Map<Long, String> symbols = Map.of();
+        if (format == TickFormat.BINARY) {
+            Set<Long> undefined = new HashSet<>(requested);
+            synchronized (this) {
+                SessionState state = ownedSession(connectionId, sessionId);
+                undefined.addAll(state.tokens);
+                undefined.removeIf(token -> state.dictionary.containsKey(token));
+            }
+            symbols = tokenSymbolResolver.resolve(undefined);
+        }
+
+        List<String> newlyReferenced = new ArrayList<>();
+        int sessionSize;
+        synchronized (this) {
+            SessionState state = ownedSession(connectionId, sessionId);
+            state.format = format;
+            for (Long token : requested) {
+                if (state.tokens.add(token) && tokenRefCounts.merge(token, 1, Integer::sum) == 1) {
+                    newlyReferenced.add(Long.toString(token));
+                }
+            }
+            if (format == TickFormat.BINARY) {
+                // Publish order is preserved per session, so the dictionary reaches the client before any tick using it
+                sendDictionary(sessionId, state, symbols);
+            }
+            sessionSize = state.tokens.size();
+            rebuildRoutes();
+        }
+        if (!newlyReferenced.isEmpty()) {
+            log.info("Subscribing {} new instruments upstream for session {}", newlyReferenced.size(), sessionId);
+            providerFactory.getProvider().subscribeTicker(UPSTREAM_SOURCE, newlyReferenced, tickerMode);
+        }
+        return sessionSize;
+    }
+
+    private static List<Long> parseTokens(Collection<String> instrumentIds) {
+        List<Long> tokens = new ArrayList<>(instrumentIds.size());
+        for (String instrumentId : instrumentIds) {
+            try {
+                tokens.add(Long.parseLong(instrumentId.trim()));
+            } catch (NumberFormatException | NullPointerException e) {
+                throw new IllegalArgumentException("Invalid instrument token: " + instrumentId);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Caller must hold the monitor
+     */
+    private SessionState ownedSession(String connectionId, String sessionId) {
+        SessionState state = sessionStates.get(sessionId);
+        if (state == null || !state.connectionId.equals(connectionId)) {
+            throw new IllegalArgumentException("Unknown session: " + sessionId);
+        }
+        return state;
+    }
+
+    /**
+     * Remove all subscriptions of a session
+     * @param connectionId STOMP connection making the request, must own the session
+     * @param sessionId Session to release
+     * @return true if the session existed and belonged to the connection
+     */
+    public boolean unsubscribe(String connectionId, String sessionId) {
+        List<String> released;
+        synchronized (this) {
+            SessionState state = sessionStates.get(sessionId);
+            if (state == null || !state.connectionId.equals(connectionId)) {
+                return false;
+            }
+            sessionStates.remove(sessionId);
+            Set<String> sessions = connectionSessions.get(connectionId);
+            if (sessions != null) {
+                sessions.remove(sessionId);
+            }
+            released = release(state.tokens);
+            rebuildRoutes();
+        }
+        unsubscribeUpstream(released);
+        return true;
+    }
+
+    /**
+     * Release every session opened over a STOMP connection when it disconnects
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        List<String> released = new ArrayList<>();
+        synchronized (this) {
+            Set<String> sessions = connectionSessions.remove(event.getSessionId());
+            if (sessions == null) {
+                return;
+            }
+            for (String sessionId : sessions) {
+                SessionState state = sessionStates.remove(sessionId);
+                if (state != null) {
+                    released.addAll(release(state.tokens));
+                }
+            }
+            rebuildRoutes();
+        }
+        log.info("Released WebSocket connection {}", event.getSessionId());
+        unsubscribeUpstream(released);
+    }
+
+    private List<String> release(Set<Long> tokens) {
+        List<String> released = new ArrayList<>();
+        for (Long token : tokens) {
+            int remaining = tokenRefCounts.merge(token, -1, Integer::sum);
+            if (remaining <= 0) {
+                tokenRefCounts.remove(token);
+                released.add(token.toString());
+            }
+        }
+        return released;
+    }
+
+    private void unsubscribeUpstream(List<String> released) {
+        if (released.isEmpty()) {
+            return;
+        }
+        try {
+            log.info("Unsubscribing {} unreferenced instruments upstream", released.size());
+            providerFactory.getProvider().unsubscribeTicker(UPSTREAM_SOURCE, released);
+        } catch (Exception e) {
+            log.warn("Failed to unsubscribe {} instruments upstream: {}", released.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Assign session-local ids to tokens that have none yet and send them as one dictionary frame.
+     * Caller must hold the monitor.
+     * @param symbols Symbols resolved before the monitor was taken; tokens missing from it are sent without one
+     */
+    private void sendDictionary(String sessionId, SessionState state, Map<Long, String> symbols) {
+        List<Long> unassigned = new ArrayList<>();
+        for (Long token : state.tokens) {
+            if (!state.dictionary.containsKey(token)) {
+                unassigned.add(token);
+            }
+        }
+        if (unassigned.isEmpty()) {
+            return;
+        }
+
+        InstrumentMaster master = instrumentMasterService.getMaster();
+        int[] ids = new int[unassigned.size()];
+        long[] tokens = new long[unassigned.size()];
+        int[] priceDecimals = new int[unassigned.size()];
+        String[] names = new String[unassigned.size()];
+        for (int i = 0; i < unassigned.size(); i++) {
+            long token = unassigned.get(i);
+            int row = master.rowOfToken(token);
+            ids[i] = state.nextId++;
+            tokens[i] = token;
+            priceDecimals[i] = row == InstrumentMaster.NO_ROW
+                    ? BinaryTickEncoder.DEFAULT_PRICE_DECIMALS
+                    : BinaryTickEncoder.priceDecimals(master.tickSizeAt(row));
+            names[i] = symbols.get(token);
+            state.dictionary.put(token, ids[i]);
+            state.priceDecimals.put(token, priceDecimals[i]);
+        }
+        sendBinary(sessionId, BinaryTickEncoder.encodeDictionary(ids, tokens, priceDecimals, names));
+    }
+
+    private void sendBinary(String sessionId, byte[] frame) {
+        messagingTemplate.convertAndSend(TICK_TOPIC_PREFIX + sessionId, frame,
+                Map.of(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM));
+        meterRegistry.counter("market-data.websocket.bytes.sent", "format", "binary").increment(frame.length);
+    }
+
+    /**
+     * Build the token to sessions index. Caller must hold the monitor.
+     */
+    private void rebuildRoutes() {
+        Map<Long, List<SessionRoute>> byToken = new HashMap<>();
+        sessionStates.forEach((sessionId, state) -> {
+            boolean binary = state.format == TickFormat.BINARY;
+            SessionRoute sessionRoute = new SessionRoute(sessionId, state.format,
+                    binary ? state.dictionary.copy() : null, binary ? state.priceDecimals.copy() : null);
+            state.tokens.forEach(token -> byToken.computeIfAbsent(token, k -> new ArrayList<>()).add(sessionRoute));
+        });
+
+        LongIntHashMap index = new LongIntHashMap(byToken.size(), -1);
+        SessionRoute[][] sessions = new SessionRoute[byToken.size()][];
+        int route = 0;
+        for (Map.Entry<Long, List<SessionRoute>> entry : byToken.entrySet()) {
+            index.put(entry.getKey(), route);
+            sessions[route++] = entry.getValue().toArray(new SessionRoute[0]);
+        }
+        routes = new Routes(index, sessions, sessionStates.size());
+    }
+
+    @Override
+    public void onTick(Tick tick, long receivedNanos) {
+        Routes current = routes;
+        int route = current.index.get(tick.getInstrumentToken());
+        if (route < 0) {
+            return;
+        }
+        for (SessionRoute sessionRoute : current.sessions[route]) {
+            pendingBatches.computeIfAbsent(sessionRoute.sessionId, k -> new SessionBatch(sessionRoute)).add(tick, receivedNanos);
+        }
+    }
+
+    @Override
+    public void onBatchEnd() {
+        if (pendingBatches.isEmpty()) {
+            return;
+        }
+        // The broker may hold on to the payloads, so hand over the lists instead of reusing them
+        Map<String, SessionBatch> batches = pendingBatches;
+        pendingBatches = new HashMap<>();
+        batches.forEach((sessionId, batch) -> {
+            if (batch.route.format == TickFormat.BINARY) {
+                sendBinary(sessionId, BinaryTickEncoder.encodeTicks(batch.ticks, batch.route.dictionary,
+                        batch.route.priceDecimals));
+            } else {
+                messagingTemplate.convertAndSend(TICK_TOPIC_PREFIX + sessionId, Map.of("ticks", batch.ticks));
+            }
+            meterRegistry.counter("market-data.websocket.ticks.sent", "format", batch.route.format.name().toLowerCase())
+                    .increment(batch.ticks.size());
+            long sentNanos = System.nanoTime();
+            for (int i = 0; i < batch.ticks.size(); i++) {
+                latencyRecorder.record(TickLatencyRecorder.Stage.WEBSOCKET, batch.receivedNanos[i], sentNanos, 1);
+            }
+        });
+    }
+
+    /**
+     * Subscription state of one session
+     */
+    private static final class SessionState {
+        final String connectionId;
+        final Set<Long> tokens = new HashSet<>();
+        final LongIntHashMap dictionary = new LongIntHashMap(64, -1);
+        final LongIntHashMap priceDecimals = new LongIntHashMap(64, BinaryTickEncoder.DEFAULT_PRICE_DECIMALS);
+        TickFormat format = TickFormat.JSON;
+        int nextId;
+
+        SessionState(String connectionId) {
+            this.connectionId = connectionId;
+        }
+    }
+
+    /**
+     * Immutable view of a session used by the fan-out thread
+     */
+    private static final class SessionRoute {
+        final String sessionId;
+        final TickFormat format;
+        final LongIntHashMap dictionary;
+        final LongIntHashMap priceDecimals;
+
+        SessionRoute(String sessionId, TickFormat format, LongIntHashMap dictionary, LongIntHashMap priceDecimals) {
+            this.sessionId = sessionId;
+            this.format = format;
+            this.dictionary = dictionary;
+            this.priceDecimals = priceDecimals;
+        }
+    }
+
+    /**
+     * Ticks collected for one session during a pipeline batch
+     */
+    private static final class SessionBatch {
+        final SessionRoute route;
+        final List<Tick> ticks = new ArrayList<>();
+        long[] receivedNanos = new long[8];
+
+        SessionBatch(SessionRoute route) {
+            this.route = route;
+        }
+
+        void add(Tick tick, long received) {
+            if (ticks.size() == receivedNanos.length) {
+                receivedNanos = Arrays.copyOf(receivedNanos, receivedNanos.length * 2);
+            }
+            receivedNanos[ticks.size()] = received;
+            ticks.add(tick);
+        }
+    }
+
+    /**
+     * Token to sessions lookup
+     */
+    private static final class Routes {
+        static final Routes EMPTY = new Routes(new LongIntHashMap(0, -1), new SessionRoute[0][], 0);
+
+        final LongIntHashMap index;
+        final SessionRoute[][] sessions;
+        final int sessionCount;
+
+        Routes(LongIntHashMap index, SessionRoute[][] sessions, int sessionCount) {
+            this.index = index;
+            this.sessions = sessions;
+            this.sessionCount = sessionCount;
+        }
+    }
+}
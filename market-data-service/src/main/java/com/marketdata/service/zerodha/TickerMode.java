@@ -0,0 +1,54 @@
+package com.marketdata.service.zerodha;
+
+import com.zerodhatech.ticker.KiteTicker;
+
+/**
+ * Kite ticker subscription modes, ordered from the smallest to the richest packet
+ */
+public enum TickerMode {
+
+    /** Last traded price only */
+    LTP(KiteTicker.modeLTP),
+
+    /** Price, OHLC, volume and average price without market depth */
+    QUOTE(KiteTicker.modeQuote),
+
+    /** Quote plus market depth, open interest and exchange timestamps */
+    FULL(KiteTicker.modeFull);
+
+    private final String value;
+
+    TickerMode(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return Mode name understood by {@link KiteTicker#setMode}
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @param other Mode to compare with
+     * @return The richer of the two modes
+     */
+    public TickerMode max(TickerMode other) {
+        return other != null && other.ordinal() > ordinal() ? other : this;
+    }
+
+    /**
+     * @param value Requested mode, case-insensitive
+     * @return Matching mode, {@link #FULL} when absent
+     */
+    public static TickerMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported ticker mode: " + value);
+        }
+    }
+}
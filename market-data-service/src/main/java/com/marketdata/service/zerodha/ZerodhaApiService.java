@@ -1,14 +1,20 @@
 package com.marketdata.service.zerodha;
 
 import com.am.marketdata.common.model.TimeFrame;
+import com.marketdata.common.ProviderEndpoint;
+import com.marketdata.common.ProviderRateLimiters;
+import com.marketdata.common.ProviderRequestPlanner;
+import com.marketdata.common.RateLimitClass;
+import com.marketdata.common.RateLimitTimeoutException;
+import com.marketdata.service.instrument.InstrumentCsvParser;
+import com.marketdata.service.instrument.InstrumentMaster;
+import com.marketdata.service.instrument.InstrumentMasterService;
+import com.marketdata.service.tick.TickPipeline;
+import com.marketdata.service.tick.TokenLiveness;
 import com.zerodhatech.kiteconnect.KiteConnect;
 import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
 import com.zerodhatech.models.*;
-import com.zerodhatech.ticker.KiteTicker;
-import com.zerodhatech.ticker.OnConnect;
-import com.zerodhatech.ticker.OnDisconnect;
 import com.zerodhatech.ticker.OnTicks;
-import com.zerodhatech.ticker.OnError;
 
 import io.github.resilience4j.retry.annotation.Retry;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -22,10 +28,20 @@ import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -34,13 +50,30 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Service
-public class ZerodhaApiService {
+public class ZerodhaApiService implements TokenLiveness {
+
+    private static final String INSTRUMENTS_URL = "https://api.kite.trade/instruments";
+    private static final Duration INSTRUMENTS_TIMEOUT = Duration.ofMinutes(2);
+    /** Subscription source of the tokens passed to {@link #initializeTicker} */
+    public static final String TICKER_SOURCE = "ticker";
 
     private KiteConnect kiteConnect;
-    private KiteTicker tickerProvider;
+    private volatile ZerodhaTickerPool tickerPool;
+    /** Sources holding each ticker token and the mode each needs, guarded by this */
+    private final Map<Long, Map<String, TickerMode>> tokenSources = new HashMap<>();
     private final com.am.common.investment.service.instrument.InstrumentService instrumentService;
+    private final InstrumentMasterService instrumentMasterService;
     private final MeterRegistry meterRegistry;
     private final ThreadPoolExecutor threadPoolExecutor;
+    private final TickPipeline tickPipeline;
+    private final ProviderRequestPlanner requestPlanner;
+    private final ProviderRateLimiters rateLimiters;
+    private TickPipeline.Registration tickListenerRegistration;
+    private final List<ZerodhaTickerPool.ConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+    private final HttpClient instrumentsClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
     
     @Value("${market-data.zerodha.api.key}")
     private String apiKey;
@@ -60,36 +93,74 @@ public class ZerodhaApiService {
     @Value("${market-data.zerodha.ticker.reconnect.interval:30}")
     private int tickerReconnectInterval;
 
+    @Value("${market-data.zerodha.ticker.pipeline.conflation.listener:false}")
+    private boolean conflateTickListener;
+
+    @Value("${market-data.zerodha.ticker.pool.max.connections:3}")
+    private int tickerMaxConnections;
+
+    @Value("${market-data.zerodha.ticker.pool.max.tokens.per.connection:3000}")
+    private int tickerMaxTokensPerConnection;
+
+    @Value("${market-data.zerodha.ticker.mode.default:full}")
+    private String tickerDefaultMode;
+
+    /** A process that replays journaled ticks never connects the live ticker */
+    @Value("${market-data.zerodha.ticker.replay.enabled:false}")
+    private boolean replayEnabled;
+
     @Value("${market-data.zerodha.api.access.token}")
     private String accessToken;
     
     @Value("${market-data.zerodha.api.refresh.token:}")
     private String refreshToken;
 
-    public ZerodhaApiService(com.am.common.investment.service.instrument.InstrumentService instrumentService, MeterRegistry meterRegistry, ThreadPoolExecutor threadPoolExecutor) {
+    public ZerodhaApiService(com.am.common.investment.service.instrument.InstrumentService instrumentService, InstrumentMasterService instrumentMasterService, MeterRegistry meterRegistry, ThreadPoolExecutor threadPoolExecutor, TickPipeline tickPipeline, ProviderRequestPlanner requestPlanner, ProviderRateLimiters rateLimiters) {
         this.instrumentService = instrumentService;
+        this.instrumentMasterService = instrumentMasterService;
         this.meterRegistry = meterRegistry;
         this.threadPoolExecutor = threadPoolExecutor;
+        this.tickPipeline = tickPipeline;
+        this.requestPlanner = requestPlanner;
+        this.rateLimiters = rateLimiters;
         initialize();
         log.info("Initializing Zerodha API service");
     }
 
-        /**
-     * Convert trading symbols to instrument token IDs
+    /**
+     * Convert trading symbols to instrument token IDs.
+     * Symbols are resolved from the in-memory instrument master; only symbols it does not know
+     * are looked up in the instrument database.
      * 
      * @param symbols Array of trading symbols
      * @return Array of instrument token IDs as strings
      */
     private String[] convertSymbolsToInstrumentIds(String[] symbols) {
-        List<com.am.common.investment.model.equity.Instrument> instruments = instrumentService.getInstrumentByTradingsymbols(Arrays.asList(symbols));
-        List<Long> instrumentIds = instruments.stream()
-                .map(com.am.common.investment.model.equity.Instrument::getInstrumentToken)
-                .collect(Collectors.toList());
-        return instrumentIds.stream().map(Object::toString).toArray(String[]::new);
+        InstrumentMaster master = instrumentMasterService.getMaster();
+        List<String> instrumentIds = new ArrayList<>(symbols.length);
+        List<String> unknown = new ArrayList<>();
+        for (String symbol : symbols) {
+            long token = master.getToken(symbol);
+            if (token != InstrumentMaster.NO_TOKEN) {
+                instrumentIds.add(Long.toString(token));
+            } else {
+                unknown.add(symbol);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            meterRegistry.counter("market-data.zerodha.instruments.master.miss", "lookup", "symbol").increment(unknown.size());
+            instrumentService.getInstrumentByTradingsymbols(unknown).stream()
+                    .map(com.am.common.investment.model.equity.Instrument::getInstrumentToken)
+                    .map(Object::toString)
+                    .forEach(instrumentIds::add);
+        }
+        return instrumentIds.toArray(new String[0]);
     }
 
     /**
-     * Convert a map with instrument IDs as keys to a map with symbols as keys
+     * Convert a map with instrument IDs as keys to a map with symbols as keys.
+     * Tokens are resolved from the in-memory instrument master; only tokens it does not know
+     * are looked up in the instrument database.
      * 
      * @param <T> Type of the value in the map
      * @param instrumentMap Map with instrument IDs as keys
@@ -103,11 +174,25 @@ public class ZerodhaApiService {
         Map<String, T> symbolMap = new HashMap<>();
         
         try {
-            // Get all instruments by their IDs
-            List<String> instrumentIds = new ArrayList<>(instrumentMap.keySet());
+            InstrumentMaster master = instrumentMasterService.getMaster();
+            Map<String, T> unresolved = new HashMap<>();
+            for (Map.Entry<String, T> entry : instrumentMap.entrySet()) {
+                String symbol = master.getSymbol(Long.parseLong(entry.getKey()));
+                if (symbol != null) {
+                    symbolMap.put(symbol, entry.getValue());
+                } else {
+                    unresolved.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (unresolved.isEmpty()) {
+                return symbolMap;
+            }
+            meterRegistry.counter("market-data.zerodha.instruments.master.miss", "lookup", "token").increment(unresolved.size());
+
+            // Get the remaining instruments by their IDs
             List<com.am.common.investment.model.equity.Instrument> instruments = 
                     instrumentService.getInstrumentByInstrumentTokens(
-                            instrumentIds.stream()
+                            unresolved.keySet().stream()
                             .map(Long::parseLong)
                             .collect(Collectors.toList()));
             
@@ -118,8 +203,8 @@ public class ZerodhaApiService {
                             com.am.common.investment.model.equity.Instrument::getTradingSymbol,
                             (existing, replacement) -> existing)); // Keep first in case of duplicates
             
-            // Convert the original map using the ID to symbol mapping
-            for (Map.Entry<String, T> entry : instrumentMap.entrySet()) {
+            // Convert the remaining entries using the ID to symbol mapping
+            for (Map.Entry<String, T> entry : unresolved.entrySet()) {
                 String instrumentId = entry.getKey();
                 String symbol = idToSymbolMap.get(instrumentId);
                 if (symbol != null) {
@@ -166,9 +251,9 @@ public class ZerodhaApiService {
 
     @PreDestroy
     public void cleanup() {
-        if (tickerProvider != null && tickerProvider.isConnectionOpen()) {
+        if (tickerPool != null) {
             log.info("Disconnecting Zerodha ticker");
-            tickerProvider.disconnect();
+            tickerPool.close();
         }
         log.info("Cleaned up Zerodha API service resources");
     }
@@ -322,6 +407,7 @@ public class ZerodhaApiService {
     public Profile getProfile() {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
             Profile profile = kiteConnect.getProfile();
             sample.stop(meterRegistry.timer("market-data.zerodha.api.profile.time"));
             meterRegistry.counter("market-data.zerodha.api.profile.success").increment();
@@ -337,12 +423,19 @@ public class ZerodhaApiService {
      * Get quotes for multiple instruments
      * @param instruments Array of instruments in format [exchange:tradingsymbol] (e.g., ["NSE:INFY", "BSE:SBIN"])
      * @return Map of instrument to Quote object
+     * Lists longer than one Kite call are split by the {@link ProviderRequestPlanner}; each call waits for a rate-limit permit.
      */
     //@Retry(name = "marketDataZerodhaApi")
     public Map<String, Quote> getQuotes(String[] symbols) {
+        return requestPlanner.executeForMap(ProviderEndpoint.ZERODHA_QUOTE, Arrays.asList(symbols),
+                chunk -> fetchQuotes(chunk.toArray(new String[0])));
+    }
+
+    private Map<String, Quote> fetchQuotes(String[] symbols) {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
             String[] instrumentIdsArray = convertSymbolsToInstrumentIds(symbols);
+            rateLimiters.acquire(ProviderEndpoint.ZERODHA_QUOTE.getRateLimitClass());
             Map<String, Quote> quotes = kiteConnect.getQuote(instrumentIdsArray);
             sample.stop(meterRegistry.timer("market-data.zerodha.api.quotes.time"));
             meterRegistry.counter("market-data.zerodha.api.quotes.success").increment();
@@ -358,12 +451,19 @@ public class ZerodhaApiService {
      * Get OHLC and last price for multiple instruments
      * @param instruments Array of instruments in format [exchange:tradingsymbol] (e.g., ["NSE:INFY", "BSE:SBIN"])
      * @return Map of instrument to OHLC object
+     * Lists longer than one Kite call are split by the {@link ProviderRequestPlanner}; each call waits for a rate-limit permit.
      */
     //@Retry(name = "marketDataZerodhaApi")
     public Map<String, OHLCQuote> getOHLC(String[] symbols) {
+        return requestPlanner.executeForMap(ProviderEndpoint.ZERODHA_OHLC, Arrays.asList(symbols),
+                chunk -> fetchOHLC(chunk.toArray(new String[0])));
+    }
+
+    private Map<String, OHLCQuote> fetchOHLC(String[] symbols) {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
             String[] instrumentIdsArray = convertSymbolsToInstrumentIds(symbols);
+            rateLimiters.acquire(ProviderEndpoint.ZERODHA_OHLC.getRateLimitClass());
             Map<String, OHLCQuote> ohlc = kiteConnect.getOHLC(instrumentIdsArray);
             sample.stop(meterRegistry.timer("market-data.zerodha.api.ohlc.time"));
             meterRegistry.counter("market-data.zerodha.api.ohlc.success").increment();
@@ -379,12 +479,19 @@ public class ZerodhaApiService {
      * Get last price for multiple instruments
      * @param instruments Array of instruments in format [exchange:tradingsymbol] (e.g., ["NSE:INFY", "BSE:SBIN"])
      * @return Map of instrument to LTP object
+     * Lists longer than one Kite call are split by the {@link ProviderRequestPlanner}; each call waits for a rate-limit permit.
      */
     //@Retry(name = "marketDataZerodhaApi")
     public Map<String, LTPQuote> getLTP(String[] symbols) {
+        return requestPlanner.executeForMap(ProviderEndpoint.ZERODHA_LTP, Arrays.asList(symbols),
+                chunk -> fetchLTP(chunk.toArray(new String[0])));
+    }
+
+    private Map<String, LTPQuote> fetchLTP(String[] symbols) {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
             String[] instrumentIdsArray = convertSymbolsToInstrumentIds(symbols);
+            rateLimiters.acquire(ProviderEndpoint.ZERODHA_LTP.getRateLimitClass());
             Map<String, LTPQuote> ltp = kiteConnect.getLTP(instrumentIdsArray);
             sample.stop(meterRegistry.timer("market-data.zerodha.api.ltp.time"));
             meterRegistry.counter("market-data.zerodha.api.ltp.success").increment();
@@ -413,6 +520,7 @@ public class ZerodhaApiService {
             // Convert interval to TimeFrame for proper mapping
             String zerodhaInterval = TimeFrame.toZerodhaValue(interval);
             String[] instrumentIdsArray = convertSymbolsToInstrumentIds(new String[] { symbol });
+            rateLimiters.acquire(RateLimitClass.ZERODHA_HISTORICAL);
             HistoricalData historicalData = kiteConnect.getHistoricalData(from, to, instrumentIdsArray[0], zerodhaInterval, continuous, oi);
             sample.stop(meterRegistry.timer("market-data.zerodha.api.historical.time"));
             meterRegistry.counter("market-data.zerodha.api.historical.success").increment();
@@ -424,6 +532,31 @@ public class ZerodhaApiService {
         }
     }
 
+    /**
+     * Get historical candles for an instrument token, without resolving symbols
+     * @param instrumentToken Instrument token
+     * @param from From time
+     * @param to To time
+     * @param timeFrame Candle interval
+     * @param oi Include open interest
+     * @return Historical data object
+     */
+    public HistoricalData getHistoricalData(long instrumentToken, Date from, Date to, TimeFrame timeFrame, boolean oi) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_HISTORICAL);
+            HistoricalData historicalData = kiteConnect.getHistoricalData(from, to, Long.toString(instrumentToken),
+                    timeFrame.getZerodhaValue(), false, oi);
+            sample.stop(meterRegistry.timer("market-data.zerodha.api.historical.time"));
+            meterRegistry.counter("market-data.zerodha.api.historical.success").increment();
+            return historicalData;
+        } catch (KiteException | IOException e) {
+            meterRegistry.counter("market-data.zerodha.api.historical.error", "error_type", getErrorType(e)).increment();
+            log.error("Failed to get historical data for token {}: {}", instrumentToken, e.getMessage(), e);
+            throw new ZerodhaApiException("Failed to get historical data", e);
+        }
+    }
+
     /**
      * Get all available instruments
      * @return List of instruments
@@ -432,6 +565,7 @@ public class ZerodhaApiService {
     public List<Instrument> getAllInstruments() {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
             List<Instrument> instruments = kiteConnect.getInstruments();
             sample.stop(meterRegistry.timer("market-data.zerodha.api.instruments.time"));
             meterRegistry.counter("market-data.zerodha.api.instruments.success").increment();
@@ -443,6 +577,46 @@ public class ZerodhaApiService {
         }
     }
 
+    /**
+     * Stream the full instrument dump, parsing it line by line as it downloads
+     * @param consumer Receives every instrument in the dump
+     * @return Number of instruments streamed
+     */
+    public int streamInstruments(Consumer<Instrument> consumer) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(INSTRUMENTS_URL))
+                .header("X-Kite-Version", "3")
+                .header("Authorization", "token " + kiteConnect.getApiKey() + ":" + kiteConnect.getAccessToken())
+                .timeout(INSTRUMENTS_TIMEOUT)
+                .GET()
+                .build();
+        try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
+            HttpResponse<InputStream> response = instrumentsClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("Instrument dump request failed with status " + response.statusCode());
+                }
+                InstrumentCsvParser parser = new InstrumentCsvParser();
+                int count = parser.parse(new InputStreamReader(body, StandardCharsets.UTF_8), consumer);
+                if (parser.getSkipped() > 0) {
+                    meterRegistry.counter("market-data.zerodha.api.instruments.skipped").increment(parser.getSkipped());
+                    log.warn("Skipped {} malformed rows of the instrument dump, parsed {}", parser.getSkipped(), count);
+                }
+                sample.stop(meterRegistry.timer("market-data.zerodha.api.instruments.stream.time"));
+                meterRegistry.counter("market-data.zerodha.api.instruments.success").increment();
+                return count;
+            }
+        } catch (IOException e) {
+            meterRegistry.counter("market-data.zerodha.api.instruments.error", "error_type", getErrorType(e)).increment();
+            log.error("Failed to stream instruments: {}", e.getMessage(), e);
+            throw new ZerodhaApiException("Failed to stream instruments", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ZerodhaApiException("Interrupted while streaming instruments", e);
+        }
+    }
+
     /**
      * Get instruments for a specific exchange
      * @param exchange Exchange name (NSE, BSE, etc.)
@@ -452,6 +626,7 @@ public class ZerodhaApiService {
     public List<Instrument> getInstrumentsForExchange(String exchange) {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
             List<Instrument> instruments = kiteConnect.getInstruments(exchange);
             sample.stop(meterRegistry.timer("market-data.zerodha.api.instruments.exchange.time"));
             meterRegistry.counter("market-data.zerodha.api.instruments.exchange.success").increment();
@@ -472,6 +647,7 @@ public class ZerodhaApiService {
     public Margin getMargins(String segment) {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
             Margin margins = kiteConnect.getMargins(segment);
             sample.stop(meterRegistry.timer("market-data.zerodha.api.margins.time"));
             meterRegistry.counter("market-data.zerodha.api.margins.success").increment();
@@ -491,6 +667,7 @@ public class ZerodhaApiService {
     public List<Order> getOrders() {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
             List<Order> orders = kiteConnect.getOrders();
             sample.stop(meterRegistry.timer("market-data.zerodha.api.orders.time"));
             meterRegistry.counter("market-data.zerodha.api.orders.success").increment();
@@ -510,6 +687,7 @@ public class ZerodhaApiService {
     public List<Trade> getTrades() {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
             List<Trade> trades = kiteConnect.getTrades();
             sample.stop(meterRegistry.timer("market-data.zerodha.api.trades.time"));
             meterRegistry.counter("market-data.zerodha.api.trades.success").increment();
@@ -529,6 +707,7 @@ public class ZerodhaApiService {
     public Map<String, List<Position>> getPositions() {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
             Map<String, List<Position>> positions = kiteConnect.getPositions();
             sample.stop(meterRegistry.timer("market-data.zerodha.api.positions.time"));
             meterRegistry.counter("market-data.zerodha.api.positions.success").increment();
@@ -548,6 +727,7 @@ public class ZerodhaApiService {
     public List<Holding> getHoldings() {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            rateLimiters.acquire(RateLimitClass.ZERODHA_OTHER);
             List<Holding> holdings = kiteConnect.getHoldings();
             sample.stop(meterRegistry.timer("market-data.zerodha.api.holdings.time"));
             meterRegistry.counter("market-data.zerodha.api.holdings.success").increment();
@@ -560,83 +740,155 @@ public class ZerodhaApiService {
     }
 
     /**
-     * Initialize and connect ticker for real-time data
-     * @param tokens List of instrument tokens to subscribe
+     * Initialize and connect ticker for real-time data.
+     * Tokens are sharded over a {@link ZerodhaTickerPool} of websocket connections, all of which write
+     * into the {@link TickPipeline} ring buffer on their own websocket thread; the supplied listener is
+     * registered as a pipeline consumer and runs on its own thread.
+     * Tokens subscribed on a previous ticker are carried over in their modes.
+     * @param tokens List of instrument tokens to subscribe in the default mode, held by the {@link #TICKER_SOURCE}
      * @param onTickListener Callback for tick data
-     * @return Connected KiteTicker instance
+     * @return Ticker connection pool
+     * @throws IllegalStateException if tick replay is enabled in this process
      */
-    public KiteTicker initializeTicker(List<Long> tokens, OnTicks onTickListener) {
-        if (tickerProvider != null && tickerProvider.isConnectionOpen()) {
-            log.info("Ticker already connected, disconnecting first");
-            tickerProvider.disconnect();
+    public synchronized ZerodhaTickerPool initializeTicker(List<Long> tokens, OnTicks onTickListener) {
+        if (replayEnabled) {
+            throw new IllegalStateException("The live ticker is unavailable while tick replay is enabled");
+        }
+        if (tickerPool != null) {
+            log.info("Ticker already initialized, disconnecting first");
+            tickerPool.close();
         }
 
-        log.info("Initializing Zerodha ticker with {} tokens", tokens.size());
-        tickerProvider = new KiteTicker(kiteConnect.getAccessToken(), kiteConnect.getApiKey());
-        
-        // Configure ticker
-        tickerProvider.setTryReconnection(true);
-        //tickerProvider.setMaximumRetries(tickerMaxRetries);
-        //tickerProvider.setMaximumRetryInterval(tickerReconnectInterval);
-        
-        // Set listeners
-        tickerProvider.setOnConnectedListener(new OnConnect() {
-            @Override
-            public void onConnected() {
-                log.info("Ticker connected successfully");
-                meterRegistry.counter("zerodha.ticker.connect").increment();
-                // Convert List<Long> to ArrayList<Long> for API compatibility
-                ArrayList<Long> tokenList = new ArrayList<>(tokens);
-                tickerProvider.subscribe(tokenList);
-                tickerProvider.setMode(tokenList, KiteTicker.modeFull);
-            }
-        });
-        
-        tickerProvider.setOnDisconnectedListener(new OnDisconnect() {
-            @Override
-            public void onDisconnected() {
-                log.warn("Ticker disconnected");
-                meterRegistry.counter("zerodha.ticker.disconnect").increment();
-            }
-        });
-        
-        tickerProvider.setOnErrorListener(new OnError() {
-            @Override
-            public void onError(Exception exception) {
-                log.error("Ticker error: {}", exception.getMessage(), exception);
-                meterRegistry.counter("zerodha.ticker.error", "type", "exception").increment();
+        log.info("Initializing Zerodha ticker pool with {} tokens over up to {} connections of {} tokens",
+                tokens.size(), tickerMaxConnections, tickerMaxTokensPerConnection);
+
+        // Websocket threads only publish into the ring buffer, listeners consume it at their own pace
+        if (tickListenerRegistration != null) {
+            tickListenerRegistration.close();
+            tickListenerRegistration = null;
+        }
+        if (onTickListener != null) {
+            tickListenerRegistration = tickPipeline.registerListener("ticker-listener", onTickListener, conflateTickListener);
+        }
+
+        TickerMode defaultMode = TickerMode.from(tickerDefaultMode);
+        for (Long token : tokens) {
+            tokenSources.computeIfAbsent(token, t -> new HashMap<>()).put(TICKER_SOURCE, defaultMode);
+        }
+        tickerPool = new ZerodhaTickerPool(kiteConnect.getApiKey(), kiteConnect.getAccessToken(), tickPipeline,
+                this::notifyTokensDisconnected, meterRegistry, tickerMaxConnections, tickerMaxTokensPerConnection);
+        Map<TickerMode, List<Long>> byMode = new EnumMap<>(TickerMode.class);
+        tokenSources.forEach((token, sources) -> byMode.computeIfAbsent(effectiveMode(sources), m -> new ArrayList<>()).add(token));
+        byMode.forEach((mode, modeTokens) -> tickerPool.subscribe(modeTokens, mode));
+        tickerPool.start();
+        log.info("Ticker connection initiated");
+
+        return tickerPool;
+    }
+
+    /**
+     * Add tokens to the ticker on behalf of a source in the default mode,
+     * see {@link #subscribeTokens(String, Collection, TickerMode)}
+     * @param source Name of the subscribing component
+     * @param tokens Instrument tokens to subscribe
+     */
+    public void subscribeTokens(String source, Collection<Long> tokens) {
+        subscribeTokens(source, tokens, TickerMode.from(tickerDefaultMode));
+    }
+
+    /**
+     * Add tokens to the ticker on behalf of a source, initializing it without a listener if it does not exist yet.
+     * Ticks for the new tokens flow through the {@link TickPipeline} like all others.
+     * While tick replay is enabled the tokens are only recorded, no ticker is connected.
+     * A token held by several sources is subscribed in the richest of their modes.
+     * @param source Name of the subscribing component
+     * @param tokens Instrument tokens to subscribe
+     * @param mode Subscription mode the source needs for the tokens
+     */
+    public synchronized void subscribeTokens(String source, Collection<Long> tokens, TickerMode mode) {
+        if (tokens == null || tokens.isEmpty()) {
+            return;
+        }
+        if (!replayEnabled && (tickerPool == null || tickerPool.isClosed())) {
+            initializeTicker(Collections.emptyList(), null);
+        }
+        Map<TickerMode, List<Long>> added = new EnumMap<>(TickerMode.class);
+        Map<TickerMode, List<Long>> changed = new EnumMap<>(TickerMode.class);
+        for (Long token : tokens) {
+            Map<String, TickerMode> sources = tokenSources.computeIfAbsent(token, t -> new HashMap<>());
+            TickerMode previous = sources.isEmpty() ? null : effectiveMode(sources);
+            sources.put(source, mode);
+            TickerMode effective = effectiveMode(sources);
+            if (previous == null) {
+                added.computeIfAbsent(effective, m -> new ArrayList<>()).add(token);
+            } else if (effective != previous) {
+                changed.computeIfAbsent(effective, m -> new ArrayList<>()).add(token);
             }
-            
-            @Override
-            public void onError(KiteException kiteException) {
-                log.error("Ticker KiteException: {}", kiteException.getMessage(), kiteException);
-                meterRegistry.counter("zerodha.ticker.error", "type", "kite_exception").increment();
+        }
+        if (tickerPool == null) {
+            log.debug("Source {} registered {} tokens, live ticker disabled by tick replay", source, tokens.size());
+            return;
+        }
+        added.forEach((effective, list) -> tickerPool.subscribe(list, effective));
+        changed.forEach((effective, list) -> tickerPool.setMode(list, effective));
+        meterRegistry.counter("zerodha.ticker.subscribe", "mode", mode.getValue()).increment(tokens.size());
+        log.debug("Source {} subscribed {} tokens in {} mode, {} total", source, tokens.size(), mode.getValue(),
+                tickerPool.getTokenCount());
+    }
+
+    /**
+     * Release tokens held by a source. Tokens are only removed from the ticker once no source holds them;
+     * tokens still held by others fall back to the richest mode among the remaining sources.
+     * @param source Name of the subscribing component
+     * @param tokens Instrument tokens to release
+     */
+    public synchronized void unsubscribeTokens(String source, Collection<Long> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return;
+        }
+        List<Long> released = new ArrayList<>();
+        Map<TickerMode, List<Long>> changed = new EnumMap<>(TickerMode.class);
+        for (Long token : tokens) {
+            Map<String, TickerMode> sources = tokenSources.get(token);
+            if (sources == null || !sources.containsKey(source)) {
+                continue;
             }
-            
-            @Override
-            public void onError(String error) {
-                log.error("Ticker error: {}", error);
-                meterRegistry.counter("zerodha.ticker.error", "type", "string").increment();
+            TickerMode previous = effectiveMode(sources);
+            sources.remove(source);
+            if (sources.isEmpty()) {
+                tokenSources.remove(token);
+                released.add(token);
+            } else if (effectiveMode(sources) != previous) {
+                changed.computeIfAbsent(effectiveMode(sources), m -> new ArrayList<>()).add(token);
             }
-        });
-        
-        // Set tick listener
-        tickerProvider.setOnTickerArrivalListener(onTickListener);
-        
-        // Connect
-        tickerProvider.connect();
-        log.info("Ticker connection initiated");
-        
-        return tickerProvider;
+        }
+        if (tickerPool == null) {
+            return;
+        }
+        changed.forEach((effective, list) -> tickerPool.setMode(list, effective));
+        if (!released.isEmpty()) {
+            tickerPool.unsubscribe(released);
+            meterRegistry.counter("zerodha.ticker.unsubscribe").increment(released.size());
+        }
+        log.debug("Source {} released {} tokens, {} unsubscribed from ticker, {} remaining", source, tokens.size(),
+                released.size(), tickerPool.getTokenCount());
+    }
+
+    private static TickerMode effectiveMode(Map<String, TickerMode> sources) {
+        TickerMode effective = TickerMode.LTP;
+        for (TickerMode mode : sources.values()) {
+            effective = effective.max(mode);
+        }
+        return effective;
     }
 
     /**
      * Disconnect the ticker
      */
-    public void disconnectTicker() {
-        if (tickerProvider != null && tickerProvider.isConnectionOpen()) {
+    public synchronized void disconnectTicker() {
+        if (tickerPool != null && tickerPool.isConnected()) {
             log.info("Disconnecting ticker");
-            tickerProvider.disconnect();
+            tickerPool.disconnect();
             meterRegistry.counter("zerodha.ticker.manual_disconnect").increment();
         } else {
             log.info("Ticker not connected, nothing to disconnect");
@@ -645,10 +897,34 @@ public class ZerodhaApiService {
 
     /**
      * Check if ticker is connected
-     * @return true if connected, false otherwise
+     * @return true if at least one ticker connection is open
      */
     public boolean isTickerConnected() {
-        return tickerProvider != null && tickerProvider.isConnectionOpen();
+        ZerodhaTickerPool pool = tickerPool;
+        return pool != null && pool.isConnected();
+    }
+
+    /**
+     * Tokens are only live on this instance's own ticker, never while ticks are replayed
+     */
+    @Override
+    public long liveSinceNanos(long token) {
+        ZerodhaTickerPool pool = tickerPool;
+        return pool != null ? pool.getLiveSinceNanos(token) : NOT_LIVE;
+    }
+
+    /**
+     * Register for the tokens of ticker connections that drop, across ticker re-initializations
+     * @param listener Connection listener, called on the websocket thread
+     */
+    public void addTickerConnectionListener(ZerodhaTickerPool.ConnectionListener listener) {
+        connectionListeners.add(listener);
+    }
+
+    private void notifyTokensDisconnected(List<Long> tokens) {
+        for (ZerodhaTickerPool.ConnectionListener listener : connectionListeners) {
+            listener.onTokensDisconnected(tokens);
+        }
     }
 
     /**
@@ -679,6 +955,9 @@ public class ZerodhaApiService {
         for (int attempt = 0; attempt < maxRetries; attempt++) {
             try {
                 return operation.execute();
+            } catch (RateLimitTimeoutException e) {
+                // Nothing was sent; retrying would only queue behind the same permits
+                throw e;
             } catch (Exception e) {
                 lastException = e;
                 long delay = retryDelayMs * (long) Math.pow(2, attempt);
@@ -65,35 +65,17 @@ public class ZerodhaMarketDataProvider implements MarketDataProvider {
     
     @Override
     public Map<String, Object> getQuotes(String[] symbols) {
-        try {
-            Map<String, Quote> quotes = zerodhaApiService.getQuotes(symbols);
-            return new HashMap<>(quotes);
-        } catch (Exception e) {
-            log.error("Error getting quotes from Zerodha: {}", e.getMessage(), e);
-            return new HashMap<>();
-        }
+        return new HashMap<>(zerodhaApiService.getQuotes(symbols));
     }
 
     @Override
     public Map<String, OHLCQuote> getOHLC(String[] symbols) {
-        try {
-            Map<String, OHLCQuote> ohlc = zerodhaApiService.getOHLC(symbols);
-            return new HashMap<>(ohlc);
-        } catch (Exception e) {
-            log.error("Error getting OHLC from Zerodha: {}", e.getMessage(), e);
-            return new HashMap<>();
-        }
+        return new HashMap<>(zerodhaApiService.getOHLC(symbols));
     }
 
     @Override
     public Map<String, Object> getLTP(String[] symbols) {
-        try {
-            Map<String, LTPQuote> ltp = zerodhaApiService.getLTP(symbols);
-            return new HashMap<>(ltp);
-        } catch (Exception e) {
-            log.error("Error getting LTP from Zerodha: {}", e.getMessage(), e);
-            return new HashMap<>();
-        }
+        return new HashMap<>(zerodhaApiService.getLTP(symbols));
     }
 
     @Override
@@ -114,6 +96,26 @@ public class ZerodhaMarketDataProvider implements MarketDataProvider {
         return zerodhaApiService.initializeTicker(tokens, (OnTicks) tickListener);
     }
 
+    @Override
+    public void subscribeTicker(String source, List<String> instrumentIds, String mode) {
+        if (mode == null) {
+            zerodhaApiService.subscribeTokens(source, toTokens(instrumentIds));
+        } else {
+            zerodhaApiService.subscribeTokens(source, toTokens(instrumentIds), TickerMode.from(mode));
+        }
+    }
+
+    @Override
+    public void unsubscribeTicker(String source, List<String> instrumentIds) {
+        zerodhaApiService.unsubscribeTokens(source, toTokens(instrumentIds));
+    }
+
+    private List<Long> toTokens(List<String> instrumentIds) {
+        return instrumentIds.stream()
+                .map(Long::parseLong)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public boolean isTickerConnected() {
         return zerodhaApiService.isTickerConnected();
@@ -0,0 +1,556 @@
+package com.marketdata.service.zerodha;
+
+import com.marketdata.service.tick.TokenLiveness;
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.ticker.KiteTicker;
+import com.zerodhatech.ticker.OnConnect;
+import com.zerodhatech.ticker.OnDisconnect;
+import com.zerodhatech.ticker.OnError;
+import com.zerodhatech.ticker.OnTicks;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spreads ticker subscriptions over several Kite websocket connections.
+ * Kite caps both the instruments per connection and the connections per API key, so tokens are
+ * placed on the least loaded connection with spare capacity and a new connection is only opened
+ * once all existing ones are full. Each token is subscribed in its own {@link TickerMode}; when the
+ * same token is requested in several modes the richest one wins.
+ *
+ * When a connection drops, its tokens move to connected peers that have room so ticks keep flowing
+ * while it reconnects. When a connection (re)connects it takes back tokens from overloaded peers
+ * until the load is even. Moves subscribe on the new connection before unsubscribing the old one,
+ * so consumers may briefly see a tick twice but never miss one.
+ *
+ * The pool also tracks since when each token has been subscribed on a connected connection, see
+ * {@link #getLiveSinceNanos(long)}. A dropped connection ends that, including the heartbeat timeouts after
+ * which KiteTicker reconnects, and a failover or reconnect starts it again.
+ *
+ * All connections deliver into the same {@link OnTicks} listener, which must accept concurrent callers.
+ */
+@Slf4j
+public class ZerodhaTickerPool {
+
+    private final String apiKey;
+    private final String accessToken;
+    private final OnTicks tickListener;
+    private final ConnectionListener connectionListener;
+    private final MeterRegistry meterRegistry;
+    private final int maxConnections;
+    private final int maxTokensPerConnection;
+    private final List<Meter> meters = new ArrayList<>();
+
+    // Guarded by this
+    private final List<Connection> connections = new ArrayList<>();
+    private final Map<Long, Connection> assignments = new HashMap<>();
+    private final Map<Long, TickerMode> modes = new HashMap<>();
+    private final Set<Long> unassigned = new LinkedHashSet<>();
+    private boolean closed;
+
+    /** Token to the {@link System#nanoTime()} since which it has been subscribed on a connected connection */
+    private final Map<Long, Long> liveSince = new ConcurrentHashMap<>();
+
+    private volatile long movedTokens;
+
+    /**
+     * @param apiKey Kite API key
+     * @param accessToken Kite access token
+     * @param tickListener Receives ticks from every connection
+     * @param connectionListener Told which tokens lost their connection, may be null
+     * @param meterRegistry Registry for pool metrics
+     * @param maxConnections Connections allowed per API key
+     * @param maxTokensPerConnection Instruments allowed per connection
+     */
+    public ZerodhaTickerPool(String apiKey, String accessToken, OnTicks tickListener, ConnectionListener connectionListener,
+                             MeterRegistry meterRegistry, int maxConnections, int maxTokensPerConnection) {
+        if (maxConnections < 1 || maxTokensPerConnection < 1) {
+            throw new IllegalArgumentException("Ticker pool needs at least one connection and one token per connection");
+        }
+        this.apiKey = apiKey;
+        this.accessToken = accessToken;
+        this.tickListener = tickListener;
+        this.connectionListener = connectionListener;
+        this.meterRegistry = meterRegistry;
+        this.maxConnections = maxConnections;
+        this.maxTokensPerConnection = maxTokensPerConnection;
+
+        meters.add(Gauge.builder("zerodha.ticker.pool.connections", this, ZerodhaTickerPool::getConnectedCount)
+                .description("Open ticker connections")
+                .register(meterRegistry));
+        meters.add(Gauge.builder("zerodha.ticker.pool.tokens", this, ZerodhaTickerPool::getTokenCount)
+                .register(meterRegistry));
+        meters.add(Gauge.builder("zerodha.ticker.pool.unassigned", this, ZerodhaTickerPool::getUnassignedCount)
+                .description("Requested tokens that did not fit on any connection")
+                .register(meterRegistry));
+        meters.add(FunctionCounter.builder("zerodha.ticker.pool.moved", this, p -> p.movedTokens)
+                .description("Tokens moved between connections by failover or rebalancing")
+                .register(meterRegistry));
+    }
+
+    /**
+     * Open the first connection even when nothing is subscribed yet
+     */
+    public void start() {
+        List<Connection> opened = new ArrayList<>();
+        synchronized (this) {
+            if (!closed && connections.isEmpty()) {
+                opened.add(openConnection());
+            }
+        }
+        connectAll(opened);
+    }
+
+    /**
+     * Subscribe tokens in a mode. Tokens already subscribed in a richer mode keep that mode.
+     * @param tokens Instrument tokens
+     * @param mode Requested mode
+     */
+    public void subscribe(Collection<Long> tokens, TickerMode mode) {
+        List<Connection> opened = new ArrayList<>();
+        synchronized (this) {
+            Map<Connection, Map<TickerMode, ArrayList<Long>>> changes = new LinkedHashMap<>();
+            for (Long token : tokens) {
+                TickerMode previous = modes.get(token);
+                TickerMode effective = mode.max(previous);
+                if (effective == previous) {
+                    continue;
+                }
+                modes.put(token, effective);
+                Connection connection = assignments.get(token);
+                if (connection == null) {
+                    connection = place(opened);
+                    if (connection == null) {
+                        unassigned.add(token);
+                        continue;
+                    }
+                    assign(token, connection);
+                }
+                group(changes, connection, effective, token);
+            }
+            changes.forEach(Connection::subscribe);
+            warnIfUnassigned();
+        }
+        connectAll(opened);
+    }
+
+    /**
+     * Change the mode of subscribed tokens, including downgrades
+     * @param tokens Instrument tokens
+     * @param mode New mode
+     */
+    public synchronized void setMode(Collection<Long> tokens, TickerMode mode) {
+        Map<Connection, Map<TickerMode, ArrayList<Long>>> changes = new LinkedHashMap<>();
+        for (Long token : tokens) {
+            if (modes.replace(token, mode) == null) {
+                continue;
+            }
+            Connection connection = assignments.get(token);
+            if (connection != null) {
+                group(changes, connection, mode, token);
+            }
+        }
+        changes.forEach(Connection::subscribe);
+    }
+
+    /**
+     * Unsubscribe tokens and use the freed capacity for tokens that did not fit before
+     * @param tokens Instrument tokens
+     */
+    public void unsubscribe(Collection<Long> tokens) {
+        List<Connection> opened = new ArrayList<>();
+        synchronized (this) {
+            Map<Connection, ArrayList<Long>> removals = new LinkedHashMap<>();
+            for (Long token : tokens) {
+                liveSince.remove(token);
+                modes.remove(token);
+                unassigned.remove(token);
+                Connection connection = assignments.remove(token);
+                if (connection != null) {
+                    connection.tokens.remove(token);
+                    removals.computeIfAbsent(connection, c -> new ArrayList<>()).add(token);
+                }
+            }
+            removals.forEach(Connection::unsubscribe);
+            placeUnassigned(opened);
+        }
+        connectAll(opened);
+    }
+
+    /**
+     * @param token Instrument token
+     * @return {@link System#nanoTime()} since which the token has been subscribed on a connected connection,
+     *         or {@link TokenLiveness#NOT_LIVE}
+     */
+    public long getLiveSinceNanos(long token) {
+        return liveSince.getOrDefault(token, TokenLiveness.NOT_LIVE);
+    }
+
+    /**
+     * Disconnect every connection. The pool does not reconnect or open connections afterwards.
+     */
+    public void disconnect() {
+        List<Connection> toDisconnect;
+        synchronized (this) {
+            closed = true;
+            toDisconnect = new ArrayList<>(connections);
+            liveSince.clear();
+        }
+        for (Connection connection : toDisconnect) {
+            if (connection.ticker.isConnectionOpen()) {
+                connection.ticker.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Disconnect and remove the pool's metrics
+     */
+    public void close() {
+        disconnect();
+        meters.forEach(meterRegistry::remove);
+        meters.clear();
+    }
+
+    /**
+     * @return true if at least one connection is open
+     */
+    public synchronized boolean isConnected() {
+        for (Connection connection : connections) {
+            if (connection.ticker.isConnectionOpen()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true once {@link #disconnect()} has been called
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return Every requested token with its mode, including tokens that did not fit
+     */
+    public synchronized Map<Long, TickerMode> getModes() {
+        return new HashMap<>(modes);
+    }
+
+    public synchronized int getConnectedCount() {
+        int count = 0;
+        for (Connection connection : connections) {
+            if (connection.connected) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized int getTokenCount() {
+        return modes.size();
+    }
+
+    public synchronized int getUnassignedCount() {
+        return unassigned.size();
+    }
+
+    private void connectAll(List<Connection> opened) {
+        // Handshakes run outside the lock so other subscribers and callbacks are not held up
+        for (Connection connection : opened) {
+            log.info("Connecting ticker {} of {}", connection.index + 1, maxConnections);
+            connection.ticker.connect();
+        }
+    }
+
+    /**
+     * Pick the connection for a new token. Caller must hold the monitor.
+     * @param opened Receives a connection opened for the token, to be connected after the monitor is released
+     * @return Connection with spare capacity, or null if the pool is full
+     */
+    private Connection place(List<Connection> opened) {
+        Connection best = null;
+        for (Connection connection : connections) {
+            if (connection.tokens.size() >= maxTokensPerConnection) {
+                continue;
+            }
+            if (best == null
+                    || (connection.connected && !best.connected)
+                    || (connection.connected == best.connected && connection.tokens.size() < best.tokens.size())) {
+                best = connection;
+            }
+        }
+        if (best == null && !closed && connections.size() < maxConnections) {
+            best = openConnection();
+            opened.add(best);
+        }
+        return best;
+    }
+
+    private Connection openConnection() {
+        Connection connection = new Connection(connections.size());
+        connections.add(connection);
+        return connection;
+    }
+
+    private void assign(Long token, Connection connection) {
+        assignments.put(token, connection);
+        connection.tokens.add(token);
+        connection.stale.remove(token);
+    }
+
+    /**
+     * Place tokens that did not fit earlier. Caller must hold the monitor.
+     */
+    private void placeUnassigned(List<Connection> opened) {
+        Map<Connection, Map<TickerMode, ArrayList<Long>>> changes = new LinkedHashMap<>();
+        Iterator<Long> iterator = unassigned.iterator();
+        while (iterator.hasNext()) {
+            Long token = iterator.next();
+            Connection connection = place(opened);
+            if (connection == null) {
+                break;
+            }
+            iterator.remove();
+            assign(token, connection);
+            group(changes, connection, modes.get(token), token);
+        }
+        changes.forEach(Connection::subscribe);
+    }
+
+    /**
+     * Move tokens between connections, subscribing on the target before releasing the source.
+     * Caller must hold the monitor.
+     */
+    private void move(List<Long> tokens, Connection from, Connection to) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Map<TickerMode, ArrayList<Long>> byMode = new EnumMap<>(TickerMode.class);
+        for (Long token : tokens) {
+            from.tokens.remove(token);
+            assign(token, to);
+            byMode.computeIfAbsent(modes.get(token), m -> new ArrayList<>()).add(token);
+        }
+        to.subscribe(byMode);
+        from.unsubscribe(new ArrayList<>(tokens));
+        movedTokens += tokens.size();
+        log.info("Moved {} tokens from ticker {} to ticker {}", tokens.size(), from.index + 1, to.index + 1);
+    }
+
+    /**
+     * Take tokens from peers above the even share until the connection holds its share.
+     * Caller must hold the monitor.
+     */
+    private void rebalanceTowards(Connection target) {
+        List<Connection> connected = new ArrayList<>();
+        int total = 0;
+        for (Connection connection : connections) {
+            if (connection.connected) {
+                connected.add(connection);
+                total += connection.tokens.size();
+            }
+        }
+        int share = Math.min(maxTokensPerConnection, (total + connected.size() - 1) / connected.size());
+        for (Connection peer : connected) {
+            int wanted = share - target.tokens.size();
+            if (wanted <= 0) {
+                break;
+            }
+            int excess = peer.tokens.size() - share;
+            if (peer != target && excess > 0) {
+                move(take(peer, Math.min(wanted, excess)), peer, target);
+            }
+        }
+    }
+
+    /**
+     * Move the tokens of a dropped connection to connected peers with spare capacity.
+     * Tokens that do not fit stay put and resume when the connection comes back.
+     * Caller must hold the monitor.
+     */
+    private void failover(Connection dropped) {
+        for (Connection peer : connections) {
+            if (dropped.tokens.isEmpty()) {
+                break;
+            }
+            int spare = maxTokensPerConnection - peer.tokens.size();
+            if (peer != dropped && peer.connected && spare > 0) {
+                move(take(dropped, Math.min(spare, dropped.tokens.size())), dropped, peer);
+            }
+        }
+        if (!dropped.tokens.isEmpty()) {
+            log.warn("{} tokens wait for ticker {} to reconnect", dropped.tokens.size(), dropped.index + 1);
+        }
+    }
+
+    private static List<Long> take(Connection connection, int count) {
+        List<Long> taken = new ArrayList<>(count);
+        Iterator<Long> iterator = connection.tokens.iterator();
+        while (taken.size() < count && iterator.hasNext()) {
+            taken.add(iterator.next());
+        }
+        return taken;
+    }
+
+    private static void group(Map<Connection, Map<TickerMode, ArrayList<Long>>> changes, Connection connection,
+                              TickerMode mode, Long token) {
+        changes.computeIfAbsent(connection, c -> new EnumMap<>(TickerMode.class))
+                .computeIfAbsent(mode, m -> new ArrayList<>())
+                .add(token);
+    }
+
+    private void warnIfUnassigned() {
+        if (!unassigned.isEmpty()) {
+            log.warn("{} tokens exceed the ticker capacity of {} connections x {} tokens",
+                    unassigned.size(), maxConnections, maxTokensPerConnection);
+        }
+    }
+
+    private void onConnected(Connection connection) {
+        List<Connection> opened = new ArrayList<>();
+        synchronized (this) {
+            connection.connected = true;
+            meterRegistry.counter("zerodha.ticker.connect", "connection", connection.tag).increment();
+            if (closed) {
+                return;
+            }
+            log.info("Ticker {} connected with {} tokens", connection.index + 1, connection.tokens.size());
+
+            // Tokens moved away while disconnected would otherwise be resubscribed by the ticker itself
+            if (!connection.stale.isEmpty()) {
+                connection.ticker.unsubscribe(new ArrayList<>(connection.stale));
+                connection.stale.clear();
+            }
+            Map<TickerMode, ArrayList<Long>> byMode = new EnumMap<>(TickerMode.class);
+            for (Long token : connection.tokens) {
+                byMode.computeIfAbsent(modes.get(token), m -> new ArrayList<>()).add(token);
+            }
+            connection.subscribe(byMode);
+
+            placeUnassigned(opened);
+            rebalanceTowards(connection);
+        }
+        // Only happens when unassigned tokens need a further connection
+        connectAll(opened);
+    }
+
+    private synchronized void onDisconnected(Connection connection) {
+        connection.connected = false;
+        connection.tokens.forEach(liveSince::remove);
+        meterRegistry.counter("zerodha.ticker.disconnect", "connection", connection.tag).increment();
+        if (closed) {
+            return;
+        }
+        log.warn("Ticker {} disconnected with {} tokens", connection.index + 1, connection.tokens.size());
+        if (connectionListener != null && !connection.tokens.isEmpty()) {
+            try {
+                connectionListener.onTokensDisconnected(new ArrayList<>(connection.tokens));
+            } catch (Exception e) {
+                log.error("Ticker connection listener failed: {}", e.getMessage(), e);
+            }
+        }
+        failover(connection);
+    }
+
+    /**
+     * Notified from the websocket thread when a connection drops. Ticks for the listed tokens are lost until
+     * they resume on a peer or the same connection reconnects. Implementations must not block.
+     */
+    public interface ConnectionListener {
+        void onTokensDisconnected(List<Long> tokens);
+    }
+
+    /**
+     * One websocket connection and the tokens assigned to it
+     */
+    private final class Connection {
+        final int index;
+        final String tag;
+        final KiteTicker ticker;
+        final Set<Long> tokens = new LinkedHashSet<>();
+        /** Tokens moved away while disconnected, unsubscribed once the connection is back */
+        final Set<Long> stale = new HashSet<>();
+        volatile boolean connected;
+
+        Connection(int index) {
+            this.index = index;
+            this.tag = Integer.toString(index);
+            this.ticker = new KiteTicker(accessToken, apiKey);
+            ticker.setTryReconnection(true);
+            ticker.setOnConnectedListener(new OnConnect() {
+                @Override
+                public void onConnected() {
+                    ZerodhaTickerPool.this.onConnected(Connection.this);
+                }
+            });
+            ticker.setOnDisconnectedListener(new OnDisconnect() {
+                @Override
+                public void onDisconnected() {
+                    ZerodhaTickerPool.this.onDisconnected(Connection.this);
+                }
+            });
+            ticker.setOnErrorListener(new OnError() {
+                @Override
+                public void onError(Exception exception) {
+                    log.error("Ticker {} error: {}", index + 1, exception.getMessage(), exception);
+                    meterRegistry.counter("zerodha.ticker.error", "type", "exception", "connection", tag).increment();
+                }
+
+                @Override
+                public void onError(KiteException kiteException) {
+                    log.error("Ticker {} KiteException: {}", index + 1, kiteException.getMessage(), kiteException);
+                    meterRegistry.counter("zerodha.ticker.error", "type", "kite_exception", "connection", tag).increment();
+                }
+
+                @Override
+                public void onError(String error) {
+                    log.error("Ticker {} error: {}", index + 1, error);
+                    meterRegistry.counter("zerodha.ticker.error", "type", "string", "connection", tag).increment();
+                }
+            });
+            ticker.setOnTickerArrivalListener(tickListener);
+        }
+
+        /**
+         * Subscribe and set modes now if connected; otherwise everything is subscribed on connect
+         */
+        void subscribe(Map<TickerMode, ArrayList<Long>> byMode) {
+            if (!connected) {
+                return;
+            }
+            long now = System.nanoTime();
+            byMode.forEach((mode, list) -> {
+                ticker.subscribe(list);
+                ticker.setMode(list, mode.getValue());
+                list.forEach(token -> liveSince.putIfAbsent(token, now));
+            });
+        }
+
+        void unsubscribe(ArrayList<Long> list) {
+            if (connected) {
+                ticker.unsubscribe(list);
+            } else {
+                stale.addAll(list);
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.am.marketdata.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.am.common.investment.model.equity.EquityPrice;
+import com.am.common.investment.model.equity.Instrument;
+import com.am.common.investment.service.EquityService;
+import com.am.common.investment.service.historical.HistoricalDataService;
+import com.am.common.investment.service.instrument.InstrumentService;
+import com.am.marketdata.mapper.InstrumentMapper;
+import com.am.marketdata.mapper.OHLCMapper;
+import com.marketdata.common.HedgedRequestExecutor;
+import com.marketdata.common.MarketDataProvider;
+import com.marketdata.common.MarketDataProviderFactory;
+import com.marketdata.common.QuoteProvider;
+import com.marketdata.common.RequestClass;
+import com.marketdata.service.instrument.InstrumentMaster;
+import com.marketdata.service.instrument.InstrumentMasterService;
+import com.marketdata.service.tick.LastValueCache;
+import com.marketdata.service.tick.TickLatencyRecorder;
+import com.marketdata.service.tick.TickPipeline;
+import com.marketdata.service.tick.TokenLiveness;
+import com.zerodhatech.models.LTPQuote;
+import com.zerodhatech.models.OHLC;
+import com.zerodhatech.models.OHLCQuote;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@ExtendWith(MockitoExtension.class)
+public class MarketDataServiceImplTest {
+
+    private static final List<String> SYMBOLS = List.of("INFY", "TCS", "WIPRO");
+    private static final long INFY = 408065L;
+    private static final long TCS = 2953217L;
+
+    @Mock
+    private InstrumentService instrumentService;
+
+    @Mock
+    private EquityService equityService;
+
+    @Mock
+    private HistoricalDataService historicalDataService;
+
+    private final List<Call> calls = Collections.synchronizedList(new ArrayList<>());
+    private final Map<Long, Long> liveSince = new ConcurrentHashMap<>();
+    private volatile boolean tickerConnected = true;
+    private MeterRegistry meterRegistry;
+    private TickPipeline tickPipeline;
+    private LastValueCache lastValueCache;
+    private HedgedRequestExecutor hedgedRequests;
+    private MarketDataServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        TickLatencyRecorder latencyRecorder = new TickLatencyRecorder(meterRegistry);
+        tickPipeline = new TickPipeline(meterRegistry, latencyRecorder);
+        ReflectionTestUtils.setField(tickPipeline, "bufferSize", 1024);
+        ReflectionTestUtils.setField(tickPipeline, "batchSize", 256);
+        ReflectionTestUtils.setField(tickPipeline, "idleParkMicros", 1000L);
+        tickPipeline.initialize();
+
+        InstrumentMasterService instrumentMasterService = new InstrumentMasterService(meterRegistry);
+        instrumentMasterService.update(new InstrumentMaster.Builder(4)
+                .add(INFY, 1594L, "INFY", "INFOSYS", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .add(TCS, 11536L, "TCS", "TATA CONSULTANCY SERVICES", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .build());
+        TokenLiveness tokenLiveness = token -> liveSince.getOrDefault(token, TokenLiveness.NOT_LIVE);
+        lastValueCache = new LastValueCache(tickPipeline, instrumentMasterService, tokenLiveness, meterRegistry,
+                latencyRecorder);
+        lastValueCache.initialize();
+
+        hedgedRequests = new HedgedRequestExecutor(meterRegistry, 4, 20, 2_000, 200, 100, 1_000);
+        service = new MarketDataServiceImpl(new FakeProviderFactory(meterRegistry), instrumentService,
+                historicalDataService, meterRegistry, new InstrumentMapper(), new OHLCMapper(), equityService,
+                lastValueCache, instrumentMasterService, hedgedRequests);
+        ReflectionTestUtils.setField(service, "maxRetries", 1);
+        ReflectionTestUtils.setField(service, "retryDelayMs", 0);
+        ReflectionTestUtils.setField(service, "streamReadEnabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hedgedRequests.shutdown();
+        tickPipeline.cleanup();
+    }
+
+    @Test
+    void shouldFetchOnlyPricesMissingFromDatabaseInOneProviderCall() {
+        // Given
+        when(instrumentService.getInstrumentByTradingsymbols(SYMBOLS)).thenReturn(instruments(SYMBOLS));
+        when(equityService.getPricesByTradingSymbols(SYMBOLS)).thenReturn(List.of(price("INFY", 1520.5)));
+
+        // When
+        List<EquityPrice> prices = service.getLivePrices(SYMBOLS);
+
+        // Then
+        verify(instrumentService, times(1)).getInstrumentByTradingsymbols(any());
+        verify(equityService, times(1)).getPricesByTradingSymbols(any());
+        assertEquals(1, calls("getOHLC").size(), "Missing instruments should be fetched in one provider call");
+        assertEquals(List.of("TCS", "WIPRO"), sorted(calls("getOHLC").get(0)), "Only instruments without a database price should be fetched");
+        assertEquals(List.of("INFY", "TCS", "WIPRO"), sorted(symbols(prices)), "Database and provider prices should be merged");
+        assertEquals(1520.5, closeOf(prices, "INFY"), 0.0, "Database price should be kept");
+        assertEquals(3.0, closeOf(prices, "TCS"), 0.0, "Provider price should be mapped");
+    }
+
+    @Test
+    void shouldFetchAllPricesFromProviderWhenDatabaseHasNone() {
+        // Given
+        when(instrumentService.getInstrumentByTradingsymbols(SYMBOLS)).thenReturn(instruments(SYMBOLS));
+        when(equityService.getPricesByTradingSymbols(SYMBOLS)).thenReturn(Collections.emptyList());
+
+        // When
+        List<EquityPrice> prices = service.getLivePrices(SYMBOLS);
+
+        // Then
+        assertEquals(1, calls("getOHLC").size(), "All instruments should be fetched in one provider call");
+        assertEquals(SYMBOLS, sorted(calls("getOHLC").get(0)), "Every instrument should be fetched");
+        assertEquals(SYMBOLS, sorted(symbols(prices)), "Every instrument should be priced");
+    }
+
+    @Test
+    void shouldNotCallProviderWhenDatabaseHasEveryPrice() {
+        // Given
+        when(instrumentService.getInstrumentByTradingsymbols(SYMBOLS)).thenReturn(instruments(SYMBOLS));
+        when(equityService.getPricesByTradingSymbols(SYMBOLS)).thenReturn(
+                List.of(price("INFY", 1520.5), price("TCS", 3900.0), price("WIPRO", 450.0)));
+
+        // When
+        List<EquityPrice> prices = service.getLivePrices(SYMBOLS);
+
+        // Then
+        assertTrue(calls.isEmpty(), "Provider should not be called");
+        assertEquals(3, prices.size(), "Database prices should be returned");
+    }
+
+    @Test
+    void shouldServeLiveSymbolsFromStreamAndFetchOnlyTheRest() {
+        // Given
+        liveSince.put(INFY, 100L);
+        lastValueCache.onTick(tick(INFY, 1520.5), 200L);
+
+        // When
+        Map<String, Object> ltp = service.getLTP(new String[]{"INFY", "TCS"});
+
+        // Then
+        assertEquals(1520.5, ((LTPQuote) ltp.get("INFY")).lastPrice, 0.0, "Live symbol should be served from the stream");
+        assertEquals("provider TCS", ltp.get("TCS"), "Symbol without a live tick should come from the provider");
+        assertEquals(List.of(List.of("TCS")), calls("getLTP"), "Only the symbol missing from the stream should be fetched");
+        assertEquals(1.0, meterRegistry.counter("market.data.cache.hit.count", "operation", "getLTP").count(), 0.0,
+                "Stream hit should be counted");
+        assertEquals(1.0, meterRegistry.counter("market.data.cache.miss.count", "operation", "getLTP").count(), 0.0,
+                "Stream miss should be counted");
+    }
+
+    @Test
+    void shouldNotCallProviderWhenStreamServesEverySymbol() {
+        // Given
+        liveSince.put(INFY, 100L);
+        liveSince.put(TCS, 100L);
+        lastValueCache.onTick(tick(INFY, 1520.5), 200L);
+        lastValueCache.onTick(tick(TCS, 3900.0), 200L);
+
+        // When
+        Map<String, OHLCQuote> ohlc = service.getOHLC(new String[]{"INFY", "TCS"});
+
+        // Then
+        assertEquals(3900.0, ohlc.get("TCS").lastPrice, 0.0, "Live symbol should be served from the stream");
+        assertEquals(2, ohlc.size(), "Every symbol should be served");
+        assertTrue(calls.isEmpty(), "Provider should not be called");
+    }
+
+    @Test
+    void shouldFetchEverySymbolFromProviderWhileTickerIsDisconnected() {
+        // Given
+        liveSince.put(INFY, 100L);
+        lastValueCache.onTick(tick(INFY, 1520.5), 200L);
+        tickerConnected = false;
+
+        // When
+        Map<String, Object> ltp = service.getLTP(new String[]{"INFY", "TCS"});
+
+        // Then
+        assertEquals("provider INFY", ltp.get("INFY"), "Stream should not be read while the ticker is disconnected");
+        assertEquals(List.of(List.of("INFY", "TCS")), calls("getLTP"), "Every symbol should be fetched in one call");
+    }
+
+    @Test
+    void shouldFetchEverySymbolFromProviderWhenStreamReadIsDisabled() {
+        // Given
+        ReflectionTestUtils.setField(service, "streamReadEnabled", false);
+        liveSince.put(INFY, 100L);
+        lastValueCache.onTick(tick(INFY, 1520.5), 200L);
+
+        // When
+        Map<String, Object> quotes = service.getQuotes(new String[]{"INFY", "TCS"});
+
+        // Then
+        assertEquals("provider INFY", quotes.get("INFY"), "Stream should not be read when disabled");
+        assertEquals(List.of(List.of("INFY", "TCS")), calls("getQuotes"), "Every symbol should be fetched in one call");
+        assertEquals(0.0, meterRegistry.counter("market.data.cache.miss.count", "operation", "getQuotes").count(), 0.0,
+                "Stream misses should not be counted when the stream is not read");
+    }
+
+    private List<List<String>> calls(String method) {
+        synchronized (calls) {
+            return calls.stream().filter(call -> call.method().equals(method)).map(Call::symbols)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Tick tick(long token, double price) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setMode("quote");
+        tick.setLastTradedPrice(price);
+        tick.setOpenPrice(1500.0);
+        tick.setHighPrice(price + 10);
+        tick.setLowPrice(price - 30);
+        tick.setClosePrice(1510.0);
+        return tick;
+    }
+
+    private static List<Instrument> instruments(List<String> symbols) {
+        List<Instrument> instruments = new ArrayList<>();
+        for (String symbol : symbols) {
+            Instrument instrument = new Instrument();
+            instrument.setTradingSymbol(symbol);
+            instruments.add(instrument);
+        }
+        return instruments;
+    }
+
+    private static EquityPrice price(String symbol, double close) {
+        EquityPrice price = new EquityPrice();
+        price.setSymbol(symbol);
+        price.setClose(close);
+        return price;
+    }
+
+    private static List<String> symbols(List<EquityPrice> prices) {
+        return prices.stream().map(EquityPrice::getSymbol).collect(Collectors.toList());
+    }
+
+    private static double closeOf(List<EquityPrice> prices, String symbol) {
+        return prices.stream().filter(price -> symbol.equals(price.getSymbol())).findFirst().orElseThrow().getClose();
+    }
+
+    private static List<String> sorted(List<String> symbols) {
+        return symbols.stream().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * OHLC quote whose close is the symbol's length, so each provider price can be told apart
+     */
+    private static OHLCQuote ohlc(String symbol) {
+        OHLCQuote quote = new OHLCQuote();
+        quote.ohlc = new OHLC();
+        quote.ohlc.close = symbol.length();
+        return quote;
+    }
+
+    private record Call(String method, List<String> symbols) {
+    }
+
+    /**
+     * Provider factory handing out a provider that records its reads and answers each symbol
+     */
+    private final class FakeProviderFactory extends MarketDataProviderFactory {
+        private final MarketDataProvider provider = (MarketDataProvider) Proxy.newProxyInstance(
+                MarketDataProvider.class.getClassLoader(), new Class<?>[]{MarketDataProvider.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getOHLC", "getQuotes", "getLTP" -> {
+                        String[] symbols = (String[]) args[0];
+                        calls.add(new Call(method.getName(), List.of(symbols)));
+                        Map<String, Object> values = new HashMap<>();
+                        for (String symbol : symbols) {
+                            values.put(symbol, method.getName().equals("getOHLC") ? ohlc(symbol) : "provider " + symbol);
+                        }
+                        yield values;
+                    }
+                    case "isTickerConnected" -> tickerConnected;
+                    case "getProviderName" -> "zerodha";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        FakeProviderFactory(MeterRegistry meterRegistry) {
+            super(null, meterRegistry, null);
+        }
+
+        @Override
+        public MarketDataProvider getProvider() {
+            return provider;
+        }
+
+        @Override
+        public QuoteProvider getQuoteProvider(RequestClass requestClass) {
+            return provider;
+        }
+
+        @Override
+        public QuoteProvider getHedgeProvider(RequestClass requestClass, QuoteProvider primary) {
+            return null;
+        }
+    }
+}
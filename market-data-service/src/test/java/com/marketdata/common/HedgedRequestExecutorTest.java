@@ -0,0 +1,200 @@
+package com.marketdata.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.zerodhatech.models.OHLCQuote;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class HedgedRequestExecutorTest {
+
+    private static final String[] SYMBOLS = {"NSE:INFY"};
+    private static final long INITIAL_DELAY_MILLIS = 200;
+
+    private final HedgedRequestExecutor executor =
+            new HedgedRequestExecutor(new SimpleMeterRegistry(), 4, 20, 2_000, INITIAL_DELAY_MILLIS, 100, 1_000);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldNotHedgeFastPrimary() {
+        // Given
+        FakeProvider primary = new FakeProvider("zerodha", () -> Map.of("NSE:INFY", 1520.5));
+        FakeProvider secondary = new FakeProvider("upstox", () -> Map.of("NSE:INFY", 1521.0));
+
+        // When
+        Map<String, Object> result = executor.execute("ltp", primary, secondary, provider -> provider.getLTP(SYMBOLS));
+
+        // Then
+        assertEquals(Map.of("NSE:INFY", 1520.5), result, "Primary's answer should be returned");
+        assertEquals(0, secondary.calls.get(), "Secondary should not be called when the primary answers in time");
+    }
+
+    @Test
+    void shouldHedgeSlowPrimaryWithoutInterruptingIt() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch primaryDone = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        FakeProvider primary = new FakeProvider("zerodha", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            primaryDone.countDown();
+            return Map.of("NSE:INFY", 1520.5);
+        });
+        FakeProvider secondary = new FakeProvider("upstox", () -> Map.of("NSE:INFY", 1521.0));
+
+        // When
+        long start = System.nanoTime();
+        Map<String, Object> result = executor.execute("ltp", primary, secondary, provider -> provider.getLTP(SYMBOLS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        // Then
+        assertEquals(Map.of("NSE:INFY", 1521.0), result, "Secondary's answer should win over a slow primary");
+        assertTrue(elapsedMillis >= INITIAL_DELAY_MILLIS - 10, "Secondary should only be called after the hedge delay");
+        assertTrue(primaryDone.await(1, TimeUnit.SECONDS), "Losing primary call should run to completion");
+        assertFalse(interrupted.get(), "Losing primary call should not be interrupted");
+    }
+
+    @Test
+    void shouldHedgeAtOnceWhenPrimaryFails() {
+        // Given
+        FakeProvider primary = new FakeProvider("zerodha", () -> {
+            throw new IllegalStateException("upstream down");
+        });
+        FakeProvider secondary = new FakeProvider("upstox", () -> Map.of("NSE:INFY", 1521.0));
+
+        // When
+        long start = System.nanoTime();
+        Map<String, Object> result = executor.execute("ltp", primary, secondary, provider -> provider.getLTP(SYMBOLS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals(Map.of("NSE:INFY", 1521.0), result, "Secondary should answer for a failed primary");
+        assertTrue(elapsedMillis < INITIAL_DELAY_MILLIS, "Failed primary should be hedged without waiting for the delay");
+    }
+
+    @Test
+    void shouldHedgeAtOnceWhenPrimaryAnswersEmpty() {
+        // Given
+        FakeProvider primary = new FakeProvider("zerodha", Collections::emptyMap);
+        FakeProvider secondary = new FakeProvider("upstox", () -> Map.of("NSE:INFY", 1521.0));
+
+        // When
+        Map<String, Object> result = executor.execute("ltp", primary, secondary, provider -> provider.getLTP(SYMBOLS));
+
+        // Then
+        assertEquals(Map.of("NSE:INFY", 1521.0), result, "Secondary should answer for an empty primary");
+        assertEquals(1, secondary.calls.get(), "Secondary should be called once");
+    }
+
+    @Test
+    void shouldReturnPrimaryAnswerWhenNeitherAnswers() {
+        // Given
+        FakeProvider primary = new FakeProvider("zerodha", Collections::emptyMap);
+        FakeProvider secondary = new FakeProvider("upstox", () -> {
+            throw new IllegalStateException("upstream down");
+        });
+
+        // When
+        Map<String, Object> result = executor.execute("ltp", primary, secondary, provider -> provider.getLTP(SYMBOLS));
+
+        // Then
+        assertTrue(result.isEmpty(), "Primary's empty answer should be returned");
+    }
+
+    @Test
+    void shouldRethrowPrimaryFailureWhenBothFail() {
+        // Given
+        IllegalStateException primaryFailure = new IllegalStateException("zerodha down");
+        FakeProvider primary = new FakeProvider("zerodha", () -> {
+            throw primaryFailure;
+        });
+        FakeProvider secondary = new FakeProvider("upstox", () -> {
+            throw new IllegalStateException("upstox down");
+        });
+
+        // When & Then
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> executor.execute("ltp", primary, secondary, provider -> provider.getLTP(SYMBOLS)),
+                "Failure should be rethrown when no provider answers");
+        assertSame(primaryFailure, error, "Primary's failure should be reported");
+    }
+
+    @Test
+    void shouldCallOnlyPrimaryWithoutSecondary() {
+        // Given
+        FakeProvider primary = new FakeProvider("zerodha", () -> {
+            sleep(INITIAL_DELAY_MILLIS + 100);
+            return Map.of("NSE:INFY", 1520.5);
+        });
+
+        // When
+        Map<String, Object> result = executor.execute("ltp", primary, null, provider -> provider.getLTP(SYMBOLS));
+
+        // Then
+        assertEquals(Map.of("NSE:INFY", 1520.5), result, "Slow primary should be awaited without a secondary");
+        assertEquals(1, primary.calls.get(), "Primary should be called once");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Quote provider answering LTP reads from a supplier
+     */
+    private static final class FakeProvider implements QuoteProvider {
+        final String name;
+        final Supplier<Map<String, Object>> ltp;
+        final AtomicInteger calls = new AtomicInteger();
+
+        FakeProvider(String name, Supplier<Map<String, Object>> ltp) {
+            this.name = name;
+            this.ltp = ltp;
+        }
+
+        @Override
+        public Map<String, Object> getQuotes(String[] symbols) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, OHLCQuote> getOHLC(String[] symbols) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Object> getLTP(String[] symbols) {
+            calls.incrementAndGet();
+            return ltp.get();
+        }
+
+        @Override
+        public String getProviderName() {
+            return name;
+        }
+    }
+}
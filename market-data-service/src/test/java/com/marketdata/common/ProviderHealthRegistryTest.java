@@ -0,0 +1,130 @@
+package com.marketdata.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+public class ProviderHealthRegistryTest {
+
+    private static final long MILLIS_100 = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void shouldAssumeInitialLatencyForUnmeasuredProvider() {
+        // Given & When
+        ProviderHealthRegistry registry = registry(5, 30_000, 60_000);
+
+        // Then
+        assertFalse(registry.isMeasured("upstox", RequestClass.QUOTE), "Provider without calls should not be measured");
+        assertEquals(500, registry.cost("upstox", RequestClass.QUOTE), 0.0, "Unmeasured provider should cost the initial latency");
+        assertFalse(registry.isEjected("upstox", RequestClass.QUOTE), "Unmeasured provider should not be ejected");
+    }
+
+    @Test
+    void shouldCostLatencyInflatedByErrorRate() {
+        // Given
+        ProviderHealthRegistry registry = registry(5, 30_000, 60_000);
+
+        // When
+        registry.recordSuccess("zerodha", RequestClass.QUOTE, MILLIS_100);
+        double healthy = registry.cost("zerodha", RequestClass.QUOTE);
+        registry.recordFailure("zerodha", RequestClass.QUOTE, MILLIS_100);
+        double failing = registry.cost("zerodha", RequestClass.QUOTE);
+
+        // Then
+        assertTrue(registry.isMeasured("zerodha", RequestClass.QUOTE), "Provider with calls should be measured");
+        assertEquals(100, healthy, 1e-9, "Cost of a healthy provider should be its latency");
+        assertEquals(140, failing, 1e-9, "Error rate 0.1 should add 40% to the cost");
+    }
+
+    @Test
+    void shouldEjectAfterConsecutiveFailures() {
+        // Given
+        ProviderHealthRegistry registry = registry(3, 30_000, 60_000);
+
+        // When
+        registry.recordFailure("zerodha", RequestClass.LTP, MILLIS_100);
+        registry.recordFailure("zerodha", RequestClass.LTP, MILLIS_100);
+        boolean afterTwo = registry.isEjected("zerodha", RequestClass.LTP);
+        registry.recordFailure("zerodha", RequestClass.LTP, MILLIS_100);
+
+        // Then
+        assertFalse(afterTwo, "Provider should not be ejected below the consecutive failure limit");
+        assertTrue(registry.isEjected("zerodha", RequestClass.LTP), "Provider should be ejected at the limit");
+        assertFalse(registry.isEjected("zerodha", RequestClass.QUOTE), "Ejection should only apply to the failing request class");
+        assertFalse(registry.isEjected("upstox", RequestClass.LTP), "Ejection should only apply to the failing provider");
+    }
+
+    @Test
+    void shouldNotEjectWhenSuccessBreaksFailureRun() {
+        // Given
+        ProviderHealthRegistry registry = registry(3, 30_000, 60_000);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            registry.recordFailure("zerodha", RequestClass.LTP, MILLIS_100);
+            registry.recordFailure("zerodha", RequestClass.LTP, MILLIS_100);
+            registry.recordSuccess("zerodha", RequestClass.LTP, MILLIS_100);
+        }
+
+        // Then
+        assertFalse(registry.isEjected("zerodha", RequestClass.LTP), "Interrupted failure runs should not eject");
+    }
+
+    @Test
+    void shouldEjectOnErrorRateOnceEnoughCallsWereSeen() {
+        // Given
+        ProviderHealthRegistry registry = new ProviderHealthRegistry(new SimpleMeterRegistry(), 0.3, 5, 30_000, 500, 60_000);
+
+        // When
+        for (int i = 0; i < 6; i++) {
+            registry.recordSuccess("zerodha", RequestClass.OHLC, MILLIS_100);
+        }
+        for (int i = 0; i < 4; i++) {
+            registry.recordFailure("zerodha", RequestClass.OHLC, MILLIS_100);
+        }
+
+        // Then
+        assertTrue(registry.isEjected("zerodha", RequestClass.OHLC),
+                "Error rate above the limit should eject without a full run of consecutive failures");
+    }
+
+    @Test
+    void shouldReadmitWithFreshStatsAfterEjection() throws InterruptedException {
+        // Given
+        ProviderHealthRegistry registry = registry(2, 50, 60_000);
+        registry.recordFailure("zerodha", RequestClass.QUOTE, MILLIS_100);
+        registry.recordFailure("zerodha", RequestClass.QUOTE, MILLIS_100);
+        assertTrue(registry.isEjected("zerodha", RequestClass.QUOTE), "Provider should be ejected");
+
+        // When
+        Thread.sleep(100);
+
+        // Then
+        assertFalse(registry.isEjected("zerodha", RequestClass.QUOTE), "Expired ejection should be lifted");
+        assertFalse(registry.isMeasured("zerodha", RequestClass.QUOTE), "Readmitted provider should start with fresh stats");
+        assertEquals(500, registry.cost("zerodha", RequestClass.QUOTE), 0.0, "Readmitted provider should cost the initial latency");
+    }
+
+    @Test
+    void shouldForgetStaleStats() throws InterruptedException {
+        // Given
+        ProviderHealthRegistry registry = registry(5, 30_000, 50);
+        registry.recordFailure("zerodha", RequestClass.QUOTE, TimeUnit.SECONDS.toNanos(3));
+
+        // When
+        Thread.sleep(100);
+
+        // Then
+        assertFalse(registry.isMeasured("zerodha", RequestClass.QUOTE), "Stats older than the TTL should be forgotten");
+        assertEquals(500, registry.cost("zerodha", RequestClass.QUOTE), 0.0, "Forgotten provider should cost the initial latency");
+    }
+
+    private static ProviderHealthRegistry registry(int consecutiveFailures, long ejectionMillis, long statsTtlMillis) {
+        return new ProviderHealthRegistry(new SimpleMeterRegistry(), 0.5, consecutiveFailures, ejectionMillis, 500,
+                statsTtlMillis);
+    }
+}
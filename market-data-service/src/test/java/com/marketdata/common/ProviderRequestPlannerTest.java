@@ -0,0 +1,129 @@
+package com.marketdata.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProviderRequestPlannerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProviderRequestPlanner planner = new ProviderRequestPlanner(meterRegistry, 4, 64);
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        planner.shutdown();
+    }
+
+    @Test
+    void shouldSplitDeduplicatedSymbolsIntoEndpointSizedChunks() {
+        // Given
+        List<String> symbols = symbols(1200);
+        symbols.addAll(symbols(10));
+
+        // When
+        Map<String, Integer> result = planner.executeForMap(ProviderEndpoint.ZERODHA_QUOTE, symbols, this::lengths);
+
+        // Then
+        assertEquals(1200, result.size(), "Every distinct symbol should be returned once");
+        List<Integer> sizes = new ArrayList<>();
+        calls.forEach(call -> sizes.add(call.size()));
+        Collections.sort(sizes);
+        assertEquals(List.of(200, 500, 500), sizes, "Symbols should be split into calls no larger than the endpoint allows");
+    }
+
+    @Test
+    void shouldThrowPartialResultWhenSomeChunksFail() {
+        // Given
+        IllegalStateException failure = new IllegalStateException("Too many requests");
+
+        // When
+        PartialResultException error = assertThrows(PartialResultException.class,
+                () -> planner.executeForMap(ProviderEndpoint.ZERODHA_QUOTE, symbols(1200), chunk -> {
+                    if (chunk.contains("S0600")) {
+                        throw failure;
+                    }
+                    return lengths(chunk);
+                }), "Failed chunk should fail the request");
+
+        // Then
+        Map<String, Integer> partial = error.getPartialResult();
+        assertEquals(700, partial.size(), "Results of the other chunks should be kept");
+        assertFalse(partial.containsKey("S0600"), "Failed symbols should not be in the result");
+        assertEquals(new HashSet<>(symbols(1000).subList(500, 1000)), error.getFailedSymbols(),
+                "Every symbol of the failed chunk should be reported");
+        assertSame(failure, error.getCause(), "Chunk failure should be the cause");
+        assertEquals(1.0, meterRegistry.counter("market-data.provider.planner.chunk.error", "endpoint", "ZERODHA_QUOTE")
+                .count(), 0.0, "Failed chunk should be counted");
+    }
+
+    @Test
+    void shouldKeepPartialListResults() {
+        // When
+        PartialResultException error = assertThrows(PartialResultException.class,
+                () -> planner.executeForList(ProviderEndpoint.UPSTOX_OHLC, symbols(600), chunk -> {
+                    if (chunk.size() < 500) {
+                        throw new IllegalStateException("Bad gateway");
+                    }
+                    return chunk;
+                }), "Failed chunk should fail the request");
+
+        // Then
+        List<String> partial = error.getPartialResult();
+        assertEquals(symbols(500), partial, "Results of the other chunk should be kept");
+        assertEquals(Set.copyOf(symbols(600).subList(500, 600)), error.getFailedSymbols(), "Failed symbols should be reported");
+    }
+
+    @Test
+    void shouldThrowFailureWhenEveryChunkFails() {
+        // Given
+        IllegalStateException failure = new IllegalStateException("Token expired");
+
+        // When & Then
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> planner.executeForMap(ProviderEndpoint.ZERODHA_QUOTE, symbols(1200), chunk -> {
+                    throw failure;
+                }), "Request should fail when nothing was returned"), "Provider failure should be thrown as is");
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> planner.executeForMap(ProviderEndpoint.ZERODHA_QUOTE, symbols(10), chunk -> {
+                    throw failure;
+                }), "Single call should fail the request"), "Provider failure should be thrown as is");
+    }
+
+    @Test
+    void shouldReturnNothingForNoSymbols() {
+        // When
+        Map<String, Integer> result = planner.executeForMap(ProviderEndpoint.ZERODHA_QUOTE, List.of(), this::lengths);
+
+        // Then
+        assertTrue(result.isEmpty(), "No symbols should give no results");
+        assertTrue(calls.isEmpty(), "No call should be made");
+    }
+
+    private Map<String, Integer> lengths(List<String> chunk) {
+        calls.add(chunk);
+        Map<String, Integer> lengths = new HashMap<>();
+        chunk.forEach(symbol -> lengths.put(symbol, symbol.length()));
+        return lengths;
+    }
+
+    private static List<String> symbols(int count) {
+        List<String> symbols = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            symbols.add(String.format("S%04d", i));
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,202 @@
+package com.marketdata.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class QuoteBatcherTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService upstreamExecutor = Executors.newFixedThreadPool(2);
+    private final List<List<String>> upstreamCalls = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        upstreamExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldServeConcurrentLookupsWithOneDeduplicatedCall() throws Exception {
+        // Given
+        QuoteBatcher<Double> batcher = batcher(prices(), 50, 1_000, 100);
+
+        // When
+        CompletableFuture<Map<String, Double>> first = batcher.submit(new String[]{"INFY", "TCS"});
+        CompletableFuture<Map<String, Double>> second = batcher.submit(new String[]{"TCS", "SBIN"});
+
+        // Then
+        assertEquals(Map.of("INFY", 4.0, "TCS", 3.0), first.get(1, TimeUnit.SECONDS), "Caller should get only its symbols");
+        assertEquals(Map.of("TCS", 3.0, "SBIN", 4.0), second.get(1, TimeUnit.SECONDS), "Caller should get only its symbols");
+        assertEquals(List.of(List.of("INFY", "TCS", "SBIN")), upstreamCalls, "Lookups should share one call without duplicates");
+    }
+
+    @Test
+    void shouldSplitBatchIntoProviderSizedChunks() {
+        // Given
+        QuoteBatcher<Double> batcher = batcher(prices(), 50, 1_000, 2);
+
+        // When
+        Map<String, Double> quotes = batcher.get(new String[]{"A", "BB", "CCC", "DDDD", "EEEEE"});
+
+        // Then
+        assertEquals(Map.of("A", 1.0, "BB", 2.0, "CCC", 3.0, "DDDD", 4.0, "EEEEE", 5.0), quotes, "Every chunk should be merged");
+        assertEquals(List.of(List.of("A", "BB"), List.of("CCC", "DDDD"), List.of("EEEEE")), upstreamCalls,
+                "No call should exceed the provider limit");
+    }
+
+    @Test
+    void shouldFlushFullBatchBeforeWindowEnds() {
+        // Given
+        QuoteBatcher<Double> batcher = batcher(prices(), 10_000, 1_000, 2);
+
+        // When
+        long start = System.nanoTime();
+        Map<String, Double> quotes = batcher.get(new String[]{"INFY", "TCS"});
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals(2, quotes.size(), "Full batch should be served");
+        assertTrue(elapsedMillis < 1_000, "Full batch should not wait for the window");
+    }
+
+    @Test
+    void shouldFailOnlyCallersOfFailedChunk() throws Exception {
+        // Given
+        IllegalStateException failure = new IllegalStateException("upstream down");
+        QuoteBatcher<Double> batcher = batcher(symbols -> {
+            if (Arrays.asList(symbols).contains("SBIN")) {
+                upstreamCalls.add(Arrays.asList(symbols));
+                throw failure;
+            }
+            return prices().apply(symbols);
+        }, 10_000, 1_000, 2);
+
+        // When
+        CompletableFuture<Map<String, Double>> healthy = batcher.submit(new String[]{"INFY"});
+        CompletableFuture<Map<String, Double>> affected = batcher.submit(new String[]{"TCS", "SBIN", "HDFCBANK"});
+
+        // Then
+        assertEquals(Map.of("INFY", 4.0), healthy.get(1, TimeUnit.SECONDS), "Caller of the healthy chunk should be served");
+        ExecutionException error = assertThrows(ExecutionException.class, () -> affected.get(1, TimeUnit.SECONDS),
+                "Caller with a symbol in the failed chunk should fail");
+        assertSame(failure, error.getCause(), "Caller should see the upstream failure");
+        assertEquals(2, upstreamCalls.size(), "Both chunks should be called");
+    }
+
+    @Test
+    void shouldFailOnlyCallersOfSymbolsMissingFromPartialResult() throws Exception {
+        // Given
+        QuoteBatcher<Double> batcher = batcher(symbols -> {
+            throw new PartialResultException("1 of 2 calls failed", Map.of("INFY", 4.0, "TCS", 3.0), List.of("SBIN"),
+                    new IllegalStateException("upstream down"));
+        }, 50, 1_000, 10);
+
+        // When
+        CompletableFuture<Map<String, Double>> healthy = batcher.submit(new String[]{"INFY", "TCS"});
+        CompletableFuture<Map<String, Double>> affected = batcher.submit(new String[]{"TCS", "SBIN"});
+
+        // Then
+        assertEquals(Map.of("INFY", 4.0, "TCS", 3.0), healthy.get(1, TimeUnit.SECONDS),
+                "Caller of returned symbols should be served");
+        ExecutionException error = assertThrows(ExecutionException.class, () -> affected.get(1, TimeUnit.SECONDS),
+                "Caller of a failed symbol should fail");
+        assertInstanceOf(PartialResultException.class, error.getCause(), "Caller should see the partial failure");
+    }
+
+    @Test
+    void shouldTimeOutWaitingForSlowUpstream() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        QuoteBatcher<Double> batcher = batcher(symbols -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return prices().apply(symbols);
+        }, 5, 100, 100);
+
+        // When
+        long start = System.nanoTime();
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> batcher.get(new String[]{"INFY"}),
+                "Caller should give up after the timeout");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        // Then
+        assertTrue(error.getMessage().contains("Timed out"), "Error should report the timeout");
+        assertTrue(elapsedMillis >= 100 && elapsedMillis < 1_000, "Caller should wait about the timeout");
+    }
+
+    @Test
+    void shouldFailCallersWhenUpstreamExecutorRejects() {
+        // Given
+        QuoteBatcher<Double> batcher = new QuoteBatcher<>("ltp", prices(), scheduler, command -> {
+            throw new RejectedExecutionException("full");
+        }, 5, 1_000, 100, new SimpleMeterRegistry());
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, () -> batcher.get(new String[]{"INFY"}),
+                "Batch without upstream capacity should fail its callers");
+    }
+
+    @Test
+    void shouldServeQualifiedSymbolsReturnedWithoutExchange() {
+        // Given
+        QuoteBatcher<Double> batcher = batcher(symbols -> {
+            upstreamCalls.add(Arrays.asList(symbols));
+            Map<String, Double> quotes = new HashMap<>();
+            for (String symbol : symbols) {
+                String plain = symbol.substring(symbol.indexOf(':') + 1);
+                quotes.put(plain, (double) plain.length());
+            }
+            return quotes;
+        }, 5, 1_000, 100);
+
+        // When
+        Map<String, Double> quotes = batcher.get(new String[]{"NSE:INFY"});
+
+        // Then
+        assertEquals(Map.of("INFY", 4.0), quotes, "Quote keyed by the plain symbol should be served");
+    }
+
+    private QuoteBatcher<Double> batcher(Function<String[], Map<String, Double>> upstream, long windowMillis,
+                                         long timeoutMillis, int maxSymbolsPerCall) {
+        return new QuoteBatcher<>("ltp", upstream, scheduler, upstreamExecutor, windowMillis, timeoutMillis,
+                maxSymbolsPerCall, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Upstream that records its calls and prices each symbol at its length
+     */
+    private Function<String[], Map<String, Double>> prices() {
+        return symbols -> {
+            upstreamCalls.add(Arrays.asList(symbols));
+            Map<String, Double> quotes = new HashMap<>();
+            for (String symbol : symbols) {
+                quotes.put(symbol, (double) symbol.length());
+            }
+            return quotes;
+        };
+    }
+}
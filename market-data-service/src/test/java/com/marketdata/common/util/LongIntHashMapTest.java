@@ -0,0 +1,98 @@
+package com.marketdata.common.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class LongIntHashMapTest {
+
+    @Test
+    void shouldReturnMissingValueForAbsentKeys() {
+        // Given & When
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+        map.put(256265L, 7);
+
+        // Then
+        assertEquals(7, map.get(256265L), "Mapped value should be returned");
+        assertEquals(-1, map.get(260105L), "Absent key should return the missing value");
+        assertTrue(map.containsKey(256265L), "Mapped key should be contained");
+        assertFalse(map.containsKey(260105L), "Absent key should not be contained");
+    }
+
+    @Test
+    void shouldReplaceExistingMapping() {
+        // Given
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+        map.put(408065L, 1);
+
+        // When
+        map.put(408065L, 2);
+
+        // Then
+        assertEquals(2, map.get(408065L), "Later put should replace the value");
+        assertEquals(1, map.size(), "Replacing should not add an entry");
+    }
+
+    @Test
+    void shouldKeepAllEntriesWhenGrowingPastExpectedSize() {
+        // Given & When
+        LongIntHashMap map = new LongIntHashMap(2, -1);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31L - 5_000, i);
+        }
+
+        // Then
+        assertEquals(10_000, map.size(), "Every distinct key should be counted");
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get(i * 31L - 5_000), "Key should survive rehashing");
+        }
+    }
+
+    @Test
+    void shouldVisitEveryEntry() {
+        // Given
+        LongIntHashMap map = new LongIntHashMap(16, -1);
+        map.put(1L, 10);
+        map.put(-2L, 20);
+        map.put(Long.MAX_VALUE, 30);
+
+        // When
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+
+        // Then
+        assertEquals(Map.of(1L, 10, -2L, 20, Long.MAX_VALUE, 30), visited, "Every entry should be visited once");
+    }
+
+    @Test
+    void shouldCopyIndependently() {
+        // Given
+        LongIntHashMap map = new LongIntHashMap(16, -1);
+        map.put(1L, 10);
+
+        // When
+        LongIntHashMap copy = map.copy();
+        copy.put(1L, 11);
+        copy.put(2L, 20);
+        map.put(3L, 30);
+
+        // Then
+        assertEquals(10, map.get(1L), "Changing the copy should not change the source");
+        assertFalse(map.containsKey(2L), "Keys added to the copy should not appear in the source");
+        assertEquals(11, copy.get(1L), "Copy should hold its own value");
+        assertFalse(copy.containsKey(3L), "Keys added to the source should not appear in the copy");
+    }
+
+    @Test
+    void shouldRejectReservedKey() {
+        // Given
+        LongIntHashMap map = new LongIntHashMap(16, -1);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, 1),
+                "Long.MIN_VALUE marks empty slots and should be rejected");
+    }
+}
@@ -0,0 +1,156 @@
+package com.marketdata.common.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public class SingleFlightTest {
+
+    @Test
+    void shouldShareOneExecutionBetweenConcurrentCallers() throws InterruptedException {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Object> call = () -> {
+            executions.incrementAndGet();
+            await(release);
+            return new Object();
+        };
+        List<AtomicReference<Object>> results = new ArrayList<>();
+        List<Thread> callers = new ArrayList<>();
+
+        // When
+        callers.add(start(() -> singleFlight.execute("NSE:INFY", call), results));
+        waitUntil(() -> singleFlight.inFlight() == 1);
+        for (int i = 0; i < 4; i++) {
+            callers.add(start(() -> singleFlight.execute("NSE:INFY", call), results));
+        }
+        for (Thread caller : callers) {
+            waitUntil(() -> caller.getState() == Thread.State.WAITING);
+        }
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        // Then
+        assertEquals(1, executions.get(), "Concurrent callers should share one execution");
+        for (AtomicReference<Object> result : results) {
+            assertSame(results.get(0).get(), result.get(), "Every caller should get the leader's result");
+        }
+        assertEquals(0, singleFlight.inFlight(), "Finished call should be removed");
+    }
+
+    @Test
+    void shouldShareLeaderFailureAndReleaseKey() throws InterruptedException {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("upstream down");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Throwable> leaderError = new AtomicReference<>();
+        AtomicReference<Throwable> followerError = new AtomicReference<>();
+
+        // When
+        Thread leader = new Thread(() -> {
+            try {
+                singleFlight.execute("NSE:INFY", () -> {
+                    await(release);
+                    throw failure;
+                });
+            } catch (RuntimeException e) {
+                leaderError.set(e);
+            }
+        });
+        leader.start();
+        waitUntil(() -> singleFlight.inFlight() == 1);
+        Thread follower = new Thread(() -> {
+            try {
+                singleFlight.execute("NSE:INFY", () -> "not run");
+            } catch (RuntimeException e) {
+                followerError.set(e);
+            }
+        });
+        follower.start();
+        waitUntil(() -> follower.getState() == Thread.State.WAITING);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        // Then
+        assertSame(failure, leaderError.get(), "Leader should see its own exception");
+        assertSame(failure, followerError.get(), "Follower should get the leader's exception");
+        assertEquals(0, singleFlight.inFlight(), "Failed call should be removed");
+        assertEquals("retried", singleFlight.execute("NSE:INFY", () -> "retried"), "Next call should run again");
+    }
+
+    @Test
+    void shouldNotCacheFinishedCalls() {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+
+        // When
+        singleFlight.execute("NSE:INFY", executions::incrementAndGet);
+        singleFlight.execute("NSE:INFY", executions::incrementAndGet);
+
+        // Then
+        assertEquals(2, executions.get(), "Sequential calls should each run");
+    }
+
+    @Test
+    void shouldNotMergeCallsWithDifferentKeys() throws InterruptedException {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        List<AtomicReference<Object>> results = new ArrayList<>();
+
+        // When
+        Thread first = start(() -> singleFlight.execute("NSE:INFY", () -> {
+            await(release);
+            return "INFY";
+        }), results);
+        waitUntil(() -> singleFlight.inFlight() == 1);
+        Object second = singleFlight.execute("NSE:TCS", () -> "TCS");
+        release.countDown();
+        first.join();
+
+        // Then
+        assertEquals("TCS", second, "Different key should run while another call is in flight");
+        assertEquals("INFY", results.get(0).get(), "In-flight call should keep its own result");
+    }
+
+    private static Thread start(Supplier<Object> call, List<AtomicReference<Object>> results) {
+        AtomicReference<Object> result = new AtomicReference<>();
+        results.add(result);
+        Thread thread = new Thread(() -> result.set(call.get()));
+        thread.start();
+        return thread;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not reached within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
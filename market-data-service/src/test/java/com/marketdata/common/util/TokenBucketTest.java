@@ -0,0 +1,93 @@
+package com.marketdata.common.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketTest {
+
+    @Test
+    void shouldGrantBurstWithoutWaiting() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        // When
+        long start = System.nanoTime();
+        boolean first = bucket.tryAcquire(0, TimeUnit.MILLISECONDS);
+        boolean second = bucket.tryAcquire(0, TimeUnit.MILLISECONDS);
+        boolean third = bucket.tryAcquire(0, TimeUnit.MILLISECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(first && second && third, "A full bucket should grant its whole burst");
+        assertTrue(elapsedMillis < 500, "The burst should not wait for refills");
+    }
+
+    @Test
+    void shouldRefuseWithoutWaitingWhenNextPermitIsDueAfterTimeout() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(1, 1);
+        assertTrue(bucket.tryAcquire(0, TimeUnit.MILLISECONDS), "First permit should be granted");
+
+        // When
+        long start = System.nanoTime();
+        boolean acquired = bucket.tryAcquire(50, TimeUnit.MILLISECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertFalse(acquired, "Permit due in about a second should not be granted within 50ms");
+        assertTrue(elapsedMillis < 50, "Refusal should not wait for the timeout");
+        assertTrue(bucket.availablePermits() < 1, "Refused caller should not take a permit");
+    }
+
+    @Test
+    void shouldWaitForPermitDueWithinTimeout() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(20, 1);
+        assertTrue(bucket.tryAcquire(0, TimeUnit.MILLISECONDS), "First permit should be granted");
+
+        // When
+        long start = System.nanoTime();
+        boolean acquired = bucket.tryAcquire(1, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(acquired, "Permit due in 50ms should be granted within a second");
+        assertTrue(elapsedMillis >= 30, "Caller should wait until the permit is due");
+    }
+
+    @Test
+    void shouldReportReservedPermitsAsNegative() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(1, 1);
+        bucket.tryAcquire(0, TimeUnit.MILLISECONDS);
+
+        // When
+        Thread waiter = new Thread(() -> {
+            try {
+                bucket.tryAcquire(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING && waiter.isAlive()) {
+            Thread.onSpinWait();
+        }
+        double available = bucket.availablePermits();
+        waiter.interrupt();
+        waiter.join();
+
+        // Then
+        assertTrue(available < 0, "A waiting caller should hold a reserved permit");
+    }
+
+    @Test
+    void shouldRejectNonPositiveRateOrBurst() {
+        // Given & When & Then
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1), "Zero rate should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0), "Zero burst should be rejected");
+    }
+}
@@ -0,0 +1,293 @@
+package com.marketdata.service.bar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.am.marketdata.common.model.TimeFrame;
+import com.marketdata.service.tick.TickLatencyRecorder;
+import com.marketdata.service.tick.TickPipeline;
+import com.marketdata.service.zerodha.ZerodhaApiService;
+import com.marketdata.service.zerodha.ZerodhaTickerPool;
+import com.zerodhatech.models.HistoricalData;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class BarBackfillServiceTest {
+
+    private static final long INFY = 408065L;
+    private static final long TCS = 2953217L;
+    private static final long RELIANCE = 738561L;
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+    private static final DateTimeFormatter CANDLE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
+
+    private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+    private final List<Bar> backfilled = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private MeterRegistry meterRegistry;
+    private TickPipeline tickPipeline;
+    private ZerodhaTickerPool.ConnectionListener connectionListener;
+    private BarBackfillService backfillService;
+    private volatile long now;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tickPipeline = new TickPipeline(meterRegistry, new TickLatencyRecorder(meterRegistry));
+        ReflectionTestUtils.setField(tickPipeline, "bufferSize", 1024);
+        ReflectionTestUtils.setField(tickPipeline, "batchSize", 256);
+        ReflectionTestUtils.setField(tickPipeline, "idleParkMicros", 1000L);
+        tickPipeline.initialize();
+
+        backfillService = new BarBackfillService(tickPipeline, new FakeZerodhaApiService(), new ListenerProvider(),
+                meterRegistry) {
+            @Override
+            long currentTimeMillis() {
+                return now;
+            }
+        };
+        ReflectionTestUtils.setField(backfillService, "enabled", true);
+        ReflectionTestUtils.setField(backfillService, "minGapMillis", 1000L);
+        ReflectionTestUtils.setField(backfillService, "maxGapMinutes", 120);
+        ReflectionTestUtils.setField(backfillService, "settleMillis", 5000L);
+        ReflectionTestUtils.setField(backfillService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(backfillService, "retryDelayMillis", 10L);
+        backfillService.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        backfillService.cleanup();
+        tickPipeline.cleanup();
+    }
+
+    @Test
+    void shouldFetchExactlyTheMinutesTheGapTouched() {
+        // Given
+        backfillService.onTick(tick(INFY, ist(1, 9, 20, 30)), System.nanoTime());
+        now = ist(1, 9, 21, 20);
+        connectionListener.onTokensDisconnected(List.of(INFY));
+
+        // When
+        now = ist(1, 9, 30, 0);
+        backfillService.onTick(tick(INFY, ist(1, 9, 23, 10)), System.nanoTime());
+        waitUntil(() -> backfilled.size() == 3);
+
+        // Then
+        assertEquals(List.of(new Request(INFY, ist(1, 9, 21, 0), ist(1, 9, 23, 0))), requests,
+                "One request should cover the minutes from the disconnect to the first tick after it");
+        assertEquals(List.of(ist(1, 9, 21, 0), ist(1, 9, 22, 0), ist(1, 9, 23, 0)), startTimes(),
+                "Only candles inside the gap should be backfilled");
+        Bar bar = backfilled.get(0);
+        assertEquals(INFY, bar.getInstrumentToken(), "Candle should belong to the instrument");
+        assertEquals(TimeFrame.MINUTE, bar.getTimeFrame(), "Backfilled candles should be minute candles");
+        assertEquals(921.0, bar.getOpen(), 0.0, "Open should be taken from the fetched candle");
+        assertEquals(921.5, bar.getClose(), 0.0, "Close should be taken from the fetched candle");
+        assertEquals(921L, bar.getVolume(), "Volume should be taken from the fetched candle");
+        assertEquals(0, backfillService.getPendingCount(), "Fetched gap should no longer be pending");
+    }
+
+    @Test
+    void shouldStartGapAtLastTickWhenReceivedAfterDisconnectTime() {
+        // Given
+        long receivedBeforeDisconnect = System.nanoTime();
+        now = ist(1, 9, 21, 0);
+        connectionListener.onTokensDisconnected(List.of(INFY));
+
+        // When
+        backfillService.onTick(tick(INFY, ist(1, 9, 22, 30)), receivedBeforeDisconnect);
+        assertEquals(0, backfillService.getPendingCount(), "Tick received before the disconnect should not close the gap");
+        now = ist(1, 9, 40, 0);
+        backfillService.onTick(tick(INFY, ist(1, 9, 25, 10)), System.nanoTime());
+        waitUntil(() -> requests.size() == 1);
+
+        // Then
+        assertEquals(new Request(INFY, ist(1, 9, 22, 0), ist(1, 9, 25, 0)), requests.get(0),
+                "Gap should start at the instrument's last tick when that came after the disconnect time");
+    }
+
+    @Test
+    void shouldIgnoreShortGapsAndSkipGapsTooLongToBackfill() {
+        // Given
+        backfillService.onTick(tick(INFY, ist(1, 9, 20, 0)), System.nanoTime());
+        now = ist(1, 9, 20, 0) + 200;
+        connectionListener.onTokensDisconnected(List.of(INFY));
+        now = ist(1, 9, 20, 0);
+        connectionListener.onTokensDisconnected(List.of(TCS));
+        now = ist(1, 15, 29, 0);
+        connectionListener.onTokensDisconnected(List.of(RELIANCE));
+
+        // When
+        now = ist(2, 10, 0, 0);
+        backfillService.onTick(tick(INFY, ist(1, 9, 20, 0) + 900), System.nanoTime());
+        backfillService.onTick(tick(TCS, ist(1, 11, 20, 0)), System.nanoTime());
+        backfillService.onTick(tick(RELIANCE, ist(2, 9, 15, 5)), System.nanoTime());
+
+        // Then
+        assertEquals(0, backfillService.getPendingCount(), "No gap should be scheduled");
+        assertEquals(0.0, meterRegistry.get("market-data.bars.backfill.gaps").functionCounter().count(), 0.0,
+                "No gap should be counted");
+        assertEquals(2.0, meterRegistry.counter("market-data.bars.backfill.skipped").count(), 0.0,
+                "Gaps of two hours or across the trading day should be skipped");
+    }
+
+    @Test
+    void shouldWidenPendingWindowForAnotherOutageBeforeFetching() {
+        // Given
+        now = ist(1, 9, 21, 0);
+        connectionListener.onTokensDisconnected(List.of(INFY));
+        now = ist(1, 9, 23, 5) - 300;
+        backfillService.onTick(tick(INFY, ist(1, 9, 22, 10)), System.nanoTime());
+
+        // When
+        connectionListener.onTokensDisconnected(List.of(INFY));
+        backfillService.onTick(tick(INFY, ist(1, 9, 24, 30)), System.nanoTime());
+        now = ist(1, 10, 0, 0);
+        waitUntil(() -> requests.size() == 1);
+
+        // Then
+        assertEquals(new Request(INFY, ist(1, 9, 21, 0), ist(1, 9, 24, 0)), requests.get(0),
+                "Both outages should be fetched by one request");
+        assertEquals(2.0, meterRegistry.get("market-data.bars.backfill.gaps").functionCounter().count(), 0.0,
+                "Both gaps should be counted");
+    }
+
+    @Test
+    void shouldRetryFailedBackfill() {
+        // Given
+        failuresLeft.set(1);
+        now = ist(1, 9, 21, 0);
+        connectionListener.onTokensDisconnected(List.of(INFY));
+
+        // When
+        now = ist(1, 10, 0, 0);
+        backfillService.onTick(tick(INFY, ist(1, 9, 22, 10)), System.nanoTime());
+        waitUntil(() -> backfilled.size() == 2);
+
+        // Then
+        assertEquals(2, requests.size(), "Failed request should be retried");
+        assertEquals(requests.get(0), requests.get(1), "Retry should fetch the same window");
+        assertEquals(1.0, meterRegistry.counter("market-data.bars.backfill.error").count(), 0.0, "Failure should be counted");
+    }
+
+    private List<Long> startTimes() {
+        List<Long> startTimes = new ArrayList<>();
+        synchronized (backfilled) {
+            backfilled.forEach(bar -> startTimes.add(bar.getStartMillis()));
+        }
+        return startTimes;
+    }
+
+    private static Tick tick(long token, long eventMillis) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setTickTimestamp(new Date(eventMillis));
+        return tick;
+    }
+
+    private static long ist(int day, int hour, int minute, int second) {
+        return ZonedDateTime.of(2024, 3, day, hour, minute, second, 0, IST).toInstant().toEpochMilli();
+    }
+
+    private static void waitUntil(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not reached within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private record Request(long token, long fromMillis, long toMillis) {
+    }
+
+    /**
+     * Kite client serving a candle for every minute from one before the requested window to one after it
+     */
+    private final class FakeZerodhaApiService extends ZerodhaApiService {
+
+        FakeZerodhaApiService() {
+            super(null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public void initialize() {
+        }
+
+        @Override
+        public void addTickerConnectionListener(ZerodhaTickerPool.ConnectionListener listener) {
+            connectionListener = listener;
+        }
+
+        @Override
+        public HistoricalData getHistoricalData(long instrumentToken, Date from, Date to, TimeFrame timeFrame, boolean oi) {
+            requests.add(new Request(instrumentToken, from.getTime(), to.getTime()));
+            if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IllegalStateException("Too many requests");
+            }
+            HistoricalData data = new HistoricalData();
+            for (long minute = from.getTime() - 60_000L; minute <= to.getTime() + 60_000L; minute += 60_000L) {
+                ZonedDateTime start = Instant.ofEpochMilli(minute).atZone(IST);
+                HistoricalData candle = new HistoricalData();
+                candle.timeStamp = CANDLE_TIME.format(start);
+                candle.open = start.getHour() * 100 + start.getMinute();
+                candle.high = candle.open + 1;
+                candle.low = candle.open - 1;
+                candle.close = candle.open + 0.5;
+                candle.volume = (long) candle.open;
+                data.dataArrayList.add(candle);
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Provides the one listener collecting backfilled candles
+     */
+    private final class ListenerProvider implements ObjectProvider<BarListener> {
+
+        @Override
+        public BarListener getObject(Object... args) {
+            return getObject();
+        }
+
+        @Override
+        public BarListener getIfAvailable() {
+            return getObject();
+        }
+
+        @Override
+        public BarListener getIfUnique() {
+            return getObject();
+        }
+
+        @Override
+        public BarListener getObject() {
+            return backfilled::addAll;
+        }
+
+        @Override
+        public Stream<BarListener> orderedStream() {
+            return Stream.of(getObject());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.marketdata.service.bar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.am.marketdata.common.model.TimeFrame;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BarBookTest {
+
+    private static final long INFY = 408065L;
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    @Test
+    void shouldAlignIntradayBucketsToSessionOpen() {
+        assertEquals(ist(1, 9, 15, 0), BarBook.bucketStart(ist(1, 9, 19, 59), TimeFrame.FIVE_MINUTE),
+                "Five minute candle should start at the session open");
+        assertEquals(ist(1, 9, 20, 0), BarBook.bucketStart(ist(1, 9, 20, 0), TimeFrame.FIVE_MINUTE),
+                "Next five minute candle should start on its boundary");
+        assertEquals(ist(1, 9, 15, 0), BarBook.bucketStart(ist(1, 9, 17, 59), TimeFrame.THREE_MINUTE),
+                "Three minute candle should start at the session open");
+        assertEquals(ist(1, 10, 15, 0), BarBook.bucketStart(ist(1, 10, 44, 0), TimeFrame.HOUR),
+                "Hourly candles should start at quarter past like Kite's");
+        assertEquals(ist(1, 9, 0, 0), BarBook.bucketStart(ist(1, 9, 14, 0), TimeFrame.FIFTEEN_MINUTE),
+                "Pre-open ticks should fall in the candle before the session open");
+        assertEquals(ist(1, 0, 0, 0), BarBook.bucketStart(ist(1, 15, 29, 0), TimeFrame.DAY),
+                "Day candle should start at midnight IST");
+        assertEquals(ist(1, 0, 0, 0), BarBook.bucketStart(ist(1, 0, 10, 0), TimeFrame.DAY),
+                "Day candle should start at midnight IST, not UTC");
+    }
+
+    @Test
+    void shouldBuildCandleFromTicksAndCloseItOnNextBucket() {
+        // Given
+        BarBook book = new BarBook(new TimeFrame[]{TimeFrame.MINUTE, TimeFrame.FIVE_MINUTE}, 16);
+        List<Bar> completed = new ArrayList<>();
+
+        // When
+        book.update(INFY, ist(1, 9, 15, 10), 100.0, 1_000, true, 5, completed);
+        book.update(INFY, ist(1, 9, 15, 30), 102.0, 1_200, true, 6, completed);
+        book.update(INFY, ist(1, 9, 15, 50), 99.0, 1_500, true, 7, completed);
+        book.update(INFY, ist(1, 9, 16, 5), 101.0, 1_600, true, 8, completed);
+
+        // Then
+        assertEquals(1, completed.size(), "Only the minute candle should be closed");
+        Bar bar = completed.get(0);
+        assertEquals(INFY, bar.getInstrumentToken(), "Candle should belong to the instrument");
+        assertEquals(TimeFrame.MINUTE, bar.getTimeFrame(), "Minute candle should be closed");
+        assertEquals(ist(1, 9, 15, 0), bar.getStartMillis(), "Candle should start on its bucket");
+        assertEquals(100.0, bar.getOpen(), 0.0, "Open should be the first price");
+        assertEquals(102.0, bar.getHigh(), 0.0, "High should be the highest price");
+        assertEquals(99.0, bar.getLow(), 0.0, "Low should be the lowest price");
+        assertEquals(99.0, bar.getClose(), 0.0, "Close should be the last price");
+        assertEquals(500, bar.getVolume(), "Volume before the first tick should not be attributed to the candle");
+        assertEquals(7, bar.getOpenInterest(), 0.0, "Open interest should be the last one");
+        assertEquals(3, bar.getTickCount(), "Every tick in the bucket should be counted");
+
+        // When
+        completed.clear();
+        book.closeExpired(ist(1, 9, 20, 0), completed);
+
+        // Then
+        assertEquals(2, completed.size(), "Both open candles should be closed by the watermark");
+        Bar minute = completed.get(0);
+        Bar fiveMinute = completed.get(1);
+        assertEquals(100, minute.getVolume(), "Next minute should start from the previous candle's volume");
+        assertEquals(101.0, minute.getOpen(), 0.0, "Next minute should open at its first price");
+        assertEquals(600, fiveMinute.getVolume(), "Five minute candle should cover every tick in it");
+        assertEquals(4, fiveMinute.getTickCount(), "Five minute candle should count every tick in it");
+    }
+
+    @Test
+    void shouldRestartVolumeOnNewTradingDay() {
+        // Given
+        BarBook book = new BarBook(new TimeFrame[]{TimeFrame.MINUTE}, 16);
+        List<Bar> completed = new ArrayList<>();
+        book.update(INFY, ist(1, 15, 29, 10), 100.0, 10_000, true, 0, completed);
+        book.update(INFY, ist(1, 15, 29, 20), 100.0, 10_100, true, 0, completed);
+
+        // When
+        book.update(INFY, ist(2, 9, 15, 10), 101.0, 50, true, 0, completed);
+        book.closeExpired(ist(2, 9, 16, 0), completed);
+
+        // Then
+        assertEquals(2, completed.size(), "Both days' candles should be closed");
+        assertEquals(100, completed.get(0).getVolume(), "Previous day's candle should keep its volume");
+        assertEquals(50, completed.get(1).getVolume(), "New day's volume should count from zero");
+    }
+
+    @Test
+    void shouldKeepVolumeForTicksWithoutVolume() {
+        // Given
+        BarBook book = new BarBook(new TimeFrame[]{TimeFrame.MINUTE}, 16);
+        List<Bar> completed = new ArrayList<>();
+        book.update(INFY, ist(1, 9, 15, 10), 100.0, 1_000, true, 0, completed);
+        book.update(INFY, ist(1, 9, 15, 20), 100.5, 1_300, true, 0, completed);
+
+        // When
+        book.update(INFY, ist(1, 9, 15, 30), 101.0, 0, false, 0, completed);
+        book.closeExpired(ist(1, 9, 16, 0), completed);
+
+        // Then
+        assertEquals(300, completed.get(0).getVolume(), "LTP-mode tick should not reset the volume");
+        assertEquals(101.0, completed.get(0).getClose(), 0.0, "LTP-mode tick should still move the price");
+    }
+
+    @Test
+    void shouldIgnoreTicksForClosedCandles() {
+        // Given
+        BarBook book = new BarBook(new TimeFrame[]{TimeFrame.MINUTE}, 16);
+        List<Bar> completed = new ArrayList<>();
+        book.update(INFY, ist(1, 9, 15, 10), 100.0, 1_000, true, 0, completed);
+        book.closeExpired(ist(1, 9, 16, 0), completed);
+        book.update(INFY, ist(1, 9, 16, 10), 101.0, 1_100, true, 0, completed);
+
+        // When
+        book.update(INFY, ist(1, 9, 15, 50), 99.0, 1_050, true, 0, completed);
+        book.closeExpired(ist(1, 9, 17, 0), completed);
+        book.update(INFY, ist(1, 9, 16, 59), 98.0, 1_200, true, 0, completed);
+
+        // Then
+        assertEquals(2, book.getLateTicks(), "Ticks for closed candles should be counted as late");
+        assertEquals(2, completed.size(), "Late ticks should not reopen candles");
+        assertEquals(101.0, completed.get(1).getLow(), 0.0, "Late tick should not change the open candle");
+    }
+
+    @Test
+    void shouldKeepCandlesWhenGrowingPastInitialCapacity() {
+        // Given
+        BarBook book = new BarBook(new TimeFrame[]{TimeFrame.MINUTE, TimeFrame.DAY}, 16);
+        List<Bar> completed = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 40; i++) {
+            book.update(1_000L + i, ist(1, 9, 15, 10), i, 0, true, 0, completed);
+        }
+        book.closeExpired(ist(1, 9, 16, 0), completed);
+
+        // Then
+        assertEquals(40, book.size(), "Every instrument should get a slot");
+        assertEquals(40, completed.size(), "Only minute candles should be closed");
+        for (int i = 0; i < 40; i++) {
+            assertEquals(1_000L + i, completed.get(i).getInstrumentToken(), "Candle should keep its instrument");
+            assertEquals(i, completed.get(i).getClose(), 0.0, "Candle should survive growing the columns");
+        }
+    }
+
+    private static long ist(int day, int hour, int minute, int second) {
+        return ZonedDateTime.of(2024, 3, day, hour, minute, second, 0, IST).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,140 @@
+package com.marketdata.service.instrument;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.zerodhatech.models.Instrument;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+public class InstrumentCsvParserTest {
+
+    private static final String HEADER =
+            "instrument_token,exchange_token,tradingsymbol,name,last_price,expiry,strike,tick_size,lot_size,instrument_type,segment,exchange\n";
+
+    @Test
+    void shouldParseRowsByHeaderColumns() throws IOException {
+        // Given
+        String dump = HEADER
+                + "408065,1594,INFY,\"INFOSYS\",1520.5,,0,0.05,1,EQ,NSE,NSE\n"
+                + "12345,48,NIFTY24DEC24000CE,\"NIFTY\",0,2024-12-26,24000,0.05,25,CE,NFO-OPT,NFO\n";
+        List<Instrument> instruments = new ArrayList<>();
+
+        // When
+        InstrumentCsvParser parser = new InstrumentCsvParser();
+        int count = parser.parse(new StringReader(dump), instruments::add);
+
+        // Then
+        assertEquals(2, count, "Every row should be parsed");
+        assertEquals(0, parser.getSkipped(), "No row should be skipped");
+        Instrument infy = instruments.get(0);
+        assertEquals(408065L, infy.instrument_token, "Token should be parsed");
+        assertEquals(1594L, infy.exchange_token, "Exchange token should be parsed");
+        assertEquals("INFY", infy.tradingsymbol, "Symbol should be parsed");
+        assertEquals("INFOSYS", infy.name, "Quoted name should be unquoted");
+        assertEquals(1520.5, infy.last_price, 0.0, "Last price should be parsed");
+        assertNull(infy.expiry, "Empty expiry should be null");
+        assertEquals("EQ", infy.instrument_type, "Instrument type should be parsed");
+        assertEquals("NSE", infy.exchange, "Exchange should be parsed");
+
+        Instrument option = instruments.get(1);
+        Calendar expiry = Calendar.getInstance();
+        expiry.setTime(option.expiry);
+        assertEquals(2024, expiry.get(Calendar.YEAR), "Expiry year should be parsed");
+        assertEquals(Calendar.DECEMBER, expiry.get(Calendar.MONTH), "Expiry month should be parsed");
+        assertEquals(26, expiry.get(Calendar.DAY_OF_MONTH), "Expiry day should be parsed");
+        assertEquals("24000", option.strike, "Strike should be kept as text");
+        assertEquals(0.05, option.tick_size, 0.0, "Tick size should be parsed");
+        assertEquals(25, option.lot_size, "Lot size should be parsed");
+        assertEquals("NFO-OPT", option.segment, "Segment should be parsed");
+    }
+
+    @Test
+    void shouldFollowHeaderColumnOrder() throws IOException {
+        // Given
+        String dump = "exchange,segment,instrument_type,lot_size,tick_size,strike,expiry,last_price,name,tradingsymbol,exchange_token,instrument_token\n"
+                + "NSE,NSE,EQ,1,0.05,0,,1520.5,INFOSYS,INFY,1594,408065\n";
+        List<Instrument> instruments = new ArrayList<>();
+
+        // When
+        new InstrumentCsvParser().parse(new StringReader(dump), instruments::add);
+
+        // Then
+        assertEquals(1, instruments.size(), "Row should be parsed");
+        assertEquals(408065L, instruments.get(0).instrument_token, "Token should be read from its header column");
+        assertEquals("INFY", instruments.get(0).tradingsymbol, "Symbol should be read from its header column");
+    }
+
+    @Test
+    void shouldKeepCommasAndEscapedQuotesInQuotedFields() throws IOException {
+        // Given
+        String dump = HEADER + "1,1,ABC,\"ABC \"\"NEW\"\", LTD\",0,,0,0.05,1,EQ,NSE,NSE\n";
+        List<Instrument> instruments = new ArrayList<>();
+
+        // When
+        new InstrumentCsvParser().parse(new StringReader(dump), instruments::add);
+
+        // Then
+        assertEquals("ABC \"NEW\", LTD", instruments.get(0).name, "Quoted comma and escaped quotes should be kept");
+    }
+
+    @Test
+    void shouldSkipShortAndUnparsableRows() throws IOException {
+        // Given
+        String dump = HEADER
+                + "408065,1594,INFY,INFOSYS,1520.5,,0,0.05,1,EQ,NSE,NSE\n"
+                + "2953217,11536,TCS,TATA CONSULTANCY\n"
+                + "\n"
+                + "not-a-token,1,BAD,BAD,0,,0,0.05,1,EQ,NSE,NSE\n"
+                + "738561,2885,RELIANCE,RELIANCE INDUSTRIES,2900,,0,0.05,x,EQ,NSE,NSE\n"
+                + "341249,1333,HDFCBANK,HDFC BANK,1600,,0,0.05,1,EQ,NSE,NSE\n";
+        List<Instrument> instruments = new ArrayList<>();
+
+        // When
+        InstrumentCsvParser parser = new InstrumentCsvParser();
+        int count = parser.parse(new StringReader(dump), instruments::add);
+
+        // Then
+        assertEquals(2, count, "Only well-formed rows should be counted");
+        assertEquals(3, parser.getSkipped(), "Short and unparsable rows should be counted as skipped, blank lines ignored");
+        assertEquals("INFY", instruments.get(0).tradingsymbol, "Rows before a bad row should be kept");
+        assertEquals("HDFCBANK", instruments.get(1).tradingsymbol, "Rows after a bad row should be kept");
+    }
+
+    @Test
+    void shouldResetSkippedOnEachParse() throws IOException {
+        // Given
+        InstrumentCsvParser parser = new InstrumentCsvParser();
+        parser.parse(new StringReader(HEADER + "1,2\n"), instrument -> { });
+
+        // When
+        parser.parse(new StringReader(HEADER + "408065,1594,INFY,INFOSYS,1520.5,,0,0.05,1,EQ,NSE,NSE\n"), instrument -> { });
+
+        // Then
+        assertEquals(0, parser.getSkipped(), "Skipped count should only cover the last parse");
+    }
+
+    @Test
+    void shouldRejectDumpWithoutRequiredColumn() {
+        // Given
+        String dump = "instrument_token,exchange_token,tradingsymbol\n408065,1594,INFY\n";
+
+        // When & Then
+        IOException error = assertThrows(IOException.class,
+                () -> new InstrumentCsvParser().parse(new StringReader(dump), instrument -> { }),
+                "Dump missing a column should be rejected");
+        assertTrue(error.getMessage().contains("name"), "Error should name the first missing column");
+    }
+
+    @Test
+    void shouldRejectEmptyDump() {
+        // Given & When & Then
+        assertThrows(IOException.class, () -> new InstrumentCsvParser().parse(new StringReader(""), instrument -> { }),
+                "Empty dump should be rejected");
+    }
+}
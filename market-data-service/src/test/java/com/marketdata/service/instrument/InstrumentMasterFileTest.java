@@ -0,0 +1,125 @@
+package com.marketdata.service.instrument;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class InstrumentMasterFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackEveryColumn() throws IOException {
+        // Given
+        InstrumentMaster master = new InstrumentMaster.Builder(4)
+                .add(408065L, 1594L, "INFY", "INFOSYS", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .add(128083204L, 500325L, "RELIANCE", "RELIANCE INDUSTRIES", "BSE", "BSE", "EQ", 0L, 0, 0.05, 1)
+                .add(738561L, 2885L, "RELIANCE", "RELIANCE INDUSTRIES", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .add(4294967295L, 4294967295L, "NIFTY24DEC24000CE", "NIFTY", "NFO", "NFO-OPT", "CE",
+                        1735171200000L, 24000.5, 0.05, 25)
+                .builtAt(1_700_000_000_000L)
+                .build();
+        Path file = directory.resolve("instruments.bin");
+
+        // When
+        InstrumentMasterFile.write(master, file);
+        InstrumentMaster read = InstrumentMasterFile.read(file);
+
+        // Then
+        assertEquals(master.size(), read.size(), "Every row should be read back");
+        assertEquals(master.getBuiltAtMillis(), read.getBuiltAtMillis(), "Download time should be read back");
+        for (int row = 0; row < master.size(); row++) {
+            assertEquals(master.tokenAt(row), read.tokenAt(row), "Token should be read back");
+            assertEquals(master.exchangeTokenAt(row), read.exchangeTokenAt(row), "Exchange token should be read back");
+            assertEquals(master.symbolAt(row), read.symbolAt(row), "Symbol should be read back");
+            assertEquals(master.nameAt(row), read.nameAt(row), "Name should be read back");
+            assertEquals(master.exchangeAt(row), read.exchangeAt(row), "Exchange should be read back");
+            assertEquals(master.segmentAt(row), read.segmentAt(row), "Segment should be read back");
+            assertEquals(master.instrumentTypeAt(row), read.instrumentTypeAt(row), "Instrument type should be read back");
+            assertEquals(master.expiryAt(row), read.expiryAt(row), "Expiry should be read back");
+            assertEquals(master.strikeAt(row), read.strikeAt(row), 0.0, "Strike should be read back");
+            assertEquals(master.tickSizeAt(row), read.tickSizeAt(row), 0.0, "Tick size should be read back");
+            assertEquals(master.lotSizeAt(row), read.lotSizeAt(row), "Lot size should be read back");
+        }
+        assertEquals(738561L, read.getToken("RELIANCE"), "Lookups should work on the read snapshot");
+        assertEquals("NIFTY24DEC24000CE", read.getSymbol(4294967295L), "Largest unsigned token should survive");
+        assertFalse(Files.exists(directory.resolve("instruments.bin.tmp")), "Temporary file should be moved into place");
+    }
+
+    @Test
+    void shouldReadMissingNameAsEmpty() throws IOException {
+        // Given
+        InstrumentMaster master = new InstrumentMaster.Builder(1)
+                .add(256265L, 0L, "NIFTY 50", null, "NSE", "INDICES", "EQ", 0L, 0, 0, 0)
+                .build();
+        Path file = directory.resolve("instruments.bin");
+
+        // When
+        InstrumentMasterFile.write(master, file);
+        InstrumentMaster read = InstrumentMasterFile.read(file);
+
+        // Then
+        assertEquals("", read.nameAt(0), "Missing name should read back as empty");
+        assertEquals("NIFTY 50", read.symbolAt(0), "Symbol should be read back");
+    }
+
+    @Test
+    void shouldRoundTripEmptySnapshot() throws IOException {
+        // Given
+        Path file = directory.resolve("instruments.bin");
+
+        // When
+        InstrumentMasterFile.write(InstrumentMaster.EMPTY, file);
+        InstrumentMaster read = InstrumentMasterFile.read(file);
+
+        // Then
+        assertTrue(read.isEmpty(), "Empty snapshot should read back empty");
+    }
+
+    @Test
+    void shouldReplaceExistingFile() throws IOException {
+        // Given
+        Path file = directory.resolve("instruments.bin");
+        InstrumentMasterFile.write(new InstrumentMaster.Builder(1)
+                .add(1L, 1L, "OLD", "OLD", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1).build(), file);
+
+        // When
+        InstrumentMasterFile.write(new InstrumentMaster.Builder(1)
+                .add(2L, 2L, "NEW", "NEW", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1).build(), file);
+        InstrumentMaster read = InstrumentMasterFile.read(file);
+
+        // Then
+        assertEquals(1, read.size(), "Only the latest snapshot should be kept");
+        assertEquals(2L, read.getToken("NEW"), "Latest snapshot should be read");
+    }
+
+    @Test
+    void shouldRejectTokenWiderThanSnapshotFormat() {
+        // Given
+        InstrumentMaster master = new InstrumentMaster.Builder(1)
+                .add(1L << 32, 1L, "WIDE", "WIDE", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .build();
+        Path file = directory.resolve("instruments.bin");
+
+        // When & Then
+        assertThrows(IOException.class, () -> InstrumentMasterFile.write(master, file), "Token above 32 bits should be rejected");
+        assertFalse(Files.exists(file), "Rejected snapshot should not be written");
+    }
+
+    @Test
+    void shouldRejectFileThatIsNotSnapshot() throws IOException {
+        // Given
+        Path file = directory.resolve("instruments.csv");
+        Files.writeString(file, "instrument_token,exchange_token,tradingsymbol,name,last_price,expiry,strike,tick_size\n"
+                + "408065,1594,INFY,INFOSYS,1520.5,,0,0.05\n");
+
+        // When & Then
+        assertThrows(IOException.class, () -> InstrumentMasterFile.read(file), "File without the snapshot magic should be rejected");
+    }
+}
@@ -0,0 +1,122 @@
+package com.marketdata.service.instrument;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class InstrumentMasterTest {
+
+    @Test
+    void shouldPreferNseListingForPlainSymbol() {
+        // Given & When
+        InstrumentMaster master = new InstrumentMaster.Builder(4)
+                .add(128083204L, 500325L, "RELIANCE", "RELIANCE INDUSTRIES", "BSE", "BSE", "EQ", 0L, 0, 0.05, 1)
+                .add(738561L, 2885L, "RELIANCE", "RELIANCE INDUSTRIES", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .build();
+
+        // Then
+        assertEquals(738561L, master.getToken("RELIANCE"), "Plain symbol should resolve to the NSE listing");
+        assertEquals(128083204L, master.getToken("BSE:RELIANCE"), "Qualified symbol should resolve to that exchange");
+        assertEquals(738561L, master.getToken("NSE:RELIANCE"), "Qualified symbol should resolve to that exchange");
+        assertEquals("BSE", master.exchangeAt(master.rowOfSymbol("RELIANCE", "BSE")), "Exchange lookup should match exactly");
+        assertEquals(InstrumentMaster.NO_ROW, master.rowOfSymbol("RELIANCE", "MCX"), "Unlisted exchange should not resolve");
+    }
+
+    @Test
+    void shouldPreferBseThenFirstListingWithoutNse() {
+        // Given & When
+        InstrumentMaster master = new InstrumentMaster.Builder(4)
+                .add(1L, 1L, "GOLD", "GOLD", "MCX", "MCX-FUT", "FUT", 0L, 0, 1, 1)
+                .add(2L, 2L, "GOLD", "GOLD", "NCO", "NCO-FUT", "FUT", 0L, 0, 1, 1)
+                .add(3L, 3L, "SBIN", "STATE BANK OF INDIA", "MCX", "MCX", "EQ", 0L, 0, 0.05, 1)
+                .add(4L, 4L, "SBIN", "STATE BANK OF INDIA", "BSE", "BSE", "EQ", 0L, 0, 0.05, 1)
+                .build();
+
+        // Then
+        assertEquals(4L, master.getToken("SBIN"), "BSE listing should win over other exchanges");
+        assertEquals(1L, master.getToken("GOLD"), "Without NSE or BSE the first listing should win");
+    }
+
+    @Test
+    void shouldResolveSymbolsContainingSpacesAndColons() {
+        // Given & When
+        InstrumentMaster master = new InstrumentMaster.Builder(2)
+                .add(256265L, 0L, "NIFTY 50", "NIFTY 50", "NSE", "INDICES", "EQ", 0L, 0, 0, 0)
+                .build();
+
+        // Then
+        assertEquals(256265L, master.getToken("NIFTY 50"), "Symbol with a space should resolve");
+        assertEquals(256265L, master.getToken("NSE:NIFTY 50"), "Qualified index should resolve");
+        assertEquals(InstrumentMaster.NO_TOKEN, master.getToken("NSE:NIFTY"), "Unknown symbol should not resolve");
+        assertEquals(InstrumentMaster.NO_TOKEN, master.getToken(null), "Null symbol should not resolve");
+    }
+
+    @Test
+    void shouldLookUpRowsByToken() {
+        // Given & When
+        InstrumentMaster master = new InstrumentMaster.Builder(2)
+                .add(408065L, 1594L, "INFY", "INFOSYS", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .add(12345L, 48L, "NIFTY24DEC24000CE", "NIFTY", "NFO", "NFO-OPT", "CE", 1735171200000L, 24000, 0.05, 25)
+                .builtAt(1_700_000_000_000L)
+                .build();
+
+        // Then
+        int row = master.rowOfToken(12345L);
+        assertEquals("NIFTY24DEC24000CE", master.getSymbol(12345L), "Token should resolve to its symbol");
+        assertEquals(48L, master.exchangeTokenAt(row), "Exchange token should be kept");
+        assertEquals("NIFTY", master.nameAt(row), "Name should be kept");
+        assertEquals("NFO", master.exchangeAt(row), "Exchange should be decoded");
+        assertEquals("NFO-OPT", master.segmentAt(row), "Segment should be decoded");
+        assertEquals("CE", master.instrumentTypeAt(row), "Instrument type should be decoded");
+        assertEquals(1735171200000L, master.expiryAt(row), "Expiry should be kept");
+        assertEquals(24000, master.strikeAt(row), 0.0, "Strike should be kept");
+        assertEquals(0.05, master.tickSizeAt(row), 0.0, "Tick size should be kept");
+        assertEquals(25, master.lotSizeAt(row), "Lot size should be kept");
+        assertNull(master.getSymbol(99L), "Unknown token should not resolve");
+        assertEquals(InstrumentMaster.NO_ROW, master.rowOfToken(99L), "Unknown token should have no row");
+        assertEquals(1_700_000_000_000L, master.getBuiltAtMillis(), "Build time should be kept");
+    }
+
+    @Test
+    void shouldReplaceRowOfDuplicateToken() {
+        // Given & When
+        InstrumentMaster master = new InstrumentMaster.Builder(2)
+                .add(408065L, 1594L, "INFY", "INFOSYS", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .add(408065L, 1594L, "INFY", "INFOSYS LIMITED", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .build();
+
+        // Then
+        assertEquals(1, master.size(), "Duplicate token should not add a row");
+        assertEquals("INFOSYS LIMITED", master.nameAt(master.rowOfToken(408065L)), "Later row should win");
+    }
+
+    @Test
+    void shouldSkipRowsWithoutSymbol() {
+        // Given & When
+        InstrumentMaster master = new InstrumentMaster.Builder(2)
+                .add(1L, 1L, null, "UNNAMED", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .build();
+
+        // Then
+        assertTrue(master.isEmpty(), "Row without a symbol should be skipped");
+        assertEquals(InstrumentMaster.NO_ROW, master.rowOfToken(1L), "Skipped row should not be indexed");
+    }
+
+    @Test
+    void shouldGrowPastExpectedSize() {
+        // Given
+        InstrumentMaster.Builder builder = new InstrumentMaster.Builder(1);
+
+        // When
+        for (int i = 0; i < 5_000; i++) {
+            builder.add(i, i, "SYM" + i, "NAME" + i, i % 2 == 0 ? "NSE" : "BSE", "NSE", "EQ", 0L, 0, 0.05, 1);
+        }
+        InstrumentMaster master = builder.build();
+
+        // Then
+        assertEquals(5_000, master.size(), "Every row should be kept");
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(i, master.getToken("SYM" + i), "Every symbol should resolve");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.marketdata.service.instrument;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class InstrumentSearchIndexTest {
+
+    private static final InstrumentMaster MASTER = new InstrumentMaster.Builder(8)
+            .add(1L, 1L, "TECH", "TECH INFY SERVICES", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+            .add(2L, 2L, "ABCINFY", "ABC LIMITED", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+            .add(3L, 3L, "IHL", "INFY HOLDINGS", "BSE", "BSE", "EQ", 0L, 0, 0.05, 1)
+            .add(4L, 4L, "INFYBEES", "NIPPON INDIA ETF", "NSE", "NSE", "ETF", 0L, 0, 0.01, 1)
+            .add(5L, 5L, "INFYAA", "INFOSYS BOND", "BSE", "BSE", "EQ", 0L, 0, 0.01, 1)
+            .add(6L, 6L, "INFY", "INFOSYS", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+            .add(7L, 7L, "TCS", "TATA CONSULTANCY SERVICES", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+            .add(8L, 8L, "INFY24DECFUT", "INFY", "NFO", "NFO-FUT", "FUT", 1735171200000L, 0, 0.05, 400)
+            .build();
+
+    private final InstrumentSearchIndex index = new InstrumentSearchIndex(MASTER);
+
+    @Test
+    void shouldRankExactThenPrefixThenContains() {
+        // Given & When
+        InstrumentSearchIndex.Result result = index.search("infy", null, null, 0, 20);
+
+        // Then
+        assertEquals(List.of("INFY", "INFY24DECFUT", "INFYAA", "INFYBEES", "IHL", "ABCINFY", "TECH"), symbols(result),
+                "Matches should rank exact, symbol prefix, name prefix, symbol contains, name contains, then by symbol");
+        assertEquals(7, result.getTotal(), "Total should count every match");
+        assertSame(MASTER, result.getMaster(), "Rows should refer to the indexed snapshot");
+    }
+
+    @Test
+    void shouldIgnoreCaseAndSurroundingWhitespace() {
+        // Given & When
+        InstrumentSearchIndex.Result result = index.search("  InFy  ", null, null, 0, 1);
+
+        // Then
+        assertEquals(List.of("INFY"), symbols(result), "Query should be trimmed and matched case-insensitively");
+    }
+
+    @Test
+    void shouldMatchOnlyPrefixesForShortQueries() {
+        // Given & When
+        InstrumentSearchIndex.Result result = index.search("in", null, null, 0, 20);
+
+        // Then
+        assertEquals(List.of("INFY", "INFY24DECFUT", "INFYAA", "INFYBEES", "IHL"), symbols(result),
+                "Short queries should match symbol and name prefixes only");
+    }
+
+    @Test
+    void shouldPageThroughMatchesWithStableTotal() {
+        // Given & When
+        InstrumentSearchIndex.Result first = index.search("infy", null, null, 0, 3);
+        InstrumentSearchIndex.Result last = index.search("infy", null, null, 2, 3);
+        InstrumentSearchIndex.Result beyond = index.search("infy", null, null, 5, 3);
+
+        // Then
+        assertEquals(List.of("INFY", "INFY24DECFUT", "INFYAA"), symbols(first), "First page should hold the best matches");
+        assertEquals(List.of("TECH"), symbols(last), "Last page should hold the remainder");
+        assertEquals(0, beyond.getRows().length, "Page past the end should be empty");
+        assertEquals(7, first.getTotal(), "Total should not depend on the page");
+        assertEquals(7, beyond.getTotal(), "Total should not depend on the page");
+    }
+
+    @Test
+    void shouldListAllInstrumentsBySymbolForEmptyQuery() {
+        // Given & When
+        InstrumentSearchIndex.Result result = index.search(null, null, null, 0, 3);
+
+        // Then
+        assertEquals(List.of("ABCINFY", "IHL", "INFY"), symbols(result), "Empty query should list instruments by symbol");
+        assertEquals(8, result.getTotal(), "Empty query should match every instrument");
+    }
+
+    @Test
+    void shouldFilterByTypeAndExchange() {
+        // Given & When
+        InstrumentSearchIndex.Result equities = index.search("infy", "equity", null, 0, 20);
+        InstrumentSearchIndex.Result nse = index.search("infy", null, "NSE", 0, 20);
+        InstrumentSearchIndex.Result nfo = index.search("infy", null, "nfo", 0, 20);
+
+        // Then
+        assertEquals(List.of("INFY", "INFYAA", "IHL", "ABCINFY", "TECH"), symbols(equities), "Type filter should keep equities");
+        assertEquals(List.of("INFY", "INFYBEES", "ABCINFY", "TECH"), symbols(nse), "Exchange filter should keep NSE listings");
+        assertEquals(List.of("INFY24DECFUT"), symbols(nfo), "Exchange filter should match the provider exchange");
+    }
+
+    @Test
+    void shouldReturnNothingForUnknownTypeOrText() {
+        // Given & When
+        InstrumentSearchIndex.Result unknownType = index.search("infy", "bond", null, 0, 20);
+        InstrumentSearchIndex.Result unknownText = index.search("zzz", null, null, 0, 20);
+
+        // Then
+        assertEquals(0, unknownType.getTotal(), "Unknown type should match nothing");
+        assertEquals(0, unknownText.getTotal(), "Text with an unknown trigram should match nothing");
+    }
+
+    @Test
+    void shouldRejectInvalidPage() {
+        // Given & When & Then
+        assertThrows(IllegalArgumentException.class, () -> index.search("infy", null, null, -1, 20),
+                "Negative page should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> index.search("infy", null, null, 0, 0),
+                "Empty page size should be rejected");
+    }
+
+    @Test
+    void shouldSearchEmptySnapshot() {
+        // Given & When
+        InstrumentSearchIndex.Result result = InstrumentSearchIndex.EMPTY.search("infy", null, null, 0, 20);
+
+        // Then
+        assertEquals(0, result.getTotal(), "Empty snapshot should match nothing");
+        assertEquals(0, result.getRows().length, "Empty snapshot should return no rows");
+    }
+
+    private static List<String> symbols(InstrumentSearchIndex.Result result) {
+        List<String> symbols = new ArrayList<>();
+        for (int row : result.getRows()) {
+            symbols.add(result.getMaster().symbolAt(row));
+        }
+        return symbols;
+    }
+}
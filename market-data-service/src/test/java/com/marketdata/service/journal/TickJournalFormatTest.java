@@ -0,0 +1,146 @@
+package com.marketdata.service.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.zerodhatech.models.Tick;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+public class TickJournalFormatTest {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    @Test
+    void shouldReadBackEveryJournaledField() {
+        // Given
+        ByteBuffer buffer = buffer(2);
+        Tick tick = new Tick();
+        tick.setInstrumentToken(408065L);
+        tick.setMode("full");
+        tick.setTradable(true);
+        tick.setLastTradedQuantity(25);
+        tick.setTickTimestamp(new Date(1_700_000_000_500L));
+        tick.setLastTradedTime(new Date(1_700_000_000_000L));
+        tick.setLastTradedPrice(1520.55);
+        tick.setOpenPrice(1500.0);
+        tick.setHighPrice(1530.5);
+        tick.setLowPrice(1490.25);
+        tick.setClosePrice(1510.0);
+        tick.setAverageTradePrice(1512.75);
+        tick.setVolumeTradedToday(1_234_567L);
+        tick.setTotalBuyQuantity(1000);
+        tick.setTotalSellQuantity(2000);
+        tick.setOi(42);
+        tick.setNetPriceChangeFromClosingPrice(0.7);
+        int offset = TickJournalFormat.HEADER_SIZE + TickJournalFormat.RECORD_SIZE;
+
+        // When
+        TickJournalFormat.writeRecord(buffer, offset, tick, 1_700_000_001_000L);
+        Tick read = TickJournalFormat.readRecord(buffer, offset);
+
+        // Then
+        assertTrue(TickJournalFormat.isWritten(buffer, offset), "Written record should be flagged");
+        assertEquals(1_700_000_001_000L, TickJournalFormat.receivedMillis(buffer, offset), "Received time should be stored");
+        assertEquals(408065L, read.getInstrumentToken(), "Token should be read back");
+        assertEquals("full", read.getMode(), "Mode should be read back");
+        assertTrue(read.isTradable(), "Tradable flag should be read back");
+        assertEquals(25, read.getLastTradedQuantity(), 0.0, "Last traded quantity should be read back");
+        assertEquals(new Date(1_700_000_000_500L), read.getTickTimestamp(), "Tick timestamp should be read back");
+        assertEquals(new Date(1_700_000_000_000L), read.getLastTradedTime(), "Last traded time should be read back");
+        assertEquals(1520.55, read.getLastTradedPrice(), 0.0, "Last price should be read back");
+        assertEquals(1500.0, read.getOpenPrice(), 0.0, "Open should be read back");
+        assertEquals(1530.5, read.getHighPrice(), 0.0, "High should be read back");
+        assertEquals(1490.25, read.getLowPrice(), 0.0, "Low should be read back");
+        assertEquals(1510.0, read.getClosePrice(), 0.0, "Close should be read back");
+        assertEquals(1512.75, read.getAverageTradePrice(), 0.0, "Average price should be read back");
+        assertEquals(1_234_567L, read.getVolumeTradedToday(), "Volume should be read back");
+        assertEquals(1000, read.getTotalBuyQuantity(), 0.0, "Buy quantity should be read back");
+        assertEquals(2000, read.getTotalSellQuantity(), 0.0, "Sell quantity should be read back");
+        assertEquals(42, read.getOi(), 0.0, "Open interest should be read back");
+        assertEquals(0.7, read.getChange(), 0.0, "Change should be read back");
+    }
+
+    @Test
+    void shouldReadAbsentTimestampsAndModeAsNull() {
+        // Given
+        ByteBuffer buffer = buffer(1);
+        Tick tick = new Tick();
+        tick.setInstrumentToken(408065L);
+
+        // When
+        TickJournalFormat.writeRecord(buffer, TickJournalFormat.HEADER_SIZE, tick, 1L);
+        Tick read = TickJournalFormat.readRecord(buffer, TickJournalFormat.HEADER_SIZE);
+
+        // Then
+        assertNull(read.getMode(), "Absent mode should be read back as null");
+        assertNull(read.getTickTimestamp(), "Absent tick timestamp should be read back as null");
+        assertNull(read.getLastTradedTime(), "Absent last traded time should be read back as null");
+        assertFalse(read.isTradable(), "Tradable flag should be read back");
+    }
+
+    @Test
+    void shouldTreatUnwrittenAndTruncatedRecordsAsEnd() {
+        // Given
+        ByteBuffer buffer = buffer(2);
+        TickJournalFormat.writeHeader(buffer, 19_700, 3, 1L);
+
+        // Then
+        assertTrue(TickJournalFormat.isSegment(buffer), "Header should identify a segment");
+        assertFalse(TickJournalFormat.isWritten(buffer, TickJournalFormat.HEADER_SIZE), "Zeroed record should not be written");
+        assertFalse(TickJournalFormat.isWritten(buffer, TickJournalFormat.HEADER_SIZE + 2 * TickJournalFormat.RECORD_SIZE),
+                "Record past the end should not be written");
+        buffer.putShort(4, (short) (TickJournalFormat.VERSION + 1));
+        assertFalse(TickJournalFormat.isSegment(buffer), "Other versions should not be read");
+    }
+
+    @Test
+    void shouldSplitTradingDaysAtIstMidnight() {
+        // Given
+        long lastMillisOfDay = ZonedDateTime.of(2024, 3, 1, 23, 59, 59, 999_000_000, IST).toInstant().toEpochMilli();
+        long day = LocalDate.of(2024, 3, 1).toEpochDay();
+
+        // Then
+        assertEquals(day, TickJournalFormat.tradingDay(lastMillisOfDay), "Tick before IST midnight should belong to the day");
+        assertEquals(day + 1, TickJournalFormat.tradingDay(lastMillisOfDay + 1), "Tick at IST midnight should start the next day");
+        assertEquals(lastMillisOfDay + 1, TickJournalFormat.nextDayStart(day), "Next day should start at IST midnight");
+    }
+
+    @Test
+    void shouldNameSegmentsByDayAndSequence() {
+        // Given
+        Path directory = Paths.get("/journal");
+        LocalDate day = LocalDate.of(2024, 3, 1);
+
+        // When
+        Path segment = TickJournalFormat.segmentPath(directory, day, 12);
+        Path pending = TickJournalFormat.pendingPath(segment);
+
+        // Then
+        assertEquals("ticks-20240301-0012.seg", segment.getFileName().toString(), "Segment name should carry day and sequence");
+        assertEquals("ticks-20240301-0012.idx", TickJournalFormat.indexPath(segment).getFileName().toString(),
+                "Index should sit next to its segment");
+        assertEquals(segment, TickJournalFormat.segmentPathOf(TickJournalFormat.indexPath(segment)), "Index should lead back to its segment");
+        assertEquals(segment, TickJournalFormat.publishedPath(pending), "Pending name should lead back to the final one");
+        assertNull(TickJournalFormat.publishedPath(segment), "Published file should not be pending");
+        assertEquals(12, TickJournalFormat.sequenceOf("ticks-20240301-0012.seg", day), "Sequence should be parsed");
+        assertEquals(-1, TickJournalFormat.sequenceOf("ticks-20240302-0012.seg", day), "Other days should not match");
+        assertEquals(-1, TickJournalFormat.sequenceOf(pending.getFileName().toString(), day), "Pending segments should not be listed");
+        assertEquals(day, TickJournalFormat.dayOf("ticks-20240301-0000.seg"), "Day should be parsed");
+        assertNull(TickJournalFormat.dayOf("ticks-20240301-0000.idx"), "Index files should not count as days");
+        assertNull(TickJournalFormat.dayOf("ticks-2024AB01-0000.seg"), "Malformed day should be ignored");
+    }
+
+    private static ByteBuffer buffer(int records) {
+        return ByteBuffer.allocate(TickJournalFormat.HEADER_SIZE + records * TickJournalFormat.RECORD_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,131 @@
+package com.marketdata.service.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.zerodhatech.models.Tick;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TickJournalReaderTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    private static final long INTERVAL_MILLIS = 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadEveryTickInOrderAcrossSegments() throws IOException {
+        // Given
+        writeTwoSegments();
+
+        // When
+        TickJournalReader reader = new TickJournalReader(directory, DAY);
+        List<Long> received = new ArrayList<>();
+        for (Tick tick = reader.next(); tick != null; tick = reader.next()) {
+            assertEquals(reader.getReceivedMillis(), tick.getInstrumentToken(), "Tick should be read with its received time");
+            received.add(reader.getReceivedMillis());
+        }
+
+        // Then
+        assertEquals(2, reader.getSegments().size(), "Both segments should be listed");
+        assertEquals(40, received.size(), "Every tick should be read");
+        for (int i = 0; i < 40; i++) {
+            assertEquals(1000L + 250L * i, (long) received.get(i), "Ticks should be read in the order received");
+        }
+    }
+
+    @Test
+    void shouldSeekToFirstTickReceivedAtOrAfterTime() throws IOException {
+        // Given
+        writeTwoSegments();
+        TickJournalReader reader = new TickJournalReader(directory, DAY);
+
+        // When & Then
+        assertEquals(3250L, seek(reader, 3100), "Seek should land between index entries");
+        assertEquals(3000L, seek(reader, 3000), "Seek should land on an indexed tick");
+        assertEquals(6000L, seek(reader, 5800), "Seek past a segment's last tick should continue in the next one");
+        assertEquals(8250L, seek(reader, 8001), "Seek should find ticks in a later segment");
+        assertEquals(1000L, seek(reader, 0), "Seek before the first tick should start at the beginning");
+        reader.seek(20_000);
+        assertNull(reader.next(), "Seek past the last tick should find nothing");
+        assertEquals(1000L, seek(reader, 1000), "Reader should seek back after reaching the end");
+        int remaining = 1;
+        while (reader.next() != null) {
+            remaining++;
+        }
+        assertEquals(40, remaining, "Reading after a seek should continue to the end");
+    }
+
+    @Test
+    void shouldPickUpTicksAppendedAfterReachingTheEnd() throws IOException {
+        // Given
+        TickJournalSegment segment = TickJournalSegment.create(directory, DAY.toEpochDay(), 0, 1L << 20, INTERVAL_MILLIS);
+        segment.publish();
+        segment.append(tick(1000), 1000);
+        TickJournalReader reader = new TickJournalReader(directory, DAY);
+        assertEquals(1000L, reader.next().getInstrumentToken(), "Written tick should be read");
+        assertNull(reader.next(), "Reader should stop at the current end");
+
+        // When
+        segment.append(tick(1500), 1500);
+
+        // Then
+        assertEquals(1500L, reader.next().getInstrumentToken(), "Tick appended later should be read");
+        segment.close();
+    }
+
+    @Test
+    void shouldIgnorePendingSegmentsAndListDays() throws IOException {
+        // Given
+        writeTwoSegments();
+        TickJournalSegment.create(directory, DAY.toEpochDay(), 2, 1L << 20, INTERVAL_MILLIS).close();
+        TickJournalSegment nextDay = TickJournalSegment.create(directory, DAY.plusDays(1).toEpochDay(), 0, 1L << 20,
+                INTERVAL_MILLIS);
+        nextDay.publish();
+        nextDay.close();
+
+        // When
+        TickJournalReader reader = new TickJournalReader(directory, DAY);
+
+        // Then
+        assertEquals(2, reader.getSegments().size(), "Pending segment should not be listed");
+        assertEquals(List.of(DAY, DAY.plusDays(1)), TickJournalReader.availableDays(directory), "Days should be listed oldest first");
+    }
+
+    /**
+     * Two segments of 20 ticks received every 250 ms from 1000 ms on; each tick's token is its received time
+     */
+    private void writeTwoSegments() throws IOException {
+        for (int sequence = 0; sequence < 2; sequence++) {
+            TickJournalSegment segment = TickJournalSegment.create(directory, DAY.toEpochDay(), sequence, 1L << 20,
+                    INTERVAL_MILLIS);
+            for (int i = 0; i < 20; i++) {
+                long received = 1000L + 250L * (sequence * 20 + i);
+                segment.append(tick(received), received);
+            }
+            segment.publish();
+            segment.close();
+        }
+    }
+
+    private static long seek(TickJournalReader reader, long fromMillis) throws IOException {
+        reader.seek(fromMillis);
+        Tick tick = reader.next();
+        assertNotNull(tick, "Seek should find a tick");
+        return reader.getReceivedMillis();
+    }
+
+    private static Tick tick(long token) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        return tick;
+    }
+}
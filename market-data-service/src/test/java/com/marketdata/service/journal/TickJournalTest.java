@@ -0,0 +1,160 @@
+package com.marketdata.service.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.marketdata.service.tick.TickLatencyRecorder;
+import com.marketdata.service.tick.TickPipeline;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TickJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private MeterRegistry meterRegistry;
+    private TickPipeline tickPipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tickPipeline = new TickPipeline(meterRegistry, new TickLatencyRecorder(meterRegistry));
+        ReflectionTestUtils.setField(tickPipeline, "bufferSize", 1024);
+        ReflectionTestUtils.setField(tickPipeline, "batchSize", 256);
+        ReflectionTestUtils.setField(tickPipeline, "idleParkMicros", 1000L);
+        tickPipeline.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tickPipeline.cleanup();
+    }
+
+    @Test
+    void shouldJournalEveryTickAcrossSegmentRolls() throws IOException {
+        // Given
+        TickJournal journal = journal(directory.toString(), false);
+        journal.initialize();
+        int records = (int) (((1L << 20) - TickJournalFormat.HEADER_SIZE) / TickJournalFormat.RECORD_SIZE);
+        int count = records + 100;
+
+        // When
+        for (int i = 0; i < count; i++) {
+            journal.onTick(tick(i), i / 10 + 1);
+        }
+        tickPipeline.cleanup();
+        waitUntil(() -> fileNames().stream().noneMatch(name -> name.endsWith(".pending")));
+
+        // Then
+        List<Tick> read = new ArrayList<>();
+        int segments = 0;
+        for (LocalDate day : TickJournalReader.availableDays(directory)) {
+            TickJournalReader reader = new TickJournalReader(directory, day);
+            segments += reader.getSegments().size();
+            for (Tick tick = reader.next(); tick != null; tick = reader.next()) {
+                read.add(tick);
+            }
+        }
+        assertTrue(segments >= 2, "Full segment should roll over to the next one");
+        assertEquals(count, read.size(), "Every tick should be journaled once");
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, read.get(i).getInstrumentToken(), "Ticks should be read back in the order received");
+        }
+    }
+
+    @Test
+    void shouldRecoverPendingSegmentsOnStart() throws IOException {
+        // Given
+        long epochDay = LocalDate.of(2024, 3, 1).toEpochDay();
+        TickJournalSegment written = TickJournalSegment.create(directory, epochDay, 0, 1L << 20, 1000);
+        written.append(tick(1), 1L);
+        written.close();
+        TickJournalSegment preallocated = TickJournalSegment.create(directory, epochDay, 1, 1L << 20, 1000);
+        preallocated.close();
+
+        // When
+        journal(directory.toString(), false).initialize();
+
+        // Then
+        assertEquals(List.of("ticks-20240301-0000.idx", "ticks-20240301-0000.seg"), fileNames(),
+                "Written pending segment should be published and the unwritten one deleted");
+        TickJournalReader reader = new TickJournalReader(directory, LocalDate.ofEpochDay(epochDay));
+        assertEquals(1L, reader.next().getInstrumentToken(), "Recovered segment should be readable");
+    }
+
+    @Test
+    void shouldNotRecordWhenReplaying() throws IOException {
+        // Given
+        TickJournal journal = journal(directory.toString(), true);
+
+        // When
+        journal.initialize();
+
+        // Then
+        assertNull(journal.getDirectory(), "Replaying process should not journal");
+        assertTrue(fileNames().isEmpty(), "No segment should be created");
+    }
+
+    @Test
+    void shouldRequireAbsoluteDirectory() {
+        // Given
+        TickJournal journal = journal("journal", false);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, journal::initialize, "Relative directory should be rejected");
+    }
+
+    private TickJournal journal(String directoryName, boolean replayEnabled) {
+        TickJournal journal = new TickJournal(tickPipeline, meterRegistry);
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "replayEnabled", replayEnabled);
+        ReflectionTestUtils.setField(journal, "directoryName", directoryName);
+        ReflectionTestUtils.setField(journal, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(journal, "indexIntervalMillis", 1000L);
+        return journal;
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void waitUntil(IoCondition condition) throws IOException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not reached within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private interface IoCondition {
+        boolean get() throws IOException;
+    }
+
+    private static Tick tick(long token) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setLastTradedPrice(token);
+        return tick;
+    }
+}
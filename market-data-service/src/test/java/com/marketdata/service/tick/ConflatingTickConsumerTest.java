@@ -0,0 +1,162 @@
+package com.marketdata.service.tick;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class ConflatingTickConsumerTest {
+
+    @Test
+    void shouldDeliverEveryTickWhenDelegateKeepsUp() {
+        // Given
+        List<Double> prices = Collections.synchronizedList(new ArrayList<>());
+        ConflatingTickConsumer consumer = new ConflatingTickConsumer("test",
+                (tick, nanos) -> prices.add(tick.getLastTradedPrice()), new SimpleMeterRegistry(), 100);
+        consumer.start();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            consumer.onTick(tick(408065L, i), i);
+            int delivered = i + 1;
+            waitUntil(() -> prices.size() == delivered);
+        }
+        consumer.onClose();
+
+        // Then
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0, 4.0), prices, "Every tick should be delivered in order");
+        assertEquals(0.0, consumer.getConflationRatio(), "Nothing should be merged");
+    }
+
+    @Test
+    void shouldKeepOnlyLatestTickPerTokenWhileDelegateLags() throws InterruptedException {
+        // Given
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Map<Long, Double> latest = new ConcurrentHashMap<>();
+        List<Long> order = Collections.synchronizedList(new ArrayList<>());
+        ConflatingTickConsumer consumer = new ConflatingTickConsumer("test", (tick, nanos) -> {
+            if (tick.getInstrumentToken() == 1L) {
+                blocked.countDown();
+                await(release);
+            }
+            order.add(tick.getInstrumentToken());
+            latest.put(tick.getInstrumentToken(), tick.getLastTradedPrice());
+        }, new SimpleMeterRegistry(), 100);
+        consumer.start();
+        consumer.onTick(tick(1L, 0), 0L);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS), "Delegate should start on the first tick");
+
+        // When
+        for (int i = 1; i <= 100; i++) {
+            consumer.onTick(tick(408065L, i), i);
+            consumer.onTick(tick(2953217L, 1000 + i), i);
+        }
+        int pending = consumer.getPendingCount();
+        release.countDown();
+        waitUntil(() -> Double.valueOf(1100).equals(latest.get(2953217L)));
+        consumer.onClose();
+
+        // Then
+        assertEquals(2, pending, "Lagging delegate should leave one pending tick per token");
+        assertEquals(100.0, latest.get(408065L), 0.0, "Latest tick of each token should be delivered");
+        assertEquals(1100.0, latest.get(2953217L), 0.0, "Latest tick of each token should be delivered");
+        assertEquals(List.of(1L, 408065L, 2953217L), order, "Merged ticks should not be delivered");
+        assertEquals(198.0 / 201, consumer.getConflationRatio(), 1e-9, "Merged ticks should count towards the ratio");
+    }
+
+    @Test
+    void shouldCloseDelegateOnlyAfterDeliveryInProgressFinished() throws InterruptedException {
+        // Given
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        ConflatingTickConsumer consumer = new ConflatingTickConsumer("test", new TickConsumer() {
+            @Override
+            public void onTick(Tick tick, long receivedNanos) {
+                delivering.countDown();
+                await(release);
+                events.add("tick");
+            }
+
+            @Override
+            public void onClose() {
+                events.add("close");
+            }
+        }, new SimpleMeterRegistry(), 100);
+        consumer.start();
+        consumer.onTick(tick(408065L, 1), 1L);
+        assertTrue(delivering.await(5, TimeUnit.SECONDS), "Delegate should be delivering");
+
+        // When
+        Thread closer = new Thread(consumer::onClose);
+        closer.start();
+        Thread.sleep(50);
+        List<String> beforeRelease = new ArrayList<>(events);
+        release.countDown();
+        closer.join();
+
+        // Then
+        assertTrue(beforeRelease.isEmpty(), "Delegate should not be closed while a tick is being delivered");
+        assertEquals(List.of("tick", "close"), events, "Delegate should be closed after the delivery finished");
+    }
+
+    @Test
+    void shouldCloseDelegateWhenNeverStarted() {
+        // Given
+        List<String> events = new ArrayList<>();
+        ConflatingTickConsumer consumer = new ConflatingTickConsumer("test", new TickConsumer() {
+            @Override
+            public void onTick(Tick tick, long receivedNanos) {
+            }
+
+            @Override
+            public void onClose() {
+                events.add("close");
+            }
+        }, new SimpleMeterRegistry(), 100);
+
+        // When
+        consumer.onClose();
+
+        // Then
+        assertEquals(List.of("close"), events, "Delegate should be closed without waiting");
+    }
+
+    private static Tick tick(long token, double price) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setLastTradedPrice(price);
+        return tick;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not reached within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.marketdata.service.tick;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.marketdata.service.instrument.InstrumentMaster;
+import com.marketdata.service.instrument.InstrumentMasterService;
+import com.zerodhatech.models.LTPQuote;
+import com.zerodhatech.models.OHLCQuote;
+import com.zerodhatech.models.Quote;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LastValueCacheTest {
+
+    private static final long INFY = 408065L;
+    private static final long TCS = 2953217L;
+    private static final String[] SYMBOLS = {"INFY", "TCS"};
+
+    private final Map<Long, Long> liveSince = new ConcurrentHashMap<>();
+    private TickPipeline tickPipeline;
+    private LastValueCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TickLatencyRecorder latencyRecorder = new TickLatencyRecorder(meterRegistry);
+        tickPipeline = new TickPipeline(meterRegistry, latencyRecorder);
+        ReflectionTestUtils.setField(tickPipeline, "bufferSize", 1024);
+        ReflectionTestUtils.setField(tickPipeline, "batchSize", 256);
+        ReflectionTestUtils.setField(tickPipeline, "idleParkMicros", 1000L);
+        tickPipeline.initialize();
+
+        InstrumentMaster.Builder builder = new InstrumentMaster.Builder(64)
+                .add(INFY, 1594L, "INFY", "INFOSYS", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .add(TCS, 11536L, "TCS", "TATA CONSULTANCY SERVICES", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1);
+        for (int i = 0; i < 40; i++) {
+            builder.add(1_000L + i, i, "SYM" + i, "SYMBOL " + i, "NSE", "NSE", "EQ", 0L, 0, 0.05, 1);
+        }
+        InstrumentMasterService instrumentMasterService = new InstrumentMasterService(meterRegistry);
+        instrumentMasterService.update(builder.build());
+
+        TokenLiveness tokenLiveness = token -> liveSince.getOrDefault(token, TokenLiveness.NOT_LIVE);
+        cache = new LastValueCache(tickPipeline, instrumentMasterService, tokenLiveness, meterRegistry, latencyRecorder);
+        cache.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tickPipeline.cleanup();
+    }
+
+    @Test
+    void shouldServeTicksReceivedSinceSubscriptionWentLive() {
+        // Given
+        liveSince.put(INFY, 100L);
+
+        // When
+        cache.onTick(tick(INFY, "quote", 1520.5), 200L);
+
+        // Then
+        Map<String, LTPQuote> ltp = cache.getLTP(SYMBOLS);
+        Map<String, OHLCQuote> ohlc = cache.getOHLC(SYMBOLS);
+        assertEquals(1, ltp.size(), "Only the instrument that ticked should be served");
+        assertEquals(1520.5, ltp.get("INFY").lastPrice, 0.0, "Latest price should be served");
+        assertEquals(INFY, ltp.get("INFY").instrumentToken, "Token should be set");
+        assertEquals(1520.5, ohlc.get("INFY").lastPrice, 0.0, "OHLC quote should carry the latest price");
+        assertEquals(1500.0, ohlc.get("INFY").ohlc.open, 0.0, "Open should be served");
+        assertEquals(1530.5, ohlc.get("INFY").ohlc.high, 0.0, "High should be served");
+        assertEquals(1490.5, ohlc.get("INFY").ohlc.low, 0.0, "Low should be served");
+        assertEquals(1510.0, ohlc.get("INFY").ohlc.close, 0.0, "Close should be served");
+        assertTrue(cache.contains(INFY), "Token that ticked should be cached");
+        assertFalse(cache.contains(TCS), "Token that never ticked should not be cached");
+    }
+
+    @Test
+    void shouldTreatTicksFromBeforeResubscriptionAsStale() {
+        // Given
+        liveSince.put(INFY, 100L);
+        cache.onTick(tick(INFY, "quote", 1520.5), 200L);
+
+        // When
+        liveSince.put(INFY, 300L);
+
+        // Then
+        assertTrue(cache.getLTP(SYMBOLS).isEmpty(), "Tick from before the subscription went live again should be stale");
+        assertTrue(cache.getOHLC(SYMBOLS).isEmpty(), "Tick from before the subscription went live again should be stale");
+
+        // When
+        cache.onTick(tick(INFY, "quote", 1525.0), 400L);
+
+        // Then
+        assertEquals(1525.0, cache.getLTP(SYMBOLS).get("INFY").lastPrice, 0.0, "Next tick should be fresh again");
+    }
+
+    @Test
+    void shouldServeNothingWithoutLiveSubscription() {
+        // Given
+        cache.onTick(tick(INFY, "full", 1520.5), 200L);
+
+        // When
+        Map<String, LTPQuote> ltp = cache.getLTP(SYMBOLS);
+        Map<String, OHLCQuote> ohlc = cache.getOHLC(SYMBOLS);
+        Map<String, Quote> quotes = cache.getQuotes(SYMBOLS);
+
+        // Then
+        assertTrue(ltp.isEmpty(), "Token without a live subscription should not be served");
+        assertTrue(ohlc.isEmpty(), "Token without a live subscription should not be served");
+        assertTrue(quotes.isEmpty(), "Token without a live subscription should not be served");
+        assertTrue(cache.contains(INFY), "Tick should still be cached");
+    }
+
+    @Test
+    void shouldServeOnlyLtpFromLtpModeTicks() {
+        // Given
+        liveSince.put(INFY, 100L);
+
+        // When
+        cache.onTick(tick(INFY, "ltp", 1520.5), 200L);
+
+        // Then
+        assertEquals(1520.5, cache.getLTP(SYMBOLS).get("INFY").lastPrice, 0.0, "LTP mode tick should serve the price");
+        assertTrue(cache.getOHLC(SYMBOLS).isEmpty(), "LTP mode tick carries no OHLC");
+        assertTrue(cache.getQuotes(SYMBOLS).isEmpty(), "LTP mode tick carries no full quote");
+    }
+
+    @Test
+    void shouldServeFullQuotesOnlyFromFullModeTicks() {
+        // Given
+        liveSince.put(INFY, 100L);
+        liveSince.put(TCS, 100L);
+
+        // When
+        cache.onTick(tick(INFY, "full", 1520.5), 200L);
+        cache.onTick(tick(TCS, "quote", 3900.0), 200L);
+
+        // Then
+        Map<String, Quote> quotes = cache.getQuotes(SYMBOLS);
+        assertEquals(1, quotes.size(), "Only the full mode tick should serve a full quote");
+        assertEquals(1520.5, quotes.get("INFY").lastPrice, 0.0, "Full quote should carry the latest price");
+        assertEquals(1500.0, quotes.get("INFY").ohlc.open, 0.0, "Full quote should carry OHLC");
+        assertEquals(2, cache.getOHLC(SYMBOLS).size(), "Quote and full mode ticks should both serve OHLC");
+
+        // When
+        cache.onTick(tick(INFY, "ltp", 1521.0), 300L);
+
+        // Then
+        assertNull(cache.getQuotes(SYMBOLS).get("INFY"), "Latest tick not in full mode should not serve a full quote");
+        assertEquals(1521.0, cache.getOHLC(SYMBOLS).get("INFY").lastPrice, 0.0, "OHLC should be kept with the latest price");
+    }
+
+    @Test
+    void shouldKeepValuesWhenGrowingPastInitialCapacity() {
+        // Given
+        String[] symbols = new String[40];
+        for (int i = 0; i < 40; i++) {
+            symbols[i] = "SYM" + i;
+            liveSince.put(1_000L + i, 100L);
+        }
+
+        // When
+        for (int i = 0; i < 40; i++) {
+            cache.onTick(tick(1_000L + i, "quote", i), 200L);
+        }
+
+        // Then
+        Map<String, LTPQuote> ltp = cache.getLTP(symbols);
+        assertEquals(40, cache.size(), "Every token should get a slot");
+        assertEquals(40, ltp.size(), "Every token should be served");
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i, ltp.get("SYM" + i).lastPrice, 0.0, "Values should survive growing the columns");
+        }
+    }
+
+    @Test
+    void shouldOnlyServeNewTokensWithTheirOwnValues() throws InterruptedException {
+        // Given
+        String[] symbols = new String[40];
+        for (int i = 0; i < 40; i++) {
+            symbols[i] = "SYM" + i;
+            liveSince.put(1_000L + i, 0L);
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> wrong = new AtomicReference<>();
+
+        // When
+        Thread reader = new Thread(() -> {
+            while (writing.get() && wrong.get() == null) {
+                for (Map.Entry<String, LTPQuote> entry : cache.getLTP(symbols).entrySet()) {
+                    double expected = Integer.parseInt(entry.getKey().substring(3));
+                    if (entry.getValue().lastPrice != expected) {
+                        wrong.set(entry.getKey() + " served " + entry.getValue().lastPrice);
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 40; i++) {
+            cache.onTick(tick(1_000L + i, "quote", i), 1L);
+            Thread.sleep(1);
+        }
+        writing.set(false);
+        reader.join();
+
+        // Then
+        assertNull(wrong.get(), "A token should only be served once its slot holds its own tick");
+        assertEquals(40, cache.getLTP(symbols).size(), "Every added token should be served");
+    }
+
+    @Test
+    void shouldNeverServeTornReadsWhileWriting() throws InterruptedException {
+        // Given
+        liveSince.put(INFY, 0L);
+        cache.onTick(uniform(INFY, 0), 1L);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> torn = new AtomicReference<>();
+
+        // When
+        Thread reader = new Thread(() -> {
+            while (writing.get() && torn.get() == null) {
+                OHLCQuote quote = cache.getOHLC(SYMBOLS).get("INFY");
+                double price = quote.lastPrice;
+                if (quote.ohlc.open != price || quote.ohlc.high != price || quote.ohlc.low != price || quote.ohlc.close != price) {
+                    torn.set("ltp " + price + " with ohlc " + quote.ohlc.open + "/" + quote.ohlc.high + "/"
+                            + quote.ohlc.low + "/" + quote.ohlc.close);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 1; i <= 200_000 && torn.get() == null; i++) {
+            cache.onTick(uniform(INFY, i), i + 1L);
+        }
+        writing.set(false);
+        reader.join();
+
+        // Then
+        assertNull(torn.get(), "Reader should only see values of one tick");
+    }
+
+    private static Tick tick(long token, String mode, double price) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setMode(mode);
+        tick.setLastTradedPrice(price);
+        if (!"ltp".equals(mode)) {
+            tick.setOpenPrice(1500.0);
+            tick.setHighPrice(price + 10);
+            tick.setLowPrice(price - 30);
+            tick.setClosePrice(1510.0);
+        }
+        return tick;
+    }
+
+    private static Tick uniform(long token, double price) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setMode("quote");
+        tick.setLastTradedPrice(price);
+        tick.setOpenPrice(price);
+        tick.setHighPrice(price);
+        tick.setLowPrice(price);
+        tick.setClosePrice(price);
+        return tick;
+    }
+}
@@ -0,0 +1,220 @@
+package com.marketdata.service.tick;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.am.marketdata.common.model.events.MarketTick;
+import com.am.marketdata.kafka.producer.KafkaProducerService;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public class TickKafkaBridgeTest {
+
+    private static final long INFY = 408065L;
+    private static final long TCS = 2953217L;
+
+    private final List<SentRecord> sent = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicBoolean failNextSend = new AtomicBoolean();
+    private MeterRegistry meterRegistry;
+    private TickPipeline tickPipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tickPipeline = new TickPipeline(meterRegistry, new TickLatencyRecorder(meterRegistry));
+        ReflectionTestUtils.setField(tickPipeline, "bufferSize", 1024);
+        ReflectionTestUtils.setField(tickPipeline, "batchSize", 256);
+        ReflectionTestUtils.setField(tickPipeline, "idleParkMicros", 1000L);
+        tickPipeline.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tickPipeline.cleanup();
+    }
+
+    @Test
+    void shouldSendOneRecordPerInstrumentWhenClosed() {
+        // Given
+        bridge(60_000, 100);
+
+        // When
+        tickPipeline.onTicks(new ArrayList<>(List.of(tick(INFY, 1520.0), tick(TCS, 3900.0), tick(INFY, 1520.5),
+                tick(INFY, 1521.0), tick(TCS, 3901.0))));
+        waitUntil(() -> lag() == 0);
+        int sentWhileLingering = sent.size();
+        tickPipeline.cleanup();
+
+        // Then
+        assertEquals(0, sentWhileLingering, "Nothing should be sent before the linger window ends");
+        assertEquals(2, sent.size(), "Each instrument should be sent as one record");
+        assertEquals(List.of(1520.0, 1520.5, 1521.0), prices(record(INFY)), "Instrument's ticks should stay in order");
+        assertEquals(List.of(3900.0, 3901.0), prices(record(TCS)), "Instrument's ticks should stay in order");
+    }
+
+    @Test
+    void shouldSendFullRecordBeforeLingerEnds() {
+        // Given
+        bridge(60_000, 2);
+
+        // When
+        tickPipeline.onTicks(new ArrayList<>(List.of(tick(INFY, 1.0), tick(INFY, 2.0), tick(INFY, 3.0),
+                tick(INFY, 4.0), tick(INFY, 5.0))));
+        waitUntil(() -> sent.size() == 2);
+        tickPipeline.cleanup();
+
+        // Then
+        assertEquals(3, sent.size(), "Remaining ticks should be sent on close");
+        assertEquals(List.of(1.0, 2.0), prices(sent.get(0)), "Full record should be sent at once");
+        assertEquals(List.of(3.0, 4.0), prices(sent.get(1)), "Full record should be sent at once");
+        assertEquals(List.of(5.0), prices(sent.get(2)), "Remainder should be sent on close");
+    }
+
+    @Test
+    void shouldSendOnceLingerWindowEnds() {
+        // Given
+        bridge(1, 100);
+
+        // When
+        tickPipeline.onTicks(new ArrayList<>(List.of(tick(INFY, 1520.0), tick(TCS, 3900.0))));
+
+        // Then
+        waitUntil(() -> sent.size() == 2);
+    }
+
+    @Test
+    void shouldMapTickFields() {
+        // Given
+        bridge(60_000, 100);
+        Tick tick = tick(INFY, 1520.5);
+        tick.setMode("full");
+        tick.setLastTradedQuantity(25);
+        tick.setVolumeTradedToday(1_000_000L);
+        tick.setOpenPrice(1500.0);
+        tick.setHighPrice(1530.0);
+        tick.setLowPrice(1490.0);
+        tick.setClosePrice(1510.0);
+        tick.setOi(42);
+        tick.setLastTradedTime(new Date(1_700_000_000_000L));
+
+        // When
+        tickPipeline.onTicks(new ArrayList<>(List.of(tick)));
+        waitUntil(() -> lag() == 0);
+        tickPipeline.cleanup();
+
+        // Then
+        MarketTick marketTick = record(INFY).ticks.get(0);
+        assertEquals("full", marketTick.getMode(), "Mode should be mapped");
+        assertEquals(1520.5, marketTick.getLastPrice(), 0.0, "Last price should be mapped");
+        assertEquals(25.0, marketTick.getLastQuantity(), 0.0, "Last quantity should be mapped");
+        assertEquals(1_000_000L, (long) marketTick.getVolume(), "Volume should be mapped");
+        assertEquals(1530.0, marketTick.getHigh(), 0.0, "High should be mapped");
+        assertEquals(42.0, marketTick.getOpenInterest(), 0.0, "Open interest should be mapped");
+        assertEquals(LocalDateTime.of(2023, 11, 15, 3, 43, 20), marketTick.getLastTradeTime(),
+                "Last trade time should be IST local time");
+        assertNull(marketTick.getExchangeTimestamp(), "Absent timestamp should stay absent");
+    }
+
+    @Test
+    void shouldKeepSendingAfterFailedSend() {
+        // Given
+        bridge(60_000, 1);
+        failNextSend.set(true);
+
+        // When
+        tickPipeline.onTicks(new ArrayList<>(List.of(tick(INFY, 1.0), tick(INFY, 2.0))));
+        waitUntil(() -> sent.size() == 1);
+
+        // Then
+        assertEquals(List.of(2.0), prices(sent.get(0)), "Record after the failed one should be sent");
+        assertEquals(1.0, meterRegistry.counter("market-data.ticker.kafka.error").count(), 0.0, "Failure should be counted");
+    }
+
+    private TickKafkaBridge bridge(long lingerMillis, int maxTicksPerRecord) {
+        TickKafkaBridge bridge = new TickKafkaBridge(tickPipeline, new RecordingProducer(), meterRegistry,
+                new TickLatencyRecorder(meterRegistry));
+        ReflectionTestUtils.setField(bridge, "enabled", true);
+        ReflectionTestUtils.setField(bridge, "lingerMillis", lingerMillis);
+        ReflectionTestUtils.setField(bridge, "maxTicksPerRecord", maxTicksPerRecord);
+        bridge.initialize();
+        return bridge;
+    }
+
+    private double lag() {
+        return meterRegistry.get("market-data.ticker.pipeline.lag").tag("consumer", "kafka-bridge").gauge().value();
+    }
+
+    private SentRecord record(long token) {
+        synchronized (sent) {
+            return sent.stream().filter(record -> record.token == token).findFirst().orElseThrow();
+        }
+    }
+
+    private static List<Double> prices(SentRecord record) {
+        List<Double> prices = new ArrayList<>();
+        record.ticks.forEach(tick -> prices.add(tick.getLastPrice()));
+        return prices;
+    }
+
+    private static Tick tick(long token, double price) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setLastTradedPrice(price);
+        return tick;
+    }
+
+    private static void waitUntil(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not reached within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class SentRecord {
+        final long token;
+        final List<MarketTick> ticks;
+
+        SentRecord(long token, List<MarketTick> ticks) {
+            this.token = token;
+            this.ticks = ticks;
+        }
+    }
+
+    /**
+     * Producer recording the records it is asked to send, acknowledging each at once
+     */
+    private final class RecordingProducer extends KafkaProducerService {
+
+        RecordingProducer() {
+            super(null, null, null, null, null, null);
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> sendInstrumentTicks(long instrumentToken, List<MarketTick> ticks) {
+            if (failNextSend.getAndSet(false)) {
+                throw new IllegalStateException("broker unavailable");
+            }
+            sent.add(new SentRecord(instrumentToken, ticks));
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.marketdata.service.tick;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TickLatencyRecorderTest {
+
+    private MeterRegistry meterRegistry;
+    private TickLatencyRecorder latencyRecorder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        latencyRecorder = new TickLatencyRecorder(meterRegistry);
+        ReflectionTestUtils.setField(latencyRecorder, "enabled", true);
+        // Intervals are rolled by the tests
+        ReflectionTestUtils.setField(latencyRecorder, "intervalMillis", 3_600_000L);
+        latencyRecorder.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        latencyRecorder.cleanup();
+    }
+
+    @Test
+    void shouldPublishPercentilesOnceIntervalEnds() {
+        // Given
+        for (int micros = 1; micros <= 1000; micros++) {
+            latencyRecorder.record(TickLatencyRecorder.Stage.CACHE, 0, micros * 1000L, 1);
+        }
+        assertEquals(0, latency(TickLatencyRecorder.Stage.CACHE).getCount(), "Running interval should not be published");
+
+        // When
+        rollInterval();
+
+        // Then
+        StageLatency cache = latency(TickLatencyRecorder.Stage.CACHE);
+        assertEquals(1000, cache.getCount(), "Every recorded tick should be counted");
+        assertEquals(500.5, cache.getMeanMicros(), 1.0, "Mean should be in microseconds");
+        assertEquals(500.0, cache.getP50Micros(), 1.0, "Median should be in microseconds");
+        assertEquals(990.0, cache.getP99Micros(), 1.0, "99th percentile should be in microseconds");
+        assertEquals(1000.0, cache.getMaxMicros(), 1.0, "Max should be in microseconds");
+        assertEquals(990e-6, meterRegistry.get("market-data.ticker.latency").tag("stage", "cache").tag("quantile", "0.99")
+                .gauge().value(), 1e-6, "Gauge should publish the interval's percentile in seconds");
+        assertEquals(0, latency(TickLatencyRecorder.Stage.KAFKA_ACK).getCount(), "Other stages should stay empty");
+    }
+
+    @Test
+    void shouldReplaceIntervalAndKeepRunningTotal() {
+        // Given
+        latencyRecorder.record(TickLatencyRecorder.Stage.WEBSOCKET, 0, 2_000_000L, 3);
+        rollInterval();
+
+        // When
+        latencyRecorder.record(TickLatencyRecorder.Stage.WEBSOCKET, 0, 1_000_000L, 1);
+        rollInterval();
+
+        // Then
+        StageLatency interval = latency(TickLatencyRecorder.Stage.WEBSOCKET);
+        StageLatency total = latencyRecorder.getTotalLatencies().get(TickLatencyRecorder.Stage.WEBSOCKET.ordinal());
+        assertEquals(1, interval.getCount(), "Interval should only hold its own ticks");
+        assertEquals(1000.0, interval.getMaxMicros(), 1.0, "Interval should only hold its own latencies");
+        assertEquals(4, total.getCount(), "Total should hold every interval");
+        assertEquals(2000.0, total.getMaxMicros(), 2.0, "Total should keep earlier latencies");
+        assertEquals(4.0, meterRegistry.get("market-data.ticker.latency.count").tag("stage", "websocket")
+                .functionCounter().count(), 0.0, "Counter should count every completed interval's ticks");
+    }
+
+    @Test
+    void shouldClampNegativeLatencyAndIgnoreEmptyBatches() {
+        // When
+        latencyRecorder.record(TickLatencyRecorder.Stage.ENQUEUE, 5_000L, 1_000L, 2);
+        latencyRecorder.record(TickLatencyRecorder.Stage.ENQUEUE, 0, 1_000L, 0);
+        rollInterval();
+
+        // Then
+        StageLatency enqueue = latency(TickLatencyRecorder.Stage.ENQUEUE);
+        assertEquals(2, enqueue.getCount(), "Empty batch should not be recorded");
+        assertEquals(0.0, enqueue.getMaxMicros(), 0.0, "Clock going backwards should record zero latency");
+    }
+
+    @Test
+    void shouldRecordNothingWhenDisabled() {
+        // Given
+        TickLatencyRecorder disabled = new TickLatencyRecorder(new SimpleMeterRegistry());
+        disabled.initialize();
+
+        // When
+        disabled.record(TickLatencyRecorder.Stage.CACHE, System.nanoTime());
+
+        // Then
+        assertEquals(0, disabled.getTotalLatencies().get(TickLatencyRecorder.Stage.CACHE.ordinal()).getCount(),
+                "Disabled recorder should not record");
+    }
+
+    private StageLatency latency(TickLatencyRecorder.Stage stage) {
+        StageLatency latency = latencyRecorder.getIntervalLatencies().get(stage.ordinal());
+        assertEquals(stage.getValue(), latency.getStage(), "Latencies should be listed in stage order");
+        return latency;
+    }
+
+    private void rollInterval() {
+        ReflectionTestUtils.invokeMethod(latencyRecorder, "rollInterval");
+    }
+}
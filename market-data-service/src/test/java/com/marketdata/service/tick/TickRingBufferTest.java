@@ -0,0 +1,186 @@
+package com.marketdata.service.tick;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.zerodhatech.models.Tick;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+public class TickRingBufferTest {
+
+    @Test
+    void shouldRoundCapacityUpToPowerOfTwo() {
+        // Given & When
+        TickRingBuffer ringBuffer = new TickRingBuffer(1000);
+
+        // Then
+        assertEquals(1024, ringBuffer.getCapacity(), "Capacity should round up to a power of two");
+        assertEquals(-1, ringBuffer.getCursor(), "Empty buffer should have no published sequence");
+        assertThrows(IllegalArgumentException.class, () -> new TickRingBuffer(1), "Capacity below 2 should be rejected");
+    }
+
+    @Test
+    void shouldDeliverPublishedTicksInOrder() {
+        // Given
+        TickRingBuffer ringBuffer = new TickRingBuffer(16);
+        TickRingBuffer.Subscriber subscriber = ringBuffer.newSubscriber();
+        ringBuffer.publish(tick(1, 0), 100L);
+        ringBuffer.publish(List.of(tick(1, 1), tick(1, 2)), 200L);
+
+        // When
+        List<Double> prices = new ArrayList<>();
+        List<Long> receivedNanos = new ArrayList<>();
+        int delivered = subscriber.poll((tick, nanos) -> {
+            prices.add(tick.getLastTradedPrice());
+            receivedNanos.add(nanos);
+        }, 10);
+
+        // Then
+        assertEquals(3, delivered, "Every published tick should be delivered");
+        assertEquals(List.of(0.0, 1.0, 2.0), prices, "Ticks should be delivered in publish order");
+        assertEquals(List.of(100L, 200L, 200L), receivedNanos, "Receive timestamps should travel with the ticks");
+        assertEquals(0, subscriber.getLag(), "Subscriber should have caught up");
+        assertEquals(0, subscriber.getDropped(), "Nothing should be dropped");
+    }
+
+    @Test
+    void shouldRespectPollLimit() {
+        // Given
+        TickRingBuffer ringBuffer = new TickRingBuffer(16);
+        TickRingBuffer.Subscriber subscriber = ringBuffer.newSubscriber();
+        for (int i = 0; i < 5; i++) {
+            ringBuffer.publish(tick(1, i), i);
+        }
+
+        // When
+        int delivered = subscriber.poll((tick, nanos) -> { }, 2);
+
+        // Then
+        assertEquals(2, delivered, "Poll should stop at the limit");
+        assertEquals(3, subscriber.getLag(), "Remaining ticks should count as lag");
+    }
+
+    @Test
+    void shouldStartNewSubscriberAfterLastPublishedTick() {
+        // Given
+        TickRingBuffer ringBuffer = new TickRingBuffer(16);
+        ringBuffer.publish(tick(1, 0), 0L);
+
+        // When
+        TickRingBuffer.Subscriber subscriber = ringBuffer.newSubscriber();
+        ringBuffer.publish(tick(1, 1), 1L);
+        List<Double> prices = new ArrayList<>();
+        subscriber.poll((tick, nanos) -> prices.add(tick.getLastTradedPrice()), 10);
+
+        // Then
+        assertEquals(List.of(1.0), prices, "Subscriber should only see ticks published after it was created");
+    }
+
+    @Test
+    void shouldSkipToOldestRetainedTickAndCountDroppedWhenLapped() {
+        // Given
+        TickRingBuffer ringBuffer = new TickRingBuffer(8);
+        TickRingBuffer.Subscriber subscriber = ringBuffer.newSubscriber();
+        for (int i = 0; i < 20; i++) {
+            ringBuffer.publish(tick(1, i), i);
+        }
+
+        // When
+        List<Double> prices = new ArrayList<>();
+        subscriber.poll((tick, nanos) -> prices.add(tick.getLastTradedPrice()), 100);
+
+        // Then
+        assertEquals(List.of(13.0, 14.0, 15.0, 16.0, 17.0, 18.0, 19.0), prices,
+                "Lapped subscriber should resume at the oldest retained slot, keeping one slot as slack");
+        assertEquals(13, subscriber.getDropped(), "Overwritten ticks should be counted as dropped");
+        assertEquals(20, prices.size() + subscriber.getDropped(), "Every tick should be delivered or dropped");
+    }
+
+    @Test
+    void shouldTrackDroppedPerSubscriber() {
+        // Given
+        TickRingBuffer ringBuffer = new TickRingBuffer(8);
+        TickRingBuffer.Subscriber fast = ringBuffer.newSubscriber();
+        TickRingBuffer.Subscriber slow = ringBuffer.newSubscriber();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            ringBuffer.publish(tick(1, i), i);
+            fast.poll((tick, nanos) -> { }, 100);
+        }
+        slow.poll((tick, nanos) -> { }, 100);
+
+        // Then
+        assertEquals(0, fast.getDropped(), "Subscriber that keeps up should not drop");
+        assertTrue(slow.getDropped() > 0, "Lapped subscriber should count its own drops");
+    }
+
+    @Test
+    void shouldDeliverEveryTickFromConcurrentProducersInPerProducerOrder() throws InterruptedException {
+        // Given
+        TickRingBuffer ringBuffer = new TickRingBuffer(1024);
+        TickRingBuffer.Subscriber subscriber = ringBuffer.newSubscriber();
+        int producers = 4;
+        int batches = 5_000;
+        int batchSize = 7;
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        long[] delivered = new long[1];
+        boolean[] outOfOrder = new boolean[1];
+        TickConsumer consumer = (tick, nanos) -> {
+            int producer = (int) tick.getInstrumentToken();
+            long sequence = (long) tick.getLastTradedPrice();
+            if (sequence <= lastSeen[producer]) {
+                outOfOrder[0] = true;
+            }
+            lastSeen[producer] = sequence;
+            delivered[0]++;
+        };
+
+        // When
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                long sequence = 0;
+                for (int b = 0; b < batches; b++) {
+                    List<Tick> batch = new ArrayList<>(batchSize);
+                    for (int i = 0; i < batchSize; i++) {
+                        batch.add(tick(producer, sequence++));
+                    }
+                    ringBuffer.publish(batch, System.nanoTime());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        boolean producing = true;
+        while (producing || subscriber.getLag() > 0) {
+            producing = threads.stream().anyMatch(Thread::isAlive);
+            if (subscriber.poll(consumer, 256) == 0) {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        long published = (long) producers * batches * batchSize;
+        assertEquals(published - 1, ringBuffer.getCursor(), "Every claimed slot should be published");
+        assertEquals(published, delivered[0] + subscriber.getDropped(), "Every tick should be delivered or dropped");
+        assertFalse(outOfOrder[0], "Ticks of one producer should never arrive out of order");
+    }
+
+    private static Tick tick(long token, double price) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setLastTradedPrice(price);
+        return tick;
+    }
+}
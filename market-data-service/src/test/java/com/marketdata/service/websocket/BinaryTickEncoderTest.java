@@ -0,0 +1,127 @@
+package com.marketdata.service.websocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.marketdata.common.util.LongIntHashMap;
+import com.zerodhatech.models.Tick;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+public class BinaryTickEncoderTest {
+
+    private static final long INFY = 408065L;
+    private static final long USDINR = 268043L;
+
+    @Test
+    void shouldDerivePriceDecimalsFromTickSize() {
+        assertEquals(2, BinaryTickEncoder.priceDecimals(0.05), "Equity tick size should give paise");
+        assertEquals(2, BinaryTickEncoder.priceDecimals(0.01), "Paisa tick size should give paise");
+        assertEquals(4, BinaryTickEncoder.priceDecimals(0.0025), "Currency derivative tick size should give four decimals");
+        assertEquals(2, BinaryTickEncoder.priceDecimals(1.0), "Whole rupee tick size should still give paise");
+        assertEquals(2, BinaryTickEncoder.priceDecimals(0), "Unknown tick size should give paise");
+        assertEquals(2, BinaryTickEncoder.priceDecimals(Double.NaN), "Unknown tick size should give paise");
+        assertEquals(6, BinaryTickEncoder.priceDecimals(1e-9), "Decimals should be capped");
+    }
+
+    @Test
+    void shouldEncodeDictionaryRecords() {
+        // Given & When
+        ByteBuffer frame = wrap(BinaryTickEncoder.encodeDictionary(new int[]{0, 1}, new long[]{INFY, USDINR},
+                new int[]{2, 4}, new String[]{"INFY", null}));
+
+        // Then
+        assertHeader(frame, BinaryTickEncoder.TYPE_DICTIONARY, 2);
+        assertEquals(BinaryTickEncoder.HEADER_SIZE + 18 + 14, frame.capacity(), "Frame should hold exactly the records");
+        assertEquals(0, frame.getInt(), "Id should be encoded");
+        assertEquals(INFY, frame.getLong(), "Token should be encoded");
+        assertEquals(2, frame.get(), "Price decimals should be encoded");
+        byte[] symbol = new byte[frame.get()];
+        frame.get(symbol);
+        assertEquals("INFY", new String(symbol, StandardCharsets.UTF_8), "Symbol should be encoded");
+        assertEquals(1, frame.getInt(), "Id should be encoded");
+        assertEquals(USDINR, frame.getLong(), "Token should be encoded");
+        assertEquals(4, frame.get(), "Price decimals should be encoded");
+        assertEquals(0, frame.get(), "Missing symbol should be sent empty");
+    }
+
+    @Test
+    void shouldEncodePricesWithEachInstrumentsScale() {
+        // Given
+        LongIntHashMap dictionary = new LongIntHashMap(4, -1);
+        dictionary.put(INFY, 0);
+        dictionary.put(USDINR, 1);
+        LongIntHashMap priceDecimals = new LongIntHashMap(4, BinaryTickEncoder.DEFAULT_PRICE_DECIMALS);
+        priceDecimals.put(USDINR, 4);
+        Tick infy = tick(INFY, 1520.55);
+        infy.setLastTradedQuantity(25);
+        infy.setVolumeTradedToday(1_000_000);
+        infy.setOi(42);
+        infy.setLastTradedTime(new Date(1_700_000_000_000L));
+
+        // When
+        ByteBuffer frame = wrap(BinaryTickEncoder.encodeTicks(List.of(infy, tick(USDINR, 83.2525)), dictionary, priceDecimals));
+
+        // Then
+        assertHeader(frame, BinaryTickEncoder.TYPE_TICKS, 2);
+        assertEquals(0, frame.getInt(), "Id should be encoded");
+        assertEquals(152055, frame.getInt(), "Last price should be in paise");
+        assertEquals(152000, frame.getInt(), "Open should be in paise");
+        assertEquals(152100, frame.getInt(), "High should be in paise");
+        assertEquals(151900, frame.getInt(), "Low should be in paise");
+        assertEquals(151550, frame.getInt(), "Close should be in paise");
+        assertEquals(25, frame.getInt(), "Last traded quantity should be encoded");
+        assertEquals(1_000_000L, frame.getLong(), "Volume should be encoded");
+        assertEquals(42L, frame.getLong(), "Open interest should be encoded");
+        assertEquals(1_700_000_000_000L, frame.getLong(), "Last traded time should be epoch millis");
+        assertEquals(0L, frame.getLong(), "Missing timestamp should be 0");
+        assertEquals(1, frame.getInt(), "Id should be encoded");
+        assertEquals(832525, frame.getInt(), "Four decimal price should not be rounded to paise");
+        assertEquals(830000, frame.getInt(), "Open should use the instrument's scale");
+    }
+
+    @Test
+    void shouldSkipTicksMissingFromDictionary() {
+        // Given
+        LongIntHashMap dictionary = new LongIntHashMap(4, -1);
+        dictionary.put(INFY, 7);
+        LongIntHashMap priceDecimals = new LongIntHashMap(4, BinaryTickEncoder.DEFAULT_PRICE_DECIMALS);
+
+        // When
+        ByteBuffer frame = wrap(BinaryTickEncoder.encodeTicks(List.of(tick(USDINR, 83.25), tick(INFY, 1520.5)),
+                dictionary, priceDecimals));
+
+        // Then
+        assertHeader(frame, BinaryTickEncoder.TYPE_TICKS, 1);
+        assertEquals(BinaryTickEncoder.HEADER_SIZE + BinaryTickEncoder.TICK_RECORD_SIZE, frame.capacity(),
+                "Frame should be trimmed to the encoded ticks");
+        assertEquals(7, frame.getInt(), "Only the known instrument should be encoded");
+    }
+
+    private static void assertHeader(ByteBuffer frame, byte type, int count) {
+        assertEquals(BinaryTickEncoder.MAGIC, frame.getShort(), "Frame should start with the magic");
+        assertEquals(BinaryTickEncoder.VERSION, frame.get(), "Frame should carry the version");
+        assertEquals(type, frame.get(), "Frame type should be encoded");
+        assertEquals(count, frame.getInt(), "Record count should be encoded");
+    }
+
+    private static ByteBuffer wrap(byte[] frame) {
+        return ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static Tick tick(long token, double price) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setLastTradedPrice(price);
+        tick.setOpenPrice(Math.floor(price));
+        tick.setHighPrice(price + 0.45);
+        tick.setLowPrice(price - 1.55);
+        tick.setClosePrice(price - 5.05);
+        return tick;
+    }
+}
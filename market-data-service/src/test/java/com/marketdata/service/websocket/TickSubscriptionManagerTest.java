@@ -0,0 +1,280 @@
+package com.marketdata.service.websocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.marketdata.common.MarketDataProvider;
+import com.marketdata.common.MarketDataProviderFactory;
+import com.marketdata.service.instrument.InstrumentMaster;
+import com.marketdata.service.instrument.InstrumentMasterService;
+import com.marketdata.service.instrument.TokenSymbolResolver;
+import com.marketdata.service.tick.TickLatencyRecorder;
+import com.marketdata.service.tick.TickPipeline;
+import com.zerodhatech.models.Tick;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class TickSubscriptionManagerTest {
+
+    private static final long INFY = 408065L;
+    private static final long TCS = 2953217L;
+    private static final long USDINR = 268043L;
+
+    private final List<String> upstreamCalls = Collections.synchronizedList(new ArrayList<>());
+    private final List<Sent> sent = Collections.synchronizedList(new ArrayList<>());
+    private TickPipeline tickPipeline;
+    private TickSubscriptionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TickLatencyRecorder latencyRecorder = new TickLatencyRecorder(meterRegistry);
+        tickPipeline = new TickPipeline(meterRegistry, latencyRecorder);
+        ReflectionTestUtils.setField(tickPipeline, "bufferSize", 1024);
+        ReflectionTestUtils.setField(tickPipeline, "batchSize", 256);
+        ReflectionTestUtils.setField(tickPipeline, "idleParkMicros", 1000L);
+        tickPipeline.initialize();
+
+        InstrumentMasterService instrumentMasterService = new InstrumentMasterService(meterRegistry);
+        instrumentMasterService.update(new InstrumentMaster.Builder(4)
+                .add(INFY, 1594L, "INFY", "INFOSYS", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .add(TCS, 11536L, "TCS", "TATA CONSULTANCY SERVICES", "NSE", "NSE", "EQ", 0L, 0, 0.05, 1)
+                .add(USDINR, 1047L, "USDINR24DECFUT", "USDINR", "CDS", "CDS-FUT", "FUT", 0L, 0, 0.0025, 1)
+                .build());
+        TokenSymbolResolver tokenSymbolResolver = new TokenSymbolResolver(null, instrumentMasterService);
+
+        manager = new TickSubscriptionManager(new FakeProviderFactory(meterRegistry), new RecordingTemplate(),
+                tickPipeline, meterRegistry, tokenSymbolResolver, instrumentMasterService, latencyRecorder);
+        manager.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tickPipeline.cleanup();
+    }
+
+    @Test
+    void shouldSubscribeUpstreamOnlyForFirstSessionAndReleaseAfterLast() {
+        // Given
+        String first = manager.openSession("conn-1");
+        String second = manager.openSession("conn-2");
+
+        // When
+        manager.subscribe("conn-1", first, List.of("408065", "2953217"), TickFormat.JSON);
+        manager.subscribe("conn-2", second, List.of("408065"), TickFormat.JSON);
+        manager.unsubscribe("conn-1", first);
+
+        // Then
+        assertEquals(List.of("subscribe [408065, 2953217]", "unsubscribe [2953217]"), upstreamCalls,
+                "Only the first reference should subscribe and only the last release should unsubscribe");
+
+        // When
+        manager.unsubscribe("conn-2", second);
+
+        // Then
+        assertEquals("unsubscribe [408065]", upstreamCalls.get(2), "Last session should release the token upstream");
+    }
+
+    @Test
+    void shouldRouteTicksOnlyToSubscribedSessions() {
+        // Given
+        String infy = manager.openSession("conn-1");
+        String tcs = manager.openSession("conn-2");
+        manager.subscribe("conn-1", infy, List.of("408065"), TickFormat.JSON);
+        manager.subscribe("conn-2", tcs, List.of("2953217"), TickFormat.JSON);
+
+        // When
+        tickPipeline.onTicks(new ArrayList<>(List.of(tick(INFY, 1520.5), tick(TCS, 3900.0), tick(1L, 1.0))));
+        waitUntil(() -> sent.size() == 2);
+
+        // Then
+        assertEquals(List.of(INFY), tokensSentTo(infy), "Session should only receive its own instruments");
+        assertEquals(List.of(TCS), tokensSentTo(tcs), "Session should only receive its own instruments");
+    }
+
+    @Test
+    void shouldReleaseEverySessionOfDisconnectedConnection() {
+        // Given
+        String first = manager.openSession("conn-1");
+        String second = manager.openSession("conn-1");
+        String other = manager.openSession("conn-2");
+        manager.subscribe("conn-1", first, List.of("408065"), TickFormat.JSON);
+        manager.subscribe("conn-1", second, List.of("2953217"), TickFormat.JSON);
+        manager.subscribe("conn-2", other, List.of("2953217"), TickFormat.JSON);
+
+        // When
+        manager.onDisconnect(new SessionDisconnectEvent(this, MessageBuilder.withPayload(new byte[0]).build(), "conn-1",
+                CloseStatus.NORMAL));
+
+        // Then
+        assertEquals("unsubscribe [408065]", upstreamCalls.get(upstreamCalls.size() - 1),
+                "Only tokens no other connection holds should be released");
+        assertFalse(manager.unsubscribe("conn-1", first), "Sessions of the disconnected connection should be gone");
+        assertTrue(manager.unsubscribe("conn-2", other), "Other connections' sessions should be kept");
+    }
+
+    @Test
+    void shouldLeaveSessionUnchangedWhenAnIdIsInvalid() {
+        // Given
+        String session = manager.openSession("conn-1");
+        manager.subscribe("conn-1", session, List.of("408065"), TickFormat.JSON);
+
+        // When
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.subscribe("conn-1", session, List.of("2953217", "INFY"), TickFormat.JSON),
+                "Id that is not a token should be rejected");
+
+        // Then
+        assertEquals(1, manager.subscribe("conn-1", session, List.of(), TickFormat.JSON),
+                "Session should keep only its earlier instruments");
+        assertEquals(List.of("subscribe [408065]"), upstreamCalls, "Rejected request should not reach upstream");
+    }
+
+    @Test
+    void shouldRejectSessionOfAnotherConnection() {
+        // Given
+        String session = manager.openSession("conn-1");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.subscribe("conn-2", session, List.of("408065"), TickFormat.JSON),
+                "Connection should not subscribe another connection's session");
+        assertFalse(manager.unsubscribe("conn-2", session), "Connection should not release another connection's session");
+        assertTrue(upstreamCalls.isEmpty(), "Nothing should be subscribed upstream");
+    }
+
+    @Test
+    void shouldSendDictionaryWithPriceScaleBeforeBinaryTicks() {
+        // Given
+        String session = manager.openSession("conn-1");
+
+        // When
+        manager.subscribe("conn-1", session, List.of("268043", "408065"), TickFormat.BINARY);
+        tickPipeline.onTicks(new ArrayList<>(List.of(tick(USDINR, 83.2525), tick(INFY, 1520.55))));
+        waitUntil(() -> sent.size() == 2);
+
+        // Then
+        ByteBuffer dictionary = frame(0);
+        assertEquals(BinaryTickEncoder.TYPE_DICTIONARY, dictionary.get(3), "Dictionary frame should be sent first");
+        assertEquals(2, dictionary.getInt(4), "Both instruments should be defined");
+        Map<Long, Integer> idByToken = new HashMap<>();
+        Map<Integer, Integer> decimalsById = new HashMap<>();
+        dictionary.position(BinaryTickEncoder.HEADER_SIZE);
+        for (int i = 0; i < 2; i++) {
+            int id = dictionary.getInt();
+            long token = dictionary.getLong();
+            idByToken.put(token, id);
+            decimalsById.put(id, (int) dictionary.get());
+            int symbolLength = dictionary.get();
+            dictionary.position(dictionary.position() + symbolLength);
+        }
+        assertEquals(4, (int) decimalsById.get(idByToken.get(USDINR)), "Currency derivative should be scaled by its tick size");
+        assertEquals(2, (int) decimalsById.get(idByToken.get(INFY)), "Equity should be scaled to paise");
+
+        ByteBuffer ticks = frame(1);
+        assertEquals(BinaryTickEncoder.TYPE_TICKS, ticks.get(3), "Tick frame should follow the dictionary");
+        assertEquals(2, ticks.getInt(4), "Both ticks should be encoded");
+        assertEquals((int) idByToken.get(USDINR), ticks.getInt(BinaryTickEncoder.HEADER_SIZE), "Ticks should keep their order");
+        assertEquals(832525, ticks.getInt(BinaryTickEncoder.HEADER_SIZE + 4), "Price should keep four decimals");
+        int second = BinaryTickEncoder.HEADER_SIZE + BinaryTickEncoder.TICK_RECORD_SIZE;
+        assertEquals(152055, ticks.getInt(second + 4), "Price should keep two decimals");
+    }
+
+    private ByteBuffer frame(int index) {
+        return ByteBuffer.wrap((byte[]) sent.get(index).payload).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> tokensSentTo(String sessionId) {
+        List<Long> tokens = new ArrayList<>();
+        synchronized (sent) {
+            for (Sent message : sent) {
+                if (message.destination.equals(TickSubscriptionManager.TICK_TOPIC_PREFIX + sessionId)) {
+                    for (Tick tick : ((Map<String, List<Tick>>) message.payload).get("ticks")) {
+                        tokens.add(tick.getInstrumentToken());
+                    }
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static Tick tick(long token, double price) {
+        Tick tick = new Tick();
+        tick.setInstrumentToken(token);
+        tick.setLastTradedPrice(price);
+        return tick;
+    }
+
+    private static void waitUntil(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not reached within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private record Sent(String destination, Object payload) {
+    }
+
+    /**
+     * Messaging template recording what is sent instead of publishing it
+     */
+    private final class RecordingTemplate extends SimpMessagingTemplate {
+
+        RecordingTemplate() {
+            super((message, timeout) -> true);
+        }
+
+        @Override
+        public void convertAndSend(String destination, Object payload, Map<String, Object> headers) {
+            sent.add(new Sent(destination, payload));
+        }
+    }
+
+    /**
+     * Provider factory handing out a provider that records ticker subscriptions
+     */
+    private final class FakeProviderFactory extends MarketDataProviderFactory {
+        private final MarketDataProvider provider = (MarketDataProvider) Proxy.newProxyInstance(
+                MarketDataProvider.class.getClassLoader(), new Class<?>[]{MarketDataProvider.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "subscribeTicker" -> upstreamCalls.add("subscribe " + args[1]);
+                        case "unsubscribeTicker" -> upstreamCalls.add("unsubscribe " + args[1]);
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                    return null;
+                });
+
+        FakeProviderFactory(MeterRegistry meterRegistry) {
+            super(null, meterRegistry, null);
+        }
+
+        @Override
+        public MarketDataProvider getProvider() {
+            return provider;
+        }
+    }
+}